@@ -19,15 +19,6 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.spec.KeySpec;
-import java.util.Base64;
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.PDFRenderer;
@@ -38,13 +29,53 @@ import org.apache.pdfbox.rendering.PDFRenderer;
 public class AdvancedEditor extends JFrame {
     
     private static int newFileCounter = 1;
+    
+    // Images at least this large get a cached preview of this size (longest side)
+    private static final long IMAGE_PREVIEW_MIN_PIXELS = 4_000_000;
+    private static final int IMAGE_PREVIEW_SIZE = 2048;
+    
+    // Whole-file reads that take longer than this are given up (stalled network drives). Saves
+    // have none, a save given up that late could still replace the file after reporting failure
+    private static final java.time.Duration IO_DEADLINE = java.time.Duration.ofMinutes(2);
+    
+    // Tabs created per EDT event when many files are opened at once
+    private static final int TAB_BATCH_SIZE = 16;
+    
+    // Opening a directory with more files than this asks first
+    private static final int OPEN_DIRECTORY_CONFIRM = 100;
+    
+    // Child of archive nodes that have not been listed yet
+    private static final String ARCHIVE_LOADING = "Loading...";
+    
+    // Compressed files are decoded into the tab in chunks of this many characters
+    private static final int COMPRESSED_CHUNK_CHARS = 1024 * 1024;
+    
+    // Decoded chunks waiting for the EDT before decompression pauses
+    private static final int COMPRESSED_CHUNKS_IN_FLIGHT = 4;
+    
+    // Indent written by Format JSON
+    private static final String JSON_INDENT = "  ";
+    
+    // Zoom steps of PDF and image tabs
+    private static final double[] ZOOM_FACTORS = {0.25, 0.33, 0.5, 0.67, 0.75, 0.9, 1, 1.1, 1.25, 1.5, 1.75, 2, 2.5, 3, 4};
+    
     private JTabbedPane tabbedPane;
     private boolean isDarkMode = false;
     private JLabel statusLabel;
     private JCheckBoxMenuItem darkModeMenuItem;
     private JSplitPane splitPane;
+    private JSplitPane outlineSplit;
+    private SymbolOutline symbolOutline;
     private JTree fileTree;
     private DefaultMutableTreeNode rootNode;
+    private RSyntaxTextArea lastFocusedTextArea;
+    private FileWatcher fileWatcher;
+    private boolean applyingExternalChange = false;
+    private final PathIndex pathIndex = new PathIndex();
+    private WorkspaceReplaceDialog workspaceReplaceDialog;
+    private final JumpList jumpList = new JumpList();
+    private int editorFontSize = EditorFonts.DEFAULT_SIZE;
+    private MemoryGovernor memoryGovernor;
     
     public AdvancedEditor() {
         // Set window properties
@@ -63,6 +94,21 @@ public class AdvancedEditor extends JFrame {
         // Initialize components
         initializeUI();
         
+        // Watch open files for changes made by other programs
+        try {
+            fileWatcher = new FileWatcher(this::checkExternalChange);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not start file watcher: " + e.getMessage());
+        }
+        
+        // Some platforms only poll for file changes, so also re-check when the window is activated
+        addWindowFocusListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowGainedFocus(java.awt.event.WindowEvent e) {
+                checkAllExternalChanges();
+            }
+        });
+        
         // Create first tab
         createNewTab();
         
@@ -77,6 +123,16 @@ public class AdvancedEditor extends JFrame {
         tabbedPane = new JTabbedPane();
         tabbedPane.addChangeListener(e -> updateStatusBar());
         
+        // Bring back content that was released under memory pressure when its tab is shown
+        tabbedPane.addChangeListener(e -> restoreReleasedTab(tabbedPane.getSelectedComponent()));
+        
+        // Editors of background tabs take a zoom change when they are shown
+        tabbedPane.addChangeListener(e -> {
+            for (RSyntaxTextArea textArea : getTextAreasInComponent(tabbedPane.getSelectedComponent())) {
+                applyFontSize(textArea);
+            }
+        });
+        
         // Enable FlatLaf close buttons on tabs
         tabbedPane.putClientProperty("JTabbedPane.tabClosable", true);
         
@@ -87,19 +143,37 @@ public class AdvancedEditor extends JFrame {
         // Add right-click context menu for tabs
         addTabContextMenu();
         
+        // Symbol outline on the right of the tabs, shown from the View menu
+        symbolOutline = new SymbolOutline(offset -> {
+            RSyntaxTextArea textArea = getCurrentTextArea();
+            if (textArea != null) {
+                navigateTo(textArea, offset);
+            }
+        });
+        outlineSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, tabbedPane, null);
+        outlineSplit.setResizeWeight(1.0);
+        tabbedPane.addChangeListener(e -> updateOutline());
+        
         // Create split pane (file tree on left, editor on right)
-        splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, fileTreePanel, tabbedPane);
+        splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, fileTreePanel, outlineSplit);
         splitPane.setDividerLocation(250);
         splitPane.setOneTouchExpandable(true);
         add(splitPane, BorderLayout.CENTER);
         
         // Create status bar
-        JPanel statusBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JPanel statusBar = new JPanel(new BorderLayout());
         statusBar.setBorder(BorderFactory.createEtchedBorder());
         statusLabel = new JLabel("Lines: 0 | Characters: 0");
-        statusBar.add(statusLabel);
+        statusBar.add(statusLabel, BorderLayout.WEST);
         add(statusBar, BorderLayout.SOUTH);
         
+        // Watch the heap and shed caches before it runs out (cheapest to restore first)
+        memoryGovernor = new MemoryGovernor(this::estimateTabFootprints);
+        memoryGovernor.addShedder("image caches", this::releaseImageCaches);
+        memoryGovernor.addShedder("background editors", this::unloadBackgroundEditors);
+        memoryGovernor.addShedder("undo history", BoundedUndoManager::spillAll);
+        statusBar.add(memoryGovernor.getIndicator(), BorderLayout.EAST);
+        
         // Create menu bar
         createMenuBar();
         
@@ -134,8 +208,16 @@ public class AdvancedEditor extends JFrame {
                         File file = (File) userObject;
                         setText(file.getName());
                         
-                        // Set icons
-                        if (file.isDirectory()) {
+                        // Set icons (archives can be expanded like directories)
+                        if (file.isDirectory() || !leaf) {
+                            setIcon(expanded ? getOpenIcon() : getClosedIcon());
+                        } else {
+                            setIcon(getLeafIcon());
+                        }
+                    } else if (userObject instanceof ArchiveIndex.Entry) {
+                        ArchiveIndex.Entry entry = (ArchiveIndex.Entry) userObject;
+                        setText(entry.getName());
+                        if (entry.isDirectory()) {
                             setIcon(expanded ? getOpenIcon() : getClosedIcon());
                         } else {
                             setIcon(getLeafIcon());
@@ -147,7 +229,10 @@ public class AdvancedEditor extends JFrame {
             }
         });
         
-        // Add mouse listener for double-click
+        // Several files can be selected and opened together
+        fileTree.getSelectionModel().setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);
+        
+        // Add mouse listener for double-click and the context menu
         fileTree.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -157,14 +242,50 @@ public class AdvancedEditor extends JFrame {
                     
                     if (node != null && node.getUserObject() instanceof File) {
                         File file = (File) node.getUserObject();
-                        if (file.isFile()) {
+                        // Archives expand on double-click instead
+                        if (file.isFile() && !ArchiveIndex.isArchiveName(file.getName())) {
                             openFileFromTree(file);
                         }
+                    } else if (node != null && node.getUserObject() instanceof ArchiveIndex.Entry) {
+                        ArchiveIndex.Entry entry = (ArchiveIndex.Entry) node.getUserObject();
+                        if (!entry.isDirectory()) {
+                            openArchiveEntry(entry);
+                        }
                     }
                 }
             }
+            
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (e.isPopupTrigger()) {
+                    showTreeContextMenu(e);
+                }
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (e.isPopupTrigger()) {
+                    showTreeContextMenu(e);
+                }
+            }
+        });
+        
+        // Archives and their directories are listed when first expanded
+        fileTree.addTreeWillExpandListener(new javax.swing.event.TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(javax.swing.event.TreeExpansionEvent e) {
+                loadArchiveChildren((DefaultMutableTreeNode) e.getPath().getLastPathComponent());
+            }
+            
+            @Override
+            public void treeWillCollapse(javax.swing.event.TreeExpansionEvent e) {
+            }
         });
         
+        // Enter opens every selected file
+        fileTree.registerKeyboardAction(e -> openSelectedTreeFiles(),
+            KeyStroke.getKeyStroke("ENTER"), JComponent.WHEN_FOCUSED);
+        
         // Wrap tree in scroll pane
         JScrollPane treeScrollPane = new JScrollPane(fileTree);
         panel.add(treeScrollPane, BorderLayout.CENTER);
@@ -177,6 +298,235 @@ public class AdvancedEditor extends JFrame {
         return panel;
     }
     
+    /**
+     * Show the explorer context menu for the clicked node
+     */
+    private void showTreeContextMenu(MouseEvent e) {
+        TreePath clickedPath = fileTree.getPathForLocation(e.getX(), e.getY());
+        if (clickedPath == null) {
+            return;
+        }
+        
+        // Right-clicking outside the selection selects the clicked node
+        if (!fileTree.isPathSelected(clickedPath)) {
+            fileTree.setSelectionPath(clickedPath);
+        }
+        Object userObject = ((DefaultMutableTreeNode) clickedPath.getLastPathComponent()).getUserObject();
+        
+        JPopupMenu popupMenu = new JPopupMenu();
+        
+        // Open menu item (all selected files)
+        JMenuItem openItem = new JMenuItem("Open");
+        openItem.setEnabled(!getSelectedTreeFiles().isEmpty());
+        openItem.addActionListener(evt -> openSelectedTreeFiles());
+        popupMenu.add(openItem);
+        
+        // Open Directory menu item (every file directly inside the clicked directory)
+        JMenuItem openDirectoryItem = new JMenuItem("Open Directory");
+        openDirectoryItem.setEnabled(userObject instanceof File && ((File) userObject).isDirectory());
+        openDirectoryItem.addActionListener(evt -> openDirectory((File) userObject));
+        popupMenu.add(openDirectoryItem);
+        
+        popupMenu.show(fileTree, e.getX(), e.getY());
+    }
+    
+    /**
+     * Files (not directories) among the selected explorer nodes, in tree order; entries of
+     * archives are File or ArchiveIndex.Entry objects
+     */
+    private java.util.List<Object> getSelectedTreeFiles() {
+        java.util.List<Object> files = new java.util.ArrayList<>();
+        int[] rows = fileTree.getSelectionRows();
+        if (rows == null) {
+            return files;
+        }
+        java.util.Arrays.sort(rows);
+        for (int row : rows) {
+            Object userObject = ((DefaultMutableTreeNode) fileTree.getPathForRow(row).getLastPathComponent())
+                .getUserObject();
+            if (userObject instanceof File && ((File) userObject).isFile()
+                    && !ArchiveIndex.isArchiveName(((File) userObject).getName())) {
+                files.add(userObject);
+            } else if (userObject instanceof ArchiveIndex.Entry && !((ArchiveIndex.Entry) userObject).isDirectory()) {
+                files.add(userObject);
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * Open every selected file of the explorer
+     */
+    private void openSelectedTreeFiles() {
+        java.util.List<File> files = new java.util.ArrayList<>();
+        for (Object selected : getSelectedTreeFiles()) {
+            if (selected instanceof File) {
+                files.add((File) selected);
+            } else {
+                openArchiveEntry((ArchiveIndex.Entry) selected);
+            }
+        }
+        if (!files.isEmpty()) {
+            openFiles(files);
+        }
+    }
+    
+    /**
+     * List the children of an archive (or a directory inside one) the first time it is expanded
+     */
+    private void loadArchiveChildren(DefaultMutableTreeNode node) {
+        if (node.getChildCount() != 1
+                || !ARCHIVE_LOADING.equals(((DefaultMutableTreeNode) node.getFirstChild()).getUserObject())
+                || Boolean.TRUE.equals(fileTree.getClientProperty(node))) {
+            return; // Already listed or being listed
+        }
+        Object userObject = node.getUserObject();
+        java.nio.file.Path archive;
+        String directory;
+        if (userObject instanceof ArchiveIndex.Entry) {
+            archive = ((ArchiveIndex.Entry) userObject).getArchive();
+            directory = ((ArchiveIndex.Entry) userObject).getPath();
+        } else {
+            archive = ((File) userObject).toPath();
+            directory = "";
+        }
+        fileTree.putClientProperty(node, true);
+        
+        // The first listing reads the central directory (or scans a TAR), later ones hit the cache
+        IoExecutor.get().task("List " + archive.getFileName(), () -> {
+                try (ArchiveIndex index = ArchiveIndex.open(archive)) {
+                    return index.list(directory);
+                }
+            })
+            .onSuccess(entries -> {
+                fileTree.putClientProperty(node, null);
+                node.removeAllChildren();
+                for (ArchiveIndex.Entry entry : entries) {
+                    DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(entry);
+                    if (entry.isDirectory()) {
+                        childNode.add(new DefaultMutableTreeNode(ARCHIVE_LOADING));
+                    }
+                    node.add(childNode);
+                }
+                ((DefaultTreeModel) fileTree.getModel()).nodeStructureChanged(node);
+                fileTree.expandPath(new TreePath(node.getPath()));
+            })
+            .onFailure(e -> {
+                fileTree.putClientProperty(node, null);
+                fileTree.collapsePath(new TreePath(node.getPath()));
+                showFileError("Error reading archive", "Archive Error", e);
+            })
+            .start();
+    }
+    
+    /**
+     * Open one file of an archive in a new tab, streaming only that entry into it chunk by
+     * chunk (entries can be larger than a byte array)
+     */
+    private void openArchiveEntry(ArchiveIndex.Entry entry) {
+        createNewTab();
+        EditorTextArea textArea = (EditorTextArea) getCurrentTextArea();
+        Component tab = tabbedPane.getSelectedComponent();
+        int index = tabbedPane.getSelectedIndex();
+        tabbedPane.setTitleAt(index, entry.getName());
+        tabbedPane.setToolTipTextAt(index, entry.getArchive() + "!/" + entry.getPath());
+        setSyntaxStyle(textArea, entry.getName());
+        textArea.setEditable(false);
+        textArea.putClientProperty("loading", Boolean.TRUE);
+        
+        // Closing the tab stops reading
+        IoScope scope = new IoScope();
+        ((JComponent) tab).putClientProperty("ioScope", scope);
+        textArea.setUndoSuspended(true);
+        Compression.TextSink sink = documentChunkSink(textArea.getDocument(), scope);
+        IoExecutor.get().task("Read " + entry, () -> {
+            try (ArchiveIndex archive = ArchiveIndex.open(entry.getArchive())) {
+                Compression.readText(archive.openEntry(entry.getPath()), COMPRESSED_CHUNK_CHARS, sink);
+            }
+            return null;
+        }).in(scope).onSuccess(done -> {
+            ((JComponent) tab).putClientProperty("ioScope", null);
+            textArea.setUndoSuspended(false);
+            textArea.setEditable(true);
+            textArea.putClientProperty("loading", null);
+            textArea.setCaretPosition(0);
+            
+            // Not a file on disk, Save asks where to write it
+            textArea.putClientProperty("modified", false);
+            updateTabTitle(tabbedPane.indexOfComponent(tab), false);
+        }).onFailure(e -> {
+            int failedIndex = tabbedPane.indexOfComponent(tab);
+            if (failedIndex >= 0) {
+                closeTab(failedIndex);
+            }
+            showFileError("Error reading archive entry", "Archive Error", e);
+        }).start();
+    }
+    
+    /**
+     * Append text chunks from an I/O thread to a document on the EDT. The reader waits while
+     * a few chunks are queued, and chunks still queued when the scope closes are dropped.
+     */
+    private Compression.TextSink documentChunkSink(javax.swing.text.Document document, IoScope scope) {
+        java.util.concurrent.Semaphore inFlight = new java.util.concurrent.Semaphore(COMPRESSED_CHUNKS_IN_FLIGHT);
+        return chunk -> {
+            inFlight.acquire();
+            EdtDispatcher.get().dispatch(() -> {
+                inFlight.release();
+                if (scope.isClosed()) {
+                    return; // Queued before the tab was closed
+                }
+                applyingExternalChange = true;
+                try {
+                    document.insertString(document.getLength(), chunk, null);
+                } catch (javax.swing.text.BadLocationException e) {
+                    e.printStackTrace();
+                } finally {
+                    applyingExternalChange = false;
+                }
+            });
+        };
+    }
+    
+    /**
+     * Open all visible files directly inside a directory
+     */
+    private void openDirectory(File directory) {
+        // List on an I/O thread, directories on network drives can be slow
+        IoExecutor.get().task("List " + directory, () -> {
+            java.util.List<File> files = new java.util.ArrayList<>();
+            File[] entries = directory.listFiles();
+            if (entries != null) {
+                for (File entry : entries) {
+                    if (entry.isFile() && !entry.isHidden()) {
+                        files.add(entry);
+                    }
+                }
+            }
+            files.sort((f1, f2) -> f1.getName().compareToIgnoreCase(f2.getName()));
+            return files;
+        }).deadline(IO_DEADLINE).onSuccess(files -> {
+            if (files.isEmpty()) {
+                JOptionPane.showMessageDialog(this,
+                    directory.getName() + " contains no files.",
+                    "Open Directory",
+                    JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            if (files.size() > OPEN_DIRECTORY_CONFIRM) {
+                int option = JOptionPane.showConfirmDialog(this,
+                    "Open all " + files.size() + " files in " + directory.getName() + "?",
+                    "Open Directory",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.QUESTION_MESSAGE);
+                if (option != JOptionPane.YES_OPTION) {
+                    return;
+                }
+            }
+            openFiles(files);
+        }).onFailure(e -> showFileError("Error reading directory", "File Error", e)).start();
+    }
+    
     /**
      * Allow user to select a root directory for the file tree
      */
@@ -201,16 +551,26 @@ public class AdvancedEditor extends JFrame {
             return;
         }
         
-        // Clear existing tree
-        rootNode.removeAllChildren();
-        rootNode.setUserObject(directory);
-        
-        // Load directory contents recursively
-        loadDirectoryNodes(rootNode, directory);
+        // Load directory contents recursively into a detached node, off the EDT
+        IoExecutor.get().task("List " + directory, () -> {
+            DefaultMutableTreeNode loaded = new DefaultMutableTreeNode(directory);
+            loadDirectoryNodes(loaded, directory);
+            return loaded;
+        }).deadline(IO_DEADLINE).onSuccess(loaded -> {
+            // Clear existing tree
+            rootNode.removeAllChildren();
+            rootNode.setUserObject(directory);
+            while (loaded.getChildCount() > 0) {
+                rootNode.add((MutableTreeNode) loaded.getChildAt(0));
+            }
+            
+            // Refresh tree
+            ((DefaultTreeModel) fileTree.getModel()).reload();
+            fileTree.expandRow(0);
+        }).onFailure(e -> showFileError("Error reading directory", "File Error", e)).start();
         
-        // Refresh tree
-        ((DefaultTreeModel) fileTree.getModel()).reload();
-        fileTree.expandRow(0);
+        // Index every file below the root for Quick Open (in the background)
+        pathIndex.rebuild(directory.toPath().toAbsolutePath());
     }
     
     /**
@@ -243,6 +603,11 @@ public class AdvancedEditor extends JFrame {
             DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(file);
             parentNode.add(childNode);
             
+            // Archives get their entries when expanded
+            if (file.isFile() && ArchiveIndex.isArchiveName(file.getName())) {
+                childNode.add(new DefaultMutableTreeNode(ARCHIVE_LOADING));
+            }
+            
             // Recursively load subdirectories (limit depth to avoid performance issues)
             if (file.isDirectory() && parentNode.getLevel() < 5) {
                 loadDirectoryNodes(childNode, file);
@@ -255,14 +620,7 @@ public class AdvancedEditor extends JFrame {
      */
     private void openFileFromTree(File file) {
         try {
-            // Check file type and open accordingly
-            if (isImageFile(file.getName())) {
-                openImageFile(file);
-            } else if (isPdfFile(file.getName())) {
-                openPdfFile(file);
-            } else {
-                openTextFile(file);
-            }
+            openFiles(java.util.Collections.singletonList(file));
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
                 "Error opening file: " + e.getMessage(),
@@ -286,6 +644,10 @@ public class AdvancedEditor extends JFrame {
         openItem.setAccelerator(KeyStroke.getKeyStroke("control O"));
         openItem.addActionListener(e -> openFile());
         
+        JMenuItem quickOpenItem = new JMenuItem("Quick Open...");
+        quickOpenItem.setAccelerator(KeyStroke.getKeyStroke("control P"));
+        quickOpenItem.addActionListener(e -> showQuickOpen());
+        
         JMenuItem saveItem = new JMenuItem("Save");
         saveItem.setAccelerator(KeyStroke.getKeyStroke("control S"));
         saveItem.addActionListener(e -> saveFile());
@@ -298,17 +660,28 @@ public class AdvancedEditor extends JFrame {
         openEncryptedItem.setAccelerator(KeyStroke.getKeyStroke("control shift O"));
         openEncryptedItem.addActionListener(e -> openEncryptedFile());
         
+        JMenuItem exportPdfItem = new JMenuItem("Export to PDF...");
+        exportPdfItem.addActionListener(e -> exportToPdf());
+        
+        JMenuItem printItem = new JMenuItem("Print...");
+        printItem.setAccelerator(KeyStroke.getKeyStroke("control shift P"));
+        printItem.addActionListener(e -> printDocument());
+        
         JMenuItem exitItem = new JMenuItem("Exit");
         exitItem.setAccelerator(KeyStroke.getKeyStroke("alt F4"));
         exitItem.addActionListener(e -> System.exit(0));
         
         fileMenu.add(newItem);
         fileMenu.add(openItem);
+        fileMenu.add(quickOpenItem);
         fileMenu.add(openEncryptedItem);
         fileMenu.addSeparator();
         fileMenu.add(saveItem);
         fileMenu.add(saveEncryptedItem);
         fileMenu.addSeparator();
+        fileMenu.add(exportPdfItem);
+        fileMenu.add(printItem);
+        fileMenu.addSeparator();
         fileMenu.add(exitItem);
         
         // Edit Menu
@@ -334,12 +707,45 @@ public class AdvancedEditor extends JFrame {
         pasteItem.setAccelerator(KeyStroke.getKeyStroke("control V"));
         pasteItem.addActionListener(e -> performPaste());
         
+        // Multi-caret editing (Alt+Click adds a caret, Alt+Drag selects a rectangle)
+        JMenuItem caretAboveItem = new JMenuItem("Add Caret Above");
+        caretAboveItem.setAccelerator(KeyStroke.getKeyStroke("control alt UP"));
+        caretAboveItem.addActionListener(e -> withMultiCaret(carets -> carets.addCaretVertically(false)));
+        
+        JMenuItem caretBelowItem = new JMenuItem("Add Caret Below");
+        caretBelowItem.setAccelerator(KeyStroke.getKeyStroke("control alt DOWN"));
+        caretBelowItem.addActionListener(e -> withMultiCaret(carets -> carets.addCaretVertically(true)));
+        
+        JMenuItem completeItem = new JMenuItem("Complete Word");
+        completeItem.setAccelerator(KeyStroke.getKeyStroke("control SPACE"));
+        completeItem.addActionListener(e -> {
+            RSyntaxTextArea textArea = getCurrentTextArea();
+            if (textArea != null && textArea.isEditable()) {
+                CompletionPopup.of(textArea).show();
+            }
+        });
+        
+        JMenuItem workspaceReplaceItem = new JMenuItem("Replace in Workspace...");
+        workspaceReplaceItem.setAccelerator(KeyStroke.getKeyStroke("control shift H"));
+        workspaceReplaceItem.addActionListener(e -> showWorkspaceReplace());
+        
+        JMenuItem splitLinesItem = new JMenuItem("Split Selection into Lines");
+        splitLinesItem.setAccelerator(KeyStroke.getKeyStroke("alt shift I"));
+        splitLinesItem.addActionListener(e -> withMultiCaret(MultiCaret::splitSelectionIntoLines));
+        
         editMenu.add(undoItem);
         editMenu.add(redoItem);
         editMenu.addSeparator();
         editMenu.add(cutItem);
         editMenu.add(copyItem);
         editMenu.add(pasteItem);
+        editMenu.addSeparator();
+        editMenu.add(caretAboveItem);
+        editMenu.add(caretBelowItem);
+        editMenu.add(splitLinesItem);
+        editMenu.addSeparator();
+        editMenu.add(completeItem);
+        editMenu.add(workspaceReplaceItem);
         
         // View Menu
         JMenu viewMenu = new JMenu("View");
@@ -350,31 +756,145 @@ public class AdvancedEditor extends JFrame {
         
         JMenuItem zoomInItem = new JMenuItem("Zoom In");
         zoomInItem.setAccelerator(KeyStroke.getKeyStroke("control PLUS"));
+        zoomInItem.addActionListener(e -> zoom(1));
         
         JMenuItem zoomOutItem = new JMenuItem("Zoom Out");
         zoomOutItem.setAccelerator(KeyStroke.getKeyStroke("control MINUS"));
+        zoomOutItem.addActionListener(e -> zoom(-1));
+        
+        JMenuItem zoomResetItem = new JMenuItem("Reset Zoom");
+        zoomResetItem.setAccelerator(KeyStroke.getKeyStroke("control 0"));
+        zoomResetItem.addActionListener(e -> zoom(0));
+        
+        // Ctrl+= and the keypad + also zoom in, most layouts need Shift for PLUS
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control EQUALS"), "zoomIn");
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control ADD"), "zoomIn");
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control SUBTRACT"), "zoomOut");
+        getRootPane().getActionMap().put("zoomIn", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom(1);
+            }
+        });
+        getRootPane().getActionMap().put("zoomOut", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom(-1);
+            }
+        });
+        
+        JMenuItem splitItem = new JMenuItem("Split Editor");
+        splitItem.setAccelerator(KeyStroke.getKeyStroke("control BACK_SLASH"));
+        splitItem.addActionListener(e -> toggleSplitView());
+        
+        JMenuItem followItem = new JMenuItem("Follow File (tail -f)");
+        followItem.setAccelerator(KeyStroke.getKeyStroke("control shift L"));
+        followItem.addActionListener(e -> toggleFollowMode());
+        
+        JMenuItem logFilterItem = new JMenuItem("Filter Log by Level");
+        logFilterItem.setAccelerator(KeyStroke.getKeyStroke("control shift E"));
+        logFilterItem.addActionListener(e -> showLogFilter());
+        
+        JMenuItem outlineItem = new JMenuItem("Symbol Outline");
+        outlineItem.setAccelerator(KeyStroke.getKeyStroke("control F12"));
+        outlineItem.addActionListener(e -> toggleOutline());
+        
+        JMenuItem pdfTextItem = new JMenuItem("View PDF as Text");
+        pdfTextItem.addActionListener(e -> openPdfAsText());
         
         viewMenu.add(darkModeMenuItem);
+        viewMenu.add(splitItem);
+        viewMenu.add(followItem);
+        viewMenu.add(logFilterItem);
+        viewMenu.add(outlineItem);
+        viewMenu.add(pdfTextItem);
         viewMenu.addSeparator();
         viewMenu.add(zoomInItem);
         viewMenu.add(zoomOutItem);
+        viewMenu.add(zoomResetItem);
+        
+        // Navigate Menu
+        JMenu navigateMenu = new JMenu("Navigate");
+        
+        JMenuItem goToLineItem = new JMenuItem("Go to Line...");
+        goToLineItem.setAccelerator(KeyStroke.getKeyStroke("control G"));
+        goToLineItem.addActionListener(e -> goToLine());
+        
+        JMenuItem toggleBookmarkItem = new JMenuItem("Toggle Bookmark");
+        toggleBookmarkItem.setAccelerator(KeyStroke.getKeyStroke("control F2"));
+        toggleBookmarkItem.addActionListener(e -> toggleBookmark());
+        
+        JMenuItem nextBookmarkItem = new JMenuItem("Next Bookmark");
+        nextBookmarkItem.setAccelerator(KeyStroke.getKeyStroke("F2"));
+        nextBookmarkItem.addActionListener(e -> goToBookmark(true));
+        
+        JMenuItem previousBookmarkItem = new JMenuItem("Previous Bookmark");
+        previousBookmarkItem.setAccelerator(KeyStroke.getKeyStroke("shift F2"));
+        previousBookmarkItem.addActionListener(e -> goToBookmark(false));
+        
+        JMenuItem clearBookmarksItem = new JMenuItem("Clear Bookmarks");
+        clearBookmarksItem.addActionListener(e -> clearBookmarks());
+        
+        JMenuItem backItem = new JMenuItem("Back");
+        backItem.setAccelerator(KeyStroke.getKeyStroke("alt LEFT"));
+        backItem.addActionListener(e -> goBack());
+        
+        JMenuItem forwardItem = new JMenuItem("Forward");
+        forwardItem.setAccelerator(KeyStroke.getKeyStroke("alt RIGHT"));
+        forwardItem.addActionListener(e -> goForward());
+        
+        navigateMenu.add(goToLineItem);
+        navigateMenu.addSeparator();
+        navigateMenu.add(toggleBookmarkItem);
+        navigateMenu.add(nextBookmarkItem);
+        navigateMenu.add(previousBookmarkItem);
+        navigateMenu.add(clearBookmarksItem);
+        navigateMenu.addSeparator();
+        navigateMenu.add(backItem);
+        navigateMenu.add(forwardItem);
         
         // Tools Menu
         JMenu toolsMenu = new JMenu("Tools");
         
         JMenuItem findItem = new JMenuItem("Find");
         findItem.setAccelerator(KeyStroke.getKeyStroke("control F"));
+        findItem.addActionListener(e -> performFind());
         
         JMenuItem replaceItem = new JMenuItem("Replace");
         replaceItem.setAccelerator(KeyStroke.getKeyStroke("control H"));
         
+        JMenuItem compareSavedItem = new JMenuItem("Compare with Saved File");
+        compareSavedItem.addActionListener(e -> compareWithSavedFile());
+        
+        JMenuItem compareTabItem = new JMenuItem("Compare with Tab...");
+        compareTabItem.addActionListener(e -> compareWithTab());
+        
+        JMenuItem formatJsonItem = new JMenuItem("Format JSON");
+        formatJsonItem.setAccelerator(KeyStroke.getKeyStroke("control shift F"));
+        formatJsonItem.addActionListener(e -> formatJson(false));
+        
+        JMenuItem minifyJsonItem = new JMenuItem("Minify JSON");
+        minifyJsonItem.addActionListener(e -> formatJson(true));
+        
+        JMenuItem jsonOutlineItem = new JMenuItem("JSON Outline");
+        jsonOutlineItem.setAccelerator(KeyStroke.getKeyStroke("control shift J"));
+        jsonOutlineItem.addActionListener(e -> showJsonOutline());
+        
         toolsMenu.add(findItem);
         toolsMenu.add(replaceItem);
+        toolsMenu.addSeparator();
+        toolsMenu.add(compareSavedItem);
+        toolsMenu.add(compareTabItem);
+        toolsMenu.addSeparator();
+        toolsMenu.add(formatJsonItem);
+        toolsMenu.add(minifyJsonItem);
+        toolsMenu.add(jsonOutlineItem);
         
         // Add all menus to menu bar
         menuBar.add(fileMenu);
         menuBar.add(editMenu);
         menuBar.add(viewMenu);
+        menuBar.add(navigateMenu);
         menuBar.add(toolsMenu);
         
         setJMenuBar(menuBar);
@@ -457,57 +977,107 @@ public class AdvancedEditor extends JFrame {
     }
     
     private void createNewTab() {
+        EditorTextArea textArea = createTextArea(null);
+        RTextScrollPane scrollPane = createEditorScrollPane(textArea);
+        
+        // Add tab
+        String tabTitle = "Untitled " + newFileCounter++;
+        tabbedPane.addTab(tabTitle, scrollPane);
+        tabbedPane.setSelectedIndex(tabbedPane.getTabCount() - 1);
+        
+        // Update status bar
+        updateStatusBar();
+    }
+    
+    /**
+     * Create a configured editor, either with a fresh document or as another view of the owner's document
+     */
+    private EditorTextArea createTextArea(EditorTextArea owner) {
         // Create RSyntaxTextArea with syntax highlighting
-        RSyntaxTextArea textArea = new RSyntaxTextArea(20, 60);
-        textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_JAVA);
+        EditorTextArea textArea;
+        if (owner == null) {
+            textArea = new EditorTextArea(20, 60);
+            textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_JAVA);
+        } else {
+            // Share the owner's document, the new view keeps its own caret and scroll position
+            textArea = new EditorTextArea(owner);
+            textArea.putClientProperty("filePath", owner.getClientProperty("filePath"));
+            if (owner.getDocument().getProperty("logIndex") instanceof LogIndex) {
+                LogIndex logIndex = (LogIndex) owner.getDocument().getProperty("logIndex");
+                logIndex.attach(textArea);
+                textArea.putClientProperty("logIndex", logIndex);
+            }
+        }
         textArea.setCodeFoldingEnabled(true);
         textArea.setAntiAliasingEnabled(true);
         
-        // Set font to Consolas or Monospaced, 14pt (Notepad++ style)
-        Font editorFont = new Font("Consolas", Font.PLAIN, 14);
-        if (!editorFont.getFamily().equals("Consolas")) {
-            // Fallback to Monospaced if Consolas not available
-            editorFont = new Font("Monospaced", Font.PLAIN, 14);
-        }
-        textArea.setFont(editorFont);
+        // Consolas or Monospaced at the current zoom size
+        textArea.setFont(EditorFonts.get(editorFontSize));
         
         // Enable undo/redo (RSyntaxTextArea has built-in support)
         textArea.setEnabled(true);
-        textArea.discardAllEdits(); // Clear undo history for new document
+        if (owner == null) {
+            textArea.discardAllEdits(); // Clear undo history for new document
+        }
         
-        // Track if document has been modified
-        textArea.putClientProperty("modified", false);
+        // Track if document has been modified (a new view inherits the owner's state)
+        Object ownerModified = owner != null ? owner.getClientProperty("modified") : null;
+        textArea.putClientProperty("modified", Boolean.TRUE.equals(ownerModified));
         
         // Add document listener to update status bar and track modifications
-        textArea.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+        javax.swing.event.DocumentListener documentListener = new javax.swing.event.DocumentListener() {
             public void insertUpdate(javax.swing.event.DocumentEvent e) { 
-                textArea.putClientProperty("modified", true);
-                int index = tabbedPane.getSelectedIndex();
-                if (index >= 0) {
-                    updateTabTitle(index, true);
-                }
+                markModified(textArea);
                 updateStatusBar(); 
             }
             public void removeUpdate(javax.swing.event.DocumentEvent e) { 
-                textArea.putClientProperty("modified", true);
-                int index = tabbedPane.getSelectedIndex();
-                if (index >= 0) {
-                    updateTabTitle(index, true);
-                }
+                markModified(textArea);
                 updateStatusBar(); 
             }
             public void changedUpdate(javax.swing.event.DocumentEvent e) { 
                 updateStatusBar(); 
             }
-        });
+        };
+        textArea.getDocument().addDocumentListener(documentListener);
+        
+        // Keep the listener so it can be detached when the view is closed
+        textArea.putClientProperty("documentListener", documentListener);
         
         // Add caret listener to update cursor position in real-time
         textArea.addCaretListener(e -> updateStatusBar());
         
+        // Views stay read-only while a large paste is inserted chunk by chunk
+        textArea.addPropertyChangeListener("pasting", e -> {
+            if (Boolean.TRUE.equals(e.getNewValue())) {
+                textArea.putClientProperty("pasteRestore", makeReadOnly(textArea.getDocument()));
+            } else if (textArea.getClientProperty("pasteRestore") instanceof Runnable) {
+                ((Runnable) textArea.getClientProperty("pasteRestore")).run();
+                textArea.putClientProperty("pasteRestore", null);
+            }
+        });
+        
+        // Remember the last focused view so split tabs know which editor is active
+        textArea.addFocusListener(new java.awt.event.FocusAdapter() {
+            @Override
+            public void focusGained(java.awt.event.FocusEvent e) {
+                lastFocusedTextArea = textArea;
+                updateStatusBar();
+            }
+        });
+        
+        return textArea;
+    }
+    
+    /**
+     * Wrap an editor in a themed RTextScrollPane
+     */
+    private RTextScrollPane createEditorScrollPane(RSyntaxTextArea textArea) {
         // Wrap in RTextScrollPane (already correct)
         RTextScrollPane scrollPane = new RTextScrollPane(textArea);
         scrollPane.setLineNumbersEnabled(true);       // Show line numbers
         scrollPane.setFoldIndicatorEnabled(true);      // Enable code folding indicators
+        Bookmarks.of(textArea.getDocument()).showIn(scrollPane);
+        DocumentTokens.of(textArea.getDocument());  // Words for completion in every tab
         
         // Apply theme (Monokai for dark mode, default for light mode)
         try {
@@ -539,6 +1109,10 @@ public class AdvancedEditor extends JFrame {
             System.err.println("Warning: Could not load theme for new tab: " + e.getMessage());
         }
         
+        // The theme brings its own font, put the zoomed editor font back
+        textArea.setFont(EditorFonts.get(editorFontSize));
+        scrollPane.getGutter().setLineNumberFont(EditorFonts.get(editorFontSize));
+        
         // Set gutter (line numbers strip) background color AFTER theme is applied
         // This ensures theme doesn't override our custom colors
         if (isDarkMode) {
@@ -549,77 +1123,264 @@ public class AdvancedEditor extends JFrame {
             scrollPane.getGutter().setBorderColor(new Color(200, 200, 200));  // Gray border
         }
         
-        // Add tab
-        String tabTitle = "Untitled " + newFileCounter++;
-        tabbedPane.addTab(tabTitle, scrollPane);
-        tabbedPane.setSelectedIndex(tabbedPane.getTabCount() - 1);
-        
-        // Update status bar
-        updateStatusBar();
+        return scrollPane;
     }
     
-    private void openFile() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+    /**
+     * Mark an editor as modified and flag the tab that shows it
+     */
+    private void markModified(RSyntaxTextArea textArea) {
+        if (applyingExternalChange) {
+            return; // Text coming from disk does not make the tab dirty
+        }
+        textArea.getDocument().putProperty("pendingSave", null);  // A save in flight no longer covers this
+        textArea.putClientProperty("modified", true);
+        int index = findTabIndex(textArea);
+        if (index >= 0) {
+            updateTabTitle(index, true);
+        }
+    }
+    
+    /**
+     * Toggle a second view of the current document in the same tab
+     */
+    private void toggleSplitView() {
+        int index = tabbedPane.getSelectedIndex();
+        if (index < 0) {
+            return;
+        }
         
-        int result = fileChooser.showOpenDialog(this);
+        Component comp = tabbedPane.getComponentAt(index);
         
-        if (result == JFileChooser.APPROVE_OPTION) {
-            File selectedFile = fileChooser.getSelectedFile();
-            
-            // Check file type and open accordingly
-            if (isImageFile(selectedFile.getName())) {
-                openImageFile(selectedFile);
-            } else if (isPdfFile(selectedFile.getName())) {
-                openPdfFile(selectedFile);
-            } else {
-                openTextFile(selectedFile);
+        if (isEditorSplit(comp)) {
+            // Unsplit: keep the active view and drop the other one
+            JSplitPane split = (JSplitPane) comp;
+            RSyntaxTextArea keep = getTextAreaFromComponent(split);
+            for (RSyntaxTextArea view : getTextAreasInComponent(split)) {
+                if (view != keep) {
+                    transferOwnership(view, SwingUtilities.getAncestorOfClass(RTextScrollPane.class, view));
+                    disposeView(view);
+                }
             }
+            Component keepPane = SwingUtilities.getAncestorOfClass(RTextScrollPane.class, keep);
+            tabbedPane.setComponentAt(index, keepPane);
+            keep.requestFocusInWindow();
+        } else if (comp instanceof RTextScrollPane) {
+            EditorTextArea textArea = (EditorTextArea) ((RTextScrollPane) comp).getTextArea();
+            EditorTextArea view = createTextArea(textArea);
+            RTextScrollPane viewPane = createEditorScrollPane(view);
+            
+            // Both views share one document, so the text is never duplicated
+            JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
+            split.putClientProperty("editorSplit", true);
+            split.setResizeWeight(0.5);
+            tabbedPane.setComponentAt(index, split);
+            split.setTopComponent(comp);
+            split.setBottomComponent(viewPane);
+            
+            view.setCaretPosition(Math.min(textArea.getCaretPosition(), view.getDocument().getLength()));
+            view.requestFocusInWindow();
         }
     }
     
     /**
-     * Check if file is an image based on extension
+     * Open an additional view of an already open document in a new tab
      */
-    private boolean isImageFile(String filename) {
-        String extension = "";
-        int lastDot = filename.lastIndexOf('.');
-        if (lastDot > 0) {
-            extension = filename.substring(lastDot + 1).toLowerCase();
-        }
-        return extension.equals("jpg") || extension.equals("jpeg") || 
-               extension.equals("png") || extension.equals("gif") || 
-               extension.equals("bmp");
+    private void openAdditionalView(EditorTextArea existing, File file) {
+        EditorTextArea view = createTextArea(existing);
+        RTextScrollPane viewPane = createEditorScrollPane(view);
+        
+        tabbedPane.addTab(file.getName(), viewPane);
+        int index = tabbedPane.getTabCount() - 1;
+        tabbedPane.setToolTipTextAt(index, file.getAbsolutePath());
+        updateTabTitle(index, Boolean.TRUE.equals(view.getClientProperty("modified")));
+        tabbedPane.setSelectedIndex(index);
     }
     
     /**
-     * Check if file is a PDF based on extension
+     * Let a view outside the closing component take over the undo history when the owner view of
+     * a document goes away, so the remaining views stop forwarding to a closed editor
      */
-    private boolean isPdfFile(String filename) {
-        String extension = "";
-        int lastDot = filename.lastIndexOf('.');
-        if (lastDot > 0) {
-            extension = filename.substring(lastDot + 1).toLowerCase();
+    private void transferOwnership(RSyntaxTextArea view, Component closing) {
+        if (!(view instanceof EditorTextArea) || ((EditorTextArea) view).isSecondaryView()) {
+            return;
+        }
+        java.util.List<RSyntaxTextArea> views = getViewsOfDocument(view.getDocument());
+        for (RSyntaxTextArea other : views) {
+            if (other != view && !SwingUtilities.isDescendingFrom(other, closing)) {
+                ((EditorTextArea) view).transferOwnership((EditorTextArea) other, views);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Detach a closed view from its shared document
+     */
+    private void disposeView(RSyntaxTextArea view) {
+        Object listener = view.getClientProperty("documentListener");
+        if (listener instanceof javax.swing.event.DocumentListener) {
+            view.getDocument().removeDocumentListener((javax.swing.event.DocumentListener) listener);
+        }
+        if (lastFocusedTextArea == view) {
+            lastFocusedTextArea = null;
+        }
+        Component pane = SwingUtilities.getAncestorOfClass(RTextScrollPane.class, view);
+        if (pane != null) {
+            Bookmarks.of(view.getDocument()).hideFrom((RTextScrollPane) pane);
+        }
+        if (view.getClientProperty("completionPopup") instanceof CompletionPopup) {
+            ((CompletionPopup) view.getClientProperty("completionPopup")).hide();
+        }
+        if (view.getClientProperty("jsonOutline") instanceof JsonOutline) {
+            ((JsonOutline) view.getClientProperty("jsonOutline")).dispose();
+        }
+    }
+    
+    /**
+     * Show the Quick Open palette for files under the explorer root
+     */
+    private void showQuickOpen() {
+        new QuickOpenDialog(this, pathIndex, this::openFileFromTree).setVisible(true);
+    }
+    
+    private void openFile() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+        fileChooser.setMultiSelectionEnabled(true);
+        
+        int result = fileChooser.showOpenDialog(this);
+        
+        if (result == JFileChooser.APPROVE_OPTION) {
+            openFiles(java.util.Arrays.asList(fileChooser.getSelectedFiles()));
+        }
+    }
+    
+    /**
+     * Open files by type; text files are read in parallel and get their tabs in batches
+     */
+    private void openFiles(java.util.List<File> files) {
+        java.util.List<File> textFiles = new java.util.ArrayList<>();
+        for (File file : files) {
+            pathIndex.markOpened(file.toPath().toAbsolutePath());
+            
+            // Check file type and open accordingly
+            if (isImageFile(file.getName())) {
+                openImageFile(file);
+            } else if (isPdfFile(file.getName())) {
+                openPdfFile(file);
+            } else if (isTableFile(file.getName())) {
+                openTableFile(file);
+            } else {
+                textFiles.add(file);
+            }
+        }
+        if (!textFiles.isEmpty()) {
+            openTextFiles(textFiles);
+        }
+    }
+    
+    /**
+     * Check if file is an image based on extension
+     */
+    private boolean isImageFile(String filename) {
+        String extension = "";
+        int lastDot = filename.lastIndexOf('.');
+        if (lastDot > 0) {
+            extension = filename.substring(lastDot + 1).toLowerCase();
+        }
+        return extension.equals("jpg") || extension.equals("jpeg") || 
+               extension.equals("png") || extension.equals("gif") || 
+               extension.equals("bmp");
+    }
+    
+    /**
+     * Check if file is a PDF based on extension
+     */
+    private boolean isPdfFile(String filename) {
+        String extension = "";
+        int lastDot = filename.lastIndexOf('.');
+        if (lastDot > 0) {
+            extension = filename.substring(lastDot + 1).toLowerCase();
         }
         return extension.equals("pdf");
     }
     
+    /**
+     * Check if file is a CSV or TSV table based on extension
+     */
+    private boolean isTableFile(String filename) {
+        String extension = "";
+        int lastDot = filename.lastIndexOf('.');
+        if (lastDot > 0) {
+            extension = filename.substring(lastDot + 1).toLowerCase();
+        }
+        return extension.equals("csv") || extension.equals("tsv");
+    }
+    
+    /**
+     * Open a CSV or TSV file in a table tab, the table fills in once it is parsed
+     */
+    private void openTableFile(File tableFile) {
+        CsvViewer csvViewer = new CsvViewer(tableFile,
+            () -> openTextFiles(java.util.Collections.singletonList(tableFile)),
+            e -> showFileError("Error reading table", "Table Error", e));
+        tabbedPane.addTab(tableFile.getName(), csvViewer);
+        tabbedPane.setSelectedIndex(tabbedPane.getTabCount() - 1);
+        tabbedPane.setToolTipTextAt(tabbedPane.getTabCount() - 1, tableFile.getAbsolutePath());
+    }
+    
     /**
      * Open and display an image file
      */
     private void openImageFile(File imageFile) {
-        try {
+        // Decode (or fetch the cached preview) on an I/O thread, the tab appears when it is ready
+        IoExecutor.get().task("Open " + imageFile.getName(), () -> {
+            // A large image seen before shows its cached preview at once, full size follows
+            RenderCache renderCache = RenderCache.getDefault();
+            BufferedImage preview = renderCache.getImage(imageFile, "image-preview-" + IMAGE_PREVIEW_SIZE);
+            String fullSize = renderCache.getValue(imageFile, "image-size");
+            if (preview != null && fullSize != null) {
+                String[] size = fullSize.trim().split("x");
+                return createScaledIcon(preview, Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            }
+            
             // Load image
-            ImageIcon imageIcon = new ImageIcon(imageFile.getAbsolutePath());
+            return (Icon) new ImageIcon(imageFile.getAbsolutePath());
+        }).heavy().deadline(IO_DEADLINE)
+            .onSuccess(icon -> showImageTab(imageFile, icon))
+            .onFailure(e -> showFileError("Error loading image", "Image Error", e))
+            .start();
+    }
+    
+    /**
+     * Add the tab for an image that was loaded in the background
+     */
+    private void showImageTab(File imageFile, Icon icon) {
+        try {
+            boolean showingPreview = !(icon instanceof ImageIcon);
             
             // Create JLabel to display image
-            JLabel imageLabel = new JLabel(imageIcon);
+            JLabel imageLabel = new JLabel(icon);
             imageLabel.setHorizontalAlignment(JLabel.CENTER);
             
             // Wrap in JScrollPane
             JScrollPane scrollPane = new JScrollPane(imageLabel);
+            
+            if (showingPreview) {
+                // Decode the real image in the background and swap it in
+                IoExecutor.get().task("Decode " + imageFile.getName(),
+                        () -> new ImageIcon(imageFile.getAbsolutePath()))
+                    .heavy()
+                    .onSuccess(decoded -> imageLabel.setIcon(zoomImageIcon(scrollPane, decoded)))
+                    .start();
+            } else {
+                cacheImagePreview(imageFile, (ImageIcon) icon);
+            }
+
             scrollPane.getVerticalScrollBar().setUnitIncrement(16);
             scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+            scrollPane.putClientProperty("imageFile", imageFile);
             
             // Add new tab with image
             tabbedPane.addTab(imageFile.getName(), scrollPane);
@@ -635,404 +1396,2183 @@ public class AdvancedEditor extends JFrame {
         }
     }
     
+    /**
+     * Estimated bytes of an image tab's decoded image, and of its subsampled copy when zoomed
+     */
+    private long imageIconBytes(Icon icon) {
+        if (icon instanceof ZoomedIcon) {
+            Icon source = ((ZoomedIcon) icon).getSource();
+            return 4L * source.getIconWidth() * source.getIconHeight() + ((ZoomedIcon) icon).getExtraBytes();
+        }
+        return icon != null ? 4L * icon.getIconWidth() * icon.getIconHeight() : 0;
+    }
+    
+    /**
+     * The icon for an image tab at the tab's zoom
+     */
+    private Icon zoomImageIcon(JScrollPane scrollPane, Icon icon) {
+        Object zoom = scrollPane.getClientProperty("imageZoom");
+        if (icon instanceof ZoomedIcon) {
+            icon = ((ZoomedIcon) icon).getSource();
+        }
+        if (!(zoom instanceof Double) || (Double) zoom == 1 || icon == null) {
+            return icon;
+        }
+        return new ZoomedIcon(icon, (Double) zoom, (File) scrollPane.getClientProperty("imageFile"));
+    }
+    
+    /**
+     * Zoom the current tab in (1), out (-1) or back to 100% (0). Editors share one font size,
+     * PDF and image tabs each have their own zoom.
+     */
+    private void zoom(int direction) {
+        Component selected = tabbedPane.getSelectedComponent();
+        if (selected instanceof PdfViewer) {
+            PdfViewer viewer = (PdfViewer) selected;
+            viewer.setZoom(stepZoom(viewer.getZoom(), direction));
+            return;
+        }
+        if (selected instanceof JScrollPane && ((JScrollPane) selected).getClientProperty("imageFile") != null) {
+            JScrollPane scrollPane = (JScrollPane) selected;
+            Object current = scrollPane.getClientProperty("imageZoom");
+            scrollPane.putClientProperty("imageZoom", stepZoom(current instanceof Double ? (Double) current : 1, direction));
+            JLabel imageLabel = (JLabel) scrollPane.getViewport().getView();
+            if (imageLabel.getIcon() != null) {
+                imageLabel.setIcon(zoomImageIcon(scrollPane, imageLabel.getIcon()));
+            }
+            return;
+        }
+        
+        editorFontSize = direction == 0 ? EditorFonts.DEFAULT_SIZE : EditorFonts.step(editorFontSize, direction);
+        for (RSyntaxTextArea textArea : getTextAreasInComponent(selected)) {
+            applyFontSize(textArea);
+        }
+    }
+    
+    private static double stepZoom(double zoom, int direction) {
+        if (direction == 0) {
+            return 1;
+        }
+        for (int i = 0; i < ZOOM_FACTORS.length; i++) {
+            double factor = direction > 0 ? ZOOM_FACTORS[i] : ZOOM_FACTORS[ZOOM_FACTORS.length - 1 - i];
+            if (direction > 0 ? factor > zoom + 1e-6 : factor < zoom - 1e-6) {
+                return factor;
+            }
+        }
+        return zoom;
+    }
+    
+    /**
+     * Give a view the current editor font size, keeping the same line at the top
+     */
+    private void applyFontSize(RSyntaxTextArea textArea) {
+        Font font = EditorFonts.get(editorFontSize);
+        if (textArea.getFont() == font) {
+            return;
+        }
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, textArea);
+        int topLine = viewport != null ? viewport.getViewPosition().y / Math.max(1, textArea.getLineHeight()) : 0;
+        textArea.setFont(font);
+        RTextScrollPane scrollPane = (RTextScrollPane) SwingUtilities.getAncestorOfClass(RTextScrollPane.class, textArea);
+        if (scrollPane != null) {
+            scrollPane.getGutter().setLineNumberFont(font);
+        }
+        if (viewport != null) {
+            // Line height from the cached metrics, the text area has not been laid out again yet
+            int y = topLine * EditorFonts.metrics(editorFontSize).getHeight();
+            SwingUtilities.invokeLater(() -> viewport.setViewPosition(new Point(viewport.getViewPosition().x, y)));
+        }
+    }
+    
+    /**
+     * Store a downscaled preview of a large image in the render cache (in the background)
+     */
+    private void cacheImagePreview(File imageFile, ImageIcon imageIcon) {
+        int width = imageIcon.getIconWidth();
+        int height = imageIcon.getIconHeight();
+        if ((long) width * height < IMAGE_PREVIEW_MIN_PIXELS) {
+            return; // Small images decode quickly enough
+        }
+        
+        double scale = (double) IMAGE_PREVIEW_SIZE / Math.max(width, height);
+        Image source = imageIcon.getImage();
+        IoExecutor.get().run("Cache preview of " + imageFile.getName(), () -> {
+            BufferedImage preview = new BufferedImage((int) Math.ceil(width * scale),
+                (int) Math.ceil(height * scale), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = preview.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, preview.getWidth(), preview.getHeight(), null);
+            g.dispose();
+            
+            RenderCache renderCache = RenderCache.getDefault();
+            renderCache.putImage(imageFile, "image-preview-" + IMAGE_PREVIEW_SIZE, preview);
+            renderCache.putValue(imageFile, "image-size", width + "x" + height);
+        });
+    }
+    
+    /**
+     * Icon that paints a preview image stretched to the full image size
+     */
+    private Icon createScaledIcon(BufferedImage preview, int width, int height) {
+        return new Icon() {
+            @Override
+            public void paintIcon(Component c, Graphics g, int x, int y) {
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(preview, x, y, width, height, null);
+                g2.dispose();
+            }
+            
+            @Override
+            public int getIconWidth() {
+                return width;
+            }
+            
+            @Override
+            public int getIconHeight() {
+                return height;
+            }
+        };
+    }
+    
     /**
      * Open and display a PDF file
      */
     private void openPdfFile(File pdfFile) {
-        try {
-            // Load PDF document
-            PDDocument document = PDDocument.load(pdfFile);
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            
-            // Create panel to hold all PDF pages
-            JPanel pdfPanel = new JPanel();
-            pdfPanel.setLayout(new BoxLayout(pdfPanel, BoxLayout.Y_AXIS));
-            pdfPanel.setBackground(Color.GRAY);
+        // Render pages at 150 DPI for good quality
+        int dpi = 150;
+        
+        // Parsing and rendering run on an I/O thread, the tab appears once the pages are ready
+        IoExecutor.get().task("Open " + pdfFile.getName(), () -> {
+            RenderCache renderCache = RenderCache.getDefault();
             
-            int pageCount = document.getNumberOfPages();
+            // A PDF seen before is shown straight from the render cache without parsing it
+            java.util.List<BufferedImage> pageImages = loadCachedPdfPages(pdfFile, dpi);
+            if (pageImages != null) {
+                return pageImages;
+            }
             
-            // Render each page as an image
-            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-                // Render page at 150 DPI for good quality
-                BufferedImage pageImage = pdfRenderer.renderImageWithDPI(pageIndex, 150);
+            // Load PDF document
+            try (PDDocument document = PDDocument.load(pdfFile)) {
+                PDFRenderer pdfRenderer = new PDFRenderer(document);
                 
-                // Create label with page image
-                JLabel pageLabel = new JLabel(new ImageIcon(pageImage));
-                pageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-                pageLabel.setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
+                int pageCount = document.getNumberOfPages();
                 
-                // Add some spacing between pages
-                if (pageIndex > 0) {
-                    pdfPanel.add(Box.createVerticalStrut(10));
+                // Render each page as an image (unless that page is cached)
+                pageImages = new java.util.ArrayList<>();
+                for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                    String variant = PdfViewer.cacheVariant(pageIndex, dpi);
+                    BufferedImage pageImage = renderCache.getImage(pdfFile, variant);
+                    if (pageImage == null) {
+                        pageImage = pdfRenderer.renderImageWithDPI(pageIndex, dpi);
+                        renderCache.putImage(pdfFile, variant, pageImage);
+                    }
+                    pageImages.add(pageImage);
                 }
-                
-                pdfPanel.add(pageLabel);
+                renderCache.putValue(pdfFile, "pdf-pages", String.valueOf(pageCount));
             }
+            return pageImages;
+        }).heavy().onSuccess(pageImages -> {
+            int pageCount = pageImages.size();
             
-            // Close the document after rendering
-            document.close();
-            
-            // Wrap in scroll pane
-            JScrollPane scrollPane = new JScrollPane(pdfPanel);
-            scrollPane.getVerticalScrollBar().setUnitIncrement(16);
-            scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+            // The viewer extracts the text layer in the background for search
+            PdfViewer pdfViewer = new PdfViewer(pdfFile, pageImages, dpi);
             
             // Add tab with PDF viewer
             String tabTitle = pdfFile.getName() + " (" + pageCount + " pages)";
-            tabbedPane.addTab(tabTitle, scrollPane);
+            tabbedPane.addTab(tabTitle, pdfViewer);
             tabbedPane.setSelectedIndex(tabbedPane.getTabCount() - 1);
             tabbedPane.setToolTipTextAt(tabbedPane.getTabCount() - 1, pdfFile.getAbsolutePath());
-            
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading PDF: " + e.getMessage(),
-                "PDF Error",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+        }).onFailure(e -> showFileError("Error loading PDF", "PDF Error", e)).start();
+    }
+    
+    /**
+     * Get all pages of a PDF from the render cache, or null if any page is missing
+     */
+    private java.util.List<BufferedImage> loadCachedPdfPages(File pdfFile, int dpi) {
+        RenderCache renderCache = RenderCache.getDefault();
+        String pages = renderCache.getValue(pdfFile, "pdf-pages");
+        if (pages == null) {
+            return null;
+        }
+        
+        java.util.List<BufferedImage> pageImages = new java.util.ArrayList<>();
+        for (int pageIndex = 0; pageIndex < Integer.parseInt(pages.trim()); pageIndex++) {
+            BufferedImage pageImage = renderCache.getImage(pdfFile, PdfViewer.cacheVariant(pageIndex, dpi));
+            if (pageImage == null) {
+                return null; // Partly evicted, cached pages are still reused while rendering
+            }
+            pageImages.add(pageImage);
         }
+        return pageImages;
     }
     
     /**
-     * Open and display a text file
+     * Find in the current tab (PDF tabs search their text layer)
      */
-    private void openTextFile(File selectedFile) {
-        try {
-            // Read file content with explicit UTF-8 encoding to handle Turkish characters correctly
-            StringBuilder content = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(selectedFile), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
-                }
-                // Remove last newline if file was not empty
-                if (content.length() > 0 && content.charAt(content.length() - 1) == '\n') {
-                    content.setLength(content.length() - 1);
+    private void performFind() {
+        Component selected = tabbedPane.getSelectedComponent();
+        if (selected instanceof PdfViewer) {
+            ((PdfViewer) selected).showFindBar();
+        }
+    }
+    
+    /**
+     * Find and replace across the files below the File Explorer root
+     */
+    private void showWorkspaceReplace() {
+        if (workspaceReplaceDialog == null) {
+            workspaceReplaceDialog = new WorkspaceReplaceDialog(this, pathIndex, () ->
+                rootNode.getUserObject() instanceof File ? ((File) rootNode.getUserObject()).toPath().toAbsolutePath() : null,
+                this::openEditorsByPath, this::openFileFromTree);
+        }
+        
+        // A short single-line selection becomes the query
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        String selected = textArea != null && textArea.getSelectionEnd() - textArea.getSelectionStart() <= 200
+            ? textArea.getSelectedText() : null;
+        workspaceReplaceDialog.showFor(selected);
+    }
+    
+    /**
+     * Owner editors of the files open in tabs, null for tabs a workspace replace must leave
+     * alone (read-only, partly loaded, released or followed)
+     */
+    private java.util.Map<java.nio.file.Path, EditorTextArea> openEditorsByPath() {
+        java.util.Map<java.nio.file.Path, EditorTextArea> editors = new java.util.HashMap<>();
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            for (RSyntaxTextArea view : getTextAreasInComponent(tabbedPane.getComponentAt(i))) {
+                String filePath = (String) view.getClientProperty("filePath");
+                if (filePath == null || !(view instanceof EditorTextArea)) {
+                    continue;
                 }
+                boolean changeable = view.isEditable()
+                    && view.getClientProperty("partialContent") == null
+                    && !Boolean.TRUE.equals(view.getClientProperty("unloaded"))
+                    && view.getDocument().getProperty("logFollower") == null;
+                editors.put(Paths.get(filePath), changeable ? ((EditorTextArea) view).getOwner() : null);
             }
-            
-            // Get current tab or create new one if none exists
-            RSyntaxTextArea textArea = getCurrentTextArea();
-            if (textArea == null) {
-                createNewTab();
-                textArea = getCurrentTextArea();
-            }
-            
-            // Load content into text area
-            textArea.setText(content.toString());
-            textArea.setCaretPosition(0);
-            
-            // Set syntax highlighting based on file extension
-            setSyntaxStyle(textArea, selectedFile.getName());
-            
-            // Update tab title with filename
-            int selectedIndex = tabbedPane.getSelectedIndex();
-            if (selectedIndex >= 0) {
-                tabbedPane.setTitleAt(selectedIndex, selectedFile.getName());
-                tabbedPane.setToolTipTextAt(selectedIndex, selectedFile.getAbsolutePath());
-            }
-            
-            // Store file path for saving
-            textArea.putClientProperty("filePath", selectedFile.getAbsolutePath());
-            textArea.putClientProperty("modified", false);  // Mark as not modified after loading
-            
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error reading file: " + e.getMessage(),
-                "File Error",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
         }
+        return editors;
     }
     
-    private void saveFile() {
-        if (tabbedPane.getTabCount() == 0) {
+    /**
+     * Open the text of the current PDF in a new editor tab, filled in as pages are extracted
+     */
+    private void openPdfAsText() {
+        Component selected = tabbedPane.getSelectedComponent();
+        if (!(selected instanceof PdfViewer)) {
+            JOptionPane.showMessageDialog(this,
+                "Select a PDF tab first.",
+                "View PDF as Text",
+                JOptionPane.INFORMATION_MESSAGE);
             return;
         }
+        PdfViewer pdfViewer = (PdfViewer) selected;
+        PdfTextLayer textLayer = pdfViewer.getTextLayer();
         
+        createNewTab();
         RSyntaxTextArea textArea = getCurrentTextArea();
-        if (textArea == null) {
-            return;
+        tabbedPane.setTitleAt(tabbedPane.getSelectedIndex(), pdfViewer.getFile().getName() + " (text)");
+        
+        // Pages extracted so far go in now, the rest is appended as it arrives
+        int[] appendedPages = {0};
+        PdfTextLayer.Listener appender = new PdfTextLayer.Listener() {
+            @Override
+            public void pageExtracted(int pageIndex) {
+                if (findTabIndex(textArea) < 0) {
+                    textLayer.removeListener(this); // Text tab was closed
+                    return;
+                }
+                StringBuilder text = new StringBuilder();
+                while (appendedPages[0] <= pageIndex) {
+                    if (appendedPages[0] > 0) {
+                        text.append('\n'); // Blank line between pages
+                    }
+                    text.append(textLayer.getPageText(appendedPages[0]++));
+                }
+                applyingExternalChange = true;
+                try {
+                    textArea.getDocument().insertString(textArea.getDocument().getLength(), text.toString(), null);
+                } catch (javax.swing.text.BadLocationException e) {
+                    e.printStackTrace();
+                } finally {
+                    applyingExternalChange = false;
+                }
+                textArea.discardAllEdits();
+                if (textLayer.isComplete()) {
+                    textLayer.removeListener(this);
+                }
+            }
+        };
+        textLayer.addListener(appender);
+        if (textLayer.getExtractedPageCount() > 0) {
+            appender.pageExtracted(textLayer.getExtractedPageCount() - 1);
         }
+        textArea.setCaretPosition(0);
+    }
+    
+    /**
+     * Open text files in new tabs. Empty tabs are created a batch per EDT event, the files are
+     * read in parallel on I/O threads and each tab is filled in as its content arrives.
+     */
+    private void openTextFiles(java.util.List<File> files) {
+        // Read errors are collected and reported once, after the last file of the batch
+        java.util.List<String> failures = new java.util.ArrayList<>();
+        int[] outstanding = {files.size()};
+        Runnable finished = () -> {
+            if (--outstanding[0] == 0 && !failures.isEmpty()) {
+                JOptionPane.showMessageDialog(this,
+                    "Error reading " + (failures.size() == 1 ? "file" : failures.size() + " files") + ":\n"
+                        + String.join("\n", failures.subList(0, Math.min(failures.size(), 10)))
+                        + (failures.size() > 10 ? "\n..." : ""),
+                    "File Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        };
         
-        // Check if file already has a path
-        String filePath = (String) textArea.getClientProperty("filePath");
+        for (int start = 0; start < files.size(); start += TAB_BATCH_SIZE) {
+            java.util.List<File> batch = files.subList(start, Math.min(files.size(), start + TAB_BATCH_SIZE));
+            boolean firstBatch = start == 0;
+            EdtDispatcher.get().dispatch(() -> {
+                Component first = null;
+                for (File file : batch) {
+                    Component tab = openTextFileTab(file, files.size() == 1, failures, finished);
+                    if (first == null) {
+                        first = tab;
+                    }
+                }
+                // The first new tab of the whole request gets the focus
+                if (firstBatch && first != null) {
+                    tabbedPane.setSelectedComponent(first);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Create the tab for one text file and start reading it, returns the new tab or null
+     */
+    private Component openTextFileTab(File file, boolean single, java.util.List<String> failures,
+                                      Runnable finished) {
+        // Attach a new view if the file is already open instead of loading another copy
+        EditorTextArea existing = findTextAreaForPath(file.getAbsolutePath());
+        if (existing != null) {
+            if (single) {
+                ensureLoaded(existing);
+                openAdditionalView(existing, file);
+            }
+            finished.run();
+            return null;
+        }
         
-        if (filePath == null) {
-            // No existing file, show save dialog
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
-            
-            int result = fileChooser.showSaveDialog(this);
-            
-            if (result == JFileChooser.APPROVE_OPTION) {
-                filePath = fileChooser.getSelectedFile().getAbsolutePath();
-            } else {
-                return; // User cancelled
+        // Read-only and empty until the content is there
+        EditorTextArea textArea = createTextArea(null);
+        textArea.setEditable(false);
+        textArea.putClientProperty("loading", Boolean.TRUE);
+        RTextScrollPane scrollPane = createEditorScrollPane(textArea);
+        tabbedPane.addTab(file.getName(), scrollPane);
+        tabbedPane.setToolTipTextAt(tabbedPane.getTabCount() - 1, file.getAbsolutePath());
+        
+        java.util.function.Consumer<Exception> failed = e -> {
+            int index = tabbedPane.indexOfComponent(scrollPane);
+            if (index >= 0) {
+                closeTab(index);
+            }
+            failures.add(file.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+            finished.run();
+        };
+        
+        // Read the bytes once, they give both the text and the on-disk snapshot
+        IoExecutor.get().task("Read " + file.getName(), () -> {
+            // Compressed files are recognized by their magic bytes and streamed instead
+            Compression compression = Compression.detect(file.toPath());
+            if (compression != Compression.NONE) {
+                return new LoadedText(null, null, compression);
+            }
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            return new LoadedText(decodeText(bytes), FileSnapshot.of(file.toPath(), bytes), Compression.NONE);
+        }).heavy().deadline(IO_DEADLINE).onSuccess(loaded -> {
+            if (loaded.compression() == Compression.NONE) {
+                fillTextFileTab(textArea, scrollPane, file, loaded);
+                finished.run();
+            } else if (!loaded.compression().isSupported()) {
+                failed.accept(new IOException(loaded.compression().getDisplayName()
+                    + "-compressed files are not supported"));
+            } else if (tabbedPane.indexOfComponent(scrollPane) >= 0) {
+                streamCompressedFile(textArea, scrollPane, file, loaded.compression(), failed, finished);
+            }
+        }).onFailure(failed).start();
+        return scrollPane;
+    }
+    
+    /**
+     * Decompress a file into its tab chunk by chunk, so the compressed file is never expanded
+     * into memory next to the document
+     */
+    private void streamCompressedFile(EditorTextArea textArea, RTextScrollPane scrollPane, File file,
+                                      Compression compression, java.util.function.Consumer<Exception> failed,
+                                      Runnable finished) {
+        javax.swing.text.Document document = textArea.getDocument();
+        
+        // Closing the tab stops decompressing
+        IoScope scope = new IoScope();
+        scrollPane.putClientProperty("ioScope", scope);
+        
+        // The chunks are not undoable, the history is started once the whole text is in
+        textArea.setUndoSuspended(true);
+        
+        // Decompression waits when the EDT falls behind instead of queueing the whole file.
+        // It is paced by the EDT, so it does not take a heavy permit for its whole run.
+        Compression.TextSink sink = documentChunkSink(document, scope);
+        IoExecutor.get().task("Decompress " + file.getName(), () -> {
+            compression.readText(file.toPath(), COMPRESSED_CHUNK_CHARS, sink);
+            return FileSnapshot.read(file.toPath());
+        }).in(scope).onSuccess(snapshot -> {
+            scrollPane.putClientProperty("ioScope", null);
+            textArea.setUndoSuspended(false);
+            document.putProperty("compression", compression);
+            fillTextFileTab(textArea, scrollPane, file, new LoadedText(null, snapshot, compression));
+            finished.run();
+        }).onFailure(e -> {
+            scrollPane.putClientProperty("ioScope", null);
+            failed.accept(e);
+        }).start();
+    }
+    
+    /**
+     * Put the content of a file that was read in the background into its tab
+     */
+    private void fillTextFileTab(EditorTextArea textArea, Component tab, File file, LoadedText loaded) {
+        int index = tabbedPane.indexOfComponent(tab);
+        if (index < 0) {
+            return; // Tab was closed while reading
+        }
+        
+        // The same file may have been opened in another tab while it was being read
+        EditorTextArea existing = findTextAreaForPath(file.getAbsolutePath());
+        if (existing != null) {
+            boolean selected = tabbedPane.getSelectedIndex() == index;
+            closeTab(index);
+            if (selected) {
+                tabbedPane.setSelectedIndex(findTabIndex(existing));
+            }
+            return;
+        }
+        
+        // Load content into text area (compressed files were streamed in already)
+        if (loaded.text() != null) {
+            textArea.setText(loaded.text());
+        }
+        textArea.setEditable(true);
+        textArea.putClientProperty("loading", null);
+        textArea.discardAllEdits();
+        textArea.setCaretPosition(0);
+        
+        // Set syntax highlighting based on file extension
+        setSyntaxStyle(textArea, file.getName());
+        
+        // Store file path for saving
+        textArea.putClientProperty("filePath", file.getAbsolutePath());
+        textArea.putClientProperty("modified", false);  // Mark as not modified after loading
+        updateTabTitle(index, false);
+        
+        // Remember what is on disk so external changes can be detected
+        trackFile(textArea.getDocument(), file.toPath(), loaded.snapshot());
+        restoreBookmarks(textArea.getDocument(), file.toPath());
+        if (index == tabbedPane.getSelectedIndex()) {
+            updateStatusBar();
+        }
+    }
+    
+    private void saveFile() {
+        saveFile(null);
+    }
+    
+    /**
+     * Save the current tab, onSaved runs once the write has finished successfully
+     */
+    private void saveFile(Runnable onSaved) {
+        if (tabbedPane.getTabCount() == 0) {
+            return;
+        }
+        
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null || !holdsFullText(textArea)) {
+            return;
+        }
+        
+        // Encrypted tabs are saved back encrypted
+        String encryptedPath = (String) textArea.getDocument().getProperty("encryptedPath");
+        if (encryptedPath != null) {
+            saveEncryptedTab(textArea, encryptedPath, onSaved);
+            return;
+        }
+        
+        // Check if file already has a path
+        String filePath = (String) textArea.getClientProperty("filePath");
+        
+        if (filePath == null) {
+            // No existing file, show save dialog
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+            
+            int result = fileChooser.showSaveDialog(this);
+            
+            if (result == JFileChooser.APPROVE_OPTION) {
+                filePath = fileChooser.getSelectedFile().getAbsolutePath();
+            } else {
+                return; // User cancelled
+            }
+        }
+        
+        // A followed log that was trimmed only holds the last lines of the file
+        if (Boolean.TRUE.equals(textArea.getClientProperty("partialContent"))
+                && filePath.equals(textArea.getClientProperty("filePath"))) {
+            int option = JOptionPane.showConfirmDialog(this,
+                "This tab only holds the last lines of " + new File(filePath).getName() + ".\n"
+                    + "Saving will replace the whole file with them. Continue?",
+                "Partial Content",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE);
+            if (option != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+        
+        // Warn before overwriting changes another program made since the file was loaded
+        FileSnapshot snapshot = (FileSnapshot) textArea.getDocument().getProperty("fileSnapshot");
+        if (snapshot != null && filePath.equals(textArea.getClientProperty("filePath"))
+                && !snapshot.matchesAttributes(Paths.get(filePath))) {
+            int option = JOptionPane.showConfirmDialog(this,
+                new File(filePath).getName() + " has been changed by another program.\n"
+                    + "Overwrite those changes?",
+                "File Changed on Disk",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE);
+            if (option != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+        
+        // Save file with UTF-8 encoding
+        String content = textArea.getText();
+        javax.swing.text.Document document = textArea.getDocument();
+        String savePath = filePath;
+        Compression compression = (Compression) document.getProperty("compression");
+        
+        // Edits made while the write is running keep the tab modified
+        Object saveToken = new Object();
+        document.putProperty("pendingSave", saveToken);
+        
+        // Written next to the file and moved over it, so a failed save never leaves it half
+        // written. No deadline: a save cut off after the move would report a failure.
+        IoExecutor.get().task("Save " + new File(savePath).getName(), () -> {
+            if (compression != null) {
+                // Encode and compress as a stream, no second copy of the content in memory
+                AtomicFiles.replace(Paths.get(savePath), temp -> {
+                    try (Writer writer = new OutputStreamWriter(compression.newOutputStream(temp),
+                            StandardCharsets.UTF_8)) {
+                        writer.write(content);
+                    }
+                });
+                return FileSnapshot.read(Paths.get(savePath));
+            }
+            
+            // Use UTF-8 encoding to properly save Turkish characters
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            AtomicFiles.replace(Paths.get(savePath), temp -> Files.write(temp, bytes));
+            return FileSnapshot.of(Paths.get(savePath), bytes);
+        }).heavy().onSuccess(savedSnapshot -> {
+            boolean unchanged = document.getProperty("pendingSave") == saveToken;
+            document.putProperty("pendingSave", null);
+            trackFile(document, Paths.get(savePath), savedSnapshot);
+            
+            // Update tab title and store file path
+            File savedFile = new File(savePath);
+            int tabIndex = findTabIndex(textArea);
+            if (tabIndex >= 0) {
+                tabbedPane.setTitleAt(tabIndex, savedFile.getName());
+                tabbedPane.setToolTipTextAt(tabIndex, savePath);
+            }
+            
+            // Mark every view of this document as saved
+            for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+                view.putClientProperty("filePath", savePath);
+                view.putClientProperty("modified", !unchanged);
+                
+                // Remove asterisk from tab title
+                updateTabTitle(findTabIndex(view), !unchanged);
+            }
+            storeBookmarks(textArea);
+            
+            JOptionPane.showMessageDialog(this,
+                "File saved successfully: " + savedFile.getName(),
+                "Save Successful",
+                JOptionPane.INFORMATION_MESSAGE);
+            
+            if (onSaved != null) {
+                onSaved.run();
+            }
+        }).onFailure(e -> {
+            document.putProperty("pendingSave", null);
+            showFileError("Error saving file", "Save Error", e);
+        }).start();
+    }
+    
+    /**
+     * Check that a tab holds its whole text before it is written, an emptied or still loading
+     * tab would replace the file with an empty or partial one
+     */
+    private boolean holdsFullText(RSyntaxTextArea textArea) {
+        // The flags sit on the view that is loading, any other view shows the same document
+        java.util.List<RSyntaxTextArea> views = getViewsOfDocument(textArea.getDocument());
+        views.add(textArea);
+        for (RSyntaxTextArea view : views) {
+            if (Boolean.TRUE.equals(view.getClientProperty("unloaded"))
+                    || Boolean.TRUE.equals(view.getClientProperty("loading"))) {
+                JOptionPane.showMessageDialog(this,
+                    "The file is still being loaded. Save it once its text is shown.",
+                    "Save",
+                    JOptionPane.INFORMATION_MESSAGE);
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Save file with AES encryption
+     */
+    private void saveEncryptedFile() {
+        if (tabbedPane.getTabCount() == 0) {
+            return;
+        }
+        
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        
+        // Ask for password
+        char[] password = askNewPassword();
+        if (password == null) {
+            return;
+        }
+        
+        // Choose file to save
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+        fileChooser.setDialogTitle("Save Encrypted File");
+        
+        int fileResult = fileChooser.showSaveDialog(this);
+        
+        if (fileResult != JFileChooser.APPROVE_OPTION) {
+            java.util.Arrays.fill(password, '\0');
+            return;
+        }
+        
+        writeEncrypted(textArea, fileChooser.getSelectedFile().getAbsolutePath(), password, null);
+    }
+    
+    /**
+     * Save an encrypted tab back to its file, with the session key if it is still held
+     */
+    private void saveEncryptedTab(RSyntaxTextArea textArea, String encryptedPath, Runnable onSaved) {
+        char[] password = null;
+        if (!SessionKeyStore.get().hasKey(encryptedPath)) {
+            // The key was wiped after being idle, derive a new one
+            password = askNewPassword();
+            if (password == null) {
+                return;
+            }
+        }
+        writeEncrypted(textArea, encryptedPath, password, onSaved);
+    }
+    
+    /**
+     * Encrypt and write a tab on an I/O thread. With a password the file's key is derived
+     * first (and kept for the session), without one the session key is used.
+     */
+    private void writeEncrypted(RSyntaxTextArea textArea, String filePath, char[] password, Runnable onSaved) {
+        if (!holdsFullText(textArea)) {
+            if (password != null) {
+                java.util.Arrays.fill(password, '\0');
+            }
+            return;
+        }
+        String content = textArea.getText();
+        javax.swing.text.Document document = textArea.getDocument();
+        Object saveToken = new Object();
+        document.putProperty("pendingSave", saveToken);
+        
+        IoExecutor.get().task("Encrypt " + new File(filePath).getName(), () -> {
+            SessionKeyStore keyStore = SessionKeyStore.get();
+            if (password != null) {
+                keyStore.derive(filePath, password);
+            }
+            byte[] encryptedData = keyStore.encrypt(filePath, content);
+            
+            // Save encrypted data, through a temporary file like a plain save
+            AtomicFiles.replace(Paths.get(filePath), temp -> Files.write(temp, encryptedData));
+            return (Void) null;
+        }).heavy().onSuccess(done -> {
+            boolean unchanged = document.getProperty("pendingSave") == saveToken;
+            document.putProperty("pendingSave", null);
+            
+            // From now on the tab is that encrypted file and Save keeps it encrypted
+            Object previousPath = document.getProperty("encryptedPath");
+            if (previousPath == null) {
+                untrackFile(document);
+            }
+            document.putProperty("encryptedPath", filePath);
+            if (previousPath != null && !previousPath.equals(filePath) && !isEncryptedFileOpen((String) previousPath)) {
+                SessionKeyStore.get().remove((String) previousPath);
+            }
+            String title = new File(filePath).getName() + " (encrypted)";
+            for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+                view.putClientProperty("filePath", null);
+                view.putClientProperty("modified", !unchanged);
+                int index = findTabIndex(view);
+                if (index >= 0) {
+                    tabbedPane.setTitleAt(index, title);
+                    tabbedPane.setToolTipTextAt(index, filePath);
+                    updateTabTitle(index, !unchanged);
+                }
+            }
+            
+            JOptionPane.showMessageDialog(this,
+                "File encrypted and saved successfully!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            
+            if (onSaved != null) {
+                onSaved.run();
+            }
+        }).onFailure(e -> {
+            document.putProperty("pendingSave", null);
+            showFileError("Error encrypting file", "Encryption Error", e);
+        }).start();
+    }
+    
+    /**
+     * Ask for a new password twice, null if cancelled or invalid
+     */
+    private char[] askNewPassword() {
+        JPasswordField passwordField = new JPasswordField(20);
+        JPasswordField confirmPasswordField = new JPasswordField(20);
+        
+        JPanel passwordPanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        passwordPanel.add(new JLabel("Password:"));
+        passwordPanel.add(passwordField);
+        passwordPanel.add(new JLabel("Confirm:"));
+        passwordPanel.add(confirmPasswordField);
+        
+        int result = JOptionPane.showConfirmDialog(this, passwordPanel,
+            "Enter Password for Encryption", JOptionPane.OK_CANCEL_OPTION);
+        
+        if (result != JOptionPane.OK_OPTION) {
+            return null;
+        }
+        
+        char[] password = passwordField.getPassword();
+        char[] confirmPassword = confirmPasswordField.getPassword();
+        boolean matches = java.util.Arrays.equals(password, confirmPassword);
+        java.util.Arrays.fill(confirmPassword, '\0');
+        
+        if (password.length == 0) {
+            JOptionPane.showMessageDialog(this, "Password cannot be empty!",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        
+        if (!matches) {
+            java.util.Arrays.fill(password, '\0');
+            JOptionPane.showMessageDialog(this, "Passwords do not match!",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        return password;
+    }
+    
+    /**
+     * Open and decrypt an encrypted file
+     */
+    private void openEncryptedFile() {
+        // Choose file to open
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+        fileChooser.setDialogTitle("Open Encrypted File");
+        
+        int fileResult = fileChooser.showOpenDialog(this);
+        
+        if (fileResult != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        File selectedFile = fileChooser.getSelectedFile();
+        String filePath = selectedFile.getAbsolutePath();
+        
+        // A file whose key is still held this session opens without the password
+        char[] password = null;
+        if (!SessionKeyStore.get().hasKey(filePath)) {
+            // Ask for password
+            JPasswordField passwordField = new JPasswordField(20);
+            
+            JPanel passwordPanel = new JPanel(new GridLayout(1, 2, 5, 5));
+            passwordPanel.add(new JLabel("Password:"));
+            passwordPanel.add(passwordField);
+            
+            int result = JOptionPane.showConfirmDialog(this, passwordPanel,
+                "Enter Password to Decrypt", JOptionPane.OK_CANCEL_OPTION);
+            
+            if (result != JOptionPane.OK_OPTION) {
+                return;
+            }
+            
+            password = passwordField.getPassword();
+            
+            if (password.length == 0) {
+                JOptionPane.showMessageDialog(this, "Password cannot be empty!",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        char[] typedPassword = password;
+        
+        IoExecutor.get().task("Decrypt " + selectedFile.getName(), () -> {
+            // Read encrypted data
+            byte[] encryptedData = Files.readAllBytes(Paths.get(filePath));
+            
+            // Derive the key once, then decrypt with it
+            SessionKeyStore keyStore = SessionKeyStore.get();
+            if (typedPassword != null) {
+                keyStore.derive(filePath, typedPassword);
+            }
+            return keyStore.decrypt(filePath, encryptedData);
+        }).heavy().deadline(IO_DEADLINE).onSuccess(decryptedContent -> {
+            // Always a new tab, the current one may hold other work
+            createNewTab();
+            RSyntaxTextArea textArea = getCurrentTextArea();
+            
+            // Load decrypted content
+            textArea.setText(decryptedContent);
+            textArea.discardAllEdits();
+            textArea.setCaretPosition(0);
+            textArea.putClientProperty("modified", false);
+            
+            // Save writes it back encrypted with the session key
+            textArea.getDocument().putProperty("encryptedPath", filePath);
+            
+            // Update tab title
+            int selectedIndex = tabbedPane.getSelectedIndex();
+            if (selectedIndex >= 0) {
+                tabbedPane.setTitleAt(selectedIndex, selectedFile.getName() + " (encrypted)");
+                tabbedPane.setToolTipTextAt(selectedIndex, filePath);
+            }
+            
+            JOptionPane.showMessageDialog(this,
+                "File decrypted successfully!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+        }).onFailure(e -> {
+            // Checked here on the EDT, the tabs may only be looked at from it
+            if (typedPassword != null && !isEncryptedFileOpen(filePath)) {
+                SessionKeyStore.get().remove(filePath); // Wrong password, don't keep its key
+            }
+            JOptionPane.showMessageDialog(this,
+                "Error decrypting file: " + e.getMessage() + 
+                "\nPlease check your password.",
+                "Decryption Error",
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }).start();
+    }
+    
+    /**
+     * Check if any tab still shows the given encrypted file
+     */
+    private boolean isEncryptedFileOpen(String filePath) {
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            for (RSyntaxTextArea view : getTextAreasInComponent(tabbedPane.getComponentAt(i))) {
+                if (filePath.equals(view.getDocument().getProperty("encryptedPath"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Report a failed file operation to the user
+     */
+    private void showFileError(String message, String title, Exception e) {
+        JOptionPane.showMessageDialog(this,
+            message + ": " + e.getMessage(),
+            title,
+            JOptionPane.ERROR_MESSAGE);
+        e.printStackTrace();
+    }
+    
+    /**
+     * Decode file bytes the same way for loading and reloading (UTF-8, '\n' line ends, no final newline)
+     */
+    private String decodeText(byte[] bytes) throws IOException {
+        // Read file content with explicit UTF-8 encoding to handle Turkish characters correctly
+        StringBuilder content = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append("\n");
+            }
+            // Remove last newline if file was not empty
+            if (content.length() > 0 && content.charAt(content.length() - 1) == '\n') {
+                content.setLength(content.length() - 1);
+            }
+        }
+        return content.toString();
+    }
+    
+    /**
+     * Start (or keep) tracking the on-disk state of a document's file
+     */
+    private void trackFile(javax.swing.text.Document document, java.nio.file.Path path, FileSnapshot snapshot) {
+        Object oldPath = document.getProperty("trackedPath");
+        if (fileWatcher != null && !path.equals(oldPath)) {
+            if (oldPath != null) {
+                fileWatcher.unwatch((java.nio.file.Path) oldPath);
+            }
+            fileWatcher.watch(path);
+        }
+        document.putProperty("trackedPath", path);
+        document.putProperty("fileSnapshot", snapshot);
+        document.putProperty("ignoredSnapshot", null);
+    }
+    
+    /**
+     * Estimated memory held by each tab, for the memory indicator
+     */
+    private java.util.Map<String, Long> estimateTabFootprints() {
+        java.util.Map<String, Long> footprints = new java.util.LinkedHashMap<>();
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            Component comp = tabbedPane.getComponentAt(i);
+            long bytes = 0;
+            if (comp instanceof PdfViewer) {
+                bytes = ((PdfViewer) comp).getImageBytes();
+            } else if (comp instanceof CsvViewer) {
+                bytes = ((CsvViewer) comp).getMemoryBytes();
+            } else if (comp instanceof LogFilterView) {
+                bytes = ((LogFilterView) comp).getMemoryBytes();
+            } else if (comp instanceof JScrollPane && ((JScrollPane) comp).getClientProperty("imageFile") != null) {
+                bytes = imageIconBytes(((JLabel) ((JScrollPane) comp).getViewport().getView()).getIcon());
+            } else {
+                java.util.List<RSyntaxTextArea> views = getTextAreasInComponent(comp);
+                if (!views.isEmpty()) {
+                    // Two bytes per char plus roughly 100 bytes of element structure per line
+                    javax.swing.text.Document doc = views.get(0).getDocument();
+                    bytes = 2L * doc.getLength() + 100L * doc.getDefaultRootElement().getElementCount()
+                        + ((EditorTextArea) views.get(0)).getUndoMemoryBytes();
+                    if (doc.getProperty("logIndex") != null) {
+                        bytes += ((LogIndex) doc.getProperty("logIndex")).getMemoryBytes();
+                    }
+                }
+            }
+            footprints.put(tabbedPane.getTitleAt(i), bytes);
+        }
+        return footprints;
+    }
+    
+    /**
+     * Drop page images and decoded images of background tabs, returns the bytes released
+     */
+    private long releaseImageCaches() {
+        long released = 0;
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            Component comp = tabbedPane.getComponentAt(i);
+            if (i == tabbedPane.getSelectedIndex()) {
+                continue;
+            }
+            if (comp instanceof PdfViewer) {
+                released += ((PdfViewer) comp).releasePageImages();
+            } else if (comp instanceof JScrollPane && ((JScrollPane) comp).getClientProperty("imageFile") != null) {
+                JLabel imageLabel = (JLabel) ((JScrollPane) comp).getViewport().getView();
+                Icon icon = imageLabel.getIcon();
+                if (icon != null) {
+                    released += imageIconBytes(icon);
+                    if (icon instanceof ZoomedIcon) {
+                        icon = ((ZoomedIcon) icon).getSource();
+                    }
+                    if (icon instanceof ImageIcon) {
+                        ((ImageIcon) icon).getImage().flush(); // Toolkit keeps decoded pixels otherwise
+                    }
+                    imageLabel.setIcon(null);
+                }
+            }
+        }
+        return released;
+    }
+    
+    /**
+     * Empty unmodified background editors that can be re-read from disk, returns the bytes released
+     */
+    private long unloadBackgroundEditors() {
+        long released = 0;
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            java.util.List<RSyntaxTextArea> views = getTextAreasInComponent(tabbedPane.getComponentAt(i));
+            if (i == tabbedPane.getSelectedIndex() || views.size() != 1) {
+                continue;
+            }
+            RSyntaxTextArea textArea = views.get(0);
+            javax.swing.text.Document doc = textArea.getDocument();
+            if (Boolean.TRUE.equals(textArea.getClientProperty("modified"))
+                    || textArea.canUndo() || textArea.canRedo()  // Its history would be lost
+                    || Boolean.TRUE.equals(textArea.getClientProperty("unloaded"))
+                    || !textArea.isEditable()  // Still being reloaded
+                    || doc.getProperty("compression") != null  // Too costly to decompress again
+                    || textArea.getClientProperty("filePath") == null
+                    || textArea.getClientProperty("partialContent") != null
+                    || doc.getProperty("logFollower") != null
+                    || doc.getProperty("logIndex") != null  // A filter tab may be reading it
+                    || getViewsOfDocument(doc).size() > 1) {
+                continue;
+            }
+            
+            released += 2L * doc.getLength() + 100L * doc.getDefaultRootElement().getElementCount()
+                + ((EditorTextArea) textArea).getUndoMemoryBytes();
+            
+            // Not watched while empty, reloading takes a fresh snapshot
+            untrackFile(doc);
+            textArea.putClientProperty("unloadedCaret", textArea.getCaretPosition());
+            textArea.putClientProperty("unloadedBookmarks", Bookmarks.of(doc).getLines());
+            textArea.putClientProperty("unloaded", Boolean.TRUE);
+            
+            // Not recorded, undo would keep a copy of the whole text that is being released
+            ((EditorTextArea) textArea).setUndoSuspended(true);
+            applyingExternalChange = true;
+            try {
+                textArea.setText("");
+            } finally {
+                applyingExternalChange = false;
+                ((EditorTextArea) textArea).setUndoSuspended(false);
+            }
+        }
+        return released;
+    }
+    
+    /**
+     * Reload whatever was released from a tab by the memory governor
+     */
+    private void restoreReleasedTab(Component comp) {
+        if (comp instanceof JScrollPane && ((JScrollPane) comp).getClientProperty("imageFile") != null) {
+            JLabel imageLabel = (JLabel) ((JScrollPane) comp).getViewport().getView();
+            if (imageLabel.getIcon() == null) {
+                File imageFile = (File) ((JScrollPane) comp).getClientProperty("imageFile");
+                IoExecutor.get().task("Decode " + imageFile.getName(),
+                        () -> new ImageIcon(imageFile.getAbsolutePath()))
+                    .heavy()
+                    .onSuccess(decoded -> imageLabel.setIcon(zoomImageIcon((JScrollPane) comp, decoded)))
+                    .start();
+            }
+            return;
+        }
+        for (RSyntaxTextArea textArea : getTextAreasInComponent(comp)) {
+            ensureLoaded(textArea);
+        }
+    }
+    
+    /**
+     * Re-read an editor that was emptied by unloadBackgroundEditors
+     */
+    private void ensureLoaded(RSyntaxTextArea textArea) {
+        if (!Boolean.TRUE.equals(textArea.getClientProperty("unloaded"))) {
+            return;
+        }
+        textArea.putClientProperty("unloaded", null);
+        java.nio.file.Path path = Paths.get((String) textArea.getClientProperty("filePath"));
+        
+        // Read-only until the text is back so nothing is typed into the empty placeholder
+        boolean editable = textArea.isEditable();
+        textArea.setEditable(false);
+        textArea.putClientProperty("loading", Boolean.TRUE);
+        IoExecutor.get().task("Reload " + path.getFileName(), () -> {
+            byte[] bytes = Files.readAllBytes(path);
+            return new LoadedText(decodeText(bytes), FileSnapshot.of(path, bytes), Compression.NONE);
+        }).heavy().deadline(IO_DEADLINE).onSuccess(loaded -> {
+            applyingExternalChange = true;
+            try {
+                textArea.setText(loaded.text());
+            } finally {
+                applyingExternalChange = false;
+            }
+            textArea.setEditable(editable);
+            textArea.putClientProperty("loading", null);
+            textArea.discardAllEdits();
+            Integer caret = (Integer) textArea.getClientProperty("unloadedCaret");
+            textArea.setCaretPosition(Math.min(caret != null ? caret : 0, textArea.getDocument().getLength()));
+            Object bookmarkedLines = textArea.getClientProperty("unloadedBookmarks");
+            if (bookmarkedLines instanceof int[]) {
+                Bookmarks.of(textArea.getDocument()).setLines((int[]) bookmarkedLines);
+            }
+            trackFile(textArea.getDocument(), path, loaded.snapshot());
+        }).onFailure(e -> {
+            // Leave it unloaded so the next selection tries again
+            textArea.putClientProperty("unloaded", true);
+            textArea.putClientProperty("loading", null);
+            textArea.setEditable(editable);
+            showFileError("Error reloading file", "File Error", e);
+        }).start();
+    }
+    
+    /**
+     * Decoded text of a file together with its on-disk snapshot and format
+     */
+    private record LoadedText(String text, FileSnapshot snapshot, Compression compression) {}
+    
+    /**
+     * Stop tracking a document's file
+     */
+    private void untrackFile(javax.swing.text.Document document) {
+        Object path = document.getProperty("trackedPath");
+        if (fileWatcher != null && path != null) {
+            fileWatcher.unwatch((java.nio.file.Path) path);
+        }
+        document.putProperty("trackedPath", null);
+        document.putProperty("fileSnapshot", null);
+    }
+    
+    /**
+     * Re-check every tracked file, used when the window is activated
+     */
+    private void checkAllExternalChanges() {
+        java.util.Set<Object> paths = new java.util.HashSet<>();
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            for (RSyntaxTextArea view : getTextAreasInComponent(tabbedPane.getComponentAt(i))) {
+                Object path = view.getDocument().getProperty("trackedPath");
+                if (path != null && paths.add(path)) {
+                    checkExternalChange((java.nio.file.Path) path);
+                }
+            }
+        }
+    }
+    
+    /**
+     * React to a change of a tracked file: append new tail bytes, or offer a diff based reload
+     */
+    private void checkExternalChange(java.nio.file.Path path) {
+        RSyntaxTextArea textArea = null;
+        for (int i = 0; i < tabbedPane.getTabCount() && textArea == null; i++) {
+            for (RSyntaxTextArea view : getTextAreasInComponent(tabbedPane.getComponentAt(i))) {
+                if (path.equals(view.getDocument().getProperty("trackedPath"))) {
+                    textArea = view;
+                    break;
+                }
+            }
+        }
+        if (textArea == null) {
+            return;
+        }
+        
+        javax.swing.text.Document document = textArea.getDocument();
+        if (document.getProperty("logFollower") != null) {
+            return; // Follow mode reads the appended bytes itself
+        }
+        
+        FileSnapshot snapshot = (FileSnapshot) document.getProperty("fileSnapshot");
+        if (snapshot == null || Boolean.TRUE.equals(document.getProperty("externalCheckRunning"))) {
+            return;
+        }
+        document.putProperty("externalCheckRunning", true);
+        
+        boolean modified = Boolean.TRUE.equals(textArea.getClientProperty("modified"));
+        Compression compression = (Compression) document.getProperty("compression");
+        RSyntaxTextArea editor = textArea;
+        
+        // Even the attribute check is a stat call, which can hang on a network drive
+        IoExecutor.get().task("Check " + path.getFileName(), () -> {
+            ExternalChange change = new ExternalChange();
+            if (snapshot.matchesAttributes(path)) {
+                change.unchanged = true;
+                return change;
+            }
+            if (!Files.exists(path)) {
+                change.deleted = true;
+                return change;
+            }
+            
+            if (compression != null) {
+                // Appending to a compressed file rewrites its trailer, compare whole contents
+                change.newSnapshot = FileSnapshot.read(path);
+                if (!change.newSnapshot.sameContent(snapshot)) {
+                    change.diskText = compression.readText(path);
+                }
+                return change;
+            }
+            
+            long newSize = Files.size(path);
+            if (!modified && snapshot.isAppendedIn(path, newSize)) {
+                // Append-only growth (tail -f style): read just the new bytes
+                long[] consumed = new long[1];
+                change.appendedText = readAppendedText(path, snapshot.getSize(), newSize, consumed);
+                change.newSnapshot = snapshot.appended(path, snapshot.getSize() + consumed[0]);
+            } else {
+                byte[] bytes = Files.readAllBytes(path);
+                change.newSnapshot = FileSnapshot.of(path, bytes);
+                if (!change.newSnapshot.sameContent(snapshot)) {
+                    change.diskText = decodeText(bytes);
+                }
+            }
+            return change;
+        }).deadline(IO_DEADLINE).onSuccess(change -> {
+            // The tab was saved or closed in the meantime
+            if (change.unchanged || document.getProperty("fileSnapshot") != snapshot) {
+                document.putProperty("externalCheckRunning", null);
+                return;
+            }
+            
+            if (change.deleted) {
+                document.putProperty("externalCheckRunning", null);
+                untrackFile(document);
+                JOptionPane.showMessageDialog(this,
+                    path.getFileName() + " has been deleted by another program.",
+                    "File Deleted",
+                    JOptionPane.WARNING_MESSAGE);
+            } else if (change.appendedText != null) {
+                // Typed into while reading, the next check offers a reload instead
+                if (!Boolean.TRUE.equals(editor.getClientProperty("modified"))) {
+                    appendExternalText(editor, change.appendedText);
+                    document.putProperty("fileSnapshot", change.newSnapshot);
+                }
+                document.putProperty("externalCheckRunning", null);
+            } else if (change.diskText == null) {
+                // Only the timestamp changed
+                document.putProperty("fileSnapshot", change.newSnapshot);
+                document.putProperty("externalCheckRunning", null);
+            } else {
+                // The check stays running until the reload is answered and applied, so the
+                // focus changes around the dialog don't ask a second time
+                offerReload(editor, path, change.diskText, change.newSnapshot);
+            }
+        }).onFailure(e -> {
+            document.putProperty("externalCheckRunning", null);
+            System.err.println("Warning: Could not check " + path + ": " + e.getMessage());
+        }).start();
+    }
+    
+    /**
+     * What checkExternalChange found on disk
+     */
+    private static final class ExternalChange {
+        boolean unchanged;
+        boolean deleted;
+        String appendedText;
+        String diskText;
+        FileSnapshot newSnapshot;
+    }
+    
+    /**
+     * Read bytes [from, to) of a file as text, stopping before an incomplete UTF-8 sequence.
+     * The number of bytes actually consumed is stored in consumed[0].
+     */
+    private String readAppendedText(java.nio.file.Path path, long from, long to, long[] consumed)
+            throws IOException {
+        // Include the last old byte to know whether the old content ended with a newline
+        long start = Math.max(0, from - 1);
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, to - start));
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path)) {
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+        }
+        byte[] bytes = buffer.array();
+        int length = completeUtf8Length(bytes, buffer.position());
+        
+        int offset = from > 0 ? 1 : 0;
+        boolean oldEndedWithNewline = from > 0 && (bytes[0] == '\n' || bytes[0] == '\r');
+        String tail = new String(bytes, offset, length - offset, StandardCharsets.UTF_8)
+            .replace("\r\n", "\n").replace('\r', '\n');
+        
+        // Mirror decodeText(): the document never holds the file's final newline
+        if (tail.endsWith("\n")) {
+            tail = tail.substring(0, tail.length() - 1);
+        }
+        if (oldEndedWithNewline) {
+            tail = "\n" + tail;
+        }
+        
+        // An incomplete character at the end is picked up by the next check
+        consumed[0] = length - offset;
+        return tail;
+    }
+    
+    /**
+     * Length of the buffer prefix that ends on a complete UTF-8 character
+     */
+    static int completeUtf8Length(byte[] bytes, int length) {
+        // Look back at most 3 bytes for the start of the last character
+        for (int i = length - 1; i >= Math.max(0, length - 4); i--) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                return length; // ASCII, everything before is complete
+            }
+            if (b >= 0xC0) {
+                int needed = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                return length - i >= needed ? length : i;
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * Append text that another program added to the file, without marking the tab modified or
+     * adding an undo step
+     */
+    private void appendExternalText(RSyntaxTextArea textArea, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        
+        // Not undoable, the recorded history lies before the old end and stays valid
+        applyingExternalChange = true;
+        try {
+            ((EditorTextArea) textArea).appendUnrecorded(text);
+        } catch (javax.swing.text.BadLocationException e) {
+            e.printStackTrace();
+        } finally {
+            applyingExternalChange = false;
+        }
+    }
+    
+    /**
+     * Ask whether to reload a changed file, then apply the difference in place. Ends the
+     * external check of the document once the reload is declined or applied.
+     */
+    private void offerReload(RSyntaxTextArea textArea, java.nio.file.Path path, String diskText,
+                             FileSnapshot newSnapshot) {
+        javax.swing.text.Document document = textArea.getDocument();
+        
+        // Don't ask again for a version the user already declined
+        if (newSnapshot.sameContent((FileSnapshot) document.getProperty("ignoredSnapshot"))) {
+            document.putProperty("externalCheckRunning", null);
+            return;
+        }
+        
+        boolean modified = Boolean.TRUE.equals(textArea.getClientProperty("modified"));
+        String message = path.getFileName() + " has been changed by another program.\nReload it?";
+        if (modified) {
+            message += "\nYour unsaved changes in this tab will be lost.";
+        }
+        
+        int option = JOptionPane.showConfirmDialog(this, message, "File Changed on Disk",
+            JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (option != JOptionPane.YES_OPTION) {
+            document.putProperty("ignoredSnapshot", newSnapshot);
+            document.putProperty("externalCheckRunning", null);
+            return;
+        }
+        
+        // Diff in the background and touch only the changed lines so carets and folds survive
+        String editorText = textArea.getText();
+        IoExecutor.get().task("Diff " + path.getFileName(), () -> LineDiff.diff(editorText, diskText, 10000))
+            .onSuccess(hunks -> {
+                document.putProperty("externalCheckRunning", null);
+                if (!editorText.equals(textArea.getText())) {
+                    return; // Edited while diffing, the next check will offer the reload again
+                }
+                
+                try {
+                    // Like opening the file again the reload is not undoable, the old history
+                    // does not match the reloaded text and is dropped
+                    EditorTextArea owner = ((EditorTextArea) textArea).getOwner();
+                    boolean suspended = owner.isUndoSuspended();
+                    applyingExternalChange = true;
+                    owner.setUndoSuspended(true);
+                    try {
+                        LineDiff.applyHunks(document, editorText, diskText, hunks);
+                    } finally {
+                        owner.setUndoSuspended(suspended);
+                        applyingExternalChange = false;
+                    }
+                    
+                    // The document now matches the disk again
+                    document.putProperty("fileSnapshot", newSnapshot);
+                    for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+                        view.putClientProperty("modified", false);
+                        updateTabTitle(findTabIndex(view), false);
+                    }
+                } catch (Exception e) {
+                    showFileError("Error reloading file", "File Error", e);
+                }
+            })
+            .onFailure(e -> {
+                document.putProperty("externalCheckRunning", null);
+                showFileError("Error reloading file", "File Error", e);
+            })
+            .start();
+    }
+    
+    /**
+     * Start or stop following the current tab's file as it grows
+     */
+    private void toggleFollowMode() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        
+        javax.swing.text.Document document = textArea.getDocument();
+        if (document.getProperty("logFollower") != null) {
+            stopFollowing(document);
+            return;
+        }
+        
+        String filePath = (String) textArea.getClientProperty("filePath");
+        if (filePath == null) {
+            JOptionPane.showMessageDialog(this,
+                "Follow mode needs a tab that was opened from a file.",
+                "Follow File",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        if (document.getProperty("compression") != null) {
+            JOptionPane.showMessageDialog(this,
+                "Compressed files cannot be followed.",
+                "Follow File",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        if (Boolean.TRUE.equals(textArea.getClientProperty("modified"))) {
+            JOptionPane.showMessageDialog(this,
+                "Save or discard the changes in this tab before following the file.",
+                "Follow File",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        String input = JOptionPane.showInputDialog(this,
+            "Keep only the last N lines in the editor (0 keeps everything):", "100000");
+        if (input == null) {
+            return;
+        }
+        int maxLines;
+        try {
+            maxLines = Math.max(0, Integer.parseInt(input.trim()));
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Please enter a number.",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Continue from what the tab already shows, or from the current end of the file
+        java.nio.file.Path path = Paths.get(filePath);
+        FileSnapshot snapshot = (FileSnapshot) document.getProperty("fileSnapshot");
+        IoExecutor.get().task("Follow " + path.getFileName(), () -> {
+            long size = Files.size(path);
+            long start = snapshot != null && snapshot.getSize() <= size ? snapshot.getSize() : size;
+            return new FollowStart(start, endsWithNewline(path, start));
+        }).deadline(IO_DEADLINE).onSuccess(position -> {
+            if (document.getProperty("logFollower") == null) {
+                startFollowing(textArea, path, position.start(), position.endsWithNewline(), maxLines);
+            }
+        }).onFailure(e -> showFileError("Error reading file", "File Error", e)).start();
+    }
+    
+    /**
+     * Where follow mode starts reading
+     */
+    private record FollowStart(long start, boolean endsWithNewline) {}
+    
+    /**
+     * Attach a LogFollower that reads the file from the given byte position
+     */
+    private void startFollowing(RSyntaxTextArea textArea, java.nio.file.Path path, long start,
+                                boolean endsWithNewline, int maxLines) {
+        javax.swing.text.Document document = textArea.getDocument();
+        String filePath = path.toString();
+        EditorTextArea owner = ((EditorTextArea) textArea).getOwner();
+        java.util.List<RSyntaxTextArea> followingViews = new java.util.ArrayList<>();
+        LogFollower follower = new LogFollower(path, document, start, endsWithNewline, maxLines,
+            new LogFollower.Listener() {
+                @Override
+                public void beforeFlush() {
+                    // Views whose caret sits at the end keep scrolling with the log
+                    followingViews.clear();
+                    for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+                        if (view.getCaretPosition() == document.getLength()) {
+                            followingViews.add(view);
+                        }
+                    }
+                    applyingExternalChange = true;
+                }
+                
+                @Override
+                public void afterFlush(boolean trimmed) {
+                    applyingExternalChange = false;
+                    for (RSyntaxTextArea view : followingViews) {
+                        view.setCaretPosition(document.getLength());
+                    }
+                    updateStatusBar();
+                }
+            });
+        
+        document.putProperty("logFollower", follower);
+        
+        // A followed log is a read-only view, don't let undo history grow with it
+        owner.setUndoSuspended(true);
+        for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+            view.setEditable(false);
+            view.setCaretPosition(document.getLength());
+            int index = findTabIndex(view);
+            if (index >= 0) {
+                tabbedPane.setToolTipTextAt(index, filePath + " (following)");
+            }
+        }
+        follower.start();
+    }
+    
+    /**
+     * Stop follow mode for a document and make it editable again
+     */
+    private void stopFollowing(javax.swing.text.Document document) {
+        LogFollower follower = (LogFollower) document.getProperty("logFollower");
+        if (follower == null) {
+            return;
+        }
+        follower.stop();
+        document.putProperty("logFollower", null);
+        
+        for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+            ((EditorTextArea) view).setUndoSuspended(false);
+            view.setEditable(true);
+            int index = findTabIndex(view);
+            if (index >= 0) {
+                tabbedPane.setToolTipTextAt(index, follower.getPath().toString());
+            }
+            if (follower.isTrimmed()) {
+                view.putClientProperty("partialContent", true);
+            }
+        }
+        
+        try {
+            if (follower.isTrimmed()) {
+                // The document no longer mirrors the file, stop tracking it
+                untrackFile(document);
+            } else {
+                FileSnapshot snapshot = (FileSnapshot) document.getProperty("fileSnapshot");
+                if (snapshot != null) {
+                    document.putProperty("fileSnapshot", snapshot.appended(follower.getPath(), follower.getPosition()));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not update file state: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Check if the byte just before the given position is a line break
+     */
+    private boolean endsWithNewline(java.nio.file.Path path, long position) throws IOException {
+        if (position <= 0) {
+            return false;
+        }
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(1);
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path)) {
+            channel.read(buffer, position - 1);
+        }
+        byte last = buffer.get(0);
+        return last == '\n' || last == '\r';
+    }
+    
+    /**
+     * Pretty-print or minify the JSON in the current tab in one streaming pass
+     */
+    private void formatJson(boolean minify) {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null || !textArea.isEditable()) {
+            return;
+        }
+        
+        javax.swing.text.Document document = textArea.getDocument();
+        String indent = minify ? null : JSON_INDENT;
+        String action = minify ? "Minify" : "Format";
+        
+        // Read-only while formatting, the result replaces the whole text
+        Runnable restoreEditable = makeReadOnly(document);
+        
+        // The result is one undoable edit and the tab is saved the usual way, the file is not touched
+        String content = textArea.getText();
+        IoExecutor.get().task(action + " JSON", () -> {
+            StringWriter out = new StringWriter(content.length() + content.length() / 4);
+            JsonStream.format(new StringReader(content), out, indent);
+            return out.toString();
+        }).heavy().onSuccess(formatted -> {
+            restoreEditable.run();
+            EditorTextArea owner = ((EditorTextArea) textArea).getOwner();
+            owner.beginAtomicEdit();
+            try {
+                textArea.setText(formatted);
+            } finally {
+                owner.endAtomicEdit();
+            }
+            textArea.setCaretPosition(0);
+        }).onFailure(e -> {
+            restoreEditable.run();
+            showFileError("Could not " + action.toLowerCase() + " JSON", action + " JSON", e);
+        }).start();
+    }
+    
+    /**
+     * Make every view of a document read-only, returns what puts their previous state back
+     */
+    private Runnable makeReadOnly(javax.swing.text.Document document) {
+        java.util.List<RSyntaxTextArea> views = getViewsOfDocument(document);
+        boolean[] editable = new boolean[views.size()];
+        for (int i = 0; i < views.size(); i++) {
+            editable[i] = views.get(i).isEditable();
+            views.get(i).setEditable(false);
+        }
+        return () -> {
+            for (int i = 0; i < views.size(); i++) {
+                views.get(i).setEditable(editable[i]);
+            }
+        };
+    }
+    
+    /**
+     * Export the current tab as a PDF, laid out and written page by page in the background
+     */
+    private void exportToPdf() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        String title = printTitle(textArea);
+        String filePath = (String) textArea.getClientProperty("filePath");
+        File directory = filePath != null ? new File(filePath).getParentFile() : new File(System.getProperty("user.home"));
+        String baseName = title.contains(".") ? title.substring(0, title.lastIndexOf('.')) : title;
+        
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export to PDF");
+        fileChooser.setSelectedFile(new File(directory, baseName + ".pdf"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path target = fileChooser.getSelectedFile().toPath().toAbsolutePath();
+        if (Files.exists(target) && JOptionPane.showConfirmDialog(this,
+                target.getFileName() + " already exists. Replace it?", "Export to PDF",
+                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) {
+            return;
+        }
+        
+        // Read-only until done, so the pages match one state of the text
+        javax.swing.text.Document document = textArea.getDocument();
+        PdfExporter exporter = new PdfExporter(document, textArea.getSyntaxEditingStyle(), printScheme(textArea),
+            textArea.getTabSize(), title);
+        Runnable restoreEditable = makeReadOnly(document);
+        IoTask<Integer> task = IoExecutor.get().task("Export " + title, () -> {
+            java.nio.file.Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                int pages;
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                    pages = exporter.export(out);
+                }
+                Files.move(temp, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                return pages;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }).heavy();
+        Runnable done = showPrintProgress("Exporting " + title + " to PDF", document, exporter::getLinesDone, () -> {
+            task.cancel();
+            restoreEditable.run();
+        });
+        task.onSuccess(pages -> {
+            done.run();
+            restoreEditable.run();
+            statusLabel.setText("Exported " + pages + " pages to " + target.getFileName());
+        }).onFailure(e -> {
+            done.run();
+            restoreEditable.run();
+            showFileError("Could not export " + title, "Export to PDF", e);
+        }).start();
+    }
+    
+    /**
+     * Print the current tab, pages are laid out as the printer asks for them
+     */
+    private void printDocument() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        String title = printTitle(textArea);
+        javax.swing.text.Document document = textArea.getDocument();
+        TextPrintable printable = new TextPrintable(document, textArea.getSyntaxEditingStyle(), printScheme(textArea),
+            textArea.getTabSize(), title);
+        java.awt.print.PrinterJob job = java.awt.print.PrinterJob.getPrinterJob();
+        job.setJobName(title);
+        job.setPrintable(printable);
+        if (!job.printDialog()) {
+            return;
+        }
+        
+        Runnable restoreEditable = makeReadOnly(document);
+        IoTask<Void> task = IoExecutor.get().task("Print " + title, () -> {
+            job.print();
+            return null;
+        });
+        Runnable done = showPrintProgress("Printing " + title, document, printable::getLinesDone, () -> {
+            job.cancel();
+            task.cancel();
+            restoreEditable.run();
+        });
+        task.onSuccess(ignored -> {
+            done.run();
+            restoreEditable.run();
+        }).onFailure(e -> {
+            done.run();
+            restoreEditable.run();
+            if (!(e instanceof java.awt.print.PrinterAbortException)) {
+                showFileError("Could not print " + title, "Print", e);
+            }
+        }).start();
+    }
+    
+    private String printTitle(RSyntaxTextArea textArea) {
+        String filePath = (String) textArea.getClientProperty("filePath");
+        return filePath != null ? new File(filePath).getName() : tabbedPane.getTitleAt(findTabIndex(textArea));
+    }
+    
+    /**
+     * Colors for white paper, the dark theme's would be unreadable
+     */
+    private org.fife.ui.rsyntaxtextarea.SyntaxScheme printScheme(RSyntaxTextArea textArea) {
+        return isDarkMode ? new org.fife.ui.rsyntaxtextarea.SyntaxScheme(true) : textArea.getSyntaxScheme();
+    }
+    
+    /**
+     * Progress dialog following the lines laid out so far, returns what closes it
+     */
+    private Runnable showPrintProgress(String message, javax.swing.text.Document document,
+                                       java.util.function.IntSupplier linesDone, Runnable onCancel) {
+        ProgressMonitor monitor = new ProgressMonitor(this, message, null, 0,
+            document.getDefaultRootElement().getElementCount());
+        monitor.setMillisToDecideToPopup(300);
+        Timer progressTimer = new Timer(250, null);
+        progressTimer.addActionListener(e -> {
+            if (monitor.isCanceled()) {
+                progressTimer.stop();
+                onCancel.run();
+            } else {
+                monitor.setProgress(linesDone.getAsInt());
+            }
+        });
+        progressTimer.start();
+        return () -> {
+            progressTimer.stop();
+            monitor.close();
+        };
+    }
+    
+    /**
+     * Move the caret of a view to an offset, remembering where the current tab was for Back
+     */
+    private void navigateTo(RSyntaxTextArea textArea, int offset) {
+        RSyntaxTextArea current = getCurrentTextArea();
+        if (current == null) {
+            current = lastFocusedTextArea;
+        }
+        if (current != null) {
+            jumpList.record(current.getDocument(), current.getCaretPosition());
+        }
+        showLocation(textArea, offset);
+    }
+    
+    private void showLocation(RSyntaxTextArea textArea, int offset) {
+        int tab = findTabIndex(textArea);
+        if (tab < 0) {
+            return;
+        }
+        tabbedPane.setSelectedIndex(tab);
+        textArea.setCaretPosition(Math.min(offset, textArea.getDocument().getLength()));
+        textArea.requestFocusInWindow();
+    }
+    
+    /**
+     * Jump to "line" or "line:column", the line's offset comes straight from the root element
+     */
+    private void goToLine() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        javax.swing.text.Element root = textArea.getDocument().getDefaultRootElement();
+        int current = root.getElementIndex(textArea.getCaretPosition()) + 1;
+        String input = (String) JOptionPane.showInputDialog(this,
+            "Line[:column] (1 - " + root.getElementCount() + "):", "Go to Line",
+            JOptionPane.QUESTION_MESSAGE, null, null, String.valueOf(current));
+        if (input == null || input.isBlank()) {
+            return;
+        }
+        
+        String[] parts = input.trim().split("\\s*:\\s*", 2);
+        int line;
+        int column = 1;
+        try {
+            line = Integer.parseInt(parts[0]);
+            if (parts.length > 1 && !parts[1].isEmpty()) {
+                column = Integer.parseInt(parts[1]);
+            }
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Not a line number: " + input, "Go to Line", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        javax.swing.text.Element element = root.getElement(Math.max(0, Math.min(line, root.getElementCount()) - 1));
+        int lineLength = element.getEndOffset() - element.getStartOffset() - 1;
+        navigateTo(textArea, element.getStartOffset() + Math.max(0, Math.min(column - 1, lineLength)));
+    }
+    
+    private void toggleOutline() {
+        if (outlineSplit.getRightComponent() == null) {
+            outlineSplit.setRightComponent(symbolOutline);
+            outlineSplit.setDividerLocation(outlineSplit.getWidth() - symbolOutline.getPreferredSize().width);
+            updateOutline();
+        } else {
+            outlineSplit.setRightComponent(null);
+            symbolOutline.setIndex(null);
+        }
+    }
+    
+    /**
+     * Show the symbols of the current tab in the outline, indexing its document on first use
+     */
+    private void updateOutline() {
+        if (outlineSplit.getRightComponent() == null) {
+            return;
+        }
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null || Boolean.TRUE.equals(textArea.getClientProperty("unloaded"))) {
+            symbolOutline.setIndex(null);
+            return;
+        }
+        
+        javax.swing.text.Document document = textArea.getDocument();
+        String style = textArea.getSyntaxEditingStyle();
+        SymbolIndex index = (SymbolIndex) document.getProperty("symbolIndex");
+        if (index != null && !index.getSyntaxStyle().equals(style)) {
+            index.dispose();  // Saved under another extension
+            index = null;
+            document.putProperty("symbolIndex", null);
+        }
+        if (index == null && SymbolIndex.supports(style)) {
+            index = new SymbolIndex(document, style, symbolCacheKey(textArea));
+            document.putProperty("symbolIndex", index);
+        }
+        symbolOutline.setIndex(index);
+    }
+    
+    /**
+     * Identifies the file content a tab shows, null if it has unsaved edits or no file
+     */
+    private String symbolCacheKey(RSyntaxTextArea textArea) {
+        FileSnapshot snapshot = (FileSnapshot) textArea.getDocument().getProperty("fileSnapshot");
+        String filePath = (String) textArea.getClientProperty("filePath");
+        if (snapshot == null || snapshot.getContentCrc() == FileSnapshot.UNKNOWN || filePath == null || Boolean.TRUE.equals(textArea.getClientProperty("modified"))
+                || Boolean.TRUE.equals(textArea.getClientProperty("partialContent"))) {
+            return null;
+        }
+        return filePath + "|" + snapshot.getSize() + "|" + Long.toHexString(snapshot.getContentCrc());
+    }
+    
+    private void toggleBookmark() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        javax.swing.text.Document document = textArea.getDocument();
+        int line = document.getDefaultRootElement().getElementIndex(textArea.getCaretPosition());
+        Bookmarks.of(document).toggle(line);
+        storeBookmarks(textArea);
+    }
+    
+    private void goToBookmark(boolean next) {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
+            return;
+        }
+        javax.swing.text.Document document = textArea.getDocument();
+        int line = document.getDefaultRootElement().getElementIndex(textArea.getCaretPosition());
+        Bookmarks bookmarks = Bookmarks.of(document);
+        int offset = next ? bookmarks.next(line) : bookmarks.previous(line);
+        if (offset >= 0) {
+            navigateTo(textArea, offset);
+        }
+    }
+    
+    private void clearBookmarks() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea != null) {
+            Bookmarks.of(textArea.getDocument()).clear();
+            storeBookmarks(textArea);
+        }
+    }
+    
+    /**
+     * Remember the bookmarked lines of a file for the next time it is opened. Only done while
+     * the document matches the file, line numbers of unsaved text would point elsewhere in it;
+     * saving stores them again.
+     */
+    private void storeBookmarks(RSyntaxTextArea textArea) {
+        String filePath = (String) textArea.getClientProperty("filePath");
+        if (filePath == null
+                || Boolean.TRUE.equals(textArea.getClientProperty("modified"))
+                || Boolean.TRUE.equals(textArea.getClientProperty("unloaded"))  // Emptied, bookmarks kept aside
+                || textArea.getClientProperty("partialContent") != null) {
+            return;
+        }
+        Bookmarks.store(Paths.get(filePath), Bookmarks.of(textArea.getDocument()).getLines());
+    }
+    
+    /**
+     * Put back the bookmarks remembered for a file that was just opened
+     */
+    private void restoreBookmarks(javax.swing.text.Document document, java.nio.file.Path path) {
+        IoExecutor.get().task("Load bookmarks", () -> Bookmarks.readStored(path))
+            .onSuccess(lines -> {
+                Bookmarks bookmarks = Bookmarks.of(document);
+                if (lines.length > 0 && bookmarks.isEmpty()) {
+                    bookmarks.setLines(lines);
+                }
+            })
+            .start();
+    }
+    
+    private void goBack() {
+        RSyntaxTextArea current = getCurrentTextArea();
+        if (current == null) {
+            return;
+        }
+        JumpList.Entry entry = jumpList.back(current.getDocument(), current.getCaretPosition());
+        if (entry != null) {
+            showEntry(entry, current);
+        }
+    }
+    
+    private void goForward() {
+        JumpList.Entry entry = jumpList.forward();
+        if (entry != null) {
+            showEntry(entry, getCurrentTextArea());
+        }
+    }
+    
+    /**
+     * Show a jump list entry, in the current view if it shows the same document
+     */
+    private void showEntry(JumpList.Entry entry, RSyntaxTextArea current) {
+        RSyntaxTextArea view = current;
+        if (view == null || view.getDocument() != entry.getDocument()) {
+            java.util.List<RSyntaxTextArea> views = getViewsOfDocument(entry.getDocument());
+            if (views.isEmpty()) {
+                return;
             }
+            view = views.get(0);
         }
-        
-        // Save file with UTF-8 encoding
-        try {
-            String content = textArea.getText();
-            // Use UTF-8 encoding to properly save Turkish characters
-            try (BufferedWriter writer = new BufferedWriter(
-                    new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8))) {
-                writer.write(content);
-            }
-            
-            // Update tab title and store file path
-            File savedFile = new File(filePath);
-            int selectedIndex = tabbedPane.getSelectedIndex();
-            if (selectedIndex >= 0) {
-                tabbedPane.setTitleAt(selectedIndex, savedFile.getName());
-                tabbedPane.setToolTipTextAt(selectedIndex, filePath);
-            }
-            
-            textArea.putClientProperty("filePath", filePath);
-            textArea.putClientProperty("modified", false);  // Mark as saved
-            
-            // Remove asterisk from tab title
-            if (selectedIndex >= 0) {
-                updateTabTitle(selectedIndex, false);
+        ensureLoaded(view);
+        showLocation(view, entry.getOffset());
+    }
+    
+    /**
+     * Classify the lines of the document by log level and tint them in every view
+     */
+    private LogIndex enableLogMode(RSyntaxTextArea textArea) {
+        javax.swing.text.Document document = textArea.getDocument();
+        LogIndex index = (LogIndex) document.getProperty("logIndex");
+        if (index == null) {
+            index = new LogIndex(document);
+            document.putProperty("logIndex", index);
+        }
+        for (RSyntaxTextArea view : getViewsOfDocument(document)) {
+            if (view.getClientProperty("logIndex") != index) {
+                index.attach(view);
+                view.putClientProperty("logIndex", index);
             }
-            
-            JOptionPane.showMessageDialog(this,
-                "File saved successfully: " + savedFile.getName(),
-                "Save Successful",
-                JOptionPane.INFORMATION_MESSAGE);
-                
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error saving file: " + e.getMessage(),
-                "Save Error",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
         }
+        return index;
     }
     
     /**
-     * Save file with AES encryption
+     * Open a tab listing the lines of the current document at or above a log level
      */
-    private void saveEncryptedFile() {
-        if (tabbedPane.getTabCount() == 0) {
-            return;
-        }
-        
+    private void showLogFilter() {
         RSyntaxTextArea textArea = getCurrentTextArea();
         if (textArea == null) {
             return;
         }
         
-        // Ask for password
-        JPasswordField passwordField = new JPasswordField(20);
-        JPasswordField confirmPasswordField = new JPasswordField(20);
-        
-        JPanel passwordPanel = new JPanel(new GridLayout(2, 2, 5, 5));
-        passwordPanel.add(new JLabel("Password:"));
-        passwordPanel.add(passwordField);
-        passwordPanel.add(new JLabel("Confirm:"));
-        passwordPanel.add(confirmPasswordField);
-        
-        int result = JOptionPane.showConfirmDialog(this, passwordPanel,
-            "Enter Password for Encryption", JOptionPane.OK_CANCEL_OPTION);
-        
-        if (result != JOptionPane.OK_OPTION) {
+        LogIndex index = enableLogMode(textArea);
+        LogFilterView filterView = new LogFilterView(index, textArea.getFont(), line -> {
+            if (findTabIndex(textArea) >= 0 && line < textArea.getLineCount()) {
+                navigateTo(textArea, textArea.getDocument().getDefaultRootElement().getElement(line).getStartOffset());
+            }
+        });
+        tabbedPane.addTab(tabbedPane.getTitleAt(findTabIndex(textArea)).replace("*", "") + " (filtered)", filterView);
+        tabbedPane.setSelectedComponent(filterView);
+    }
+    
+    /**
+     * Show the lazily built outline of the JSON in the current tab
+     */
+    private void showJsonOutline() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
             return;
         }
-        
-        String password = new String(passwordField.getPassword());
-        String confirmPassword = new String(confirmPasswordField.getPassword());
-        
-        if (password.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Password cannot be empty!",
-                "Error", JOptionPane.ERROR_MESSAGE);
+        Object existing = textArea.getClientProperty("jsonOutline");
+        if (existing instanceof JsonOutline && ((JsonOutline) existing).isDisplayable()) {
+            ((JsonOutline) existing).toFront();
             return;
         }
-        
-        if (!password.equals(confirmPassword)) {
-            JOptionPane.showMessageDialog(this, "Passwords do not match!",
-                "Error", JOptionPane.ERROR_MESSAGE);
+        String title = tabbedPane.getTitleAt(findTabIndex(textArea));
+        JsonOutline outline = new JsonOutline(this, textArea, title,
+            () -> jumpList.record(textArea.getDocument(), textArea.getCaretPosition()));
+        textArea.putClientProperty("jsonOutline", outline);
+        outline.setVisible(true);
+    }
+    
+    /**
+     * Compare the current tab with the version of its file on disk
+     */
+    private void compareWithSavedFile() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
             return;
         }
         
-        // Choose file to save
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
-        fileChooser.setDialogTitle("Save Encrypted File");
-        
-        int fileResult = fileChooser.showSaveDialog(this);
-        
-        if (fileResult != JFileChooser.APPROVE_OPTION) {
+        String filePath = (String) textArea.getClientProperty("filePath");
+        if (filePath == null) {
+            JOptionPane.showMessageDialog(this,
+                "The current tab has not been saved to a file yet.",
+                "Compare",
+                JOptionPane.INFORMATION_MESSAGE);
             return;
         }
         
-        String filePath = fileChooser.getSelectedFile().getAbsolutePath();
+        File file = new File(filePath);
+        String tabText = textArea.getText();
+        String syntaxStyle = textArea.getSyntaxEditingStyle();
+        Compression compression = (Compression) textArea.getDocument().getProperty("compression");
         
-        try {
-            String content = textArea.getText();
-            byte[] encryptedData = encryptAES(content, password);
-            
-            // Save encrypted data
-            Files.write(Paths.get(filePath), encryptedData);
+        startDiff(file.getName(), () -> {
+            if (compression != null) {
+                return compression.readText(file.toPath());
+            }
             
-            JOptionPane.showMessageDialog(this,
-                "File encrypted and saved successfully!",
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-                
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error encrypting file: " + e.getMessage(),
-                "Encryption Error",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+            // Read the disk version on the worker thread and normalize line endings
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            return new String(bytes, StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }, file.getName() + " (editor)", () -> tabText, syntaxStyle);
     }
     
     /**
-     * Open and decrypt an encrypted file
+     * Compare the current tab with another open text tab
      */
-    private void openEncryptedFile() {
-        // Ask for password
-        JPasswordField passwordField = new JPasswordField(20);
-        
-        JPanel passwordPanel = new JPanel(new GridLayout(1, 2, 5, 5));
-        passwordPanel.add(new JLabel("Password:"));
-        passwordPanel.add(passwordField);
-        
-        int result = JOptionPane.showConfirmDialog(this, passwordPanel,
-            "Enter Password to Decrypt", JOptionPane.OK_CANCEL_OPTION);
-        
-        if (result != JOptionPane.OK_OPTION) {
+    private void compareWithTab() {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea == null) {
             return;
         }
         
-        String password = new String(passwordField.getPassword());
+        // Collect the other text tabs, each choice keeps its tab index since titles can repeat
+        java.util.List<TabChoice> candidates = new java.util.ArrayList<>();
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            RSyntaxTextArea other = getTextAreaFromComponent(tabbedPane.getComponentAt(i));
+            if (other != null && i != tabbedPane.getSelectedIndex()) {
+                candidates.add(new TabChoice(i, tabbedPane.getTitleAt(i)));
+            }
+        }
         
-        if (password.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Password cannot be empty!",
-                "Error", JOptionPane.ERROR_MESSAGE);
+        if (candidates.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "There is no other text tab to compare with.",
+                "Compare",
+                JOptionPane.INFORMATION_MESSAGE);
             return;
         }
         
-        // Choose file to open
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
-        fileChooser.setDialogTitle("Open Encrypted File");
-        
-        int fileResult = fileChooser.showOpenDialog(this);
-        
-        if (fileResult != JFileChooser.APPROVE_OPTION) {
+        Object choice = JOptionPane.showInputDialog(this, "Compare with:", "Compare with Tab",
+            JOptionPane.QUESTION_MESSAGE, null, candidates.toArray(), candidates.get(0));
+        if (!(choice instanceof TabChoice)) {
             return;
         }
         
-        File selectedFile = fileChooser.getSelectedFile();
-        
-        try {
-            // Read encrypted data
-            byte[] encryptedData = Files.readAllBytes(Paths.get(selectedFile.getAbsolutePath()));
-            
-            // Decrypt
-            String decryptedContent = decryptAES(encryptedData, password);
-            
-            // Create new tab or use current
-            RSyntaxTextArea textArea = getCurrentTextArea();
-            if (textArea == null) {
-                createNewTab();
-                textArea = getCurrentTextArea();
-            }
-            
-            // Load decrypted content
-            textArea.setText(decryptedContent);
-            textArea.setCaretPosition(0);
-            
-            // Update tab title
-            int selectedIndex = tabbedPane.getSelectedIndex();
-            if (selectedIndex >= 0) {
-                tabbedPane.setTitleAt(selectedIndex, selectedFile.getName() + " (encrypted)");
-                tabbedPane.setToolTipTextAt(selectedIndex, selectedFile.getAbsolutePath());
-            }
-            
-            JOptionPane.showMessageDialog(this,
-                "File decrypted successfully!",
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-                
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error decrypting file: " + e.getMessage() + 
-                "\nPlease check your password.",
-                "Decryption Error",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+        int otherIndex = ((TabChoice) choice).index();
+        RSyntaxTextArea other = getTextAreaFromComponent(tabbedPane.getComponentAt(otherIndex));
+        String currentText = textArea.getText();
+        java.util.concurrent.Callable<String> otherSource;
+        if (Boolean.TRUE.equals(other.getClientProperty("unloaded"))) {
+            // An unloaded tab matches its file, read that instead of waiting for the reload
+            java.nio.file.Path otherPath = Paths.get((String) other.getClientProperty("filePath"));
+            otherSource = () -> decodeText(Files.readAllBytes(otherPath));
+        } else {
+            String otherText = other.getText();
+            otherSource = () -> otherText;
         }
+        
+        startDiff(tabbedPane.getTitleAt(tabbedPane.getSelectedIndex()), () -> currentText,
+            tabbedPane.getTitleAt(otherIndex), otherSource, textArea.getSyntaxEditingStyle());
     }
     
     /**
-     * Encrypt text using AES-256
+     * Open a diff tab and compute the diff on a background thread
      */
-    private byte[] encryptAES(String plainText, String password) throws Exception {
-        // Generate salt
-        byte[] salt = "AdvancedEditor2026".getBytes();
-        
-        // Derive key from password
-        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, 65536, 256);
-        SecretKey tmp = factory.generateSecret(spec);
-        SecretKeySpec secretKey = new SecretKeySpec(tmp.getEncoded(), "AES");
-        
-        // Create cipher
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-        
-        // Generate IV
-        byte[] iv = new byte[16];
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] hash = md.digest(password.getBytes());
-        System.arraycopy(hash, 0, iv, 0, 16);
-        IvParameterSpec ivSpec = new IvParameterSpec(iv);
+    private void startDiff(String leftTitle, java.util.concurrent.Callable<String> leftSource,
+                           String rightTitle, java.util.concurrent.Callable<String> rightSource,
+                           String syntaxStyle) {
+        // Editor text is snapshotted by the caller on the EDT, disk reads happen in the task
+        JLabel progressLabel = new JLabel("Comparing " + leftTitle + " and " + rightTitle + "...",
+            SwingConstants.CENTER);
+        tabbedPane.addTab("Diff: " + leftTitle, progressLabel);
+        tabbedPane.setSelectedIndex(tabbedPane.getTabCount() - 1);
         
-        // Encrypt
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivSpec);
-        byte[] encrypted = cipher.doFinal(plainText.getBytes("UTF-8"));
+        // Closing the placeholder tab cancels the diff
+        IoScope scope = new IoScope();
+        progressLabel.putClientProperty("ioScope", scope);
         
-        // Return Base64 encoded
-        return Base64.getEncoder().encode(encrypted);
+        IoExecutor.get().task("Diff " + leftTitle, () -> {
+            String left = leftSource.call();
+            String right = rightSource.call();
+            return new DiffInput(left, right, LineDiff.diff(left, right, 10000));
+        }).in(scope).onSuccess(result -> {
+            int index = tabbedPane.indexOfComponent(progressLabel);
+            if (index < 0) {
+                return; // Diff tab was closed while computing
+            }
+            
+            DiffViewer viewer = new DiffViewer(leftTitle, result.left(), rightTitle, result.right(),
+                result.hunks(), syntaxStyle);
+            tabbedPane.setComponentAt(index, viewer);
+            tabbedPane.setTitleAt(index, "Diff: " + leftTitle + " (" + viewer.getChangeCount() + ")");
+            viewer.nextChange();
+        }).onFailure(e -> {
+            progressLabel.setText("Error comparing files: " + e.getMessage());
+            e.printStackTrace();
+        }).start();
     }
     
     /**
-     * Decrypt data using AES-256
+     * Both sides of a diff and the hunks between them
      */
-    private String decryptAES(byte[] encryptedData, String password) throws Exception {
-        // Decode Base64
-        byte[] encrypted = Base64.getDecoder().decode(encryptedData);
-        
-        // Generate salt (same as encryption)
-        byte[] salt = "AdvancedEditor2026".getBytes();
-        
-        // Derive key from password
-        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, 65536, 256);
-        SecretKey tmp = factory.generateSecret(spec);
-        SecretKeySpec secretKey = new SecretKeySpec(tmp.getEncoded(), "AES");
-        
-        // Create cipher
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-        
-        // Generate IV (same as encryption)
-        byte[] iv = new byte[16];
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] hash = md.digest(password.getBytes());
-        System.arraycopy(hash, 0, iv, 0, 16);
-        IvParameterSpec ivSpec = new IvParameterSpec(iv);
-        
-        // Decrypt
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, ivSpec);
-        byte[] decrypted = cipher.doFinal(encrypted);
-        
-        return new String(decrypted, "UTF-8");
+    private record TabChoice(int index, String title) {
+        @Override
+        public String toString() {
+            return title;
+        }
     }
     
+    private record DiffInput(String left, String right, java.util.List<LineDiff.Hunk> hunks) {}
+    
     /**
      * Perform undo operation on current text area
      */
@@ -1083,6 +3623,17 @@ public class AdvancedEditor extends JFrame {
         }
     }
     
+    /**
+     * Run a multi-caret action on the current editor
+     */
+    private void withMultiCaret(java.util.function.Consumer<MultiCaret> action) {
+        RSyntaxTextArea textArea = getCurrentTextArea();
+        if (textArea instanceof EditorTextArea) {
+            action.accept(((EditorTextArea) textArea).getMultiCaret());
+            updateStatusBar();
+        }
+    }
+    
     /**
      * Toggle between light and dark mode
      */
@@ -1158,10 +3709,9 @@ public class AdvancedEditor extends JFrame {
             for (int i = 0; i < tabbedPane.getTabCount(); i++) {
                 Component comp = tabbedPane.getComponentAt(i);
                 
-                if (comp instanceof RTextScrollPane) {
-                    RTextScrollPane scrollPane = (RTextScrollPane) comp;
-                    RSyntaxTextArea textArea = (RSyntaxTextArea) scrollPane.getTextArea();
+                for (RSyntaxTextArea textArea : getTextAreasInComponent(comp)) {
                     theme.apply(textArea);
+                    textArea.setFont(EditorFonts.get(editorFontSize));
                 }
             }
             
@@ -1238,9 +3788,13 @@ public class AdvancedEditor extends JFrame {
      * Close all tabs
      */
     private void closeAllTabs() {
-        // Close tabs from end to beginning to avoid index shifting issues
-        while (tabbedPane.getTabCount() > 0) {
-            closeTab(tabbedPane.getTabCount() - 1);
+        // Close tabs from end to beginning; a tab that is being saved closes once the save is done
+        Component[] tabs = new Component[tabbedPane.getTabCount()];
+        for (int i = 0; i < tabs.length; i++) {
+            tabs[i] = tabbedPane.getComponentAt(i);
+        }
+        for (int i = tabs.length - 1; i >= 0; i--) {
+            closeTab(tabbedPane.indexOfComponent(tabs[i]));
         }
     }
     
@@ -1275,18 +3829,14 @@ public class AdvancedEditor extends JFrame {
             return;
         }
         
-        // Close tabs after the kept tab (from end to beginning)
-        for (int i = tabbedPane.getTabCount() - 1; i > keepIndex; i--) {
-            closeTab(i);
+        // Close tabs from end to beginning, looked up by component since saves finish later
+        Component[] tabs = new Component[tabbedPane.getTabCount()];
+        for (int i = 0; i < tabs.length; i++) {
+            tabs[i] = tabbedPane.getComponentAt(i);
         }
-        
-        // Close tabs before the kept tab (from end to beginning)
-        // After closing tabs above, the kept tab may have shifted down
-        while (tabbedPane.getTabCount() > 1 && tabbedPane.getTabCount() > 0) {
-            if (tabbedPane.indexAtLocation(0, 0) != keepIndex) {
-                closeTab(0);
-            } else {
-                break;
+        for (int i = tabs.length - 1; i >= 0; i--) {
+            if (i != keepIndex) {
+                closeTab(tabbedPane.indexOfComponent(tabs[i]));
             }
         }
     }
@@ -1303,13 +3853,21 @@ public class AdvancedEditor extends JFrame {
         Component comp = tabbedPane.getComponentAt(index);
         
         // Check if it's a text editor tab
-        if (comp instanceof RTextScrollPane) {
-            RTextScrollPane scrollPane = (RTextScrollPane) comp;
-            RSyntaxTextArea textArea = (RSyntaxTextArea) scrollPane.getTextArea();
+        java.util.List<RSyntaxTextArea> views = getTextAreasInComponent(comp);
+        if (!views.isEmpty()) {
+            RSyntaxTextArea textArea = views.get(0);
+            
+            // No need to ask if the document stays open in another tab
+            boolean openElsewhere = false;
+            for (RSyntaxTextArea view : getViewsOfDocument(textArea.getDocument())) {
+                if (!SwingUtilities.isDescendingFrom(view, comp)) {
+                    openElsewhere = true;
+                }
+            }
             
             // Check if document has been modified
             Boolean modified = (Boolean) textArea.getClientProperty("modified");
-            if (modified != null && modified) {
+            if (modified != null && modified && !openElsewhere) {
                 // Get filename for dialog
                 String filename = tabbedPane.getTitleAt(index);
                 
@@ -1323,26 +3881,101 @@ public class AdvancedEditor extends JFrame {
                 );
                 
                 if (option == JOptionPane.YES_OPTION) {
-                    // Save the file first
+                    // Save the file first, the write finishes in the background
                     tabbedPane.setSelectedIndex(index);  // Switch to the tab to save it
-                    saveFile();
+                    saveFile(() -> {
+                        // Close only if nothing was typed while saving (modified flag is false now)
+                        if (!Boolean.TRUE.equals(textArea.getClientProperty("modified"))) {
+                            closeTab(tabbedPane.indexOfComponent(comp));
+                        }
+                    });
                     
-                    // Check if save was successful (modified flag should be false now)
-                    Boolean stillModified = (Boolean) textArea.getClientProperty("modified");
-                    if (stillModified != null && stillModified) {
-                        // Save was cancelled or failed, don't close the tab
-                        return;
-                    }
+                    // A cancelled or failed save leaves the tab open
+                    return;
                 } else if (option == JOptionPane.CANCEL_OPTION || option == JOptionPane.CLOSED_OPTION) {
                     // User cancelled, don't close the tab
                     return;
                 }
                 // If NO_OPTION, just close without saving
             }
+            
+            for (RSyntaxTextArea view : views) {
+                transferOwnership(view, comp);
+                disposeView(view);
+            }
+            
+            // Stop watching the file once its document is no longer shown anywhere
+            if (!openElsewhere) {
+                LogFollower follower = (LogFollower) textArea.getDocument().getProperty("logFollower");
+                if (follower != null) {
+                    follower.stop();
+                }
+                SymbolIndex symbolIndex = (SymbolIndex) textArea.getDocument().getProperty("symbolIndex");
+                if (symbolIndex != null) {
+                    symbolIndex.storeInCache(symbolCacheKey(textArea));
+                    symbolIndex.dispose();
+                    textArea.getDocument().putProperty("symbolIndex", null);
+                }
+                DocumentTokens tokens = (DocumentTokens) textArea.getDocument().getProperty("documentTokens");
+                if (tokens != null) {
+                    tokens.dispose();
+                    textArea.getDocument().putProperty("documentTokens", null);
+                }
+                untrackFile(textArea.getDocument());
+                storeBookmarks(textArea);
+                jumpList.removeDocument(textArea.getDocument());
+                
+                // Stop classifying log lines, filter tabs of the log are closed below
+                LogIndex logIndex = (LogIndex) textArea.getDocument().getProperty("logIndex");
+                if (logIndex != null) {
+                    logIndex.dispose();
+                    textArea.getDocument().putProperty("logIndex", null);
+                }
+                
+                // Wipe the key of an encrypted file once no tab shows it any more
+                Object encryptedPath = textArea.getDocument().getProperty("encryptedPath");
+                if (encryptedPath != null) {
+                    textArea.getDocument().putProperty("encryptedPath", null);
+                    if (!isEncryptedFileOpen((String) encryptedPath)) {
+                        SessionKeyStore.get().remove((String) encryptedPath);
+                    }
+                }
+                
+                // Free the undo history (and its spill file) with the document
+                ((EditorTextArea) textArea).disposeUndoHistory();
+            }
+        }
+        
+        // Stop extracting the text layer of a PDF
+        if (comp instanceof PdfViewer) {
+            ((PdfViewer) comp).dispose();
+        }
+        
+        // Stop parsing or sorting a table
+        if (comp instanceof CsvViewer) {
+            ((CsvViewer) comp).dispose();
+        }
+        
+        if (comp instanceof LogFilterView) {
+            ((LogFilterView) comp).dispose();
+        }
+        
+        // Cancel background work that belongs to the tab
+        if (comp instanceof JComponent && ((JComponent) comp).getClientProperty("ioScope") instanceof IoScope) {
+            ((IoScope) ((JComponent) comp).getClientProperty("ioScope")).close();
         }
         
         // Remove the tab
         tabbedPane.removeTabAt(index);
+        
+        // A filter tab has nothing to show once its log is closed
+        for (int i = tabbedPane.getTabCount() - 1; i >= 0; i--) {
+            Component tab = tabbedPane.getComponentAt(i);
+            if (tab instanceof LogFilterView && ((LogFilterView) tab).getLogIndex().isDisposed()) {
+                ((LogFilterView) tab).dispose();
+                tabbedPane.removeTabAt(i);
+            }
+        }
         updateStatusBar();
     }
     
@@ -1356,16 +3989,20 @@ public class AdvancedEditor extends JFrame {
                 int line = textArea.getLineOfOffset(caretPosition);
                 int column = caretPosition - textArea.getLineStartOffset(line);
                 
-                // Get character count
-                int charCount = textArea.getText().length();
+                // Get character count (document length, avoids copying the whole text)
+                int charCount = textArea.getDocument().getLength();
                 
                 // File encoding (default UTF-8)
                 String encoding = "UTF-8";
                 
                 // Update status label with Line, Column, Characters, and Encoding
-                statusLabel.setText(String.format(
+                String status = String.format(
                     "Line: %d, Column: %d | Characters: %d | Encoding: %s", 
-                    line + 1, column + 1, charCount, encoding));
+                    line + 1, column + 1, charCount, encoding);
+                if (textArea instanceof EditorTextArea && ((EditorTextArea) textArea).getMultiCaret().isActive()) {
+                    status += " | Carets: " + ((EditorTextArea) textArea).getMultiCaret().getCaretCount();
+                }
+                statusLabel.setText(status);
             } catch (Exception ex) {
                 statusLabel.setText("Line: 1, Column: 1 | Characters: 0 | Encoding: UTF-8");
             }
@@ -1383,15 +4020,94 @@ public class AdvancedEditor extends JFrame {
             return null;
         }
         
-        Component component = tabbedPane.getComponentAt(selectedIndex);
+        return getTextAreaFromComponent(tabbedPane.getComponentAt(selectedIndex));
+    }
+    
+    /**
+     * Get the active RSyntaxTextArea inside a tab component (plain or split editor)
+     */
+    private RSyntaxTextArea getTextAreaFromComponent(Component component) {
         if (component instanceof RTextScrollPane) {
             RTextScrollPane scrollPane = (RTextScrollPane) component;
             return (RSyntaxTextArea) scrollPane.getTextArea();
         }
         
+        if (isEditorSplit(component)) {
+            // Prefer the view the user worked in last
+            if (lastFocusedTextArea != null && SwingUtilities.isDescendingFrom(lastFocusedTextArea, component)) {
+                return lastFocusedTextArea;
+            }
+            return getTextAreaFromComponent(((JSplitPane) component).getTopComponent());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get all editor views inside a tab component
+     */
+    private java.util.List<RSyntaxTextArea> getTextAreasInComponent(Component component) {
+        java.util.List<RSyntaxTextArea> views = new java.util.ArrayList<>();
+        if (component instanceof RTextScrollPane) {
+            views.add((RSyntaxTextArea) ((RTextScrollPane) component).getTextArea());
+        } else if (isEditorSplit(component)) {
+            JSplitPane split = (JSplitPane) component;
+            views.addAll(getTextAreasInComponent(split.getTopComponent()));
+            views.addAll(getTextAreasInComponent(split.getBottomComponent()));
+        }
+        return views;
+    }
+    
+    /**
+     * Get every open view (in any tab) that shows the given document
+     */
+    private java.util.List<RSyntaxTextArea> getViewsOfDocument(javax.swing.text.Document document) {
+        java.util.List<RSyntaxTextArea> views = new java.util.ArrayList<>();
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            for (RSyntaxTextArea view : getTextAreasInComponent(tabbedPane.getComponentAt(i))) {
+                if (view.getDocument() == document) {
+                    views.add(view);
+                }
+            }
+        }
+        return views;
+    }
+    
+    /**
+     * Find an open editor for the given file path
+     */
+    private EditorTextArea findTextAreaForPath(String filePath) {
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            for (RSyntaxTextArea view : getTextAreasInComponent(tabbedPane.getComponentAt(i))) {
+                if (filePath.equals(view.getClientProperty("filePath"))) {
+                    return (EditorTextArea) view;
+                }
+            }
+        }
         return null;
     }
     
+    /**
+     * Find the index of the tab that contains the given component
+     */
+    private int findTabIndex(Component component) {
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            Component tab = tabbedPane.getComponentAt(i);
+            if (tab == component || SwingUtilities.isDescendingFrom(component, tab)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Check if a tab component is a split editor
+     */
+    private boolean isEditorSplit(Component component) {
+        return component instanceof JSplitPane
+            && Boolean.TRUE.equals(((JSplitPane) component).getClientProperty("editorSplit"));
+    }
+    
     /**
      * Set syntax highlighting style based on file extension
      */
@@ -1428,6 +4144,10 @@ public class AdvancedEditor extends JFrame {
             case "sql":
                 textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_SQL);
                 break;
+            case "csv":
+            case "tsv":
+                textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_CSV);
+                break;
             case "c":
             case "h":
                 textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_C);
@@ -1455,10 +4175,17 @@ public class AdvancedEditor extends JFrame {
             case "markdown":
                 textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_MARKDOWN);
                 break;
+            case "log":
+                textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_NONE);
+                enableLogMode(textArea);
+                break;
             default:
                 textArea.setSyntaxEditingStyle(SyntaxConstants.SYNTAX_STYLE_NONE);
                 break;
         }
+        
+        // After the caller has tracked the file, so the outline can use its cached symbols
+        SwingUtilities.invokeLater(this::updateOutline);
     }
     
     public static void main(String[] args) {
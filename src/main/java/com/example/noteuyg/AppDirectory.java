@@ -0,0 +1,25 @@
+package com.example.noteuyg;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * AppDirectory - The editor's directory in the user's home (~/.notepad)
+ *
+ * Everything the editor keeps between sessions lives under it, so users have one place to
+ * find or delete it.
+ */
+final class AppDirectory {
+
+    static final Path PATH = Paths.get(System.getProperty("user.home"), ".notepad");
+
+    private AppDirectory() {
+    }
+
+    /**
+     * A file or directory inside the app directory
+     */
+    static Path resolve(String name) {
+        return PATH.resolve(name);
+    }
+}
@@ -0,0 +1,506 @@
+package com.example.noteuyg;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * ArchiveIndex - Read-only view of the entries of a ZIP/JAR or TAR file
+ *
+ * ZIP files are opened through the zip file system provider, which reads the central directory
+ * once and keeps it in memory. TAR files have no directory, so their headers are scanned once
+ * (skipping the data) and the offset of every entry is remembered. Indexes are cached per
+ * archive until its size or timestamp changes, so expanding nodes again is instant. Entries
+ * are read by streaming only their own bytes.
+ *
+ * Indexes are reference counted: the cache, every caller of open() and every open entry
+ * stream hold one reference, and the archive is only closed once all of them let go. Evicting
+ * an index from the cache therefore never closes it under a reader.
+ */
+public abstract class ArchiveIndex implements Closeable {
+
+    /** Archives kept open at the same time */
+    private static final int CACHE_SIZE = 16;
+
+    private static final Map<Path, ArchiveIndex> CACHE = new LinkedHashMap<Path, ArchiveIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ArchiveIndex> eldest) {
+            if (size() > CACHE_SIZE) {
+                closeQuietly(eldest.getValue()); // The cache's reference
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final Comparator<Entry> ENTRY_ORDER = (e1, e2) -> {
+        // Directories first, then by name (same as the file explorer)
+        if (e1.isDirectory() != e2.isDirectory()) {
+            return e1.isDirectory() ? -1 : 1;
+        }
+        return e1.getName().compareToIgnoreCase(e2.getName());
+    };
+
+    /**
+     * One file or directory inside an archive
+     */
+    public static final class Entry {
+        private final Path archive;
+        private final String path;
+        private final boolean directory;
+        private final long size;
+
+        Entry(Path archive, String path, boolean directory, long size) {
+            this.archive = archive;
+            this.path = path;
+            this.directory = directory;
+            this.size = size;
+        }
+
+        public Path getArchive() {
+            return archive;
+        }
+
+        /**
+         * Path inside the archive, without leading or trailing slash
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public String getName() {
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return archive.getFileName() + "!/" + path;
+        }
+    }
+
+    protected final Path archive;
+    private final long archiveSize;
+    private final long archiveModified;
+    private int references = 1; // The creator's to begin with, guarded by CACHE
+
+    protected ArchiveIndex(Path archive, BasicFileAttributes attributes) {
+        this.archive = archive;
+        this.archiveSize = attributes.size();
+        this.archiveModified = attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Check the file name for a supported archive type
+     */
+    public static boolean isArchiveName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".zip") || name.endsWith(".jar") || name.endsWith(".war") || name.endsWith(".ear")
+            || name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * Get the index of an archive, from the cache unless the file changed. Call it off the EDT,
+     * the first call reads the central directory or scans the TAR headers. Close the returned
+     * index when done with it.
+     */
+    public static ArchiveIndex open(Path archive) throws IOException {
+        Path key = archive.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        synchronized (CACHE) {
+            ArchiveIndex cached = CACHE.get(key);
+            if (cached != null && cached.matches(attributes)) {
+                cached.references++;
+                return cached;
+            }
+            if (cached != null) {
+                CACHE.remove(key);
+                closeQuietly(cached);
+            }
+        }
+
+        String name = key.getFileName().toString().toLowerCase(Locale.ROOT);
+        ArchiveIndex index = name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz")
+            ? new TarIndex(key, attributes, !name.endsWith(".tar"))
+            : new ZipIndex(key, attributes);
+        synchronized (CACHE) {
+            // Another thread may have indexed the same archive meanwhile, keep only one
+            ArchiveIndex cached = CACHE.get(key);
+            if (cached != null && cached.matches(attributes)) {
+                cached.references++;
+                closeQuietly(index);
+                return cached;
+            }
+            index.references++; // The cache's, next to the caller's
+            ArchiveIndex displaced = CACHE.put(key, index);
+            if (displaced != null) {
+                closeQuietly(displaced);
+            }
+        }
+        return index;
+    }
+
+    private boolean matches(BasicFileAttributes attributes) {
+        return archiveSize == attributes.size() && archiveModified == attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Entries directly inside a directory of the archive ("" for the top level), sorted
+     */
+    public abstract List<Entry> list(String directory) throws IOException;
+
+    /**
+     * Stream the bytes of one file entry, the archive stays open until the stream is closed
+     */
+    public InputStream openEntry(String path) throws IOException {
+        synchronized (CACHE) {
+            references++;
+        }
+        InputStream in;
+        try {
+            in = openEntryStream(path);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        return new FilterInputStream(in) {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    ArchiveIndex.this.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Give up one reference, the archive is closed with the last one
+     */
+    @Override
+    public final void close() throws IOException {
+        synchronized (CACHE) {
+            if (--references > 0) {
+                return;
+            }
+        }
+        closeArchive();
+    }
+
+    protected abstract InputStream openEntryStream(String path) throws IOException;
+
+    /**
+     * Release what the index holds open, called once nothing references it any more
+     */
+    protected abstract void closeArchive() throws IOException;
+
+    private static void closeQuietly(ArchiveIndex index) {
+        try {
+            index.close();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not close " + index.archive + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * ZIP, JAR, WAR and EAR through the zip file system
+     */
+    private static final class ZipIndex extends ArchiveIndex {
+        private final FileSystem fileSystem;
+
+        ZipIndex(Path archive, BasicFileAttributes attributes) throws IOException {
+            super(archive, attributes);
+            this.fileSystem = FileSystems.newFileSystem(archive, (ClassLoader) null);
+        }
+
+        @Override
+        public List<Entry> list(String directory) throws IOException {
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileSystem.getPath("/" + directory))) {
+                for (Path child : stream) {
+                    // Attributes come from the in-memory central directory
+                    BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                    String path = child.toString().replaceAll("^/+|/+$", "");
+                    entries.add(new Entry(archive, path, attributes.isDirectory(), attributes.size()));
+                }
+            }
+            entries.sort(ENTRY_ORDER);
+            return entries;
+        }
+
+        @Override
+        protected InputStream openEntryStream(String path) throws IOException {
+            return Files.newInputStream(fileSystem.getPath("/" + path));
+        }
+
+        @Override
+        protected void closeArchive() throws IOException {
+            fileSystem.close();
+        }
+    }
+
+    /**
+     * TAR, optionally gzip-compressed, indexed by one pass over its headers
+     */
+    private static final class TarIndex extends ArchiveIndex {
+        private static final int BLOCK = 512;
+
+        private final boolean compressed;
+        private final Map<String, List<Entry>> children = new HashMap<>();
+        private final Map<String, long[]> dataRanges = new HashMap<>(); // offset, size
+
+        TarIndex(Path archive, BasicFileAttributes attributes, boolean compressed) throws IOException {
+            super(archive, attributes);
+            this.compressed = compressed;
+            children.put("", new ArrayList<>());
+            try (InputStream in = openStream()) {
+                scan(in);
+            }
+            for (List<Entry> entries : children.values()) {
+                entries.sort(ENTRY_ORDER);
+            }
+        }
+
+        private InputStream openStream() throws IOException {
+            InputStream in = Files.newInputStream(archive);
+            return compressed ? new GZIPInputStream(in, 64 * 1024) : in;
+        }
+
+        private void scan(InputStream in) throws IOException {
+            byte[] header = new byte[BLOCK];
+            long position = 0;
+            String longName = null;
+            while (in.readNBytes(header, 0, BLOCK) == BLOCK) {
+                position += BLOCK;
+                if (isZeroBlock(header)) {
+                    break; // End of archive
+                }
+
+                long size = parseSize(header);
+                byte type = header[156];
+                long padded = (size + BLOCK - 1) / BLOCK * BLOCK;
+
+                if (type == 'L' || type == 'x') {
+                    // GNU long name or PAX header: the name of the next entry is in the data
+                    byte[] data = in.readNBytes((int) size);
+                    in.skipNBytes(padded - size);
+                    position += padded;
+                    String name = type == 'L' ? cString(data, 0, data.length) : paxPath(data);
+                    if (name != null) {
+                        longName = name;
+                    }
+                    continue;
+                }
+
+                String name = longName != null ? longName : headerName(header);
+                longName = null;
+                boolean directory = type == '5';
+                if (directory || type == '0' || type == 0 || type == '7') {
+                    add(normalize(name), directory, size, position);
+                }
+
+                // Skip the data without reading it (a seek for plain TAR files)
+                in.skipNBytes(padded);
+                position += padded;
+            }
+        }
+
+        private void add(String path, boolean directory, long size, long offset) {
+            if (path.isEmpty() || dataRanges.containsKey(path) || (directory && children.containsKey(path))) {
+                return;
+            }
+            String parent = ensureDirectory(parentOf(path));
+            if (directory) {
+                children.put(path, new ArrayList<>());
+            } else {
+                dataRanges.put(path, new long[] {offset, size});
+            }
+            children.get(parent).add(new Entry(archive, path, directory, size));
+        }
+
+        /**
+         * Create implicit parent directories, which TAR files do not always list
+         */
+        private String ensureDirectory(String path) {
+            if (!children.containsKey(path)) {
+                String parent = ensureDirectory(parentOf(path));
+                children.put(path, new ArrayList<>());
+                children.get(parent).add(new Entry(archive, path, true, 0));
+            }
+            return path;
+        }
+
+        @Override
+        public List<Entry> list(String directory) {
+            List<Entry> entries = children.get(directory);
+            return entries != null ? new ArrayList<>(entries) : new ArrayList<>();
+        }
+
+        @Override
+        protected InputStream openEntryStream(String path) throws IOException {
+            long[] range = dataRanges.get(path);
+            if (range == null) {
+                throw new IOException(path + " not found in " + archive.getFileName());
+            }
+            InputStream in;
+            if (compressed) {
+                // No random access into a gzip stream, decompress up to the entry
+                in = openStream();
+                in.skipNBytes(range[0]);
+            } else {
+                FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+                channel.position(range[0]);
+                in = Channels.newInputStream(channel);
+            }
+            return new LimitedInputStream(in, range[1]);
+        }
+
+        @Override
+        protected void closeArchive() {
+            // Nothing held open between reads
+        }
+
+        private static boolean isZeroBlock(byte[] block) {
+            for (byte b : block) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long parseSize(byte[] header) {
+            if ((header[124] & 0x80) != 0) {
+                // GNU base-256 encoding for sizes of 8 GB and more
+                long size = 0;
+                for (int i = 125; i < 136; i++) {
+                    size = (size << 8) | (header[i] & 0xFF);
+                }
+                return size;
+            }
+            String octal = cString(header, 124, 12).trim();
+            return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        }
+
+        private static String headerName(byte[] header) {
+            String name = cString(header, 0, 100);
+            boolean ustar = new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar");
+            String prefix = ustar ? cString(header, 345, 155) : "";
+            return prefix.isEmpty() ? name : prefix + "/" + name;
+        }
+
+        private static String paxPath(byte[] data) {
+            // Records look like "<length> <key>=<value>\n"
+            String records = new String(data, StandardCharsets.UTF_8);
+            for (String record : records.split("\n")) {
+                int space = record.indexOf(' ');
+                if (space > 0 && record.startsWith("path=", space + 1)) {
+                    return record.substring(space + 6);
+                }
+            }
+            return null;
+        }
+
+        private static String cString(byte[] bytes, int offset, int length) {
+            int end = offset;
+            while (end < offset + length && bytes[end] != 0) {
+                end++;
+            }
+            return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+        }
+
+        private static String normalize(String name) {
+            String path = name.replace('\\', '/');
+            while (path.startsWith("./")) {
+                path = path.substring(2);
+            }
+            return path.replaceAll("^/+|/+$", "");
+        }
+
+        private static String parentOf(String path) {
+            int slash = path.lastIndexOf('/');
+            return slash < 0 ? "" : path.substring(0, slash);
+        }
+    }
+
+    /**
+     * Stream over the first bytes of another stream
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
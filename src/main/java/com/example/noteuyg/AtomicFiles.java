@@ -0,0 +1,61 @@
+package com.example.noteuyg;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * AtomicFiles - Replace a file without ever leaving it half written
+ *
+ * The new content is written to a temporary file in the target's directory, which is then
+ * moved over the target. A write that fails or is interrupted leaves the original untouched
+ * and only the temporary file is deleted.
+ */
+final class AtomicFiles {
+
+    /**
+     * Writes the new content into the temporary file
+     */
+    interface ContentWriter {
+        void write(Path temp) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Write a file through a temporary sibling and move it over the target
+     */
+    static void replace(Path target, ContentWriter writer) throws IOException {
+        // Replace the file a link points to, not the link itself
+        Path file = Files.isSymbolicLink(target) ? target.toRealPath() : target.toAbsolutePath();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            writer.write(temp);
+            if (Files.exists(file)) {
+                copyPermissions(file, temp);
+            }
+            moveOver(temp, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static void copyPermissions(Path from, Path to) {
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Not a POSIX file system, the temporary file keeps the default permissions
+        }
+    }
+
+    static void moveOver(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rtextarea.RTextScrollPane;
+
+import javax.swing.Icon;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Bookmarks - Bookmarked lines of one document, shown in the gutter of every view of it
+ *
+ * Each bookmark is a Position at the start of its line, so the document moves it along with
+ * the text and nothing here is touched by edits. Positions never pass each other, so the list
+ * stays sorted by offset and finding the next or previous bookmark is a binary search.
+ *
+ * Bookmarked line numbers are remembered per file in ~/.notepad/bookmarks.properties and put
+ * back when the file is opened again.
+ */
+public class Bookmarks {
+
+    private static final Path STORE = AppDirectory.resolve("bookmarks.properties");
+    private static final Icon ICON = new BookmarkIcon();
+    private static Properties stored;
+
+    // Writes waiting for the store writer, newest request per file, guarded by PENDING
+    private static final Map<Path, int[]> PENDING = new LinkedHashMap<>();
+    private static boolean writing = false;
+
+    private final Document document;
+    private final List<Position> marks = new ArrayList<>();
+    private final List<RTextScrollPane> panes = new ArrayList<>();
+
+    private Bookmarks(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * The bookmarks of a document, created on first use
+     */
+    public static Bookmarks of(Document document) {
+        Object existing = document.getProperty("bookmarks");
+        if (existing instanceof Bookmarks) {
+            return (Bookmarks) existing;
+        }
+        Bookmarks bookmarks = new Bookmarks(document);
+        document.putProperty("bookmarks", bookmarks);
+        return bookmarks;
+    }
+
+    public boolean isEmpty() {
+        return marks.isEmpty();
+    }
+
+    /**
+     * Add a bookmark on the line or remove the one that is there, true if one was added
+     */
+    public boolean toggle(int line) {
+        Element root = document.getDefaultRootElement();
+        int start = root.getElement(line).getStartOffset();
+        int end = root.getElement(line).getEndOffset();
+        int from = firstAtOrAfter(start);
+        int to = from;
+        while (to < marks.size() && marks.get(to).getOffset() < end) {
+            to++;  // Lines joined by a deletion can hold more than one
+        }
+        boolean added = from == to;
+        if (added) {
+            try {
+                marks.add(from, document.createPosition(start));
+            } catch (BadLocationException e) {
+                return false;
+            }
+        } else {
+            marks.subList(from, to).clear();
+        }
+        refresh();
+        return added;
+    }
+
+    /**
+     * Offset of the first bookmark below the line, wrapping to the top, -1 if there is none
+     */
+    public int next(int line) {
+        if (marks.isEmpty()) {
+            return -1;
+        }
+        int index = firstAtOrAfter(document.getDefaultRootElement().getElement(line).getEndOffset());
+        return marks.get(index < marks.size() ? index : 0).getOffset();
+    }
+
+    /**
+     * Offset of the last bookmark above the line, wrapping to the bottom, -1 if there is none
+     */
+    public int previous(int line) {
+        if (marks.isEmpty()) {
+            return -1;
+        }
+        int index = firstAtOrAfter(document.getDefaultRootElement().getElement(line).getStartOffset()) - 1;
+        return marks.get(index >= 0 ? index : marks.size() - 1).getOffset();
+    }
+
+    /**
+     * Bookmarked lines in ascending order, each line once
+     */
+    public int[] getLines() {
+        Element root = document.getDefaultRootElement();
+        int[] lines = new int[marks.size()];
+        int count = 0;
+        for (Position mark : marks) {
+            int line = root.getElementIndex(mark.getOffset());
+            if (count == 0 || lines[count - 1] != line) {
+                lines[count++] = line;
+            }
+        }
+        return Arrays.copyOf(lines, count);
+    }
+
+    /**
+     * Replace all bookmarks, lines past the end of the document are dropped
+     */
+    public void setLines(int[] lines) {
+        marks.clear();
+        Element root = document.getDefaultRootElement();
+        int[] sorted = lines.clone();
+        Arrays.sort(sorted);
+        for (int line : sorted) {
+            if (line >= 0 && line < root.getElementCount()
+                    && (marks.isEmpty() || root.getElementIndex(marks.get(marks.size() - 1).getOffset()) != line)) {
+                try {
+                    marks.add(document.createPosition(root.getElement(line).getStartOffset()));
+                } catch (BadLocationException e) {
+                    // Inside the document, checked above
+                }
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Offsets of the bookmarks in ascending order
+     */
+    int[] getOffsets() {
+        int[] offsets = new int[marks.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = marks.get(i).getOffset();
+        }
+        return offsets;
+    }
+
+    /**
+     * Put the bookmarks back at the start of the lines holding the given offsets, used after a
+     * change that moved them all to one place
+     */
+    void setOffsets(int[] offsets) {
+        Element root = document.getDefaultRootElement();
+        int[] lines = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            lines[i] = root.getElementIndex(offsets[i]);
+        }
+        setLines(lines);
+    }
+
+    public void clear() {
+        marks.clear();
+        refresh();
+    }
+
+    /**
+     * Show the bookmarks in the gutter of a view
+     */
+    public void showIn(RTextScrollPane pane) {
+        panes.add(pane);
+        refresh(pane);
+    }
+
+    public void hideFrom(RTextScrollPane pane) {
+        panes.remove(pane);
+    }
+
+    private int firstAtOrAfter(int offset) {
+        int low = 0;
+        int high = marks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (marks.get(mid).getOffset() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void refresh() {
+        for (RTextScrollPane pane : panes) {
+            refresh(pane);
+        }
+    }
+
+    private void refresh(RTextScrollPane pane) {
+        pane.getGutter().removeAllTrackingIcons();
+        pane.setIconRowHeaderEnabled(!marks.isEmpty());
+        for (int line : getLines()) {
+            try {
+                pane.getGutter().addLineTrackingIcon(line, ICON);
+            } catch (BadLocationException e) {
+                // Lines come from the document itself
+            }
+        }
+    }
+
+    /**
+     * Bookmarked lines remembered for a file, empty if there are none (reads the store file)
+     */
+    public static synchronized int[] readStored(Path file) throws IOException {
+        String value = loadStore().getProperty(file.toAbsolutePath().toString());
+        if (value == null || value.isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Remember the bookmarked lines of a file in the background. One writer handles the
+     * requests in the order they were made, so an older snapshot never overwrites a newer one.
+     */
+    public static void store(Path file, int[] lines) {
+        synchronized (PENDING) {
+            PENDING.remove(file);
+            PENDING.put(file, lines);
+            if (writing) {
+                return;
+            }
+            writing = true;
+        }
+        IoExecutor.get().run("Save bookmarks", Bookmarks::writePending);
+    }
+
+    private static void writePending() {
+        while (true) {
+            Map.Entry<Path, int[]> next;
+            synchronized (PENDING) {
+                Iterator<Map.Entry<Path, int[]>> iterator = PENDING.entrySet().iterator();
+                if (!iterator.hasNext()) {
+                    writing = false;
+                    return;
+                }
+                next = iterator.next();
+                iterator.remove();
+            }
+            try {
+                writeStored(next.getKey(), next.getValue());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: Could not save bookmarks of " + next.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Remember the bookmarked lines of a file (writes the store file)
+     */
+    public static synchronized void writeStored(Path file, int[] lines) throws IOException {
+        Properties store = loadStore();
+        String key = file.toAbsolutePath().toString();
+        if (lines.length == 0) {
+            if (store.remove(key) == null) {
+                return;
+            }
+        } else {
+            StringBuilder value = new StringBuilder();
+            for (int line : lines) {
+                if (value.length() > 0) {
+                    value.append(',');
+                }
+                value.append(line);
+            }
+            store.setProperty(key, value.toString());
+        }
+        Files.createDirectories(STORE.getParent());
+        try (OutputStream out = Files.newOutputStream(STORE)) {
+            store.store(out, "Bookmarked lines per file");
+        }
+    }
+
+    private static Properties loadStore() throws IOException {
+        if (stored == null) {
+            Properties store = new Properties();
+            if (Files.exists(STORE)) {
+                try (InputStream in = Files.newInputStream(STORE)) {
+                    store.load(in);
+                }
+            }
+            stored = store;
+        }
+        return stored;
+    }
+
+    /**
+     * Small blue tag drawn in the icon row of the gutter
+     */
+    private static final class BookmarkIcon implements Icon {
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(new Color(52, 120, 220));
+            g2.fillRoundRect(x + 2, y + 3, getIconWidth() - 4, getIconHeight() - 6, 4, 4);
+            g2.dispose();
+        }
+
+        @Override
+        public int getIconWidth() {
+            return 12;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return 14;
+        }
+    }
+}
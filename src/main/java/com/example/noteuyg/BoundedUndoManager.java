@@ -0,0 +1,674 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rtextarea.RTextArea;
+import org.fife.ui.rtextarea.RUndoManager;
+
+import javax.swing.UIManager;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.DocumentFilter;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * BoundedUndoManager - Undo history with a memory budget
+ *
+ * Instead of keeping Swing's UndoableEdits (which pin document internals), every change is
+ * recorded as a plain text operation captured by a DocumentFilter. Inserted text is not copied
+ * (it is still in the document and is read back when the edit is undone), consecutive typing
+ * is merged into one record, and the memory of every record is estimated. When a tab or all
+ * tabs together exceed their budget, the oldest records are compressed into an UndoSpillStore
+ * on disk and loaded back only when the user undoes that far.
+ */
+public class BoundedUndoManager extends RUndoManager {
+
+    /** In-memory undo budget for a single tab */
+    private static long tabBudget = 32L * 1024 * 1024;
+
+    /** In-memory undo budget for all tabs together */
+    private static long globalBudget = 128L * 1024 * 1024;
+
+    /** Typing pauses longer than this start a new undo step */
+    private static final long MERGE_WINDOW_MILLIS = 1500;
+
+    private static final Set<BoundedUndoManager> MANAGERS =
+        Collections.newSetFromMap(new WeakHashMap<>());
+    private static long globalBytes = 0;
+
+    /**
+     * One primitive change: at offset, removed text was replaced by insertedLength characters
+     */
+    static final class TextOp {
+        final int offset;
+        final String removed;
+        int insertedLength;
+        String inserted; // Only kept while the op sits on the redo stack
+
+        TextOp(int offset, String removed, int insertedLength, String inserted) {
+            this.offset = offset;
+            this.removed = removed;
+            this.insertedLength = insertedLength;
+            this.inserted = inserted;
+        }
+
+        long estimateBytes() {
+            // Object header and fields plus two bytes per stored char
+            long chars = removed.length() + (inserted != null ? inserted.length() : 0);
+            return 48 + 2 * chars;
+        }
+    }
+
+    /**
+     * One undo step, made of the ops applied in order
+     */
+    static final class UndoRecord {
+        final List<TextOp> ops = new ArrayList<>(1);
+        RangeMap ranges; // Set for a batch replace so bookmarks inside its span can be put back
+        long lastChange;
+        long bytes = 64;
+
+        void add(TextOp op) {
+            ops.add(op);
+            bytes += op.estimateBytes();
+        }
+
+        void recomputeBytes() {
+            bytes = 64 + (ranges != null ? ranges.estimateBytes() : 0);
+            for (TextOp op : ops) {
+                bytes += op.estimateBytes();
+            }
+        }
+    }
+
+    /**
+     * Where the ranges of a batch replace were before and after it. The batch is applied as one
+     * change of the whole span, which would move every position inside the span to its start;
+     * this maps offsets across the batch instead.
+     */
+    static final class RangeMap {
+        final int[] oldStarts;
+        final int[] oldEnds;
+        final int[] newStarts;
+        final int[] newEnds;
+
+        RangeMap(int[] starts, int[] ends, String[] texts) {
+            int count = starts.length;
+            oldStarts = starts.clone();
+            oldEnds = ends.clone();
+            newStarts = new int[count];
+            newEnds = new int[count];
+            int delta = 0;
+            for (int i = 0; i < count; i++) {
+                newStarts[i] = starts[i] + delta;
+                delta += texts[i].length() - (ends[i] - starts[i]);
+                newEnds[i] = ends[i] + delta;
+            }
+        }
+
+        int toNew(int offset) {
+            return map(offset, oldStarts, oldEnds, newStarts, newEnds);
+        }
+
+        int toOld(int offset) {
+            return map(offset, newStarts, newEnds, oldStarts, oldEnds);
+        }
+
+        long estimateBytes() {
+            return 64 + 16L * oldStarts.length;
+        }
+
+        private static int map(int offset, int[] fromStarts, int[] fromEnds, int[] toStarts, int[] toEnds) {
+            // The last range starting at or before the offset
+            int i = Arrays.binarySearch(fromStarts, offset);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            if (i < 0) {
+                return offset;
+            }
+            if (offset == fromStarts[i]) {
+                return toStarts[i];
+            }
+            if (offset >= fromEnds[i]) {
+                return offset - fromEnds[i] + toEnds[i];
+            }
+            return Math.min(toStarts[i] + offset - fromStarts[i], toEnds[i]);
+        }
+    }
+
+    private RTextArea textArea;
+    private final Deque<UndoRecord> undoStack = new ArrayDeque<>();
+    private final Deque<UndoRecord> redoStack = new ArrayDeque<>();
+    private UndoSpillStore spillStore;
+    private AbstractDocument document;
+    private RecordingFilter filter;
+    private volatile long memoryBytes = 0;
+    private int atomicDepth = 0;
+    private boolean replaying = false;
+    private boolean closeCurrent = true;
+    private boolean suspended = false;
+
+    public BoundedUndoManager(RTextArea textArea) {
+        super(textArea);
+        this.textArea = textArea;
+        synchronized (MANAGERS) {
+            MANAGERS.add(this);
+        }
+    }
+
+    /**
+     * Move the caret of another view after undo/redo, used when that view becomes the owner
+     */
+    void setTextArea(RTextArea textArea) {
+        this.textArea = textArea;
+    }
+
+    /**
+     * Set the per-tab and global in-memory budgets in bytes
+     */
+    public static void setBudgets(long perTab, long global) {
+        tabBudget = perTab;
+        globalBudget = global;
+    }
+
+    /**
+     * Total estimated bytes held in memory by all undo histories
+     */
+    public static long getGlobalBytes() {
+        synchronized (MANAGERS) {
+            return globalBytes;
+        }
+    }
+
+    /**
+     * Move all but the newest record of every history to disk, returns the bytes released
+     */
+    public static long spillAll() {
+        List<BoundedUndoManager> managers;
+        synchronized (MANAGERS) {
+            managers = new ArrayList<>(MANAGERS);
+        }
+        long before = getGlobalBytes();
+        for (BoundedUndoManager manager : managers) {
+            synchronized (manager) {
+                manager.spillOldest(0);
+            }
+        }
+        return before - getGlobalBytes();
+    }
+
+    /**
+     * Start recording changes of the given document
+     */
+    public void attach(Document doc) {
+        if (!(doc instanceof AbstractDocument)) {
+            return;
+        }
+        document = (AbstractDocument) doc;
+        filter = new RecordingFilter();
+        document.setDocumentFilter(filter);
+    }
+
+    /**
+     * Stop recording and release memory and the spill file
+     */
+    public void dispose() {
+        if (document != null && document.getDocumentFilter() == filter) {
+            document.setDocumentFilter(null);
+        }
+        clearHistory();
+        if (spillStore != null) {
+            spillStore.close();
+            spillStore = null;
+        }
+        synchronized (MANAGERS) {
+            MANAGERS.remove(this);
+        }
+    }
+
+    /**
+     * Stop or restart recording. Suspending drops the history, the document is about to
+     * change in ways it could not be undone across.
+     */
+    public synchronized void setSuspended(boolean suspended) {
+        if (suspended && !this.suspended) {
+            clearHistory();
+            updateActions();
+        }
+        this.suspended = suspended;
+    }
+
+    /**
+     * Estimated bytes this history keeps in memory
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    @Override
+    public void undoableEditHappened(UndoableEditEvent e) {
+        // Swing edits are ignored, the DocumentFilter has already recorded the change as text
+    }
+
+    @Override
+    public void beginInternalAtomicEdit() {
+        if (atomicDepth++ == 0) {
+            closeCurrent = true;
+        }
+    }
+
+    @Override
+    public void endInternalAtomicEdit() {
+        if (atomicDepth > 0 && --atomicDepth == 0) {
+            closeCurrent = true;
+        }
+    }
+
+    @Override
+    public synchronized boolean canUndo() {
+        return !undoStack.isEmpty() || (spillStore != null && !spillStore.isEmpty());
+    }
+
+    @Override
+    public synchronized boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    @Override
+    public synchronized void discardAllEdits() {
+        clearHistory();
+        updateActions();
+    }
+
+    @Override
+    public String getUndoPresentationName() {
+        return UIManager.getString("AbstractUndoableEdit.undoText");
+    }
+
+    @Override
+    public String getRedoPresentationName() {
+        return UIManager.getString("AbstractUndoableEdit.redoText");
+    }
+
+    @Override
+    public synchronized void undo() throws CannotUndoException {
+        if (undoStack.isEmpty() && spillStore != null && !spillStore.isEmpty()) {
+            // Bring the newest spilled batch back, it directly precedes what is in memory
+            List<UndoRecord> restored = spillStore.popNewest();
+            for (int i = restored.size() - 1; i >= 0; i--) {
+                undoStack.addFirst(restored.get(i));
+                addBytes(restored.get(i).bytes);
+            }
+        }
+
+        UndoRecord record = undoStack.pollLast();
+        if (record == null) {
+            throw new CannotUndoException();
+        }
+        addBytes(-record.bytes);
+
+        int caret = -1;
+        int[] bookmarks = record.ranges != null ? bookmarkOffsets() : null;
+        replaying = true;
+        try {
+            // Reverse every op, last one first
+            for (int i = record.ops.size() - 1; i >= 0; i--) {
+                TextOp op = record.ops.get(i);
+                if (op.insertedLength > 0) {
+                    op.inserted = document.getText(op.offset, op.insertedLength);
+                    document.remove(op.offset, op.insertedLength);
+                }
+                if (!op.removed.isEmpty()) {
+                    document.insertString(op.offset, op.removed, null);
+                }
+                caret = op.offset + op.removed.length();
+            }
+        } catch (BadLocationException e) {
+            throw (CannotUndoException) new CannotUndoException().initCause(e);
+        } finally {
+            replaying = false;
+        }
+        if (bookmarks != null) {
+            moveBookmarks(bookmarks, record.ranges::toOld);
+        }
+
+        record.recomputeBytes();
+        redoStack.addLast(record);
+        addBytes(record.bytes);
+        closeCurrent = true;
+        moveCaret(caret);
+        updateActions();
+    }
+
+    @Override
+    public synchronized void redo() throws CannotRedoException {
+        UndoRecord record = redoStack.pollLast();
+        if (record == null) {
+            throw new CannotRedoException();
+        }
+        addBytes(-record.bytes);
+
+        int caret = -1;
+        int[] bookmarks = record.ranges != null ? bookmarkOffsets() : null;
+        replaying = true;
+        try {
+            for (TextOp op : record.ops) {
+                if (!op.removed.isEmpty()) {
+                    document.remove(op.offset, op.removed.length());
+                }
+                if (op.inserted != null && !op.inserted.isEmpty()) {
+                    document.insertString(op.offset, op.inserted, null);
+                }
+                caret = op.offset + op.insertedLength;
+                op.inserted = null; // Back in the document, no need to keep a copy
+            }
+        } catch (BadLocationException e) {
+            throw (CannotRedoException) new CannotRedoException().initCause(e);
+        } finally {
+            replaying = false;
+        }
+        if (bookmarks != null) {
+            moveBookmarks(bookmarks, record.ranges::toNew);
+        }
+
+        record.recomputeBytes();
+        undoStack.addLast(record);
+        addBytes(record.bytes);
+        closeCurrent = true;
+        moveCaret(caret);
+        enforceBudgets();
+        updateActions();
+    }
+
+    /**
+     * Apply non-overlapping replacements as one undo step. Range i is starts[i]..ends[i] in the
+     * current document, ranges are sorted by offset. The span from the first to the last range
+     * is replaced in one document change, so tens of thousands of ranges cost one event for
+     * the listeners; bookmarks inside the span are moved back to their lines afterwards.
+     * Returns the ranges as they are after the replace.
+     */
+    public synchronized RangeMap replaceAll(int[] starts, int[] ends, String[] texts) throws BadLocationException {
+        RangeMap ranges = new RangeMap(starts, ends, texts);
+        int count = starts.length;
+        if (count == 0) {
+            return ranges;
+        }
+
+        // The new text of the span: each replacement with the untouched text between them
+        int spanStart = starts[0];
+        String removed = document.getText(spanStart, ends[count - 1] - spanStart);
+        StringBuilder text = new StringBuilder(removed.length() + ranges.newEnds[count - 1] - ends[count - 1]);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(removed, ends[i - 1] - spanStart, starts[i] - spanStart);
+            }
+            text.append(texts[i]);
+        }
+        if (removed.contentEquals(text)) {
+            return ranges;
+        }
+
+        String inserted = text.toString();
+        int[] bookmarks = bookmarkOffsets();
+        replaying = true;
+        try {
+            document.replace(spanStart, removed.length(), inserted, null);
+        } finally {
+            replaying = false;
+        }
+        if (bookmarks != null) {
+            moveBookmarks(bookmarks, ranges::toNew);
+        }
+
+        if (suspended) {
+            return ranges;
+        }
+        for (UndoRecord redone : redoStack) {
+            addBytes(-redone.bytes);
+        }
+        redoStack.clear();
+        UndoRecord record = new UndoRecord();
+        record.add(new TextOp(spanStart, removed, inserted.length(), null));
+        record.ranges = ranges;
+        record.recomputeBytes();
+        record.lastChange = System.currentTimeMillis();
+        undoStack.addLast(record);
+        addBytes(record.bytes);
+        closeCurrent = true;
+        enforceBudgets();
+        updateActions();
+        return ranges;
+    }
+
+    /**
+     * Offsets of the document's bookmarks, null if it has none
+     */
+    private int[] bookmarkOffsets() {
+        Object bookmarks = document.getProperty("bookmarks");
+        if (bookmarks instanceof Bookmarks && !((Bookmarks) bookmarks).isEmpty()) {
+            return ((Bookmarks) bookmarks).getOffsets();
+        }
+        return null;
+    }
+
+    private void moveBookmarks(int[] offsets, IntUnaryOperator map) {
+        int[] moved = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            moved[i] = map.applyAsInt(offsets[i]);
+        }
+        ((Bookmarks) document.getProperty("bookmarks")).setOffsets(moved);
+    }
+
+    /**
+     * Append text without recording it. Every recorded op lies before the old end, so undo and
+     * redo still find their text where they expect it.
+     */
+    public synchronized void appendUnrecorded(String text) throws BadLocationException {
+        replaying = true;
+        try {
+            document.insertString(document.getLength(), text, null);
+        } finally {
+            replaying = false;
+        }
+        closeCurrent = true;
+    }
+
+    private void moveCaret(int caret) {
+        if (caret >= 0 && caret <= document.getLength()) {
+            textArea.setCaretPosition(caret);
+        }
+    }
+
+    private void clearHistory() {
+        undoStack.clear();
+        redoStack.clear();
+        addBytes(-memoryBytes);
+        if (spillStore != null) {
+            spillStore.clear();
+        }
+        closeCurrent = true;
+    }
+
+    /**
+     * Record a change that was just applied to the document
+     */
+    private synchronized void record(int offset, String removed, int insertedLength) {
+        if (replaying || suspended || (removed.isEmpty() && insertedLength == 0)) {
+            return;
+        }
+
+        // A new change makes the redo history unreachable
+        for (UndoRecord record : redoStack) {
+            addBytes(-record.bytes);
+        }
+        redoStack.clear();
+
+        long now = System.currentTimeMillis();
+        UndoRecord last = undoStack.peekLast();
+        if (last != null && (atomicDepth > 0 && !closeCurrent || canMerge(last, offset, removed, insertedLength, now))) {
+            mergeInto(last, offset, removed, insertedLength);
+        } else {
+            UndoRecord record = new UndoRecord();
+            record.add(new TextOp(offset, removed, insertedLength, null));
+            undoStack.addLast(record);
+            addBytes(record.bytes);
+            last = record;
+        }
+        last.lastChange = now;
+        closeCurrent = false;
+
+        enforceBudgets();
+        updateActions();
+    }
+
+    /**
+     * Check if a single typed or deleted character continues the last record
+     */
+    private boolean canMerge(UndoRecord last, int offset, String removed, int insertedLength, long now) {
+        if (closeCurrent || now - last.lastChange > MERGE_WINDOW_MILLIS) {
+            return false;
+        }
+        TextOp previous = last.ops.get(last.ops.size() - 1);
+
+        // Typing: one more character right after the previous insert, a newline starts a new step
+        if (removed.isEmpty() && insertedLength == 1 && previous.removed.isEmpty()) {
+            try {
+                return offset == previous.offset + previous.insertedLength
+                    && !"\n".equals(document.getText(offset, 1));
+            } catch (BadLocationException e) {
+                return false;
+            }
+        }
+
+        // Backspace or Delete, one character at a time next to the previous removal
+        if (insertedLength == 0 && removed.length() == 1 && previous.insertedLength == 0) {
+            return offset == previous.offset - 1 || offset == previous.offset;
+        }
+        return false;
+    }
+
+    private void mergeInto(UndoRecord record, int offset, String removed, int insertedLength) {
+        TextOp previous = record.ops.get(record.ops.size() - 1);
+        long before = record.bytes;
+
+        if (atomicDepth == 0 && removed.isEmpty() && previous.removed.isEmpty()) {
+            previous.insertedLength += insertedLength;
+        } else if (atomicDepth == 0 && insertedLength == 0 && previous.insertedLength == 0) {
+            // Backspace prepends, Delete appends to the removed text
+            TextOp merged = offset < previous.offset
+                ? new TextOp(offset, removed + previous.removed, 0, null)
+                : new TextOp(offset, previous.removed + removed, 0, null);
+            record.ops.set(record.ops.size() - 1, merged);
+        } else if (atomicDepth > 0 && removed.isEmpty() && offset == previous.offset + previous.insertedLength) {
+            // Text added right after the previous op, as a chunked paste does
+            previous.insertedLength += insertedLength;
+        } else {
+            record.ops.add(new TextOp(offset, removed, insertedLength, null));
+        }
+
+        record.recomputeBytes();
+        addBytes(record.bytes - before);
+    }
+
+    private void addBytes(long delta) {
+        memoryBytes += delta;
+        synchronized (MANAGERS) {
+            globalBytes += delta;
+        }
+    }
+
+    /**
+     * Spill the oldest records while this tab or the whole editor is over budget
+     */
+    private void enforceBudgets() {
+        if (memoryBytes > tabBudget) {
+            spillOldest(tabBudget * 3 / 4);
+        }
+
+        // Globally, spill from whichever history holds the most memory
+        while (getGlobalBytes() > globalBudget) {
+            BoundedUndoManager largest = null;
+            synchronized (MANAGERS) {
+                for (BoundedUndoManager manager : MANAGERS) {
+                    if (largest == null || manager.memoryBytes > largest.memoryBytes) {
+                        largest = manager;
+                    }
+                }
+            }
+            if (largest == null || !largest.spillHalf()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Spill half of this history under its own lock, it may be another tab's history picked to
+     * make room. Histories only grow on the event thread and spillAll() takes one lock at a
+     * time, so two histories never wait on each other.
+     */
+    private synchronized boolean spillHalf() {
+        return spillOldest(memoryBytes / 2);
+    }
+
+    /**
+     * Move the oldest undo records to disk until memory use drops to the target.
+     * The newest record stays in memory so typing can keep merging into it.
+     */
+    private boolean spillOldest(long targetBytes) {
+        List<UndoRecord> batch = new ArrayList<>();
+        while (memoryBytes > targetBytes && undoStack.size() > 1) {
+            UndoRecord record = undoStack.pollFirst();
+            addBytes(-record.bytes);
+            batch.add(record);
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        if (spillStore == null) {
+            spillStore = new UndoSpillStore();
+        }
+        spillStore.push(batch);
+        return true;
+    }
+
+    /**
+     * Captures every change as text before it is lost from the document
+     */
+    private class RecordingFilter extends DocumentFilter {
+
+        @Override
+        public void insertString(FilterBypass fb, int offset, String text, AttributeSet attr)
+                throws BadLocationException {
+            fb.insertString(offset, text, attr);
+            record(offset, "", text != null ? text.length() : 0);
+        }
+
+        @Override
+        public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+            String removed = replaying ? "" : fb.getDocument().getText(offset, length);
+            fb.remove(offset, length);
+            record(offset, removed, 0);
+        }
+
+        @Override
+        public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs)
+                throws BadLocationException {
+            String removed = replaying || length == 0 ? "" : fb.getDocument().getText(offset, length);
+            fb.replace(offset, length, text, attrs);
+            record(offset, removed, text != null ? text.length() : 0);
+        }
+    }
+}
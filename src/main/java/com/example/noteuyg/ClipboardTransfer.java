@@ -0,0 +1,373 @@
+package com.example.noteuyg;
+
+import javax.swing.UIManager;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ClipboardTransfer - Copy and paste of large texts without freezing the editor
+ *
+ * A selection of LARGE_CHARS or more goes to the clipboard as a ChunkedText, copied out of the
+ * document in chunks; a String of the whole text is only built if another application asks
+ * for one. A paste shorter than a chunk is inserted right away, like Swing does, so keys typed
+ * after it land after it. A longer one is read on a background thread and inserted chunk by
+ * chunk, each in its own EDT event, so the editor keeps painting and the status bar keeps up.
+ * It runs as one atomic edit with the document marked "pasting", which keeps it a single undo
+ * step, and stops if its view is closed.
+ */
+public final class ClipboardTransfer {
+
+    /** Selections from this size on are copied as chunks */
+    public static final int LARGE_CHARS = 1024 * 1024;
+
+    private static final int CHUNK_CHARS = 64 * 1024;
+    private static final int CHUNKS_IN_FLIGHT = 4;
+
+    private ClipboardTransfer() {
+    }
+
+    /**
+     * Copy a large selection as a ChunkedText, false if the selection is small and left to Swing
+     */
+    public static boolean copy(EditorTextArea textArea) {
+        int start = textArea.getSelectionStart();
+        int end = textArea.getSelectionEnd();
+        if (end - start < LARGE_CHARS) {
+            return false;
+        }
+        ChunkedText text = ChunkedText.capture(textArea.getDocument(), start, end);
+        if (text == null) {
+            return false;
+        }
+        Clipboard clipboard = textArea.getToolkit().getSystemClipboard();
+        clipboard.setContents(text, text);
+        return true;
+    }
+
+    /**
+     * Copy and delete a large selection, false if the selection is small and left to Swing
+     */
+    public static boolean cut(EditorTextArea textArea) {
+        if (!textArea.isEditable() || !copy(textArea)) {
+            return false;
+        }
+        textArea.replaceSelection("");
+        return true;
+    }
+
+    /**
+     * Paste the clipboard at the selection, in the background if it is longer than a chunk
+     */
+    public static void paste(EditorTextArea textArea) {
+        Reader in;
+        try {
+            Transferable contents = textArea.getToolkit().getSystemClipboard().getContents(null);
+            if (contents == null || !contents.isDataFlavorSupported(DataFlavor.stringFlavor)) {
+                UIManager.getLookAndFeel().provideErrorFeedback(textArea);
+                return;
+            }
+            in = contents instanceof ChunkedText
+                ? ((ChunkedText) contents).reader()
+                : DataFlavor.stringFlavor.getReaderForText(contents);
+        } catch (IllegalStateException | UnsupportedFlavorException | IOException e) {
+            UIManager.getLookAndFeel().provideErrorFeedback(textArea);  // Clipboard busy or emptied
+            return;
+        }
+
+        // The data of the system clipboard is already fetched, the first chunk costs nothing
+        char[] head = new char[CHUNK_CHARS];
+        int length = 0;
+        try {
+            int read;
+            while (length < head.length && (read = in.read(head, length, head.length - length)) >= 0) {
+                length += read;
+            }
+        } catch (IOException e) {
+            UIManager.getLookAndFeel().provideErrorFeedback(textArea);
+            return;
+        }
+        if (length < head.length) {
+            textArea.replaceSelection(normalizeLineEnds(head, length));
+            return;
+        }
+
+        int headLength = length;
+        Paste paste = new Paste(textArea);
+        IoExecutor.get().task("Paste", () -> {
+            try (in) {
+                paste.read(head, headLength, in);
+            } finally {
+                EdtDispatcher.get().dispatch(paste::finish);
+            }
+            return null;
+        }).onFailure(e -> UIManager.getLookAndFeel().provideErrorFeedback(textArea)).start();
+    }
+
+    /**
+     * Turn \r\n and \r into \n, as Swing does on paste
+     */
+    private static String normalizeLineEnds(char[] text, int length) {
+        StringBuilder normalized = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = text[i];
+            if (c == '\r') {
+                normalized.append('\n');
+                if (i + 1 < length && text[i + 1] == '\n') {
+                    i++;
+                }
+            } else {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Check if a paste is being streamed into the document
+     */
+    public static boolean isPasting(Document document) {
+        return Boolean.TRUE.equals(document.getProperty("pasting"));
+    }
+
+    /**
+     * One paste in progress, read() runs in the background and everything else on the EDT
+     */
+    private static final class Paste {
+
+        private final EditorTextArea textArea;
+        private final Document document;
+        private final Semaphore inFlight = new Semaphore(CHUNKS_IN_FLIGHT);
+        private volatile boolean aborted = false;
+        private boolean streaming = false;
+        private int offset = -1;
+
+        Paste(EditorTextArea textArea) {
+            this.textArea = textArea;
+            this.document = textArea.getDocument();
+        }
+
+        /**
+         * Read the clipboard in chunks, after the given head that was already read from it,
+         * with line ends turned into '\n' as Swing does on paste
+         */
+        void read(char[] head, int headLength, Reader in) throws IOException, InterruptedException {
+            char[] buffer = head;
+            StringBuilder chunk = new StringBuilder(CHUNK_CHARS);
+            boolean afterCr = false;
+            boolean sent = false;
+            int read = headLength;
+            while (!aborted && read >= 0) {
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (c == '\n' && afterCr) {
+                        afterCr = false;
+                        continue;
+                    }
+                    afterCr = c == '\r';
+                    chunk.append(afterCr ? '\n' : c);
+                }
+                if (chunk.length() >= CHUNK_CHARS) {
+                    send(chunk.toString(), false);
+                    chunk.setLength(0);
+                    sent = true;
+                }
+                read = in.read(buffer);
+            }
+            if (!aborted && (chunk.length() > 0 || !sent)) {
+                send(chunk.toString(), true);
+            }
+        }
+
+        private void send(String text, boolean last) throws InterruptedException {
+            inFlight.acquire();
+            EdtDispatcher.get().dispatch(() -> {
+                inFlight.release();
+                insert(text, last);
+            });
+        }
+
+        private void insert(String text, boolean last) {
+            if (aborted) {
+                return;
+            }
+            if (!textArea.isDisplayable() || textArea.getDocument() != document) {
+                aborted = true;  // Its tab was closed, the reader stops at the next chunk
+                return;
+            }
+            try {
+                if (offset < 0) {
+                    // Paste where the selection is once the text arrives
+                    if (!textArea.isEditable() || !textArea.isEnabled()) {
+                        aborted = true;
+                        UIManager.getLookAndFeel().provideErrorFeedback(textArea);
+                        return;
+                    }
+                    if (last) {
+                        textArea.replaceSelection(text);  // All of it in one chunk
+                        offset = textArea.getCaretPosition();
+                        return;
+                    }
+                    startStreaming();
+                    int start = textArea.getSelectionStart();
+                    document.remove(start, textArea.getSelectionEnd() - start);
+                    document.insertString(start, text, null);
+                    offset = start + text.length();
+                } else {
+                    document.insertString(offset, text, null);
+                    offset += text.length();
+                }
+            } catch (BadLocationException e) {
+                aborted = true;
+                UIManager.getLookAndFeel().provideErrorFeedback(textArea);
+            }
+        }
+
+        /**
+         * Everything after the first chunk becomes part of the same undo step, and the views
+         * stay read-only (through the "pasting" property) until the last chunk is in
+         */
+        private void startStreaming() {
+            streaming = true;
+            document.putProperty("pasting", Boolean.TRUE);
+            textArea.getOwner().beginAtomicEdit();
+            textArea.pastingChanged(true);
+        }
+
+        void finish() {
+            if (!streaming) {
+                return;
+            }
+            streaming = false;
+            textArea.getOwner().endAtomicEdit();
+            document.putProperty("pasting", null);
+            textArea.pastingChanged(false);
+            if (offset >= 0 && offset <= document.getLength()) {
+                textArea.setCaretPosition(offset);
+            }
+        }
+    }
+
+    /**
+     * Text copied from a document as chunks, offered to other applications as a String built
+     * on demand and to our own paste as a Reader over the chunks
+     */
+    public static final class ChunkedText implements Transferable, ClipboardOwner {
+
+        private static final DataFlavor[] FLAVORS = {DataFlavor.stringFlavor};
+
+        private final List<char[]> chunks;
+        private final int length;
+        private SoftReference<String> string = new SoftReference<>(null);
+
+        private ChunkedText(List<char[]> chunks, int length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        /**
+         * Copy a range of the document under one read lock, null if the range is no longer there
+         */
+        static ChunkedText capture(Document document, int start, int end) {
+            List<char[]> chunks = new ArrayList<>((end - start) / CHUNK_CHARS + 1);
+            boolean[] valid = {true};
+            document.render(() -> {
+                Segment segment = new Segment();
+                try {
+                    for (int offset = start; offset < end; offset += CHUNK_CHARS) {
+                        int count = Math.min(CHUNK_CHARS, end - offset);
+                        document.getText(offset, count, segment);
+                        char[] chunk = new char[count];
+                        System.arraycopy(segment.array, segment.offset, chunk, 0, count);
+                        chunks.add(chunk);
+                    }
+                } catch (BadLocationException e) {
+                    valid[0] = false;
+                }
+            });
+            return valid[0] ? new ChunkedText(chunks, end - start) : null;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Read the text without building a String of it
+         */
+        public Reader reader() {
+            return new Reader() {
+                private int chunk = 0;
+                private int position = 0;
+
+                @Override
+                public int read(char[] buffer, int offset, int count) {
+                    while (chunk < chunks.size() && position == chunks.get(chunk).length) {
+                        chunk++;
+                        position = 0;
+                    }
+                    if (chunk == chunks.size()) {
+                        return -1;
+                    }
+                    char[] current = chunks.get(chunk);
+                    int n = Math.min(count, current.length - position);
+                    System.arraycopy(current, position, buffer, offset, n);
+                    position += n;
+                    return n;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public synchronized String toString() {
+            String text = string.get();
+            if (text == null) {
+                StringBuilder builder = new StringBuilder(length);
+                for (char[] chunk : chunks) {
+                    builder.append(chunk);
+                }
+                text = builder.toString();
+                string = new SoftReference<>(text);
+            }
+            return text;
+        }
+
+        @Override
+        public DataFlavor[] getTransferDataFlavors() {
+            return FLAVORS.clone();
+        }
+
+        @Override
+        public boolean isDataFlavorSupported(DataFlavor flavor) {
+            return DataFlavor.stringFlavor.equals(flavor);
+        }
+
+        @Override
+        public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException {
+            if (!isDataFlavorSupported(flavor)) {
+                throw new UnsupportedFlavorException(flavor);
+            }
+            return toString();
+        }
+
+        @Override
+        public void lostOwnership(Clipboard clipboard, Transferable contents) {
+            // Nothing to release, the clipboard drops its reference to us
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.event.CaretListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * CompletionPopup - Word completion list under the caret of one editor view
+ *
+ * Words come from the shared TokenDictionary, so every open tab contributes. The popup never
+ * takes the focus: typing goes on in the editor and narrows the list, while the arrow keys,
+ * Enter, Tab and Escape are taken from the editor only while the list is showing.
+ */
+public class CompletionPopup {
+
+    private static final int MAX_WORDS = 100;
+    private static final int VISIBLE_ROWS = 10;
+    private static final int MAX_WORD_CHARS = 256;
+
+    private final JTextComponent textArea;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    private final KeyListener keyListener;
+    private final CaretListener caretListener;
+    private final FocusListener focusListener;
+    private int wordStart;
+    private boolean listening = false;  // Stays set if the popup menu closed itself on a click elsewhere
+
+    /**
+     * The popup of a view, created on first use
+     */
+    public static CompletionPopup of(JTextComponent textArea) {
+        Object existing = textArea.getClientProperty("completionPopup");
+        if (existing instanceof CompletionPopup) {
+            return (CompletionPopup) existing;
+        }
+        CompletionPopup popup = new CompletionPopup(textArea);
+        textArea.putClientProperty("completionPopup", popup);
+        return popup;
+    }
+
+    private CompletionPopup(JTextComponent textArea) {
+        this.textArea = textArea;
+        list.setFocusable(false);
+        list.setFont(textArea.getFont());
+        list.setVisibleRowCount(VISIBLE_ROWS);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    accept();
+                }
+            }
+        });
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        popup.setFocusable(false);
+        popup.setLayout(new BorderLayout());
+        popup.add(scrollPane, BorderLayout.CENTER);
+
+        keyListener = new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int row = list.getSelectedIndex();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_UP -> list.setSelectedIndex(Math.max(0, row - 1));
+                    case KeyEvent.VK_DOWN -> list.setSelectedIndex(Math.min(model.size() - 1, row + 1));
+                    case KeyEvent.VK_PAGE_UP -> list.setSelectedIndex(Math.max(0, row - VISIBLE_ROWS));
+                    case KeyEvent.VK_PAGE_DOWN -> list.setSelectedIndex(Math.min(model.size() - 1, row + VISIBLE_ROWS));
+                    case KeyEvent.VK_ENTER, KeyEvent.VK_TAB -> accept();
+                    case KeyEvent.VK_ESCAPE -> hide();
+                    default -> {
+                        return;
+                    }
+                }
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+            }
+        };
+        // The caret moves inside the document change, read the word once it is done
+        caretListener = e -> SwingUtilities.invokeLater(this::narrow);
+        focusListener = new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                hide();
+            }
+        };
+    }
+
+    /**
+     * Complete the word before the caret: insert the only match, or list all of them
+     */
+    public void show() {
+        int caret = textArea.getCaretPosition();
+        wordStart = wordStart(caret);
+        String prefix = text(wordStart, caret);
+        List<String> words = prefix.isEmpty() ? List.of() : TokenDictionary.get().complete(prefix, MAX_WORDS);
+        if (words.isEmpty()) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        if (words.size() == 1) {
+            insert(words.get(0), prefix);
+            return;
+        }
+
+        setWords(words);
+        if (!listening) {
+            listening = true;
+            textArea.addKeyListener(keyListener);
+            textArea.addCaretListener(caretListener);
+            textArea.addFocusListener(focusListener);
+        }
+        try {
+            Rectangle2D at = textArea.modelToView2D(wordStart);
+            popup.pack();
+            popup.show(textArea, (int) at.getX(), (int) at.getMaxY());
+        } catch (BadLocationException e) {
+            hide();
+        }
+    }
+
+    public void hide() {
+        popup.setVisible(false);
+        if (listening) {
+            listening = false;
+            textArea.removeKeyListener(keyListener);
+            textArea.removeCaretListener(caretListener);
+            textArea.removeFocusListener(focusListener);
+        }
+    }
+
+    /**
+     * Follow typing while the list is showing, hide it once the caret leaves the word
+     */
+    private void narrow() {
+        if (!popup.isVisible()) {
+            hide();
+            return;
+        }
+        int caret = textArea.getCaretPosition();
+        if (caret <= wordStart || wordStart(caret) != wordStart) {
+            hide();
+            return;
+        }
+        List<String> words = TokenDictionary.get().complete(text(wordStart, caret), MAX_WORDS);
+        if (words.isEmpty()) {
+            hide();
+        } else {
+            setWords(words);
+        }
+    }
+
+    private void setWords(List<String> words) {
+        model.clear();
+        model.addAll(words);
+        list.setSelectedIndex(0);
+        list.ensureIndexIsVisible(0);
+    }
+
+    private void accept() {
+        String word = list.getSelectedValue();
+        int caret = textArea.getCaretPosition();
+        String prefix = text(wordStart, caret);
+        hide();
+        if (word != null && word.startsWith(prefix)) {
+            insert(word, prefix);
+        }
+    }
+
+    private void insert(String word, String prefix) {
+        try {
+            textArea.getDocument().insertString(textArea.getCaretPosition(), word.substring(prefix.length()), null);
+        } catch (BadLocationException e) {
+            Toolkit.getDefaultToolkit().beep();
+        }
+    }
+
+    /**
+     * Start of the identifier that ends at the offset, on the same line
+     */
+    private int wordStart(int offset) {
+        Document document = textArea.getDocument();
+        Element line = document.getDefaultRootElement().getElement(document.getDefaultRootElement().getElementIndex(offset));
+        int from = Math.max(line.getStartOffset(), offset - MAX_WORD_CHARS);
+        String before = text(from, offset);
+        int start = before.length();
+        while (start > 0 && Character.isJavaIdentifierPart(before.charAt(start - 1))) {
+            start--;
+        }
+        return from + start;
+    }
+
+    private String text(int start, int end) {
+        try {
+            return textArea.getDocument().getText(start, Math.max(0, end - start));
+        } catch (BadLocationException e) {
+            return "";
+        }
+    }
+}
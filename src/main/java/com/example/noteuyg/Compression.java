@@ -0,0 +1,183 @@
+package com.example.noteuyg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression - Compressed file formats recognized by their magic bytes
+ *
+ * gzip is decoded and encoded as a stream with the JDK. Zstandard and XZ are recognized so
+ * they are reported clearly instead of being shown as garbage, but the JDK has no codec for
+ * them.
+ */
+public enum Compression {
+    NONE("Uncompressed", new byte[0]),
+    GZIP("gzip", new byte[] {0x1F, (byte) 0x8B}),
+    ZSTD("Zstandard", new byte[] {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD}),
+    XZ("XZ", new byte[] {(byte) 0xFD, 0x37, 0x7A, 0x58, 0x5A, 0x00});
+
+    /**
+     * Receives decompressed text one chunk at a time
+     */
+    public interface TextSink {
+        void accept(String chunk) throws InterruptedException;
+    }
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final String displayName;
+    private final byte[] magic;
+
+    Compression(String displayName, byte[] magic) {
+        this.displayName = displayName;
+        this.magic = magic;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Whether files in this format can be opened and saved
+     */
+    public boolean isSupported() {
+        return this == NONE || this == GZIP;
+    }
+
+    /**
+     * Look at the first bytes of a file to tell its format
+     */
+    public static Compression detect(Path file) throws IOException {
+        byte[] head = new byte[6];
+        int length;
+        try (InputStream in = Files.newInputStream(file)) {
+            length = in.readNBytes(head, 0, head.length);
+        }
+        for (Compression compression : values()) {
+            if (compression != NONE && startsWith(head, length, compression.magic)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stream that yields the decompressed bytes of a file
+     */
+    public InputStream newInputStream(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        switch (this) {
+            case NONE:
+                return in;
+            case GZIP:
+                // Concatenated members (as written by pigz or appended logs) are read as one
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            default:
+                in.close();
+                throw new IOException(displayName + "-compressed files are not supported");
+        }
+    }
+
+    /**
+     * Stream that compresses into a file
+     */
+    public OutputStream newOutputStream(Path file) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        switch (this) {
+            case NONE:
+                return out;
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            default:
+                out.close();
+                throw new IOException(displayName + "-compressed files are not supported");
+        }
+    }
+
+    /**
+     * Decompress a file as UTF-8 text in chunks of about chunkChars characters. Line breaks
+     * become '\n' and the final newline is dropped, the same as for uncompressed files.
+     */
+    public void readText(Path file, int chunkChars, TextSink sink) throws IOException, InterruptedException {
+        readText(newInputStream(file), chunkChars, sink);
+    }
+
+    /**
+     * Decode a stream as UTF-8 text in chunks the same way, and close it
+     */
+    public static void readText(InputStream in, int chunkChars, TextSink sink)
+            throws IOException, InterruptedException {
+        char[] buffer = new char[chunkChars];
+        StringBuilder chunk = new StringBuilder(chunkChars + 1);
+        boolean pendingCr = false;
+        boolean pendingNewline = false;
+
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                chunk.setLength(0);
+                if (pendingNewline) {
+                    chunk.append('\n');
+                    pendingNewline = false;
+                }
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (c == '\n' && pendingCr) {
+                        pendingCr = false; // Second half of \r\n
+                        continue;
+                    }
+                    pendingCr = c == '\r';
+                    chunk.append(pendingCr ? '\n' : c);
+                }
+
+                // Hold back a trailing newline, it is dropped if the file ends there
+                if (chunk.length() > 0 && chunk.charAt(chunk.length() - 1) == '\n') {
+                    chunk.setLength(chunk.length() - 1);
+                    pendingNewline = true;
+                }
+                if (chunk.length() > 0) {
+                    sink.accept(chunk.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Decompress a whole file as text, for callers that need it in one piece
+     */
+    public String readText(Path file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try {
+            readText(file, BUFFER_SIZE, text::append);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, e);
+        }
+        return text.toString();
+    }
+}
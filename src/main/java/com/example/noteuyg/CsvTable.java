@@ -0,0 +1,1182 @@
+package com.example.noteuyg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * CsvTable - A CSV or TSV file parsed into columns
+ *
+ * The file is read in chunks on all cores. A first pass counts quotes per chunk, which tells
+ * for every chunk where its first complete record starts (the first newline outside quotes),
+ * so the second pass can parse the chunks independently. Every parsed chunk is encoded per
+ * column right away (numbers, or its distinct values, keeping the bytes only when neither
+ * holds the text) and its raw bytes are dropped, so only the chunks being parsed are held as
+ * bytes. Each column is then stored in the most compact form its values allow: long or double
+ * arrays for numbers, a dictionary with 16-bit codes for columns with few distinct values,
+ * and UTF-8 bytes for the rest. Sorting and filtering work on these arrays and produce row
+ * index arrays; the text is never parsed again.
+ */
+public final class CsvTable {
+
+    /** Bytes per parse chunk */
+    private static final int CHUNK_BYTES = 32 * 1024 * 1024;
+
+    /** Columns with more distinct values than this keep their text */
+    private static final int DICTIONARY_LIMIT = 65535;
+
+    /** Rows sorted in one piece before the sort splits the work */
+    private static final int SORT_SPLIT = 8192;
+
+    private final String[] names;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private CsvTable(String[] names, Column[] columns, int rowCount) {
+        this.names = names;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * Check if a column was stored as numbers
+     */
+    public boolean isNumeric(int column) {
+        return columns[column] instanceof LongColumn || columns[column] instanceof DoubleColumn;
+    }
+
+    /**
+     * Short description of how a column is stored
+     */
+    public String getStorage(int column) {
+        return columns[column].getStorage();
+    }
+
+    /**
+     * Text of a cell as shown in the table
+     */
+    public String getText(int row, int column) {
+        return columns[column].getText(row);
+    }
+
+    /**
+     * Estimated bytes held by the column arrays
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.getMemoryBytes();
+        }
+        return bytes;
+    }
+
+    // ---- Loading ----
+
+    /**
+     * Parse a file; .tsv files are split on tabs without quoting, everything else as CSV.
+     * The first record holds the column names. bytesDone advances to twice the file size.
+     */
+    public static CsvTable load(Path file, AtomicLong bytesDone) throws IOException {
+        boolean tabs = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".tsv");
+        byte delimiter = (byte) (tabs ? '\t' : ',');
+        boolean quoting = !tabs;
+        Thread caller = Thread.currentThread();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Header first, it decides the number of columns
+            byte[] head = read(channel, 0, (int) Math.min(size, 1024 * 1024));
+            int headerStart = head.length >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB
+                && head[2] == (byte) 0xBF ? 3 : 0; // UTF-8 byte order mark
+            int headerEnd = findRecordEnd(head, headerStart, quoting);
+            if (headerEnd < 0 && head.length < size) {
+                throw new IOException("The header line of " + file.getFileName() + " is longer than 1 MB");
+            }
+            if (headerEnd < 0) {
+                headerEnd = head.length;
+            }
+            List<String> headerFields = new ArrayList<>();
+            parseRecords(head, headerStart, headerEnd, delimiter, quoting, null, headerFields);
+            String[] names = headerFields.toArray(new String[0]);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].isEmpty()) {
+                    names[i] = "Column " + (i + 1);
+                }
+            }
+            long dataStart = Math.min(size, headerEnd + 1L);
+
+            // Pass 1: quote parity and candidate record starts of every chunk
+            int chunkCount = (int) Math.max(1, (size - dataStart + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            ChunkScan[] scans = unchecked(() -> IntStream.range(0, chunkCount).parallel()
+                .mapToObj(i -> {
+                    checkCancelled(caller);
+                    long start = dataStart + (long) i * CHUNK_BYTES;
+                    int length = (int) Math.min(CHUNK_BYTES, size - start);
+                    ChunkScan scan = scan(readUnchecked(channel, start, length), quoting);
+                    bytesDone.addAndGet(length);
+                    return scan;
+                }).toArray(ChunkScan[]::new));
+
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(dataStart);
+            boolean insideQuotes = false;
+            for (int i = 0; i < chunkCount; i++) {
+                if (i > 0) {
+                    int newline = scans[i].firstNewline[insideQuotes ? 1 : 0];
+                    if (newline >= 0) {
+                        bounds.add(dataStart + (long) i * CHUNK_BYTES + newline + 1);
+                    }
+                }
+                insideQuotes ^= scans[i].oddQuotes;
+            }
+            bounds.add(size);
+
+            // Pass 2: parse the ranges between record starts independently and encode them
+            int columnCount = names.length;
+            EncodedChunk[] chunks = unchecked(() -> IntStream.range(0, bounds.size() - 1).parallel()
+                .mapToObj(i -> {
+                    checkCancelled(caller);
+                    long start = bounds.get(i);
+                    if (bounds.get(i + 1) - start > Integer.MAX_VALUE - 8) {
+                        throw new UncheckedIOException(new IOException("A record of " + file.getFileName()
+                            + " spans more than 2 GB, is a quote missing?"));
+                    }
+                    int length = (int) (bounds.get(i + 1) - start);
+                    ChunkData chunk = new ChunkData(columnCount);
+                    parseRecords(readUnchecked(channel, start, length), 0, length, delimiter, quoting, chunk, null);
+                    EncodedChunk encoded = new EncodedChunk(chunk.rows, columnCount);
+                    for (int c = 0; c < columnCount; c++) {
+                        encoded.columns[c] = encode(chunk, c);
+                        chunk.data[c] = null;
+                        chunk.ends[c] = null;
+                    }
+                    bytesDone.addAndGet(length);
+                    return encoded;
+                }).toArray(EncodedChunk[]::new));
+
+            int[] rowStarts = new int[chunks.length + 1];
+            for (int i = 0; i < chunks.length; i++) {
+                long next = (long) rowStarts[i] + chunks[i].rows;
+                if (next > Integer.MAX_VALUE - 8) {
+                    throw new IOException(file.getFileName() + " has more rows than the table viewer can hold");
+                }
+                rowStarts[i + 1] = (int) next;
+            }
+
+            // Pass 3: pick the storage of every column
+            Column[] columns = IntStream.range(0, columnCount).parallel()
+                .mapToObj(c -> {
+                    checkCancelled(caller);
+                    return buildColumn(chunks, rowStarts, c);
+                }).toArray(Column[]::new);
+            return new CsvTable(names, columns, rowStarts[chunks.length]);
+        } catch (CancellationException e) {
+            throw new IOException("Parsing " + file.getFileName() + " was cancelled", e);
+        }
+    }
+
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static <T> T unchecked(IoSupplier<T> work) throws IOException {
+        try {
+            return work.get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void checkCancelled(Thread caller) {
+        if (caller.isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    private static byte[] readUnchecked(FileChannel channel, long position, int length) {
+        try {
+            return read(channel, position, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("File was truncated while reading");
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Quote count parity of a chunk and its first newline for either parity at the chunk start
+     */
+    private static final class ChunkScan {
+        final int[] firstNewline = {-1, -1};
+        boolean oddQuotes;
+    }
+
+    private static ChunkScan scan(byte[] bytes, boolean quoting) {
+        ChunkScan scan = new ChunkScan();
+        int parity = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            byte b = bytes[i];
+            if (b == '"' && quoting) {
+                parity ^= 1;
+            } else if (b == '\n' && scan.firstNewline[parity] < 0) {
+                // Outside quotes if the chunk starts with this parity
+                scan.firstNewline[parity] = i;
+                if (scan.firstNewline[parity ^ 1] >= 0 || !quoting) {
+                    // Both found, only the parity is still needed
+                    for (int j = i + 1; j < bytes.length && quoting; j++) {
+                        if (bytes[j] == '"') {
+                            parity ^= 1;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        scan.oddQuotes = parity == 1;
+        return scan;
+    }
+
+    /**
+     * Offset of the newline that ends the record starting at start, or -1
+     */
+    private static int findRecordEnd(byte[] bytes, int start, boolean quoting) {
+        boolean insideQuotes = false;
+        for (int i = start; i < bytes.length; i++) {
+            if (bytes[i] == '"' && quoting) {
+                insideQuotes = !insideQuotes;
+            } else if (bytes[i] == '\n' && !insideQuotes) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Raw field bytes of one chunk, per column, until the chunk is encoded
+     */
+    private static final class ChunkData {
+        final ByteBuilder[] data;
+        final IntBuilder[] ends;
+        int rows;
+
+        ChunkData(int columnCount) {
+            // Small to start with, a wide file has as many builders as columns
+            data = new ByteBuilder[columnCount];
+            ends = new IntBuilder[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                data[c] = new ByteBuilder(64);
+                ends[c] = new IntBuilder(64);
+            }
+        }
+    }
+
+    /**
+     * The columns of one parsed chunk in compact form
+     */
+    private static final class EncodedChunk {
+        final int rows;
+        final ColumnPart[] columns;
+
+        EncodedChunk(int rows, int columnCount) {
+            this.rows = rows;
+            this.columns = new ColumnPart[columnCount];
+        }
+    }
+
+    /**
+     * One column of one chunk. The numbers are kept if every value of the chunk is one, the
+     * text (as distinct values and codes, or as bytes when there are too many) only when the
+     * numbers do not print it back exactly.
+     */
+    private static final class ColumnPart {
+        int rows;
+        long[] longs;
+        double[] doubles;
+        BitSet missing;
+        String[] dictionary;
+        char[] codes;
+        byte[] data;
+        int[] ends;
+
+        String getText(int row) {
+            if (dictionary != null) {
+                return dictionary[codes[row]];
+            }
+            if (data != null) {
+                int from = row == 0 ? 0 : ends[row - 1];
+                return new String(data, from, ends[row] - from, StandardCharsets.UTF_8);
+            }
+            if (missing.get(row)) {
+                return "";
+            }
+            return longs != null ? Long.toString(longs[row]) : formatDouble(doubles[row]);
+        }
+    }
+
+    /**
+     * Split records into fields. Quoted fields may hold delimiters, newlines and doubled
+     * quotes; a \r before the newline is dropped; blank lines are skipped. Fields go into the
+     * chunk, or for the header line into the list.
+     */
+    private static void parseRecords(byte[] bytes, int start, int end, byte delimiter, boolean quoting,
+            ChunkData chunk, List<String> header) {
+        ByteBuilder field = header != null ? new ByteBuilder() : null;
+        int columnCount = chunk != null ? chunk.data.length : Integer.MAX_VALUE;
+        int i = start;
+        while (i < end) {
+            // Skip blank lines
+            if (bytes[i] == '\n' || bytes[i] == '\r' && i + 1 < end && bytes[i + 1] == '\n') {
+                i += bytes[i] == '\n' ? 1 : 2;
+                continue;
+            }
+
+            int column = 0;
+            while (true) {
+                ByteBuilder target = header != null ? field : column < columnCount ? chunk.data[column] : null;
+                if (field != null) {
+                    field.length = 0;
+                }
+                if (quoting && i < end && bytes[i] == '"') {
+                    i++;
+                    while (i < end) {
+                        byte b = bytes[i];
+                        if (b == '"') {
+                            if (i + 1 < end && bytes[i + 1] == '"') {
+                                append(target, b);
+                                i += 2;
+                                continue;
+                            }
+                            i++;
+                            break;
+                        }
+                        append(target, b);
+                        i++;
+                    }
+                    // Anything between the closing quote and the delimiter is kept as it is
+                    while (i < end && bytes[i] != delimiter && bytes[i] != '\n') {
+                        if (bytes[i] != '\r') {
+                            append(target, bytes[i]);
+                        }
+                        i++;
+                    }
+                } else {
+                    int fieldStart = i;
+                    while (i < end && bytes[i] != delimiter && bytes[i] != '\n') {
+                        i++;
+                    }
+                    int fieldEnd = i > fieldStart && bytes[i - 1] == '\r' && (i == end || bytes[i] == '\n') ? i - 1 : i;
+                    if (target != null) {
+                        target.append(bytes, fieldStart, fieldEnd - fieldStart);
+                    }
+                }
+
+                if (header != null) {
+                    header.add(new String(field.bytes, 0, field.length, StandardCharsets.UTF_8));
+                } else if (target != null) {
+                    chunk.ends[column].add(target.length);
+                }
+                column++;
+                if (i >= end || bytes[i] == '\n') {
+                    i++;
+                    break;
+                }
+                i++; // Delimiter
+            }
+
+            if (header != null) {
+                return;
+            }
+            // Short records get empty trailing fields
+            for (int c = column; c < columnCount; c++) {
+                chunk.ends[c].add(chunk.data[c].length);
+            }
+            chunk.rows++;
+        }
+    }
+
+    private static void append(ByteBuilder target, byte b) {
+        if (target != null) {
+            target.append(b);
+        }
+    }
+
+    // ---- Columns ----
+
+    private static ColumnPart encode(ChunkData chunk, int c) {
+        ColumnPart part = new ColumnPart();
+        part.rows = chunk.rows;
+        byte[] data = chunk.data[c].bytes;
+        int[] ends = chunk.ends[c].values;
+
+        // Which number type (if any) fits every non-empty value
+        boolean allLong = true;
+        boolean allDouble = true;
+        int from = 0;
+        for (int r = 0; r < chunk.rows && allDouble; r++) {
+            int to = ends[r];
+            if (to > from) {
+                allLong = allLong && isLong(data, from, to);
+                allDouble = allLong || isDouble(data, from, to);
+            }
+            from = to;
+        }
+
+        boolean exact = true;
+        try {
+            if (allLong) {
+                // Plain integers always print back the same
+                part.longs = new long[chunk.rows];
+                part.missing = new BitSet();
+                from = 0;
+                for (int r = 0; r < chunk.rows; r++) {
+                    if (ends[r] == from) {
+                        part.missing.set(r);
+                    } else {
+                        part.longs[r] = parseLong(data, from, ends[r]);
+                    }
+                    from = ends[r];
+                }
+                return part;
+            }
+            if (allDouble) {
+                part.doubles = new double[chunk.rows];
+                part.missing = new BitSet();
+                from = 0;
+                for (int r = 0; r < chunk.rows; r++) {
+                    if (ends[r] == from) {
+                        part.missing.set(r);
+                    } else {
+                        String text = new String(data, from, ends[r] - from, StandardCharsets.ISO_8859_1);
+                        part.doubles[r] = Double.parseDouble(text);
+                        exact = exact && formatDouble(part.doubles[r]).equals(text);
+                    }
+                    from = ends[r];
+                }
+                if (exact) {
+                    return part;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Looked like numbers but is not, stored as text below
+            part.doubles = null;
+            part.missing = null;
+        }
+
+        // Few distinct values: a dictionary and one code per row
+        Map<String, Integer> codes = new HashMap<>();
+        char[] rowCodes = new char[chunk.rows];
+        from = 0;
+        for (int r = 0; r < chunk.rows; r++) {
+            String value = new String(data, from, ends[r] - from, StandardCharsets.UTF_8);
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (codes.size() >= DICTIONARY_LIMIT) {
+                    part.data = chunk.data[c].trim();
+                    part.ends = chunk.ends[c].trim();
+                    return part;
+                }
+                code = codes.size();
+                codes.put(value, code);
+            }
+            rowCodes[r] = (char) code.intValue();
+            from = ends[r];
+        }
+        part.dictionary = new String[codes.size()];
+        for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+            part.dictionary[entry.getValue()] = entry.getKey();
+        }
+        part.codes = rowCodes;
+        return part;
+    }
+
+    /**
+     * Pick the storage of a column from its encoded chunks, which are released as they are used
+     */
+    private static Column buildColumn(EncodedChunk[] chunks, int[] rowStarts, int c) {
+        int rows = rowStarts[chunks.length];
+        ColumnPart[] parts = new ColumnPart[chunks.length];
+        boolean allLong = true;
+        boolean allNumbers = true;
+        for (int i = 0; i < chunks.length; i++) {
+            parts[i] = chunks[i].columns[c];
+            chunks[i].columns[c] = null;
+            allLong = allLong && parts[i].longs != null;
+            allNumbers = allNumbers && (parts[i].longs != null || parts[i].doubles != null);
+        }
+
+        if (allLong) {
+            long[] values = new long[rows];
+            BitSet missing = new BitSet();
+            for (int i = 0; i < parts.length; i++) {
+                System.arraycopy(parts[i].longs, 0, values, rowStarts[i], parts[i].rows);
+                copyMissing(parts[i].missing, missing, rowStarts[i]);
+            }
+            return new LongColumn(values, missing);
+        }
+        if (allNumbers) {
+            double[] values = new double[rows];
+            BitSet missing = new BitSet();
+            for (int i = 0; i < parts.length; i++) {
+                for (int r = 0; r < parts[i].rows; r++) {
+                    values[rowStarts[i] + r] = parts[i].longs != null ? parts[i].longs[r] : parts[i].doubles[r];
+                }
+                copyMissing(parts[i].missing, missing, rowStarts[i]);
+            }
+            return new DoubleColumn(values, missing);
+        }
+
+        // Few distinct values in the whole column: one dictionary and one code per row
+        Map<String, Integer> codes = new HashMap<>();
+        char[] rowCodes = new char[rows];
+        boolean fits = true;
+        for (int i = 0; i < parts.length && fits; i++) {
+            ColumnPart part = parts[i];
+            if (part.dictionary != null) {
+                // Translate each distinct value of the chunk once
+                int[] global = new int[part.dictionary.length];
+                for (int d = 0; d < global.length && fits; d++) {
+                    global[d] = code(codes, part.dictionary[d]);
+                    fits = global[d] >= 0;
+                }
+                for (int r = 0; r < part.rows && fits; r++) {
+                    rowCodes[rowStarts[i] + r] = (char) global[part.codes[r]];
+                }
+            } else {
+                for (int r = 0; r < part.rows && fits; r++) {
+                    int code = code(codes, part.getText(r));
+                    fits = code >= 0;
+                    rowCodes[rowStarts[i] + r] = (char) code;
+                }
+            }
+        }
+        if (fits) {
+            String[] dictionary = new String[codes.size()];
+            for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+                dictionary[entry.getValue()] = entry.getKey();
+            }
+            return new DictionaryColumn(dictionary, rowCodes);
+        }
+
+        byte[][] data = new byte[parts.length][];
+        int[][] ends = new int[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            ColumnPart part = parts[i];
+            if (part.data != null) {
+                data[i] = part.data;
+                ends[i] = part.ends;
+            } else {
+                ByteBuilder bytes = new ByteBuilder(64);
+                IntBuilder rowEnds = new IntBuilder(Math.max(1, part.rows));
+                for (int r = 0; r < part.rows; r++) {
+                    byte[] value = part.getText(r).getBytes(StandardCharsets.UTF_8);
+                    bytes.append(value, 0, value.length);
+                    rowEnds.add(bytes.length);
+                }
+                data[i] = bytes.trim();
+                ends[i] = rowEnds.trim();
+            }
+            parts[i] = null;
+        }
+        return new TextColumn(data, ends, rowStarts);
+    }
+
+    /**
+     * Dictionary code of a value, added if new, or -1 once the dictionary is full
+     */
+    private static int code(Map<String, Integer> codes, String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (codes.size() >= DICTIONARY_LIMIT) {
+                return -1;
+            }
+            code = codes.size();
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    private static void copyMissing(BitSet from, BitSet to, int offset) {
+        for (int r = from.nextSetBit(0); r >= 0; r = from.nextSetBit(r + 1)) {
+            to.set(offset + r);
+        }
+    }
+
+    /**
+     * Text of a decimal as the table shows it, whole numbers without a fraction
+     */
+    private static String formatDouble(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+            ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    /**
+     * Plain integers that print back the same (no plus sign or leading zeros, so codes such
+     * as ZIP codes stay text)
+     */
+    private static boolean isLong(byte[] data, int from, int to) {
+        int i = data[from] == '-' ? from + 1 : from;
+        int digits = to - i;
+        if (digits < 1 || digits > 18 || data[i] == '0' && digits > 1) {
+            return false;
+        }
+        for (; i < to; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDouble(byte[] data, int from, int to) {
+        int first = data[from] == '-' ? from + 1 : from;
+        if (first + 1 < to && data[first] == '0' && data[first + 1] >= '0' && data[first + 1] <= '9') {
+            return false; // Leading zeros, a code rather than a number
+        }
+        boolean digit = false;
+        for (int i = from; i < to; i++) {
+            byte b = data[i];
+            if (b >= '0' && b <= '9') {
+                digit = true;
+            } else if (b != '.' && b != '-' && b != '+' && b != 'e' && b != 'E') {
+                return false;
+            }
+        }
+        return digit && to - from < 32;
+    }
+
+    private static long parseLong(byte[] data, int from, int to) {
+        boolean negative = data[from] == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            value = value * 10 + (data[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * One column of values in its compact form
+     */
+    private abstract static class Column {
+        abstract String getText(int row);
+
+        /**
+         * Order of two rows, empty values last
+         */
+        abstract int compare(int a, int b);
+
+        abstract long getMemoryBytes();
+
+        abstract String getStorage();
+
+        /**
+         * Check if the cell text contains a lower case query, ignoring case
+         */
+        boolean matches(int row, String lowerQuery) {
+            return getText(row).toLowerCase(Locale.ROOT).contains(lowerQuery);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        final long[] values;
+        final BitSet missing;
+
+        LongColumn(long[] values, BitSet missing) {
+            this.values = values;
+            this.missing = missing;
+        }
+
+        String getText(int row) {
+            return missing.get(row) ? "" : Long.toString(values[row]);
+        }
+
+        int compare(int a, int b) {
+            boolean missingA = missing.get(a);
+            if (missingA || missing.get(b)) {
+                return Boolean.compare(missingA, missing.get(b));
+            }
+            return Long.compare(values[a], values[b]);
+        }
+
+        long getMemoryBytes() {
+            return 8L * values.length + missing.size() / 8;
+        }
+
+        String getStorage() {
+            return "integer";
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        final double[] values;
+        final BitSet missing;
+
+        DoubleColumn(double[] values, BitSet missing) {
+            this.values = values;
+            this.missing = missing;
+        }
+
+        String getText(int row) {
+            if (missing.get(row)) {
+                return "";
+            }
+            return formatDouble(values[row]);
+        }
+
+        int compare(int a, int b) {
+            boolean missingA = missing.get(a);
+            if (missingA || missing.get(b)) {
+                return Boolean.compare(missingA, missing.get(b));
+            }
+            return Double.compare(values[a], values[b]);
+        }
+
+        long getMemoryBytes() {
+            return 8L * values.length + missing.size() / 8;
+        }
+
+        String getStorage() {
+            return "decimal";
+        }
+    }
+
+    private static final class DictionaryColumn extends Column {
+        final String[] dictionary;
+        final char[] codes; // Unsigned 16-bit dictionary indexes
+        final int[] rank;
+
+        DictionaryColumn(String[] dictionary, char[] codes) {
+            this.dictionary = dictionary;
+            this.codes = codes;
+
+            // Sort order of the dictionary entries, empty text last
+            Integer[] order = new Integer[dictionary.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> dictionary[a].isEmpty() || dictionary[b].isEmpty()
+                ? Boolean.compare(dictionary[a].isEmpty(), dictionary[b].isEmpty())
+                : dictionary[a].compareToIgnoreCase(dictionary[b]));
+            rank = new int[dictionary.length];
+            for (int i = 0; i < order.length; i++) {
+                rank[order[i]] = i;
+            }
+        }
+
+        String getText(int row) {
+            return dictionary[codes[row]];
+        }
+
+        int compare(int a, int b) {
+            return Integer.compare(rank[codes[a]], rank[codes[b]]);
+        }
+
+        long getMemoryBytes() {
+            long bytes = 2L * codes.length + 4L * rank.length;
+            for (String value : dictionary) {
+                bytes += 40 + 2L * value.length();
+            }
+            return bytes;
+        }
+
+        String getStorage() {
+            return "dictionary of " + dictionary.length;
+        }
+    }
+
+    private static final class TextColumn extends Column {
+        final byte[][] data;
+        final int[][] ends;
+        final int[] rowStarts;
+
+        TextColumn(byte[][] data, int[][] ends, int[] rowStarts) {
+            this.data = data;
+            this.ends = ends;
+            this.rowStarts = rowStarts;
+        }
+
+        private int chunkOf(int row) {
+            int index = Arrays.binarySearch(rowStarts, row);
+            if (index < 0) {
+                return -index - 2;
+            }
+            // Empty chunks share their start row with the next one
+            while (index + 1 < rowStarts.length && rowStarts[index + 1] == row) {
+                index++;
+            }
+            return index;
+        }
+
+        String getText(int row) {
+            int chunk = chunkOf(row);
+            int local = row - rowStarts[chunk];
+            int from = local == 0 ? 0 : ends[chunk][local - 1];
+            return new String(data[chunk], from, ends[chunk][local] - from, StandardCharsets.UTF_8);
+        }
+
+        int compare(int a, int b) {
+            int chunkA = chunkOf(a);
+            int chunkB = chunkOf(b);
+            int localA = a - rowStarts[chunkA];
+            int localB = b - rowStarts[chunkB];
+            int fromA = localA == 0 ? 0 : ends[chunkA][localA - 1];
+            int fromB = localB == 0 ? 0 : ends[chunkB][localB - 1];
+            int toA = ends[chunkA][localA];
+            int toB = ends[chunkB][localB];
+            if (fromA == toA || fromB == toB) {
+                return Boolean.compare(fromA == toA, fromB == toB);
+            }
+            // UTF-8 byte order is code point order
+            return Arrays.compareUnsigned(data[chunkA], fromA, toA, data[chunkB], fromB, toB);
+        }
+
+        long getMemoryBytes() {
+            long bytes = 0;
+            for (int i = 0; i < data.length; i++) {
+                bytes += data[i].length + 4L * ends[i].length;
+            }
+            return bytes;
+        }
+
+        String getStorage() {
+            return "text";
+        }
+    }
+
+    // ---- Sorting and filtering ----
+
+    /**
+     * Rows (all of them if rows is null) sorted by a column, stable, on all cores
+     */
+    public int[] sort(int[] rows, int column, boolean ascending) {
+        int[] sorted = rows != null ? rows.clone() : IntStream.range(0, rowCount).toArray();
+        Column values = columns[column];
+        Thread caller = Thread.currentThread();
+
+        if (values instanceof DictionaryColumn) {
+            // Counting sort by dictionary rank, linear in the number of rows
+            DictionaryColumn dictionary = (DictionaryColumn) values;
+            int[] starts = new int[dictionary.dictionary.length + 1];
+            for (int row : sorted) {
+                starts[dictionary.rank[dictionary.codes[row]] + 1]++;
+            }
+            for (int i = 1; i < starts.length; i++) {
+                starts[i] += starts[i - 1];
+            }
+            int[] result = new int[sorted.length];
+            for (int row : sorted) {
+                result[starts[dictionary.rank[dictionary.codes[row]]]++] = row;
+            }
+            sorted = result;
+        } else {
+            int[] buffer = new int[sorted.length];
+            ForkJoinPool.commonPool().invoke(new RowSort(sorted, buffer, 0, sorted.length, values, caller));
+        }
+
+        if (!ascending) {
+            reverseKeepingEmptyLast(sorted, values);
+        }
+        return sorted;
+    }
+
+    /**
+     * Descending order: reverse the values but leave empty cells at the end
+     */
+    private static void reverseKeepingEmptyLast(int[] rows, Column values) {
+        int filled = rows.length;
+        while (filled > 0 && values.getText(rows[filled - 1]).isEmpty()) {
+            filled--;
+        }
+        // Reverse runs of equal values too so the order stays stable
+        for (int i = 0, j = filled - 1; i < j; i++, j--) {
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+        int runStart = 0;
+        for (int i = 1; i <= filled; i++) {
+            if (i == filled || values.compare(rows[i - 1], rows[i]) != 0) {
+                for (int a = runStart, b = i - 1; a < b; a++, b--) {
+                    int row = rows[a];
+                    rows[a] = rows[b];
+                    rows[b] = row;
+                }
+                runStart = i;
+            }
+        }
+    }
+
+    /**
+     * Merge sort of row indexes, halves are sorted in parallel
+     */
+    private static final class RowSort extends RecursiveAction {
+        private final int[] rows;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final Column values;
+        private final Thread caller;
+
+        RowSort(int[] rows, int[] buffer, int from, int to, Column values, Thread caller) {
+            this.rows = rows;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.values = values;
+            this.caller = caller;
+        }
+
+        @Override
+        protected void compute() {
+            checkCancelled(caller);
+            if (to - from <= SORT_SPLIT) {
+                insertionMergeSort(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowSort(rows, buffer, from, middle, values, caller),
+                new RowSort(rows, buffer, middle, to, values, caller));
+            merge(from, middle, to);
+        }
+
+        private void insertionMergeSort(int lo, int hi) {
+            if (hi - lo <= 32) {
+                for (int i = lo + 1; i < hi; i++) {
+                    int row = rows[i];
+                    int j = i - 1;
+                    while (j >= lo && values.compare(rows[j], row) > 0) {
+                        rows[j + 1] = rows[j];
+                        j--;
+                    }
+                    rows[j + 1] = row;
+                }
+                return;
+            }
+            int middle = (lo + hi) >>> 1;
+            insertionMergeSort(lo, middle);
+            insertionMergeSort(middle, hi);
+            merge(lo, middle, hi);
+        }
+
+        private void merge(int lo, int middle, int hi) {
+            if (values.compare(rows[middle - 1], rows[middle]) <= 0) {
+                return; // Already in order
+            }
+            System.arraycopy(rows, lo, buffer, lo, hi - lo);
+            int i = lo;
+            int j = middle;
+            for (int k = lo; k < hi; k++) {
+                if (j >= hi || i < middle && values.compare(buffer[i], buffer[j]) <= 0) {
+                    rows[k] = buffer[i++];
+                } else {
+                    rows[k] = buffer[j++];
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows (all of them if rows is null) whose cell in a column matches a query, in their
+     * current order. Numeric columns understand =, !=, <, <=, > and >= followed by a number;
+     * everything else is a case-insensitive substring match.
+     */
+    public int[] filter(int[] rows, int column, String query) {
+        Column values = columns[column];
+        RowPredicate predicate = numericPredicate(values, query.trim());
+        if (predicate == null) {
+            String lowerQuery = query.toLowerCase(Locale.ROOT);
+            if (values instanceof DictionaryColumn) {
+                // Decide once per distinct value
+                DictionaryColumn dictionary = (DictionaryColumn) values;
+                boolean[] matching = new boolean[dictionary.dictionary.length];
+                for (int i = 0; i < matching.length; i++) {
+                    matching[i] = dictionary.dictionary[i].toLowerCase(Locale.ROOT).contains(lowerQuery);
+                }
+                predicate = row -> matching[dictionary.codes[row]];
+            } else {
+                predicate = row -> values.matches(row, lowerQuery);
+            }
+        }
+
+        RowPredicate test = predicate;
+        Thread caller = Thread.currentThread();
+        int total = rows != null ? rows.length : rowCount;
+        int parts = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, total / SORT_SPLIT));
+        int[][] matches = IntStream.range(0, parts).parallel().mapToObj(part -> {
+            checkCancelled(caller);
+            int from = (int) ((long) total * part / parts);
+            int to = (int) ((long) total * (part + 1) / parts);
+            IntBuilder found = new IntBuilder();
+            for (int i = from; i < to; i++) {
+                int row = rows != null ? rows[i] : i;
+                if (test.test(row)) {
+                    found.add(row);
+                }
+            }
+            return found.trim();
+        }).toArray(int[][]::new);
+
+        int count = 0;
+        for (int[] part : matches) {
+            count += part.length;
+        }
+        int[] result = new int[count];
+        int position = 0;
+        for (int[] part : matches) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private interface RowPredicate {
+        boolean test(int row);
+    }
+
+    private static RowPredicate numericPredicate(Column values, String query) {
+        if (!(values instanceof LongColumn || values instanceof DoubleColumn)) {
+            return null;
+        }
+        String operator = null;
+        for (String candidate : new String[] {"!=", "<=", ">=", "=", "<", ">"}) {
+            if (query.startsWith(candidate)) {
+                operator = candidate;
+                break;
+            }
+        }
+        if (operator == null) {
+            return null;
+        }
+        double limit;
+        try {
+            limit = Double.parseDouble(query.substring(operator.length()).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        BitSet missing;
+        java.util.function.IntToDoubleFunction value;
+        if (values instanceof LongColumn) {
+            missing = ((LongColumn) values).missing;
+            long[] longs = ((LongColumn) values).values;
+            value = row -> longs[row];
+        } else {
+            missing = ((DoubleColumn) values).missing;
+            double[] doubles = ((DoubleColumn) values).values;
+            value = row -> doubles[row];
+        }
+        switch (operator) {
+            case "!=":
+                return row -> !missing.get(row) && value.applyAsDouble(row) != limit;
+            case "<=":
+                return row -> !missing.get(row) && value.applyAsDouble(row) <= limit;
+            case ">=":
+                return row -> !missing.get(row) && value.applyAsDouble(row) >= limit;
+            case "<":
+                return row -> !missing.get(row) && value.applyAsDouble(row) < limit;
+            case ">":
+                return row -> !missing.get(row) && value.applyAsDouble(row) > limit;
+            default:
+                return row -> !missing.get(row) && value.applyAsDouble(row) == limit;
+        }
+    }
+
+    // ---- Growable primitive arrays ----
+
+    private static final class ByteBuilder {
+        byte[] bytes;
+        int length;
+
+        ByteBuilder() {
+            this(256);
+        }
+
+        ByteBuilder(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, grow(length + 1));
+            }
+            bytes[length++] = b;
+        }
+
+        void append(byte[] source, int from, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, grow(length + count));
+            }
+            System.arraycopy(source, from, bytes, length, count);
+            length += count;
+        }
+
+        private int grow(int needed) {
+            return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, bytes.length * 2L));
+        }
+
+        byte[] trim() {
+            return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+    }
+
+    private static final class IntBuilder {
+        int[] values;
+        int length;
+
+        IntBuilder() {
+            this(256);
+        }
+
+        IntBuilder(int capacity) {
+            values = new int[capacity];
+        }
+
+        void add(int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(Integer.MAX_VALUE - 8, values.length * 2L));
+            }
+            values[length++] = value;
+        }
+
+        int[] trim() {
+            return length == values.length ? values : Arrays.copyOf(values, length);
+        }
+    }
+}
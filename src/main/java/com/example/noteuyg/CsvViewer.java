@@ -0,0 +1,273 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * CsvViewer - Read-only table view of a CSV or TSV file
+ *
+ * The file is parsed into a CsvTable in the background while the tab shows the progress.
+ * The JTable reads cells straight from the column arrays, so only the visible rows are ever
+ * turned into text. Clicking a header sorts by that column and the filter bar keeps the rows
+ * whose cell matches; both run in the background on the column arrays and swap in a new row
+ * order when done.
+ */
+public class CsvViewer extends JPanel {
+
+    private final File file;
+    private final IoScope ioScope = new IoScope();
+    private final RowModel model = new RowModel();
+    private final JTable table = new JTable(model);
+    private final JLabel statusLabel = new JLabel();
+    private final JComboBox<String> filterColumn = new JComboBox<>();
+    private final JTextField filterField = new JTextField(20);
+    private final JButton applyButton = new JButton("Filter");
+    private final JButton clearButton = new JButton("Clear");
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final Consumer<Exception> onError;
+    private Timer progressTimer;
+    private IoTask<int[]> viewTask;
+    private CsvTable csv;
+    private String parseTime = "";
+
+    // Current view: sort column (-1 for file order) and filter
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private int filteredColumn = -1;
+    private String filterQuery = "";
+
+    public CsvViewer(File file, Runnable openAsText, Consumer<Exception> onError) {
+        super(new BorderLayout());
+        this.file = file;
+        this.onError = onError;
+
+        JPanel toolBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton textButton = new JButton("Open as Text");
+        filterField.addActionListener(e -> applyFilter());
+        applyButton.addActionListener(e -> applyFilter());
+        clearButton.addActionListener(e -> {
+            filterField.setText("");
+            applyFilter();
+        });
+        textButton.addActionListener(e -> openAsText.run());
+        toolBar.add(new JLabel("Column:"));
+        toolBar.add(filterColumn);
+        toolBar.add(filterField);
+        toolBar.add(applyButton);
+        toolBar.add(clearButton);
+        toolBar.add(textButton);
+        setFilterEnabled(false);
+        add(toolBar, BorderLayout.NORTH);
+
+        // Uniform row heights keep the JTable from tracking every row
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0 && csv != null) {
+                    sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+        add(statusLabel, BorderLayout.SOUTH);
+
+        load();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Estimated bytes held by the parsed columns and the current row order
+     */
+    public long getMemoryBytes() {
+        return (csv != null ? csv.getMemoryBytes() : 0) + (model.rows != null ? 4L * model.rows.length : 0);
+    }
+
+    /**
+     * Stop parsing, sorting or filtering when the tab is closed
+     */
+    public void dispose() {
+        ioScope.close();
+        if (progressTimer != null) {
+            progressTimer.stop();
+        }
+    }
+
+    private void load() {
+        long size = Math.max(1, file.length());
+        statusLabel.setText("Parsing " + file.getName() + "...");
+        progressTimer = new Timer(250, e -> statusLabel.setText(String.format("Parsing %s... %d%%",
+            file.getName(), Math.min(100, bytesDone.get() * 50 / size))));
+        progressTimer.start();
+
+        long started = System.nanoTime();
+        IoExecutor.get().task("Parse " + file.getName(), () -> CsvTable.load(file.toPath(), bytesDone))
+            .heavy().in(ioScope)
+            .onSuccess(loaded -> {
+                progressTimer.stop();
+                csv = loaded;
+                parseTime = String.format("parsed in %.1f s", (System.nanoTime() - started) / 1e9);
+                for (int c = 0; c < csv.getColumnCount(); c++) {
+                    filterColumn.addItem(csv.getColumnName(c));
+                }
+                model.fireTableStructureChanged();
+                configureColumns();
+                setFilterEnabled(true);
+                updateStatus();
+            })
+            .onFailure(e -> {
+                progressTimer.stop();
+                statusLabel.setText("Could not parse " + file.getName() + ": " + e.getMessage());
+                onError.accept(e);
+            })
+            .start();
+    }
+
+    private void configureColumns() {
+        DefaultTableCellRenderer numberRenderer = new DefaultTableCellRenderer();
+        numberRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        FontMetrics metrics = table.getFontMetrics(table.getFont());
+        for (int c = 0; c < csv.getColumnCount(); c++) {
+            TableColumn column = table.getColumnModel().getColumn(c);
+            column.setHeaderValue(headerText(c));
+            column.setPreferredWidth(Math.max(80, Math.min(400, metrics.stringWidth(csv.getColumnName(c)) + 40)));
+            if (csv.isNumeric(c)) {
+                column.setCellRenderer(numberRenderer);
+            }
+        }
+        table.getTableHeader().repaint();
+    }
+
+    private String headerText(int column) {
+        String name = csv.getColumnName(column);
+        return column == sortColumn ? name + (ascending ? " ▲" : " ▼") : name;
+    }
+
+    private void setFilterEnabled(boolean enabled) {
+        filterColumn.setEnabled(enabled);
+        filterField.setEnabled(enabled);
+        applyButton.setEnabled(enabled);
+        clearButton.setEnabled(enabled);
+    }
+
+    /**
+     * First click sorts ascending, the next descending, the third goes back to file order
+     */
+    private void sortBy(int column) {
+        if (column != sortColumn) {
+            sortColumn = column;
+            ascending = true;
+        } else if (ascending) {
+            ascending = false;
+        } else {
+            sortColumn = -1;
+        }
+        for (int c = 0; c < csv.getColumnCount(); c++) {
+            table.getColumnModel().getColumn(c).setHeaderValue(headerText(c));
+        }
+        table.getTableHeader().repaint();
+        refreshView();
+    }
+
+    private void applyFilter() {
+        filteredColumn = filterColumn.getSelectedIndex();
+        filterQuery = filterField.getText();
+        refreshView();
+    }
+
+    /**
+     * Compute the row order for the current filter and sort in the background
+     */
+    private void refreshView() {
+        if (viewTask != null) {
+            viewTask.cancel();
+        }
+        CsvTable data = csv;
+        int column = sortColumn;
+        boolean up = ascending;
+        int filtered = filteredColumn;
+        String query = filterQuery;
+        statusLabel.setText(column >= 0 ? "Sorting..." : "Filtering...");
+
+        viewTask = IoExecutor.get().task("Sort/filter " + file.getName(), () -> {
+            int[] rows = null;
+            if (filtered >= 0 && !query.isEmpty()) {
+                rows = data.filter(null, filtered, query);
+            }
+            if (column >= 0) {
+                rows = data.sort(rows, column, up);
+            }
+            return rows;
+        }).in(ioScope).onSuccess(rows -> {
+            model.setRows(rows);
+            updateStatus();
+        }).onFailure(e -> {
+            updateStatus();
+            onError.accept(e);
+        }).start();
+    }
+
+    private void updateStatus() {
+        StringBuilder status = new StringBuilder();
+        status.append(String.format("%,d rows × %d columns, %s", csv.getRowCount(), csv.getColumnCount(), parseTime));
+        if (model.rows != null && !filterQuery.isEmpty() && filteredColumn >= 0) {
+            status.append(String.format(" | %,d matching", model.rows.length));
+        }
+        if (sortColumn >= 0) {
+            status.append(" | sorted by ").append(csv.getColumnName(sortColumn));
+        }
+        status.append(String.format(" | %.1f MB in memory", getMemoryBytes() / (1024.0 * 1024.0)));
+        statusLabel.setText(status.toString());
+    }
+
+    /**
+     * Table model over the parsed columns, through the current row order
+     */
+    private class RowModel extends AbstractTableModel {
+        int[] rows; // null for all rows in file order
+
+        void setRows(int[] rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            if (csv == null) {
+                return 0;
+            }
+            return rows != null ? rows.length : csv.getRowCount();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return csv != null ? csv.getColumnCount() : 0;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return csv.getColumnName(column);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return csv.getText(rows != null ? rows[row] : row, column);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rtextarea.RTextScrollPane;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * DiffViewer - Side-by-side view of two texts with highlighted changes
+ *
+ * Both sides are read-only editors in synchronized RTextScrollPanes. Each hunk is one
+ * full-width highlight (not one per line), so even very large diffs paint cheaply.
+ */
+public class DiffViewer extends JPanel {
+
+    private static final Color CHANGED_COLOR = new Color(255, 220, 120, 110);
+    private static final Color REMOVED_COLOR = new Color(255, 120, 120, 110);
+    private static final Color ADDED_COLOR = new Color(120, 220, 120, 110);
+
+    private final RSyntaxTextArea leftArea;
+    private final RSyntaxTextArea rightArea;
+    private final RTextScrollPane leftScroll;
+    private final RTextScrollPane rightScroll;
+    private final List<LineDiff.Hunk> hunks;
+    private final JLabel positionLabel;
+    private int currentHunk = -1;
+    private boolean syncing = false;
+
+    public DiffViewer(String leftTitle, String leftText, String rightTitle, String rightText,
+                      List<LineDiff.Hunk> hunks, String syntaxStyle) {
+        super(new BorderLayout());
+        this.hunks = hunks;
+
+        leftArea = createSide(leftText, syntaxStyle);
+        rightArea = createSide(rightText, syntaxStyle);
+        leftScroll = new RTextScrollPane(leftArea);
+        rightScroll = new RTextScrollPane(rightArea);
+        leftScroll.setBorder(BorderFactory.createTitledBorder(leftTitle));
+        rightScroll.setBorder(BorderFactory.createTitledBorder(rightTitle));
+
+        // Highlight every hunk on both sides
+        for (LineDiff.Hunk hunk : hunks) {
+            Color color = hunk.startA == hunk.endA ? ADDED_COLOR
+                : hunk.startB == hunk.endB ? REMOVED_COLOR : CHANGED_COLOR;
+            addRangeHighlight(leftArea, hunk.startA, hunk.endA, color);
+            addRangeHighlight(rightArea, hunk.startB, hunk.endB, color);
+        }
+
+        // Keep the two sides aligned on the same logical line while scrolling
+        leftScroll.getVerticalScrollBar().getModel().addChangeListener(e -> syncScroll(true));
+        rightScroll.getVerticalScrollBar().getModel().addChangeListener(e -> syncScroll(false));
+
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftScroll, rightScroll);
+        split.setResizeWeight(0.5);
+        add(split, BorderLayout.CENTER);
+
+        // Navigation bar
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        JButton previousButton = new JButton("Previous Change");
+        previousButton.setToolTipText("Jump to previous change (Shift+F7)");
+        previousButton.addActionListener(e -> previousChange());
+        JButton nextButton = new JButton("Next Change");
+        nextButton.setToolTipText("Jump to next change (F7)");
+        nextButton.addActionListener(e -> nextChange());
+        positionLabel = new JLabel();
+        toolBar.add(previousButton);
+        toolBar.add(nextButton);
+        toolBar.addSeparator();
+        toolBar.add(positionLabel);
+        add(toolBar, BorderLayout.NORTH);
+
+        // Keyboard shortcuts for navigation
+        InputMap inputMap = getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+        inputMap.put(KeyStroke.getKeyStroke("F7"), "nextChange");
+        inputMap.put(KeyStroke.getKeyStroke("shift F7"), "previousChange");
+        getActionMap().put("nextChange", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                nextChange();
+            }
+        });
+        getActionMap().put("previousChange", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                previousChange();
+            }
+        });
+
+        updatePositionLabel();
+    }
+
+    /**
+     * Get the number of changed regions
+     */
+    public int getChangeCount() {
+        return hunks.size();
+    }
+
+    /**
+     * Jump to the next change, wrapping around at the end
+     */
+    public void nextChange() {
+        if (hunks.isEmpty()) {
+            return;
+        }
+        showHunk((currentHunk + 1) % hunks.size());
+    }
+
+    /**
+     * Jump to the previous change, wrapping around at the start
+     */
+    public void previousChange() {
+        if (hunks.isEmpty()) {
+            return;
+        }
+        showHunk(currentHunk <= 0 ? hunks.size() - 1 : currentHunk - 1);
+    }
+
+    private void showHunk(int index) {
+        currentHunk = index;
+        LineDiff.Hunk hunk = hunks.get(index);
+
+        syncing = true;
+        try {
+            moveToLine(leftArea, hunk.startA);
+            moveToLine(rightArea, hunk.startB);
+        } finally {
+            syncing = false;
+        }
+        updatePositionLabel();
+    }
+
+    private void updatePositionLabel() {
+        if (hunks.isEmpty()) {
+            positionLabel.setText("  No differences");
+        } else if (currentHunk < 0) {
+            positionLabel.setText("  " + hunks.size() + " changes");
+        } else {
+            positionLabel.setText("  Change " + (currentHunk + 1) + " of " + hunks.size());
+        }
+    }
+
+    private RSyntaxTextArea createSide(String text, String syntaxStyle) {
+        RSyntaxTextArea area = new RSyntaxTextArea(text);
+        area.setSyntaxEditingStyle(syntaxStyle);
+        area.setEditable(false);
+        area.setHighlightCurrentLine(false);
+        area.setAntiAliasingEnabled(true);
+        area.setCaretPosition(0);
+        return area;
+    }
+
+    private void moveToLine(RSyntaxTextArea area, int line) {
+        try {
+            int target = Math.min(line, area.getLineCount() - 1);
+            area.setCaretPosition(area.getLineStartOffset(target));
+            Rectangle2D view = area.modelToView2D(area.getCaretPosition());
+            if (view != null) {
+                // Show the change a few lines below the top edge
+                int y = Math.max(0, (int) view.getY() - 3 * area.getLineHeight());
+                JViewport viewport = (JViewport) area.getParent();
+                viewport.setViewPosition(new Point(viewport.getViewPosition().x, y));
+            }
+        } catch (BadLocationException e) {
+            // Line outside of document, nothing to show
+        }
+    }
+
+    /**
+     * Scroll the other side so its top line corresponds to this side's top line
+     */
+    private void syncScroll(boolean fromLeft) {
+        if (syncing) {
+            return;
+        }
+
+        RSyntaxTextArea source = fromLeft ? leftArea : rightArea;
+        RSyntaxTextArea target = fromLeft ? rightArea : leftArea;
+        JViewport sourceViewport = (JViewport) source.getParent();
+        JViewport targetViewport = (JViewport) target.getParent();
+
+        int topLine = sourceViewport.getViewPosition().y / Math.max(1, source.getLineHeight());
+        int remainder = sourceViewport.getViewPosition().y % Math.max(1, source.getLineHeight());
+        int mappedLine = mapLine(topLine, fromLeft);
+
+        syncing = true;
+        try {
+            int y = mappedLine * target.getLineHeight() + remainder;
+            targetViewport.setViewPosition(new Point(targetViewport.getViewPosition().x, y));
+        } finally {
+            syncing = false;
+        }
+    }
+
+    /**
+     * Map a line on one side to the matching line on the other side using binary search over hunks
+     */
+    int mapLine(int line, boolean fromLeft) {
+        int low = 0;
+        int high = hunks.size() - 1;
+        int before = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int start = fromLeft ? hunks.get(mid).startA : hunks.get(mid).startB;
+            if (start <= line) {
+                before = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        if (before < 0) {
+            return line;
+        }
+
+        LineDiff.Hunk hunk = hunks.get(before);
+        int sourceStart = fromLeft ? hunk.startA : hunk.startB;
+        int sourceEnd = fromLeft ? hunk.endA : hunk.endB;
+        int targetStart = fromLeft ? hunk.startB : hunk.startA;
+        int targetEnd = fromLeft ? hunk.endB : hunk.endA;
+
+        if (line < sourceEnd) {
+            // Inside a change, stay within the matching range
+            return Math.min(targetStart + (line - sourceStart), Math.max(targetStart, targetEnd - 1));
+        }
+        return targetEnd + (line - sourceEnd);
+    }
+
+    private void addRangeHighlight(RSyntaxTextArea area, int startLine, int endLine, Color color) {
+        try {
+            int lastLine = area.getLineCount() - 1;
+            int start = area.getLineStartOffset(Math.min(startLine, lastLine));
+            int end = endLine > startLine
+                ? area.getLineEndOffset(Math.min(endLine - 1, lastLine))
+                : start;
+            area.getHighlighter().addHighlight(start, end, new LinePainter(color, endLine == startLine));
+        } catch (BadLocationException e) {
+            // Range outside of document, skip it
+        }
+    }
+
+    /**
+     * Paints whole lines across the full width, or a marker line for empty ranges
+     */
+    private static class LinePainter implements Highlighter.HighlightPainter {
+
+        private final Color color;
+        private final boolean marker;
+
+        LinePainter(Color color, boolean marker) {
+            this.color = color;
+            this.marker = marker;
+        }
+
+        @Override
+        public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+            try {
+                Rectangle2D r0 = c.modelToView2D(p0);
+                Rectangle2D r1 = c.modelToView2D(Math.max(p0, p1 - 1));
+                if (r0 == null || r1 == null) {
+                    return;
+                }
+
+                g.setColor(marker ? color.darker() : color);
+                int top = (int) r0.getY();
+                if (marker) {
+                    g.fillRect(0, top - 1, c.getWidth(), 2);
+                } else {
+                    int bottom = (int) (r1.getY() + r1.getHeight());
+                    g.fillRect(0, top, c.getWidth(), bottom - top);
+                }
+            } catch (BadLocationException e) {
+                // Highlight no longer valid, nothing to paint
+            }
+        }
+    }
+}
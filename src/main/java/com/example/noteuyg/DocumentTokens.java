@@ -0,0 +1,235 @@
+package com.example.noteuyg;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DocumentTokens - Keeps the TokenDictionary in step with one document
+ *
+ * The word ids of every line are kept in an array parallel to the document's lines. An edit
+ * releases the ids of the lines it removed and reads only the lines it added, so the change
+ * to the dictionary is exactly the delta of the edit. This also holds for undo and redo,
+ * whose removed text is not available to a listener. The initial pass runs in the
+ * background, one read-locked chunk of lines at a time.
+ *
+ * Documents longer than MAX_LINES are not indexed, a log that size is no source of words.
+ */
+public class DocumentTokens {
+
+    private static final int MAX_LINES = 1_000_000;
+    private static final int CHUNK_LINES = 16 * 1024;
+    private static final int INLINE_LINES = 1024;
+    private static final int SCAN_CHARS = 1000;
+    private static final int MIN_WORD = 3;
+    private static final int MAX_WORD = 64;
+    private static final int[] NO_TOKENS = new int[0];
+
+    private final Document document;
+    private final TokenDictionary dictionary = TokenDictionary.get();
+    private final IoScope ioScope = new IoScope();
+    private final Segment inlineSegment = new Segment();
+    private final List<String> inlineTokens = new ArrayList<>();
+    private final DocumentListener documentListener;
+    private int[][] lines;      // Word ids per line, null until the line is read
+    private int lineCount;
+    private int scanned = 0;    // Lines before this one have been read
+    private boolean running = false;
+    private boolean disposed = false;
+
+    /**
+     * The tracker of a document, created on first use
+     */
+    public static DocumentTokens of(Document document) {
+        Object existing = document.getProperty("documentTokens");
+        if (existing instanceof DocumentTokens) {
+            return (DocumentTokens) existing;
+        }
+        DocumentTokens tokens = new DocumentTokens(document);
+        document.putProperty("documentTokens", tokens);
+        return tokens;
+    }
+
+    private DocumentTokens(Document document) {
+        this.document = document;
+        lineCount = document.getDefaultRootElement().getElementCount();
+        lines = new int[Math.max(lineCount, 16)][];
+        documentListener = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { linesChanged(e); }
+            public void removeUpdate(DocumentEvent e) { linesChanged(e); }
+            public void changedUpdate(DocumentEvent e) { }
+        };
+        document.addDocumentListener(documentListener);
+        if (lineCount > MAX_LINES) {
+            dispose();
+        } else {
+            schedule();
+        }
+    }
+
+    public boolean isComplete() {
+        return disposed || scanned >= lineCount;
+    }
+
+    /**
+     * Take the document's words out of the dictionary and stop following it
+     */
+    public void dispose() {
+        ioScope.close();
+        document.removeDocumentListener(documentListener);
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            for (int i = 0; i < lineCount; i++) {
+                if (lines[i] != null) {
+                    dictionary.release(lines[i]);
+                }
+            }
+            lines = null;
+        }
+    }
+
+    private void schedule() {
+        if (running || disposed) {
+            return;
+        }
+        running = true;
+        IoExecutor.get().task("Collect words", () -> {
+            Segment segment = new Segment();
+            List<String> tokens = new ArrayList<>();
+            boolean[] more = {true};
+            while (more[0]) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                document.render(() -> {
+                    synchronized (this) {
+                        if (disposed) {
+                            more[0] = false;
+                            return;
+                        }
+                        Element root = document.getDefaultRootElement();
+                        int end = Math.min(lineCount, scanned + CHUNK_LINES);
+                        for (int i = scanned; i < end; i++) {
+                            if (lines[i] == null) {
+                                lines[i] = read(root, i, segment, tokens);
+                            }
+                        }
+                        scanned = end;
+                        more[0] = end < lineCount;
+                    }
+                });
+            }
+            return null;
+        }).heavy().in(ioScope).onSuccess(ignored -> {
+            running = false;
+            if (!isComplete()) {
+                schedule();
+            }
+        }).onFailure(e -> running = false).start();
+    }
+
+    /**
+     * Release the words of removed lines and read the added ones.
+     * Called under the document's write lock, so the worker is not reading meanwhile.
+     */
+    private synchronized void linesChanged(DocumentEvent e) {
+        if (disposed) {
+            return;
+        }
+        Element root = document.getDefaultRootElement();
+        if (root.getElementCount() > MAX_LINES) {
+            dispose();
+            return;
+        }
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int first;
+        int count;
+        if (change == null) {
+            // Edit inside one line
+            first = root.getElementIndex(e.getOffset());
+            count = 1;
+            if (lines[first] == null) {
+                return;  // Not read yet, the worker reads it as it is now
+            }
+            dictionary.release(lines[first]);
+            lines[first] = null;
+        } else {
+            first = change.getIndex();
+            count = change.getChildrenAdded().length;
+            int removed = change.getChildrenRemoved().length;
+            for (int i = first; i < first + removed; i++) {
+                if (lines[i] != null) {
+                    dictionary.release(lines[i]);
+                }
+            }
+            int newCount = lineCount + count - removed;
+            if (newCount > lines.length) {
+                lines = Arrays.copyOf(lines, Math.max(newCount, lines.length + lines.length / 2));
+            }
+            System.arraycopy(lines, first + removed, lines, first + count, lineCount - first - removed);
+            Arrays.fill(lines, first, first + count, null);
+            if (newCount < lineCount) {
+                Arrays.fill(lines, newCount, lineCount, null);
+            }
+            lineCount = newCount;
+            if (scanned > first + removed) {
+                scanned += count - removed;
+            } else {
+                scanned = Math.min(scanned, first);
+            }
+        }
+
+        if (count > INLINE_LINES || first >= scanned) {
+            scanned = Math.min(scanned, first);
+            schedule();
+        } else {
+            for (int i = first; i < first + count; i++) {
+                lines[i] = read(root, i, inlineSegment, inlineTokens);
+            }
+        }
+    }
+
+    private int[] read(Element root, int line, Segment segment, List<String> tokens) {
+        Element element = root.getElement(line);
+        int start = element.getStartOffset();
+        int length = Math.min(Math.min(element.getEndOffset(), document.getLength()) - start, SCAN_CHARS);
+        if (length <= 0) {
+            return NO_TOKENS;
+        }
+        try {
+            document.getText(start, length, segment);
+        } catch (BadLocationException e) {
+            return NO_TOKENS;
+        }
+
+        tokens.clear();
+        char[] text = segment.array;
+        int end = segment.offset + segment.count;
+        int i = segment.offset;
+        while (i < end) {
+            if (!Character.isJavaIdentifierStart(text[i])) {
+                i++;
+                continue;
+            }
+            int wordStart = i++;
+            while (i < end && Character.isJavaIdentifierPart(text[i])) {
+                i++;
+            }
+            int wordLength = i - wordStart;
+            // A word cut by SCAN_CHARS would be a bogus prefix
+            if (wordLength >= MIN_WORD && wordLength <= MAX_WORD && (i < end || segment.count < SCAN_CHARS)) {
+                tokens.add(new String(text, wordStart, wordLength));
+            }
+        }
+        return tokens.isEmpty() ? NO_TOKENS : dictionary.acquire(tokens);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.noteuyg;
+
+import javax.swing.JLabel;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * EditorFonts - The editor font at each zoom size
+ *
+ * Zooming steps through a few sizes, so each derived Font and its FontMetrics are made once
+ * and shared by every view, instead of deriving and measuring again on each step.
+ */
+public final class EditorFonts {
+
+    /** Sizes Zoom In and Zoom Out step through */
+    public static final int[] SIZES = {8, 9, 10, 11, 12, 13, 14, 16, 18, 20, 22, 24, 28, 32, 40, 48, 64};
+    public static final int DEFAULT_SIZE = 14;
+
+    private static final Font BASE = createBase();
+    private static final JLabel MEASURE = new JLabel();
+    private static final Map<Integer, Font> FONTS = new HashMap<>();
+    private static final Map<Integer, FontMetrics> METRICS = new HashMap<>();
+
+    private EditorFonts() {
+    }
+
+    /**
+     * Consolas where available, Monospaced otherwise (Notepad++ style)
+     */
+    private static Font createBase() {
+        Font font = new Font("Consolas", Font.PLAIN, DEFAULT_SIZE);
+        if (!font.getFamily().equals("Consolas")) {
+            font = new Font("Monospaced", Font.PLAIN, DEFAULT_SIZE);
+        }
+        return font;
+    }
+
+    public static synchronized Font get(int size) {
+        return FONTS.computeIfAbsent(size, s -> s == DEFAULT_SIZE ? BASE : BASE.deriveFont((float) s));
+    }
+
+    public static synchronized FontMetrics metrics(int size) {
+        return METRICS.computeIfAbsent(size, s -> MEASURE.getFontMetrics(get(s)));
+    }
+
+    /**
+     * The next size in the given direction, the same size at either end
+     */
+    public static int step(int size, int direction) {
+        for (int i = 0; i < SIZES.length; i++) {
+            if (direction > 0 && SIZES[i] > size) {
+                return SIZES[i];
+            }
+            if (direction < 0 && SIZES[SIZES.length - 1 - i] < size) {
+                return SIZES[SIZES.length - 1 - i];
+            }
+        }
+        return size;
+    }
+}
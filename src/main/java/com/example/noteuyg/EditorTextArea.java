@@ -0,0 +1,312 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rtextarea.RUndoManager;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+
+/**
+ * EditorTextArea - RSyntaxTextArea that can act as an extra view of another editor's document
+ *
+ * The first view of a document (the owner) keeps the undo history. Every additional view
+ * shares the owner's RSyntaxDocument, keeps its own caret and scroll position, and forwards
+ * undo/redo to the owner so all views walk the same history. The history itself is kept by a
+ * BoundedUndoManager so long sessions stay within a memory budget. Each view has its own
+ * MultiCaret for multi-caret and rectangular editing.
+ */
+public class EditorTextArea extends RSyntaxTextArea {
+
+    private BoundedUndoManager ownUndoManager;
+    private boolean undoSuspended;
+    private EditorTextArea owner;
+    private final MultiCaret multiCaret;
+
+    /**
+     * Create a standalone editor with its own document
+     */
+    public EditorTextArea(int rows, int cols) {
+        super(rows, cols);
+        this.owner = null;
+        this.multiCaret = new MultiCaret(this);
+    }
+
+    /**
+     * Create an additional view sharing the owner's document
+     */
+    public EditorTextArea(EditorTextArea owner) {
+        super((RSyntaxDocument) owner.getDocument());
+        this.owner = owner.getOwner();
+
+        // Only the owner records undoable edits, otherwise every view would keep a copy
+        getDocument().removeUndoableEditListener(ownUndoManager);
+        ownUndoManager.dispose();
+        ownUndoManager = null;
+        this.owner.ownUndoManager.attach(getDocument());
+        setSyntaxEditingStyle(owner.getSyntaxEditingStyle());
+        setRows(owner.getRows());
+        setColumns(owner.getColumns());
+        this.multiCaret = new MultiCaret(this);
+    }
+
+    @Override
+    protected RUndoManager createUndoManager() {
+        // Called from the super constructor, discardAllEdits() clears the history instead of replacing it
+        if (ownUndoManager != null) {
+            ownUndoManager.dispose();
+        }
+        ownUndoManager = new BoundedUndoManager(this);
+        ownUndoManager.setSuspended(undoSuspended);
+        if (getDocument() != null) {
+            ownUndoManager.attach(getDocument());
+        }
+        return ownUndoManager;
+    }
+    
+    /**
+     * Release the undo history and its spill file once the document is closed
+     */
+    public void disposeUndoHistory() {
+        EditorTextArea root = getOwner();
+        if (root.ownUndoManager != null) {
+            root.ownUndoManager.dispose();
+        }
+    }
+
+    /**
+     * Stop recording undo history while the editor itself fills the document (following a log,
+     * streaming a file in), the history recorded so far is dropped
+     */
+    public void setUndoSuspended(boolean suspended) {
+        EditorTextArea root = getOwner();
+        root.undoSuspended = suspended;
+        if (root.ownUndoManager != null) {
+            root.ownUndoManager.setSuspended(suspended);
+        }
+    }
+
+    /**
+     * Check if undo recording is suspended for the document
+     */
+    public boolean isUndoSuspended() {
+        return getOwner().undoSuspended;
+    }
+
+    /**
+     * Append text at the end of the document without recording an undo step, the recorded
+     * history lies before the old end and stays valid
+     */
+    public void appendUnrecorded(String text) throws BadLocationException {
+        BoundedUndoManager history = history();
+        if (history != null) {
+            history.appendUnrecorded(text);
+        } else {
+            getDocument().insertString(getDocument().getLength(), text, null);
+        }
+    }
+
+    /**
+     * Estimated bytes the shared undo history keeps in memory
+     */
+    public long getUndoMemoryBytes() {
+        EditorTextArea root = getOwner();
+        return root.ownUndoManager != null ? root.ownUndoManager.getMemoryBytes() : 0;
+    }
+
+    /**
+     * Hand the document's undo history to another view before this owner view is disposed, the
+     * remaining views then forward to the new owner instead of a closed editor
+     */
+    public void transferOwnership(EditorTextArea heir, Iterable<? extends RSyntaxTextArea> views) {
+        if (owner != null || heir == this || heir.getDocument() != getDocument()) {
+            return;
+        }
+        for (RSyntaxTextArea view : views) {
+            if (view instanceof EditorTextArea && ((EditorTextArea) view).owner == this) {
+                ((EditorTextArea) view).owner = heir;
+            }
+        }
+        heir.owner = null;
+        heir.ownUndoManager = ownUndoManager;
+        heir.undoSuspended = undoSuspended;
+        ownUndoManager.setTextArea(heir);
+        ownUndoManager = null;
+        owner = heir;
+    }
+
+    /**
+     * Get the view that owns the document and its undo history
+     */
+    public EditorTextArea getOwner() {
+        return owner != null ? owner : this;
+    }
+
+    /**
+     * Get the extra carets of this view
+     */
+    public MultiCaret getMultiCaret() {
+        return multiCaret;
+    }
+
+    /**
+     * Replace several sorted, non-overlapping ranges as one undo step; returns the offsets just
+     * after each inserted text. The span is changed as a whole, this view's caret and selection
+     * are moved to where their text went.
+     */
+    public int[] replaceAll(int[] starts, int[] ends, String[] texts) throws BadLocationException {
+        int dot = getCaret().getDot();
+        int mark = getCaret().getMark();
+        BoundedUndoManager.RangeMap ranges = history().replaceAll(starts, ends, texts);
+        getCaret().setDot(ranges.toNew(mark));
+        getCaret().moveDot(ranges.toNew(dot));
+        return ranges.newEnds.clone();
+    }
+
+    @Override
+    protected void processKeyEvent(KeyEvent e) {
+        // While several carets are placed, typing and caret keys go to all of them
+        if (multiCaret != null && multiCaret.handleKey(e)) {
+            e.consume();
+            return;
+        }
+        super.processKeyEvent(e);
+    }
+
+    @Override
+    protected void processMouseEvent(MouseEvent e) {
+        if (multiCaret != null && multiCaret.handleMouse(e)) {
+            e.consume();
+            return;
+        }
+        super.processMouseEvent(e);
+    }
+
+    @Override
+    protected void processMouseMotionEvent(MouseEvent e) {
+        if (multiCaret != null && multiCaret.handleMouse(e)) {
+            e.consume();
+            return;
+        }
+        super.processMouseMotionEvent(e);
+    }
+
+    @Override
+    public void cut() {
+        if (multiCaret != null && multiCaret.isActive()) {
+            multiCaret.cut();
+        } else if (!ClipboardTransfer.cut(this)) {
+            super.cut();
+        }
+    }
+
+    @Override
+    public void copy() {
+        if (multiCaret != null && multiCaret.isActive()) {
+            multiCaret.copy();
+        } else if (!ClipboardTransfer.copy(this)) {
+            super.copy();
+        }
+    }
+
+    @Override
+    public void paste() {
+        if (multiCaret != null && multiCaret.isActive()) {
+            multiCaret.paste();
+        } else if (isEditable() && isEnabled()) {
+            ClipboardTransfer.paste(this);
+        }
+    }
+
+    /**
+     * Tell listeners of the "pasting" property that a chunked paste started or ended
+     */
+    void pastingChanged(boolean pasting) {
+        firePropertyChange("pasting", !pasting, pasting);
+    }
+
+    /**
+     * Check if this view shares its document with an owner view
+     */
+    public boolean isSecondaryView() {
+        return owner != null;
+    }
+
+    /**
+     * The shared history; a view that took over ownership never used its own RTextArea manager
+     */
+    private BoundedUndoManager history() {
+        return getOwner().ownUndoManager;
+    }
+
+    @Override
+    public boolean canUndo() {
+        BoundedUndoManager history = history();
+        return history != null && history.canUndo();
+    }
+
+    @Override
+    public boolean canRedo() {
+        BoundedUndoManager history = history();
+        return history != null && history.canRedo();
+    }
+
+    @Override
+    public void undoLastAction() {
+        if (ClipboardTransfer.isPasting(getDocument())) {
+            return;  // The paste is still being inserted as one undo step
+        }
+        BoundedUndoManager history = history();
+        try {
+            if (history != null && history.canUndo()) {
+                history.undo();
+            }
+        } catch (CannotUndoException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void redoLastAction() {
+        if (ClipboardTransfer.isPasting(getDocument())) {
+            return;
+        }
+        BoundedUndoManager history = history();
+        try {
+            if (history != null && history.canRedo()) {
+                history.redo();
+            }
+        } catch (CannotRedoException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void beginAtomicEdit() {
+        BoundedUndoManager history = history();
+        if (history != null) {
+            history.beginInternalAtomicEdit();
+        }
+    }
+
+    @Override
+    public void endAtomicEdit() {
+        BoundedUndoManager history = history();
+        if (history != null) {
+            history.endInternalAtomicEdit();
+        }
+    }
+
+    @Override
+    public void discardAllEdits() {
+        BoundedUndoManager history = history();
+        if (history != null) {
+            history.discardAllEdits();
+        } else {
+            super.discardAllEdits();
+        }
+    }
+}
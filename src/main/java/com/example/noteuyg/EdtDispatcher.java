@@ -0,0 +1,100 @@
+package com.example.noteuyg;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * EdtDispatcher - Single funnel for results that background work hands back to the EDT
+ *
+ * Instead of one invokeLater per result, queued callbacks are drained in one EDT event with a
+ * small time budget; the rest is re-posted so input and painting stay responsive during
+ * bursts. Keyed callbacks replace an earlier one with the same key that has not run yet,
+ * which collapses progress updates to the latest state.
+ */
+public final class EdtDispatcher {
+
+    /** Longest time a single drain keeps the EDT busy */
+    private static final long DRAIN_BUDGET_NANOS = 8_000_000;
+
+    private static final EdtDispatcher INSTANCE = new EdtDispatcher();
+
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+    private final Map<Object, Runnable> latest = new LinkedHashMap<>();
+    private boolean drainPosted = false;
+
+    public static EdtDispatcher get() {
+        return INSTANCE;
+    }
+
+    private EdtDispatcher() {
+    }
+
+    /**
+     * Run a callback on the EDT, in submission order
+     */
+    public void dispatch(Runnable callback) {
+        synchronized (this) {
+            queue.addLast(callback);
+            postDrain();
+        }
+    }
+
+    /**
+     * Run a callback on the EDT, dropping any pending callback with the same key
+     */
+    public void dispatchLatest(Object key, Runnable callback) {
+        synchronized (this) {
+            Runnable previous = latest.put(key, callback);
+            if (previous == null) {
+                // First for this key, keep its place in the queue
+                queue.addLast(() -> runLatest(key));
+            }
+            postDrain();
+        }
+    }
+
+    private void runLatest(Object key) {
+        Runnable callback;
+        synchronized (this) {
+            callback = latest.remove(key);
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    private void postDrain() {
+        if (!drainPosted) {
+            drainPosted = true;
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        while (true) {
+            Runnable callback;
+            synchronized (this) {
+                callback = queue.pollFirst();
+                if (callback == null) {
+                    drainPosted = false;
+                    return;
+                }
+            }
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+
+            if (System.nanoTime() - start > DRAIN_BUDGET_NANOS) {
+                // Let other events in, continue in a fresh EDT event
+                SwingUtilities.invokeLater(this::drain);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.noteuyg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * FileSnapshot - What a tab last knew about its file on disk
+ *
+ * Holds size, modification time, a CRC32C of the whole content (when known) and a CRC32C of
+ * the last few KB. The tail checksum lets append-only growth be recognized by reading a
+ * single small block instead of re-hashing the whole file.
+ */
+public final class FileSnapshot {
+
+    /** Number of bytes at the end of the file covered by the tail checksum */
+    static final int TAIL_BYTES = 4096;
+
+    /** Marker for a content checksum that is not known (e.g. after appending a tail) */
+    static final long UNKNOWN = -1;
+
+    private final long size;
+    private final long lastModified;
+    private final long contentCrc;
+    private final long tailCrc;
+
+    FileSnapshot(long size, long lastModified, long contentCrc, long tailCrc) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentCrc = contentCrc;
+        this.tailCrc = tailCrc;
+    }
+
+    /**
+     * Build a snapshot from bytes that were just read from or written to the file
+     */
+    public static FileSnapshot of(Path file, byte[] content) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(content, 0, content.length);
+        int tailStart = Math.max(0, content.length - TAIL_BYTES);
+        CRC32C tail = new CRC32C();
+        tail.update(content, tailStart, content.length - tailStart);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        return new FileSnapshot(content.length, lastModified, crc.getValue(), tail.getValue());
+    }
+
+    /**
+     * Build a snapshot by reading the file
+     */
+    public static FileSnapshot read(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        return new FileSnapshot(size, lastModified, crc.getValue(), tailCrc(file, size));
+    }
+
+    /**
+     * Check cheaply whether the file still has the size and timestamp of this snapshot
+     */
+    public boolean matchesAttributes(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            return true; // Cannot tell, assume unchanged rather than nagging the user
+        }
+    }
+
+    /**
+     * Check whether the file only grew since this snapshot, by comparing the old tail block
+     */
+    public boolean isAppendedIn(Path file, long newSize) throws IOException {
+        return newSize > size && tailCrc(file, size) == tailCrc;
+    }
+
+    /**
+     * Snapshot after appending bytes [size, newSize) to a tab
+     */
+    public FileSnapshot appended(Path file, long newSize) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        return new FileSnapshot(newSize, lastModified, UNKNOWN, tailCrc(file, newSize));
+    }
+
+    /**
+     * CRC32C of the TAIL_BYTES block that ends at the given position
+     */
+    static long tailCrc(Path file, long end) throws IOException {
+        long start = Math.max(0, end - TAIL_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        buffer.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getContentCrc() {
+        return contentCrc;
+    }
+
+    /**
+     * Check if two snapshots describe the same content
+     */
+    public boolean sameContent(FileSnapshot other) {
+        return other != null && size == other.size && contentCrc != UNKNOWN && contentCrc == other.contentCrc;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.noteuyg;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * FileWatcher - Watches open files for changes made by other programs
+ *
+ * WatchService works per directory, so each parent directory is registered once and events
+ * are filtered down to the watched files. Events for the same file are coalesced until the
+ * EDT has handled the previous notification.
+ */
+public class FileWatcher {
+
+    private final WatchService watchService;
+    private final Consumer<Path> listener;
+    private final Map<Path, WatchKey> directoryKeys = new HashMap<>();
+    private final Map<Path, Integer> watchedFiles = new HashMap<>();
+
+    /**
+     * Create a watcher, the listener is always called on the EDT
+     */
+    public FileWatcher(Consumer<Path> listener) throws IOException {
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        Thread thread = new Thread(this::processEvents, "file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Start watching a file (watching the same file twice is reference counted)
+     */
+    public synchronized void watch(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path directory = absolute.getParent();
+        if (directory == null) {
+            return;
+        }
+
+        watchedFiles.merge(absolute, 1, Integer::sum);
+        if (!directoryKeys.containsKey(directory)) {
+            try {
+                WatchKey key = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+                directoryKeys.put(directory, key);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not watch " + directory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop watching a file, the directory is released when no watched file is left in it
+     */
+    public synchronized void unwatch(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Integer count = watchedFiles.get(absolute);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            watchedFiles.put(absolute, count - 1);
+            return;
+        }
+        watchedFiles.remove(absolute);
+
+        Path directory = absolute.getParent();
+        for (Path watched : watchedFiles.keySet()) {
+            if (watched.getParent().equals(directory)) {
+                return;
+            }
+        }
+        WatchKey key = directoryKeys.remove(directory);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            Set<Path> changed = new HashSet<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost, re-check every file in this directory
+                    synchronized (this) {
+                        for (Path watched : watchedFiles.keySet()) {
+                            if (watched.getParent().equals(directory)) {
+                                changed.add(watched);
+                            }
+                        }
+                    }
+                    continue;
+                }
+                Path file = directory.resolve((Path) event.context());
+                synchronized (this) {
+                    if (watchedFiles.containsKey(file)) {
+                        changed.add(file);
+                    }
+                }
+            }
+            key.reset();
+
+            for (Path file : changed) {
+                notifyChanged(file);
+            }
+        }
+    }
+
+    private void notifyChanged(Path file) {
+        // A change already queued for the EDT is replaced, the listener reads the latest state anyway
+        EdtDispatcher.get().dispatchLatest(file, () -> listener.accept(file));
+    }
+}
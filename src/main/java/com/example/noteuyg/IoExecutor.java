@@ -0,0 +1,89 @@
+package com.example.noteuyg;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IoExecutor - Shared execution layer for all file operations of the editor
+ *
+ * Every task gets its own virtual thread, so blocking reads, writes and directory listings
+ * never tie up the EDT or a platform thread. Disk-heavy tasks additionally take one of a few
+ * permits, which bounds how many whole-file transfers hit the disk at once. Results go back
+ * to the EDT through the EdtDispatcher.
+ */
+public final class IoExecutor {
+
+    /** Concurrent disk-heavy tasks (-Dnotepad.io.heavyPermits) */
+    private static final int HEAVY_PERMITS = Integer.getInteger("notepad.io.heavyPermits", 4);
+
+    private static final IoExecutor INSTANCE = new IoExecutor();
+
+    private final ExecutorService virtualThreads = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("io-", 0).factory());
+    private final Semaphore heavyPermits = new Semaphore(HEAVY_PERMITS, true);
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "io-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static IoExecutor get() {
+        return INSTANCE;
+    }
+
+    private IoExecutor() {
+    }
+
+    /**
+     * Create a task, configure it and call start() on it
+     */
+    public <T> IoTask<T> task(String name, Callable<T> work) {
+        return new IoTask<>(name, work);
+    }
+
+    /**
+     * Shortcut for a background action without result or callbacks
+     */
+    public IoTask<Void> run(String name, Runnable work) {
+        return task(name, () -> {
+            work.run();
+            return (Void) null;
+        }).start();
+    }
+
+    <T> void start(IoTask<T> task) {
+        if (!task.begin()) {
+            return; // Its scope is already closed
+        }
+        Future<?> future = virtualThreads.submit(() -> execute(task));
+        task.setFuture(future);
+    }
+
+    private <T> void execute(IoTask<T> task) {
+        boolean permit = false;
+        try {
+            if (task.isHeavy()) {
+                heavyPermits.acquire();
+                permit = true;
+            }
+
+            // The deadline covers the work, not the time spent waiting for a permit
+            if (task.getDeadline() != null) {
+                task.setDeadlineFuture(deadlines.schedule(task::expire, task.getDeadline().toMillis(),
+                    TimeUnit.MILLISECONDS));
+            }
+            task.complete(task.getWork().call(), null);
+        } catch (Exception e) {
+            task.complete(null, e);
+        } finally {
+            if (permit) {
+                heavyPermits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.noteuyg;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * IoScope - Group of I/O tasks that belong to one owner (a tab, a viewer)
+ *
+ * Closing the scope cancels every task still running in it, so work started for a tab cannot
+ * outlive the tab. Tasks leave the scope on their own when they finish.
+ */
+public class IoScope {
+
+    private final Set<IoTask<?>> tasks = new LinkedHashSet<>();
+    private boolean closed = false;
+
+    synchronized boolean add(IoTask<?> task) {
+        if (closed) {
+            return false;
+        }
+        tasks.add(task);
+        return true;
+    }
+
+    synchronized void remove(IoTask<?> task) {
+        tasks.remove(task);
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Cancel all running tasks and refuse new ones
+     */
+    public void close() {
+        IoTask<?>[] running;
+        synchronized (this) {
+            closed = true;
+            running = tasks.toArray(new IoTask<?>[0]);
+            tasks.clear();
+        }
+        for (IoTask<?> task : running) {
+            task.cancel();
+        }
+    }
+}
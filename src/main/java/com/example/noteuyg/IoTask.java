@@ -0,0 +1,214 @@
+package com.example.noteuyg;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * IoTask - One file operation run by the IoExecutor
+ *
+ * Configure it with the setters, then start() it. The work runs on a virtual thread; exactly
+ * one of the success or failure callbacks is later run on the EDT through the EdtDispatcher,
+ * unless the task was cancelled. A task that passes its deadline is interrupted and fails
+ * with a TimeoutException; the deadline starts when the work starts, after any wait for a
+ * heavy permit.
+ */
+public class IoTask<T> {
+
+    private enum State { NEW, RUNNING, DONE, CANCELLED, TIMED_OUT }
+
+    private final String name;
+    private final Callable<T> work;
+    private boolean heavy = false;
+    private Duration deadline;
+    private IoScope scope;
+    private Consumer<T> onSuccess;
+    private Consumer<Exception> onFailure;
+
+    private State state = State.NEW;
+    private Future<?> future;
+    private ScheduledFuture<?> deadlineFuture;
+
+    IoTask(String name, Callable<T> work) {
+        this.name = name;
+        this.work = work;
+    }
+
+    /**
+     * Mark as disk-heavy (whole-file reads and writes, PDF parsing), these share a small
+     * number of permits so many of them do not thrash the disk
+     */
+    public IoTask<T> heavy() {
+        this.heavy = true;
+        return this;
+    }
+
+    /**
+     * Interrupt the work and fail if it is not done within the given time
+     */
+    public IoTask<T> deadline(Duration deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Cancel the task together with the scope
+     */
+    public IoTask<T> in(IoScope scope) {
+        this.scope = scope;
+        return this;
+    }
+
+    public IoTask<T> onSuccess(Consumer<T> onSuccess) {
+        this.onSuccess = onSuccess;
+        return this;
+    }
+
+    public IoTask<T> onFailure(Consumer<Exception> onFailure) {
+        this.onFailure = onFailure;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Submit the task to the shared executor
+     */
+    public IoTask<T> start() {
+        IoExecutor.get().start(this);
+        return this;
+    }
+
+    /**
+     * Stop the task, no callback runs afterwards
+     */
+    public void cancel() {
+        Future<?> running;
+        synchronized (this) {
+            if (state == State.DONE || state == State.TIMED_OUT) {
+                return;
+            }
+            state = State.CANCELLED;
+            running = future;
+            stopDeadline();
+        }
+        if (running != null) {
+            running.cancel(true);
+        }
+        leaveScope();
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    public synchronized boolean isDone() {
+        return state != State.NEW && state != State.RUNNING;
+    }
+
+    boolean isHeavy() {
+        return heavy;
+    }
+
+    Duration getDeadline() {
+        return deadline;
+    }
+
+    Callable<T> getWork() {
+        return work;
+    }
+
+    /**
+     * Called by the executor before submitting, false if the scope is already closed
+     */
+    synchronized boolean begin() {
+        if (state != State.NEW || (scope != null && !scope.add(this))) {
+            state = State.CANCELLED;
+            return false;
+        }
+        state = State.RUNNING;
+        return true;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+        if (state == State.CANCELLED || state == State.TIMED_OUT) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Called by the executor once the work is about to run (after any permit was taken)
+     */
+    synchronized void setDeadlineFuture(ScheduledFuture<?> deadlineFuture) {
+        this.deadlineFuture = deadlineFuture;
+        if (state != State.RUNNING) {
+            stopDeadline();
+        }
+    }
+
+    /**
+     * Deliver the outcome of the work, ignored if the task was cancelled or timed out meanwhile
+     */
+    void complete(T result, Exception error) {
+        synchronized (this) {
+            if (state != State.RUNNING) {
+                return;
+            }
+            state = State.DONE;
+            stopDeadline();
+        }
+        leaveScope();
+        if (error == null) {
+            if (onSuccess != null) {
+                EdtDispatcher.get().dispatch(() -> onSuccess.accept(result));
+            }
+        } else {
+            fail(error);
+        }
+    }
+
+    /**
+     * Called by the deadline timer
+     */
+    void expire() {
+        Future<?> running;
+        synchronized (this) {
+            if (state != State.RUNNING) {
+                return;
+            }
+            state = State.TIMED_OUT;
+            running = future;
+        }
+        if (running != null) {
+            running.cancel(true);
+        }
+        leaveScope();
+        fail(new TimeoutException(name + " did not finish within " + deadline.toMillis() + " ms"));
+    }
+
+    private void fail(Exception error) {
+        if (onFailure != null) {
+            EdtDispatcher.get().dispatch(() -> onFailure.accept(error));
+        } else {
+            System.err.println("Warning: " + name + " failed: " + error.getMessage());
+        }
+    }
+
+    private void stopDeadline() {
+        if (deadlineFuture != null) {
+            deadlineFuture.cancel(false);
+        }
+    }
+
+    private void leaveScope() {
+        if (scope != null) {
+            scope.remove(this);
+        }
+    }
+}
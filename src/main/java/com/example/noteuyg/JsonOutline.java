@@ -0,0 +1,260 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * JsonOutline - Tree of the objects and arrays in a JSON document, built one level at a time
+ *
+ * Nothing is parsed up front: expanding a node scans just that container for its direct members
+ * and remembers their offsets, so selecting a node moves the caret straight there. Large
+ * containers are listed in pages. Editing the document makes the offsets stale until Refresh.
+ */
+public class JsonOutline extends JDialog {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final String LOADING = "Loading...";
+
+    private final JTextArea textArea;
+    private final Document document;
+    private final IoScope ioScope = new IoScope();
+    private final DefaultMutableTreeNode root = new DefaultMutableTreeNode("JSON");
+    private final DefaultTreeModel model = new DefaultTreeModel(root);
+    private final JTree tree = new JTree(model);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final DocumentListener documentListener;
+    private final Runnable beforeJump;
+    private int version;  // Bumped on every edit and refresh, scans of an older version are dropped
+    private boolean stale;
+
+    /** Rest of a container that did not fit in one page */
+    private record More(int next, int nextIndex) {
+        @Override
+        public String toString() {
+            return "… more";
+        }
+    }
+
+    public JsonOutline(Frame owner, JTextArea textArea, String title, Runnable beforeJump) {
+        super(owner, "JSON Outline - " + title, false);
+        this.textArea = textArea;
+        this.beforeJump = beforeJump;
+        this.document = textArea.getDocument();
+
+        tree.setRootVisible(false);
+        tree.setShowsRootHandles(true);
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                DefaultMutableTreeNode node = (DefaultMutableTreeNode) event.getPath().getLastPathComponent();
+                if (!stale && node.getChildCount() == 1
+                        && LOADING.equals(((DefaultMutableTreeNode) node.getFirstChild()).getUserObject())) {
+                    JsonStream.Node json = (JsonStream.Node) node.getUserObject();
+                    loadPage(node, json.getStart() + 1, 0);
+                }
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {
+            }
+        });
+        tree.addTreeSelectionListener(e -> {
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
+            if (node == null) {
+                return;
+            }
+            if (node.getUserObject() instanceof More && !stale) {
+                More more = (More) node.getUserObject();
+                DefaultMutableTreeNode parent = (DefaultMutableTreeNode) node.getParent();
+                node.setUserObject(LOADING);
+                model.nodeChanged(node);
+                loadPage(parent, more.next(), more.nextIndex());
+            } else if (node.getUserObject() instanceof JsonStream.Node) {
+                jumpTo((JsonStream.Node) node.getUserObject());
+            }
+        });
+
+        documentListener = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { markStale(); }
+            public void removeUpdate(DocumentEvent e) { markStale(); }
+            public void changedUpdate(DocumentEvent e) { }
+        };
+        document.addDocumentListener(documentListener);
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh());
+        JPanel bottom = new JPanel(new BorderLayout(6, 0));
+        bottom.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        bottom.add(statusLabel, BorderLayout.CENTER);
+        bottom.add(refreshButton, BorderLayout.EAST);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JScrollPane(tree), BorderLayout.CENTER);
+        panel.add(bottom, BorderLayout.SOUTH);
+        setContentPane(panel);
+
+        getRootPane().registerKeyboardAction(e -> dispose(),
+            KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                ioScope.close();
+                document.removeDocumentListener(documentListener);
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(420, 560);
+        setLocationRelativeTo(owner);
+
+        refresh();
+    }
+
+    /**
+     * Throw away everything scanned so far and list the top-level values again
+     */
+    public void refresh() {
+        version++;
+        stale = false;
+        root.removeAllChildren();
+        root.add(new DefaultMutableTreeNode(LOADING));
+        model.reload();
+        loadPage(root, 0, 0);
+    }
+
+    private void markStale() {
+        version++;
+        stale = true;
+        statusLabel.setText("Document changed, Refresh to rescan");
+    }
+
+    /**
+     * Scan one page of members in the background and put them under the node
+     */
+    private void loadPage(DefaultMutableTreeNode node, int from, int firstIndex) {
+        int scannedVersion = version;
+        DocumentChars text = new DocumentChars(document);
+        JsonStream.Node container = node == root ? null : (JsonStream.Node) node.getUserObject();
+        statusLabel.setText("Scanning...");
+        long started = System.nanoTime();
+
+        IoExecutor.get().task("Outline JSON", () -> container == null
+                ? JsonStream.roots(text, from, firstIndex, PAGE_SIZE)
+                : JsonStream.children(text, container, from, firstIndex, PAGE_SIZE))
+            .heavy().in(ioScope)
+            .onSuccess(page -> {
+                if (scannedVersion != version) {
+                    return;  // Offsets no longer match the text
+                }
+                // Replace the placeholder or the "more" node that asked for this page
+                node.remove(node.getChildCount() - 1);
+                for (JsonStream.Node member : page.nodes()) {
+                    DefaultMutableTreeNode child = new DefaultMutableTreeNode(member);
+                    if (member.isContainer()) {
+                        child.add(new DefaultMutableTreeNode(LOADING));
+                    }
+                    node.add(child);
+                }
+                if (page.next() >= 0) {
+                    node.add(new DefaultMutableTreeNode(new More(page.next(), page.nextIndex())));
+                }
+                model.nodeStructureChanged(node);
+                if (node == root && root.getChildCount() == 1) {
+                    tree.expandPath(new TreePath(((DefaultMutableTreeNode) root.getFirstChild()).getPath()));
+                }
+                statusLabel.setText(String.format("%,d members, scanned in %d ms",
+                    page.nextIndex(), (System.nanoTime() - started) / 1_000_000));
+            })
+            .onFailure(e -> {
+                if (scannedVersion == version) {
+                    statusLabel.setText("Not valid JSON: " + e.getMessage());
+                }
+            })
+            .start();
+    }
+
+    private void jumpTo(JsonStream.Node node) {
+        if (node.getStart() > document.getLength()) {
+            return;
+        }
+        beforeJump.run();
+        // Caret at the end first so the start scrolls in at the top rather than the bottom
+        textArea.setCaretPosition(Math.min(node.getEnd(), document.getLength()));
+        textArea.setCaretPosition(node.getStart());
+    }
+
+    /**
+     * Document text read in windows under the read lock, for scanning off the EDT
+     */
+    private static final class DocumentChars implements CharSequence {
+        private static final int WINDOW = 64 * 1024;
+
+        private final Document document;
+        private final int length;
+        private final char[] window = new char[WINDOW];
+        private final Segment segment = new Segment();
+        private int windowStart = 0;
+        private int windowLength = 0;
+
+        DocumentChars(Document document) {
+            this.document = document;
+            this.length = document.getLength();
+            segment.setPartialReturn(true);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < windowStart || index >= windowStart + windowLength) {
+                fill(index);
+            }
+            return window[index - windowStart];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            StringBuilder text = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                text.append(charAt(i));
+            }
+            return text;
+        }
+
+        private void fill(int index) {
+            windowStart = index;
+            windowLength = 0;
+            Runnable read = () -> {
+                int wanted = Math.min(WINDOW, Math.min(length, document.getLength()) - index);
+                while (windowLength < wanted) {
+                    try {
+                        document.getText(index + windowLength, wanted - windowLength, segment);
+                    } catch (BadLocationException e) {
+                        break;
+                    }
+                    System.arraycopy(segment.array, segment.offset, window, windowLength, segment.count);
+                    windowLength += segment.count;
+                }
+            };
+            document.render(read);
+            if (windowLength == 0) {
+                throw new IndexOutOfBoundsException("Document changed while scanning");
+            }
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.noteuyg;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JsonStream - Streaming JSON formatter and lazy structure scanner
+ *
+ * format() tokenizes in a single pass and writes as it goes, so memory stays constant no matter
+ * how large the input is; only the stack of open brackets is kept to catch mismatched ones.
+ * It is a formatter, not a validator: anything between the structural characters is copied
+ * through unchanged. Several top-level values (JSON Lines) stay one per line.
+ *
+ * children() lists the direct members of one object or array by offset, skipping over nested
+ * values without building them, so an outline can be expanded one level at a time.
+ */
+public final class JsonStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LABEL_LENGTH = 80;
+
+    private JsonStream() {
+    }
+
+    /**
+     * Pretty-print with the given indent, or minify when indent is null
+     */
+    public static void format(Reader in, Writer writer, String indent) throws IOException {
+        boolean pretty = indent != null;
+        Output out = new Output(writer);
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder open = new StringBuilder();  // '{' or '[' for each open container
+        List<String> indents = new ArrayList<>();
+        boolean inString = false;
+        boolean escape = false;
+        boolean pendingBreak = false;  // After an opening bracket, dropped again if the container is empty
+        boolean valueDone = false;     // A complete top-level value has been written
+        boolean literal = false;       // Inside a top-level number, true, false or null
+        long offset = 0;
+
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("JSON formatting cancelled");
+            }
+            for (int i = 0; i < read; i++, offset++) {
+                char c = buffer[i];
+                if (inString) {
+                    // Copy the plain run of the string in one go
+                    int run = i;
+                    if (!escape) {
+                        while (run < read && buffer[run] != '"' && buffer[run] != '\\') {
+                            run++;
+                        }
+                        if (run > i) {
+                            out.write(buffer, i, run - i);
+                            offset += run - i - 1;
+                            i = run - 1;
+                            continue;
+                        }
+                    }
+                    out.write(c);
+                    if (escape) {
+                        escape = false;
+                    } else if (c == '\\') {
+                        escape = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                switch (c) {
+                    case ' ', '\t', '\r', '\n', '\uFEFF' -> {
+                        // Insignificant whitespace is regenerated, it only ends a top-level literal
+                        if (literal) {
+                            literal = false;
+                            valueDone = true;
+                        }
+                    }
+                    case '}', ']' -> {
+                        int depth = open.length();
+                        if (depth == 0 || open.charAt(depth - 1) != (c == '}' ? '{' : '[')) {
+                            throw new IOException("Unexpected '" + c + "' at character " + offset);
+                        }
+                        open.setLength(depth - 1);
+                        if (pendingBreak) {
+                            pendingBreak = false;  // Empty container stays "{}" or "[]"
+                        } else if (pretty) {
+                            newLine(out, indents, indent, depth - 1);
+                        }
+                        out.write(c);
+                        valueDone = depth == 1;
+                    }
+                    case ',' -> {
+                        out.write(',');
+                        if (pretty && open.length() > 0) {
+                            newLine(out, indents, indent, open.length());
+                        }
+                    }
+                    case ':' -> {
+                        out.write(':');
+                        if (pretty) {
+                            out.write(' ');
+                        }
+                    }
+                    default -> {
+                        if (pendingBreak) {
+                            pendingBreak = false;
+                            if (pretty) {
+                                newLine(out, indents, indent, open.length());
+                            }
+                        } else if (valueDone && open.length() == 0) {
+                            out.write('\n');  // Next top-level value
+                        }
+                        valueDone = false;
+                        out.write(c);
+                        if (c == '{' || c == '[') {
+                            open.append(c);
+                            pendingBreak = true;
+                        } else if (c == '"') {
+                            inString = true;
+                        } else {
+                            literal = open.length() == 0;
+                        }
+                    }
+                }
+            }
+        }
+        if (inString) {
+            throw new IOException("Unterminated string at end of input");
+        }
+        if (open.length() > 0) {
+            throw new IOException("Missing '" + (open.charAt(open.length() - 1) == '{' ? '}' : ']')
+                + "' at end of input");
+        }
+        out.flush();
+    }
+
+    private static void newLine(Output out, List<String> indents, String indent, int depth) throws IOException {
+        while (indents.size() <= depth) {
+            indents.add(indent.repeat(indents.size()));
+        }
+        out.write('\n');
+        String text = indents.get(depth);
+        for (int i = 0; i < text.length(); i++) {
+            out.write(text.charAt(i));
+        }
+    }
+
+    /**
+     * Buffers single characters, one Writer call per character is far slower than the scan
+     */
+    private static final class Output {
+        private final Writer writer;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int length;
+
+        Output(Writer writer) {
+            this.writer = writer;
+        }
+
+        void write(char c) throws IOException {
+            if (length == buffer.length) {
+                writer.write(buffer, 0, length);
+                length = 0;
+            }
+            buffer[length++] = c;
+        }
+
+        void write(char[] chars, int start, int count) throws IOException {
+            if (length + count > buffer.length) {
+                writer.write(buffer, 0, length);
+                length = 0;
+                if (count > buffer.length) {
+                    writer.write(chars, start, count);
+                    return;
+                }
+            }
+            System.arraycopy(chars, start, buffer, length, count);
+            length += count;
+        }
+
+        void flush() throws IOException {
+            writer.write(buffer, 0, length);
+            length = 0;
+            writer.flush();
+        }
+    }
+
+    /**
+     * One member of an object or array in the outline
+     */
+    public static final class Node {
+        private final String label;
+        private final char kind;  // '{', '[' or 'v' for a plain value
+        private final int start;
+        private final int end;
+
+        Node(String label, char kind, int start, int end) {
+            this.label = label;
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isContainer() {
+            return kind != 'v';
+        }
+
+        public boolean isObject() {
+            return kind == '{';
+        }
+
+        /** Offset of the first character of the value */
+        public int getStart() {
+            return start;
+        }
+
+        /** Offset just past the last character of the value */
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * A page of members and where the next page starts, -1 when the container has no more
+     */
+    public record Page(List<Node> nodes, int next, int nextIndex) {}
+
+    /**
+     * The top-level values of the text, usually just one
+     */
+    public static Page roots(CharSequence text, int from, int firstIndex, int limit)
+            throws IOException, InterruptedException {
+        List<Node> nodes = new ArrayList<>();
+        int pos = from;
+        int index = firstIndex;
+        while (true) {
+            pos = skipWhitespace(text, pos);
+            if (pos >= text.length()) {
+                return new Page(nodes, -1, index);
+            }
+            if (nodes.size() == limit) {
+                return new Page(nodes, pos, index);
+            }
+            nodes.add(value(text, pos, "[" + index++ + "]"));
+            pos = nodes.get(nodes.size() - 1).getEnd();
+        }
+    }
+
+    /**
+     * Members of the container, starting at offset from (just past the opening bracket for the
+     * first page) and numbering array elements from firstIndex
+     */
+    public static Page children(CharSequence text, Node container, int from, int firstIndex, int limit)
+            throws IOException, InterruptedException {
+        List<Node> nodes = new ArrayList<>();
+        int pos = from;
+        int index = firstIndex;
+        while (true) {
+            pos = skipWhitespace(text, pos);
+            if (pos >= text.length()) {
+                throw new IOException("Unterminated " + (container.isObject() ? "object" : "array")
+                    + " starting at character " + container.getStart());
+            }
+            char c = text.charAt(pos);
+            if (c == '}' || c == ']') {
+                return new Page(nodes, -1, index);
+            }
+            if (c == ',') {
+                pos++;
+                continue;
+            }
+            if (nodes.size() == limit) {
+                return new Page(nodes, pos, index);
+            }
+            String label;
+            if (container.isObject()) {
+                int keyEnd = skipValue(text, pos);
+                label = abbreviate(text, pos, keyEnd);
+                pos = skipWhitespace(text, keyEnd);
+                if (pos >= text.length() || text.charAt(pos) != ':') {
+                    throw new IOException("Expected ':' at character " + pos);
+                }
+                pos = skipWhitespace(text, pos + 1);
+            } else {
+                label = "[" + index + "]";
+            }
+            index++;
+            Node node = value(text, pos, label);
+            nodes.add(node);
+            pos = node.getEnd();
+        }
+    }
+
+    private static Node value(CharSequence text, int pos, String label) throws IOException, InterruptedException {
+        if (pos >= text.length()) {
+            throw new IOException("Unexpected end of input");
+        }
+        int end = skipValue(text, pos);
+        char c = text.charAt(pos);
+        if (c == '{' || c == '[') {
+            return new Node(label + "  " + (c == '{' ? "{…}" : "[…]"), c, pos, end);
+        }
+        return new Node(label + ": " + abbreviate(text, pos, end), 'v', pos, end);
+    }
+
+    private static String abbreviate(CharSequence text, int start, int end) {
+        if (end - start <= LABEL_LENGTH) {
+            return text.subSequence(start, end).toString();
+        }
+        return text.subSequence(start, start + LABEL_LENGTH) + "…";
+    }
+
+    private static int skipWhitespace(CharSequence text, int pos) {
+        int length = text.length();
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n' && c != '\uFEFF') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Offset just past the value starting at pos, without looking inside it beyond bracket depth
+     */
+    private static int skipValue(CharSequence text, int pos) throws IOException, InterruptedException {
+        int length = text.length();
+        char first = text.charAt(pos);
+        if (first != '{' && first != '[' && first != '"') {
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+                    break;
+                }
+                pos++;
+            }
+            return pos;
+        }
+
+        int depth = 0;
+        boolean inString = false;
+        for (int i = pos; i < length; i++) {
+            if ((i & 0xFFFFF) == 0 && Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        throw new IOException("Unterminated value starting at character " + pos);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.noteuyg;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JumpList - Back/forward history of the places navigation commands jumped away from
+ *
+ * Entries are Positions, so they follow edits and going back to a spot in a huge file is just
+ * setting the caret. The history is shared by all tabs, like a browser's.
+ */
+public class JumpList {
+
+    private static final int MAX_ENTRIES = 100;
+
+    /**
+     * A place in a document
+     */
+    public static final class Entry {
+        private final Document document;
+        private final Position position;
+
+        Entry(Document document, Position position) {
+            this.document = document;
+            this.position = position;
+        }
+
+        public Document getDocument() {
+            return document;
+        }
+
+        public int getOffset() {
+            return position.getOffset();
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private int index = 0;  // Entry shown by the last back/forward, entries.size() when not browsing
+
+    /**
+     * Remember where the caret is before jumping somewhere else, drops the forward history
+     */
+    public void record(Document document, int offset) {
+        entries.subList(Math.min(index, entries.size()), entries.size()).clear();
+        if (!entries.isEmpty()) {
+            Entry last = entries.get(entries.size() - 1);
+            if (last.document == document && last.getOffset() == offset) {
+                index = entries.size();
+                return;
+            }
+        }
+        try {
+            entries.add(new Entry(document, document.createPosition(offset)));
+        } catch (BadLocationException e) {
+            return;
+        }
+        if (entries.size() > MAX_ENTRIES) {
+            entries.remove(0);
+        }
+        index = entries.size();
+    }
+
+    /**
+     * The place before the current one, null at the start of the history
+     */
+    public Entry back(Document document, int offset) {
+        if (index == 0) {
+            return null;
+        }
+        if (index == entries.size()) {
+            // Leaving the newest place, keep it so forward can return to it
+            record(document, offset);
+            index = entries.size() - 1;
+            if (index == 0) {
+                return null;
+            }
+        }
+        return entries.get(--index);
+    }
+
+    /**
+     * The place after the current one, null at the end of the history
+     */
+    public Entry forward() {
+        if (index + 1 >= entries.size()) {
+            return null;
+        }
+        return entries.get(++index);
+    }
+
+    /**
+     * Forget the places in a closed document
+     */
+    public void removeDocument(Document document) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).document == document) {
+                entries.remove(i);
+                if (i < index) {
+                    index--;
+                }
+            }
+        }
+        index = Math.min(index, entries.size());
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.noteuyg;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LineDiff - Line based Myers diff working in linear space
+ *
+ * Every distinct line is mapped to an int id once, so the algorithm only compares ints.
+ * The middle-snake bisection keeps two diagonal vectors of size O(N + M) instead of the
+ * quadratic edit graph, and gives up on a region (reporting it as one change) when the
+ * deadline passes so huge unrelated inputs still finish quickly.
+ */
+public final class LineDiff {
+
+    /**
+     * One changed region: lines [startA, endA) of A were replaced by lines [startB, endB) of B
+     */
+    public static final class Hunk {
+        public final int startA;
+        public final int endA;
+        public final int startB;
+        public final int endB;
+
+        Hunk(int startA, int endA, int startB, int endB) {
+            this.startA = startA;
+            this.endA = endA;
+            this.startB = startB;
+            this.endB = endB;
+        }
+
+        @Override
+        public String toString() {
+            return "Hunk[" + startA + "," + endA + " -> " + startB + "," + endB + "]";
+        }
+    }
+
+    private final int[] a;
+    private final int[] b;
+    private final int[] forward;
+    private final int[] backward;
+    private final long deadline;
+    private final List<Hunk> hunks = new ArrayList<>();
+
+    private LineDiff(int[] a, int[] b, long timeoutMillis) {
+        this.a = a;
+        this.b = b;
+
+        // Diagonal vectors are allocated once and reused by every bisection
+        int size = 2 * ((a.length + b.length + 1) / 2) + 2;
+        this.forward = new int[size];
+        this.backward = new int[size];
+        this.deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    /**
+     * Compute the changed line ranges between two texts
+     */
+    public static List<Hunk> diff(String textA, String textB, long timeoutMillis) throws InterruptedException {
+        Map<String, Integer> ids = new HashMap<>();
+        int[] linesA = toLineIds(textA, ids);
+        int[] linesB = toLineIds(textB, ids);
+        ids.clear();
+        return diff(linesA, linesB, timeoutMillis);
+    }
+
+    /**
+     * Compute the changed ranges between two sequences of line ids
+     */
+    public static List<Hunk> diff(int[] linesA, int[] linesB, long timeoutMillis) throws InterruptedException {
+        LineDiff diff = new LineDiff(linesA, linesB, timeoutMillis);
+        diff.compare(0, linesA.length, 0, linesB.length);
+        return diff.hunks;
+    }
+
+    /**
+     * Split text on '\n' and map every distinct line to a small int id
+     */
+    static int[] toLineIds(String text, Map<String, Integer> ids) {
+        int lineCount = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
+
+        int[] lines = new int[lineCount];
+        int start = 0;
+        for (int line = 0; line < lineCount; line++) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            String key = text.substring(start, end);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = ids.size();
+                ids.put(key, id);
+            }
+            lines[line] = id;
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Apply hunks computed for oldText -> newText to a document that currently holds oldText.
+     * Only the changed regions are touched, so positions elsewhere (carets, folds) survive.
+     */
+    public static void applyHunks(Document document, String oldText, String newText, List<Hunk> hunks)
+            throws BadLocationException {
+        int[] oldStarts = lineStarts(oldText);
+        int[] newStarts = lineStarts(newText);
+
+        // Work backwards so earlier offsets stay valid
+        for (int i = hunks.size() - 1; i >= 0; i--) {
+            Hunk hunk = hunks.get(i);
+            int removeStart;
+            int removeEnd;
+            String insert;
+
+            if (hunk.endA < oldStarts.length) {
+                // Lines followed by common text, every replaced line ends with '\n'
+                removeStart = oldStarts[hunk.startA];
+                removeEnd = oldStarts[hunk.endA];
+                insert = newText.substring(newStarts[hunk.startB], newStarts[hunk.endB]);
+            } else if (hunk.startA < hunk.endA && hunk.startB < hunk.endB) {
+                // Last lines replaced on both sides
+                removeStart = oldStarts[hunk.startA];
+                removeEnd = oldText.length();
+                insert = newText.substring(newStarts[hunk.startB]);
+            } else if (hunk.startB == hunk.endB) {
+                // Trailing lines removed, together with the newline that separated them
+                removeStart = Math.max(0, oldStarts[hunk.startA] - 1);
+                removeEnd = oldText.length();
+                insert = "";
+            } else {
+                // Lines added after the last line
+                removeStart = oldText.length();
+                removeEnd = removeStart;
+                insert = newText.substring(Math.max(0, newStarts[hunk.startB] - 1));
+            }
+
+            if (removeEnd > removeStart) {
+                document.remove(removeStart, removeEnd - removeStart);
+            }
+            if (!insert.isEmpty()) {
+                document.insertString(removeStart, insert, null);
+            }
+        }
+    }
+
+    /**
+     * Offsets where each '\n' separated line starts
+     */
+    static int[] lineStarts(String text) {
+        int lineCount = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
+
+        int[] starts = new int[lineCount];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                starts[line++] = i + 1;
+            }
+        }
+        return starts;
+    }
+
+    private void compare(int aStart, int aEnd, int bStart, int bEnd) throws InterruptedException {
+        // Strip the common prefix and suffix, most real diffs are tiny compared to the file
+        while (aStart < aEnd && bStart < bEnd && a[aStart] == b[bStart]) {
+            aStart++;
+            bStart++;
+        }
+        while (aStart < aEnd && bStart < bEnd && a[aEnd - 1] == b[bEnd - 1]) {
+            aEnd--;
+            bEnd--;
+        }
+
+        if (aStart == aEnd || bStart == bEnd) {
+            addHunk(aStart, aEnd, bStart, bEnd);
+            return;
+        }
+
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Diff cancelled");
+        }
+
+        long split = bisect(aStart, aEnd, bStart, bEnd);
+        if (split < 0) {
+            // No usable split point (or out of time), report the region as one change
+            addHunk(aStart, aEnd, bStart, bEnd);
+            return;
+        }
+
+        int x = (int) (split >>> 32);
+        int y = (int) split;
+        compare(aStart, x, bStart, y);
+        compare(x, aEnd, y, bEnd);
+    }
+
+    /**
+     * Find the middle snake of the region and return its split point packed as (x << 32 | y),
+     * or -1 if there is none
+     */
+    private long bisect(int aStart, int aEnd, int bStart, int bEnd) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD;
+
+        java.util.Arrays.fill(forward, 0, length + 2, -1);
+        java.util.Arrays.fill(backward, 0, length + 2, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+
+        int delta = n - m;
+        boolean front = (delta & 1) != 0;
+        int k1Start = 0;
+        int k1End = 0;
+        int k2Start = 0;
+        int k2End = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            if ((d & 63) == 0 && System.currentTimeMillis() > deadline) {
+                return -1;
+            }
+
+            // Walk the forward path one step further on every diagonal
+            for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+                int k1Offset = offset + k1;
+                int x1;
+                if (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) {
+                    x1 = forward[k1Offset + 1];
+                } else {
+                    x1 = forward[k1Offset - 1] + 1;
+                }
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && a[aStart + x1] == b[bStart + y1]) {
+                    x1++;
+                    y1++;
+                }
+                forward[k1Offset] = x1;
+
+                if (x1 > n) {
+                    k1End += 2;
+                } else if (y1 > m) {
+                    k1Start += 2;
+                } else if (front) {
+                    int k2Offset = offset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < length && backward[k2Offset] != -1) {
+                        int x2 = n - backward[k2Offset];
+                        if (x1 >= x2) {
+                            return splitPoint(aStart, aEnd, bStart, bEnd, x1, y1);
+                        }
+                    }
+                }
+            }
+
+            // Walk the reverse path one step further on every diagonal
+            for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+                int k2Offset = offset + k2;
+                int x2;
+                if (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])) {
+                    x2 = backward[k2Offset + 1];
+                } else {
+                    x2 = backward[k2Offset - 1] + 1;
+                }
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && a[aEnd - x2 - 1] == b[bEnd - y2 - 1]) {
+                    x2++;
+                    y2++;
+                }
+                backward[k2Offset] = x2;
+
+                if (x2 > n) {
+                    k2End += 2;
+                } else if (y2 > m) {
+                    k2Start += 2;
+                } else if (!front) {
+                    int k1Offset = offset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+                        int x1 = forward[k1Offset];
+                        int y1 = offset + x1 - k1Offset;
+                        if (x1 >= n - x2) {
+                            return splitPoint(aStart, aEnd, bStart, bEnd, x1, y1);
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private long splitPoint(int aStart, int aEnd, int bStart, int bEnd, int x, int y) {
+        // A split on a corner would not shrink the problem
+        if ((x == 0 && y == 0) || (aStart + x == aEnd && bStart + y == bEnd)) {
+            return -1;
+        }
+        return ((long) (aStart + x) << 32) | (bStart + y);
+    }
+
+    private void addHunk(int startA, int endA, int startB, int endB) {
+        if (startA == endA && startB == endB) {
+            return;
+        }
+
+        // Regions arrive in order, merge touching ones into a single hunk
+        if (!hunks.isEmpty()) {
+            Hunk last = hunks.get(hunks.size() - 1);
+            if (last.endA == startA && last.endB == startB) {
+                hunks.set(hunks.size() - 1, new Hunk(last.startA, endA, last.startB, endB));
+                return;
+            }
+        }
+        hunks.add(new Hunk(startA, endA, startB, endB));
+    }
+}
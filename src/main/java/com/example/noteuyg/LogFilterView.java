@@ -0,0 +1,183 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.IntConsumer;
+
+/**
+ * LogFilterView - The lines of a log at or above a level, without copying them
+ *
+ * The list is a projection: an array of line numbers from the LogIndex, with each visible row
+ * read from the source document when it is painted. Changing the level or appending to the
+ * log only recomputes that array. Double-click or Enter jumps to the line in the editor.
+ */
+public class LogFilterView extends JPanel {
+
+    private static final String[] LEVEL_NAMES = {
+        "Errors", "Warnings and errors", "Info and above", "Debug and above", "All lines"
+    };
+    private static final byte[] LEVELS = {
+        LogIndex.ERROR, LogIndex.WARN, LogIndex.INFO, LogIndex.DEBUG, LogIndex.NONE
+    };
+
+    // Characters of a line shown in a row
+    private static final int ROW_CHARS = 400;
+
+    private final LogIndex index;
+    private final Document document;
+    private final LineModel model = new LineModel();
+    private final JList<Integer> list = new JList<>(model);
+    private final JComboBox<String> levelBox = new JComboBox<>(LEVEL_NAMES);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final Runnable changeListener = this::refilter;
+
+    public LogFilterView(LogIndex index, Font font, IntConsumer jumpToLine) {
+        super(new BorderLayout());
+        this.index = index;
+        this.document = index.getDocument();
+
+        JPanel toolBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolBar.add(new JLabel("Show:"));
+        toolBar.add(levelBox);
+        toolBar.add(statusLabel);
+        levelBox.addActionListener(e -> refilter());
+        add(toolBar, BorderLayout.NORTH);
+
+        // Fixed cell sizes keep the JList from measuring every row
+        list.setFont(font);
+        FontMetrics metrics = list.getFontMetrics(font);
+        list.setFixedCellHeight(metrics.getHeight() + 2);
+        list.setFixedCellWidth(metrics.charWidth('m') * (ROW_CHARS + 10));
+        list.setCellRenderer(new LineRenderer());
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && list.getSelectedValue() != null) {
+                    jumpToLine.accept(list.getSelectedValue());
+                }
+            }
+        });
+        list.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "jumpToLine");
+        list.getActionMap().put("jumpToLine", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                if (list.getSelectedValue() != null) {
+                    jumpToLine.accept(list.getSelectedValue());
+                }
+            }
+        });
+        add(new JScrollPane(list), BorderLayout.CENTER);
+
+        index.addChangeListener(changeListener);
+        refilter();
+    }
+
+    public LogIndex getLogIndex() {
+        return index;
+    }
+
+    public long getMemoryBytes() {
+        return 4L * model.lines.length;
+    }
+
+    public void dispose() {
+        index.removeChangeListener(changeListener);
+    }
+
+    /**
+     * Recompute the matching lines from the level array, keeping the selected line if it still matches
+     */
+    private void refilter() {
+        long started = System.nanoTime();
+        Integer selected = list.getSelectedValue();
+        list.clearSelection();
+        int[] lines = index.linesAtLeast(LEVELS[levelBox.getSelectedIndex()]);
+        model.setLines(lines);
+        if (selected != null) {
+            int row = java.util.Arrays.binarySearch(lines, selected);
+            if (row >= 0) {
+                list.setSelectedIndex(row);
+            }
+        }
+
+        int total = document.getDefaultRootElement().getElementCount();
+        String status = String.format("%,d of %,d lines, filtered in %.1f ms",
+            lines.length, total, (System.nanoTime() - started) / 1e6);
+        if (index.isDisposed()) {
+            status += " (source closed)";
+        } else if (!index.isComplete()) {
+            status += String.format(" (classified %,d so far)", index.getClassifiedLines());
+        }
+        statusLabel.setText(status);
+    }
+
+    private class LineModel extends AbstractListModel<Integer> {
+        int[] lines = new int[0];
+
+        void setLines(int[] lines) {
+            int old = this.lines.length;
+            this.lines = lines;
+            if (old > 0) {
+                fireIntervalRemoved(this, 0, old - 1);
+            }
+            if (lines.length > 0) {
+                fireIntervalAdded(this, 0, lines.length - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return lines.length;
+        }
+
+        @Override
+        public Integer getElementAt(int row) {
+            return lines[row];
+        }
+    }
+
+    /**
+     * Line number and text of the line, read from the document when the row is painted
+     */
+    private class LineRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int row,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            int line = (Integer) value;
+            String text = "";
+            Element root = document.getDefaultRootElement();
+            if (line < root.getElementCount()) {
+                Element element = root.getElement(line);
+                int start = element.getStartOffset();
+                int length = Math.min(element.getEndOffset() - start, ROW_CHARS);
+                try {
+                    text = document.getText(start, Math.min(length, document.getLength() - start))
+                        .replace("\n", "").replace('\t', ' ');
+                } catch (BadLocationException e) {
+                    // Line removed since the last refilter, which is on its way
+                }
+            }
+            super.getListCellRendererComponent(list, String.format("%7d  %s", line + 1, text),
+                row, isSelected, cellHasFocus);
+            Color color = LogIndex.colorOf(index.getLevel(line));
+            if (!isSelected && color != null) {
+                setBackground(blend(list.getBackground(), color));
+            }
+            return this;
+        }
+    }
+
+    private static Color blend(Color base, Color tint) {
+        float alpha = tint.getAlpha() / 255f;
+        return new Color(
+            Math.round(base.getRed() * (1 - alpha) + tint.getRed() * alpha),
+            Math.round(base.getGreen() * (1 - alpha) + tint.getGreen() * alpha),
+            Math.round(base.getBlue() * (1 - alpha) + tint.getBlue() * alpha));
+    }
+}
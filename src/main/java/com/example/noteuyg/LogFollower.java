@@ -0,0 +1,321 @@
+package com.example.noteuyg;
+
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * LogFollower - "tail -f" for a document
+ *
+ * A reader thread keeps a FileChannel position cursor on the file and decodes appended bytes
+ * into a pending buffer. A Swing timer drains that buffer at a capped frame rate, so a file
+ * written at tens of MB/s causes one document insert per frame instead of one per read.
+ * Optionally only the last N lines are kept in the document.
+ */
+public class LogFollower {
+
+    /** Frames per second at which pending text is flushed into the document */
+    private static final int FRAME_RATE = 30;
+
+    /** Pending characters at which the reader waits for the EDT (when lines are not capped) */
+    private static final int MAX_PENDING_CHARS = 16 * 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final long MAX_IDLE_SLEEP = 250;
+
+    /**
+     * Hooks into the editor for the parts of a flush that touch editor state
+     */
+    public interface Listener {
+        /** Called on the EDT around a batch so the editor can suppress "modified" tracking */
+        void beforeFlush();
+
+        /** Called on the EDT after a batch was inserted (and trimmed) */
+        void afterFlush(boolean trimmed);
+    }
+
+    private final Path path;
+    private final Document document;
+    private final int maxLines;
+    private final Listener listener;
+    private final Timer flushTimer;
+    private final Object lock = new Object();
+
+    private StringBuilder pending = new StringBuilder();
+    private int pendingLines = 0;
+    private boolean replaceDocument = false;
+    private boolean holdingNewline;
+    private boolean lastWasCarriageReturn = false;
+    private long position;
+    private volatile boolean running = true;
+    private volatile boolean trimmed = false;
+    private Thread readerThread;
+
+    /**
+     * Follow a file starting at the given byte position
+     *
+     * @param startPosition     bytes already shown in the document
+     * @param endsWithNewline   true if the document dropped a final newline at startPosition
+     * @param maxLines          keep only this many lines in the document, 0 for no limit
+     */
+    public LogFollower(Path path, Document document, long startPosition, boolean endsWithNewline,
+                       int maxLines, Listener listener) {
+        this.path = path;
+        this.document = document;
+        this.position = startPosition;
+        this.holdingNewline = endsWithNewline;
+        this.maxLines = maxLines;
+        this.listener = listener;
+        this.flushTimer = new Timer(1000 / FRAME_RATE, e -> flush());
+    }
+
+    /**
+     * Start reading and flushing
+     */
+    public void start() {
+        readerThread = new Thread(this::readLoop, "log-follower-" + path.getFileName());
+        readerThread.setDaemon(true);
+        readerThread.start();
+        flushTimer.start();
+    }
+
+    /**
+     * Stop following, text read so far is still flushed
+     */
+    public void stop() {
+        running = false;
+        if (readerThread != null) {
+            readerThread.interrupt();
+        }
+        flushTimer.stop();
+        flush();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Check if lines were dropped from the start of the document
+     */
+    public boolean isTrimmed() {
+        return trimmed;
+    }
+
+    /**
+     * Byte position up to which the file has been read
+     */
+    public long getPosition() {
+        synchronized (lock) {
+            return position;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private void readLoop() {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(READ_BUFFER_SIZE);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        FileChannel channel = null;
+        Object fileKey = null;
+        long sleep = 10;
+
+        try {
+            while (running) {
+                try {
+                    // Reopen after log rotation (a new file appeared under the same name)
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (channel == null || !Objects.equals(fileKey, attributes.fileKey())) {
+                        if (channel != null) {
+                            channel.close();
+                            setPosition(0);
+                            decoder.reset();
+                            bytes.clear();
+                        }
+                        channel = FileChannel.open(path, StandardOpenOption.READ);
+                        fileKey = attributes.fileKey();
+                    }
+
+                    // Truncated in place (copytruncate rotation), start over from the beginning
+                    if (channel.size() < getPosition()) {
+                        setPosition(0);
+                        decoder.reset();
+                        bytes.clear();
+                    }
+
+                    int read = channel.read(bytes, getPosition() + bytes.position());
+                    if (read <= 0) {
+                        // Nothing new, back off gradually while the file is idle
+                        Thread.sleep(sleep);
+                        sleep = Math.min(MAX_IDLE_SLEEP, sleep * 2);
+                        continue;
+                    }
+                    sleep = 10;
+
+                    // Decode what is complete, an unfinished UTF-8 sequence stays in the buffer
+                    bytes.flip();
+                    int start = bytes.position();
+                    decoder.decode(bytes, chars, false);
+                    int consumed = bytes.position() - start;
+                    bytes.compact();
+                    chars.flip();
+                    enqueue(chars, consumed);
+                    chars.clear();
+                } catch (NoSuchFileException e) {
+                    // Rotated away and not recreated yet
+                    Thread.sleep(MAX_IDLE_SLEEP);
+                }
+            }
+        } catch (InterruptedException | java.nio.channels.ClosedByInterruptException e) {
+            // Stopped
+        } catch (IOException e) {
+            System.err.println("Warning: Stopped following " + path + ": " + e.getMessage());
+            running = false;
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Ignore close errors
+                }
+            }
+        }
+    }
+
+    private void setPosition(long newPosition) {
+        synchronized (lock) {
+            position = newPosition;
+        }
+    }
+
+    /**
+     * Normalize line ends and hand text over to the EDT
+     */
+    private void enqueue(CharBuffer chars, int bytesConsumed) throws InterruptedException {
+        // Normalize outside the lock so the EDT is never kept waiting behind a large chunk
+        StringBuilder chunk = new StringBuilder(chars.remaining() + 1);
+        int chunkLines = 0;
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n' && lastWasCarriageReturn) {
+                lastWasCarriageReturn = false;
+                continue;
+            }
+            lastWasCarriageReturn = c == '\r';
+
+            // The final newline is held back, the document never ends with one (like on open)
+            if (holdingNewline) {
+                chunk.append('\n');
+                chunkLines++;
+                holdingNewline = false;
+            }
+            if (c == '\r' || c == '\n') {
+                holdingNewline = true;
+            } else {
+                chunk.append(c);
+            }
+        }
+
+        synchronized (lock) {
+            // Without a line cap the reader waits for the EDT instead of buffering without bound
+            while (maxLines <= 0 && pending.length() > MAX_PENDING_CHARS && running) {
+                lock.wait(100);
+            }
+
+            pending.append(chunk);
+            pendingLines += chunkLines;
+            position += bytesConsumed;
+
+            // With a line cap, text that would be trimmed anyway is dropped right here
+            if (maxLines > 0 && pendingLines > 2 * maxLines) {
+                int cut = startOfLastLines(pending, maxLines);
+                if (cut > 0) {
+                    pending.delete(0, cut);
+                    pendingLines = maxLines;
+                    replaceDocument = true;
+                    trimmed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Offset in the text where the last n lines begin
+     */
+    private static int startOfLastLines(CharSequence text, int lines) {
+        int seen = 0;
+        for (int i = text.length() - 1; i >= 0; i--) {
+            if (text.charAt(i) == '\n' && ++seen == lines) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Insert the pending batch into the document (EDT only)
+     */
+    private void flush() {
+        String batch;
+        boolean replace;
+        synchronized (lock) {
+            if (pending.length() == 0) {
+                return;
+            }
+            batch = pending.toString();
+            pending = new StringBuilder();
+            pendingLines = 0;
+            replace = replaceDocument;
+            replaceDocument = false;
+            lock.notifyAll();
+        }
+
+        listener.beforeFlush();
+        boolean trimmedNow = false;
+        try {
+            if (replace) {
+                // The reader already dropped everything older than the batch
+                document.remove(0, document.getLength());
+                trimmedNow = true;
+                if (batch.startsWith("\n")) {
+                    batch = batch.substring(1);
+                }
+            }
+            document.insertString(document.getLength(), batch, null);
+
+            // Keep only the last maxLines lines
+            Element root = document.getDefaultRootElement();
+            int excess = root.getElementCount() - maxLines;
+            if (maxLines > 0 && excess > 0) {
+                document.remove(0, root.getElement(excess).getStartOffset());
+                trimmedNow = true;
+            }
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        } finally {
+            if (trimmedNow) {
+                trimmed = true;
+            }
+            listener.afterFlush(trimmedNow);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.noteuyg;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * LogIndex - Severity level of every line of a log document, one byte per line
+ *
+ * Lines are classified once by a scan of their first characters for a level word (ERROR, WARN,
+ * [info], level=debug, ...), in a background pass over the document's line elements. Lines
+ * without a level (stack traces, wrapped messages) take the level of the line above. Edits
+ * only reclassify the lines they touch: the byte array is shifted like the line elements are,
+ * so appending to or trimming a followed log stays cheap.
+ *
+ * Filtering is a scan of the byte array, which takes milliseconds even for millions of lines.
+ */
+public class LogIndex {
+
+    public static final byte NONE = 0;
+    public static final byte TRACE = 1;
+    public static final byte DEBUG = 2;
+    public static final byte INFO = 3;
+    public static final byte WARN = 4;
+    public static final byte ERROR = 5;
+
+    private static final byte LEVEL_MASK = 0x07;
+    private static final byte INHERITED = 0x08;  // No level of its own, copied from the line above
+
+    // Only the start of a line is searched, levels come before the message
+    private static final int SCAN_CHARS = 160;
+
+    // Lines classified per read lock, edits wait at most this long
+    private static final int CHUNK_LINES = 32 * 1024;
+
+    // Larger edits are classified by the background pass instead of in the listener
+    private static final int INLINE_LINES = 1024;
+
+    private static final Color ERROR_COLOR = new Color(255, 40, 40, 48);
+    private static final Color WARN_COLOR = new Color(255, 170, 0, 48);
+    private static final Color INFO_COLOR = new Color(40, 140, 255, 20);
+
+    private final Document document;
+    private final IoScope ioScope = new IoScope();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final List<JTextComponent> views = new ArrayList<>();
+    private final List<Object> highlights = new ArrayList<>();
+    private final Segment inlineSegment = new Segment();
+    private final DocumentListener documentListener;
+
+    // Written under the document's read lock (worker) or write lock (listener), never both at once
+    private volatile byte[] classes = new byte[1024];
+    private volatile int validLines = 0;
+    private boolean running = false;
+    private boolean disposed = false;
+
+    // Filter results per minimum level, valid while version is unchanged
+    private volatile int version = 0;
+    private final int[][] cachedLines = new int[ERROR + 1][];
+    private int cachedVersion = -1;
+
+    public LogIndex(Document document) {
+        this.document = document;
+        documentListener = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { linesChanged(e); }
+            public void removeUpdate(DocumentEvent e) { linesChanged(e); }
+            public void changedUpdate(DocumentEvent e) { }
+        };
+        document.addDocumentListener(documentListener);
+        schedule();
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    /** Lines classified so far, the background pass may still be running */
+    public int getClassifiedLines() {
+        return validLines;
+    }
+
+    public boolean isComplete() {
+        return validLines >= document.getDefaultRootElement().getElementCount();
+    }
+
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    public long getMemoryBytes() {
+        return classes.length;
+    }
+
+    /** Level of the line, NONE if it has not been classified yet */
+    public byte getLevel(int line) {
+        byte[] current = classes;
+        return line < validLines && line < current.length ? (byte) (current[line] & LEVEL_MASK) : NONE;
+    }
+
+    /**
+     * Lines whose level is at least minLevel, in document order. The array is shared with later
+     * callers until the levels change, so it must not be modified.
+     */
+    public int[] linesAtLeast(byte minLevel) {
+        if (cachedVersion != version) {
+            Arrays.fill(cachedLines, null);
+            cachedVersion = version;
+        }
+        if (cachedLines[minLevel] != null) {
+            return cachedLines[minLevel];
+        }
+
+        byte[] current = classes;
+        int count = Math.min(validLines, current.length);
+        int[] lines;
+        if (minLevel <= NONE) {
+            lines = new int[count];
+            for (int i = 0; i < count; i++) {
+                lines[i] = i;
+            }
+        } else {
+            // Branch-free counting, levels of neighbouring lines are too mixed to predict
+            int matching = 0;
+            for (int i = 0; i < count; i++) {
+                matching += ((current[i] & LEVEL_MASK) - minLevel) >>> 31 ^ 1;
+            }
+            lines = new int[matching];
+            for (int i = 0, n = 0; n < matching; i++) {
+                lines[n] = i;
+                n += ((current[i] & LEVEL_MASK) - minLevel) >>> 31 ^ 1;
+            }
+        }
+        cachedLines[minLevel] = lines;
+        return lines;
+    }
+
+    /** Run on the EDT whenever levels were added or changed */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tint the lines of a view by level
+     */
+    public void attach(JTextComponent view) {
+        try {
+            highlights.add(view.getHighlighter().addHighlight(0, 0, new LevelPainter()));
+            views.add(view);
+        } catch (BadLocationException e) {
+            // Offset 0 always exists
+        }
+    }
+
+    /**
+     * Stop classifying and remove the tints, once the document is closed
+     */
+    public void dispose() {
+        disposed = true;
+        ioScope.close();
+        document.removeDocumentListener(documentListener);
+        for (int i = 0; i < views.size(); i++) {
+            views.get(i).getHighlighter().removeHighlight(highlights.get(i));
+        }
+        views.clear();
+        highlights.clear();
+        fireChanged();
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : new ArrayList<>(listeners)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Classify the lines past validLines in the background, one read lock per chunk
+     */
+    private void schedule() {
+        if (running || disposed) {
+            return;
+        }
+        running = true;
+        IoExecutor.get().task("Classify log lines", () -> {
+            Segment segment = new Segment();
+            boolean[] more = {true};
+            while (more[0]) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                document.render(() -> {
+                    Element root = document.getDefaultRootElement();
+                    int lines = root.getElementCount();
+                    int from = validLines;
+                    int end = Math.min(lines, from + CHUNK_LINES);
+                    ensureCapacity(end);
+                    for (int i = from; i < end; i++) {
+                        classify(root, i, segment);
+                    }
+                    validLines = end;
+                    version++;
+                    more[0] = end < lines;
+                });
+                EdtDispatcher.get().dispatchLatest(this, this::repaintAndFire);
+            }
+            return null;
+        }).heavy().in(ioScope).onSuccess(ignored -> {
+            running = false;
+            if (!isComplete()) {
+                schedule();  // Edited after the last chunk was read
+            }
+        }).onFailure(e -> running = false).start();
+    }
+
+    private void repaintAndFire() {
+        if (disposed) {
+            return;
+        }
+        for (JTextComponent view : views) {
+            view.repaint();
+        }
+        fireChanged();
+    }
+
+    private void ensureCapacity(int lines) {
+        if (classes.length < lines) {
+            byte[] grown = new byte[Math.max(lines, classes.length + (classes.length >> 1))];
+            System.arraycopy(classes, 0, grown, 0, validLines);
+            classes = grown;
+        }
+    }
+
+    /**
+     * Shift the levels the way the line elements were shifted and reclassify the touched lines.
+     * Called under the document's write lock, so the worker cannot be reading at the same time.
+     */
+    private void linesChanged(DocumentEvent e) {
+        version++;
+        Element root = document.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int first;
+        int count;
+        if (change == null) {
+            // Edit inside one line
+            first = root.getElementIndex(e.getOffset());
+            count = 1;
+        } else {
+            first = change.getIndex();
+            count = change.getChildrenAdded().length;
+            int removed = change.getChildrenRemoved().length;
+            int tail = validLines - (first + removed);
+            if (tail > 0) {
+                ensureCapacity(validLines + count - removed);
+                System.arraycopy(classes, first + removed, classes, first + count, tail);
+                validLines += count - removed;
+            } else {
+                validLines = Math.min(validLines, first);
+            }
+        }
+
+        if (first >= validLines) {
+            schedule();  // Past what has been classified, the worker gets to it
+        } else if (count > INLINE_LINES) {
+            validLines = first;
+            schedule();
+        } else {
+            for (int i = first; i < first + count && i < validLines; i++) {
+                classify(root, i, inlineSegment);
+            }
+            // Lines below that copied the old level of an edited line follow the new one
+            int next = first + count;
+            byte level = next > 0 ? (byte) (classes[next - 1] & LEVEL_MASK) : NONE;
+            while (next < validLines && (classes[next] & INHERITED) != 0) {
+                classes[next++] = (byte) (INHERITED | level);
+            }
+            EdtDispatcher.get().dispatchLatest(this, this::repaintAndFire);
+        }
+    }
+
+    private void classify(Element root, int line, Segment segment) {
+        Element element = root.getElement(line);
+        int start = element.getStartOffset();
+        int length = Math.min(element.getEndOffset() - start, SCAN_CHARS);
+        byte level = NONE;
+        try {
+            document.getText(start, Math.min(length, document.getLength() - start), segment);
+            level = scan(segment.array, segment.offset, segment.offset + segment.count);
+        } catch (BadLocationException e) {
+            // The line is always inside the document while the lock is held
+        }
+        if (level == NONE) {
+            level = (byte) (INHERITED | (line > 0 ? classes[line - 1] & LEVEL_MASK : NONE));
+        }
+        classes[line] = level;
+    }
+
+    /**
+     * Level of the first level word, the same matches as
+     * \b(ERROR|WARN|...)\b|\[(error|warn|...)\]|\blevel="?(error|warn|...)\b
+     * but written out, java.util.regex took several times longer than the rest of the pass
+     */
+    static byte scan(char[] text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text[i];
+            boolean wordStart = i == start || !isWordChar(text[i - 1]);
+            if (c >= 'A' && c <= 'Z' && wordStart) {
+                int wordEnd = wordEnd(text, i, end);
+                byte level = levelOf(text, i, wordEnd, false);
+                if (level != NONE) {
+                    return level;
+                }
+                i = wordEnd - 1;
+            } else if (c == '[') {
+                int wordEnd = wordEnd(text, i + 1, end);
+                if (wordEnd < end && text[wordEnd] == ']') {
+                    byte level = levelOf(text, i + 1, wordEnd, true);
+                    if (level != NONE) {
+                        return level;
+                    }
+                }
+            } else if (c == 'l' && wordStart && i + 6 < end && new String(text, i, 6).equals("level=")) {
+                int from = text[i + 6] == '"' ? i + 7 : i + 6;
+                byte level = levelOf(text, from, wordEnd(text, from, end), true);
+                if (level != NONE) {
+                    return level;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+
+    private static int wordEnd(char[] text, int from, int end) {
+        while (from < end && isWordChar(text[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private static byte levelOf(char[] text, int start, int end, boolean lowerCase) {
+        if (end - start < 4 || end - start > 8) {
+            return NONE;
+        }
+        String name = new String(text, start, end - start);
+        if (lowerCase) {
+            // Only all-lowercase names in brackets and after level=, like the upper case words
+            if (!name.equals(name.toLowerCase(Locale.ROOT))) {
+                return NONE;
+            }
+            name = name.toUpperCase(Locale.ROOT);
+            if (name.equals("FINEST") || name.equals("FINER") || name.equals("FINE") || name.equals("SEVERE")) {
+                return NONE;
+            }
+        } else if (name.equals("CRIT")) {
+            return NONE;
+        }
+        switch (name) {
+            case "FATAL":
+            case "CRITICAL":
+            case "CRIT":
+            case "SEVERE":
+            case "ERROR":
+                return ERROR;
+            case "WARNING":
+            case "WARN":
+                return WARN;
+            case "NOTICE":
+            case "INFO":
+                return INFO;
+            case "DEBUG":
+            case "FINE":
+                return DEBUG;
+            case "TRACE":
+            case "FINER":
+            case "FINEST":
+                return TRACE;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Background color for a level, null for levels that are not tinted
+     */
+    public static Color colorOf(byte level) {
+        switch (level) {
+            case ERROR:
+                return ERROR_COLOR;
+            case WARN:
+                return WARN_COLOR;
+            case INFO:
+                return INFO_COLOR;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Paints the tint of the visible lines only, whatever the size of the document
+     */
+    private class LevelPainter implements Highlighter.HighlightPainter {
+
+        @Override
+        public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+            Rectangle visible = c.getVisibleRect();
+            Element root = document.getDefaultRootElement();
+            int first = root.getElementIndex(c.viewToModel2D(new Point(0, visible.y)));
+            int last = root.getElementIndex(c.viewToModel2D(new Point(0, visible.y + visible.height)));
+            for (int line = first; line <= last; line++) {
+                Color color = colorOf(getLevel(line));
+                if (color == null) {
+                    continue;
+                }
+                Element element = root.getElement(line);
+                try {
+                    Rectangle2D top = c.modelToView2D(element.getStartOffset());
+                    Rectangle2D bottom = c.modelToView2D(Math.max(element.getStartOffset(), element.getEndOffset() - 1));
+                    if (top == null || bottom == null) {
+                        return;  // Not laid out yet
+                    }
+                    g.setColor(color);
+                    g.fillRect(visible.x, (int) top.getY(), visible.width,
+                        (int) (bottom.getY() + bottom.getHeight() - top.getY()));
+                } catch (BadLocationException e) {
+                    // Stale line while the document changes, painted again afterwards
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.noteuyg;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * MemoryGovernor - Sheds caches before the heap runs out
+ *
+ * Registers usage thresholds on the heap pools through the MemoryMXBean. When a pool crosses
+ * its threshold, the registered shedders run on the EDT in priority order until their
+ * estimated savings cover the excess. A status bar label shows live heap usage and, in its
+ * tooltip, the estimated footprint of every tab.
+ */
+public class MemoryGovernor {
+
+    /** Percentage of the maximum heap at which shedding starts (-Dnotepad.memory.threshold) */
+    private static final int THRESHOLD_PERCENT = Integer.getInteger("notepad.memory.threshold", 75);
+
+    /** Minimum time between two shedding rounds */
+    private static final long SHED_INTERVAL_MILLIS = 5000;
+
+    private static final long MB = 1024 * 1024;
+
+    private static final class Shedder {
+        final String name;
+        final LongSupplier action;
+
+        Shedder(String name, LongSupplier action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+
+    private final List<Shedder> shedders = new ArrayList<>();
+    private final List<MemoryPoolMXBean> oldPools = new ArrayList<>();
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final Supplier<Map<String, Long>> footprints;
+    private final JLabel indicator = new JLabel();
+    private final Timer refreshTimer;
+    private long lastShed = 0;
+    private String lastShedSummary = null;
+
+    /**
+     * @param footprints estimated bytes held by each tab, keyed by tab title
+     */
+    public MemoryGovernor(Supplier<Map<String, Long>> footprints) {
+        this.footprints = footprints;
+        installThresholds();
+        refreshTimer = new Timer(1000, e -> refresh());
+        refreshTimer.start();
+        refresh();
+    }
+
+    /**
+     * Add a cache that can be dropped under pressure, earlier registrations are shed first.
+     * The action runs on the EDT and returns an estimate of the bytes it released.
+     */
+    public void addShedder(String name, LongSupplier action) {
+        shedders.add(new Shedder(name, action));
+    }
+
+    /**
+     * Status bar label with the live heap usage
+     */
+    public JLabel getIndicator() {
+        return indicator;
+    }
+
+    private void installThresholds() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            // Only the long-lived pool supports usage thresholds; eden and survivor fill up by design
+            if (pool.getType() != MemoryType.HEAP || max <= 0 || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+            long threshold = max * THRESHOLD_PERCENT / 100;
+            pool.setUsageThreshold(threshold);
+            if (pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold(threshold);
+            }
+            oldPools.add(pool);
+        }
+
+        NotificationListener listener = (Notification notification, Object handback) -> {
+            String type = notification.getType();
+            if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+                    || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+                SwingUtilities.invokeLater(this::shed);
+            }
+        };
+        ((NotificationEmitter) memoryBean).addNotificationListener(listener, null, null);
+    }
+
+    /**
+     * Run shedders in priority order until the heap is expected to be back under the threshold
+     */
+    public void shed() {
+        long now = System.currentTimeMillis();
+        if (now - lastShed < SHED_INTERVAL_MILLIS) {
+            return;
+        }
+
+        MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        // Aim a little below the threshold so the next notification is not immediate
+        long excess = heap.getUsed() - max * (THRESHOLD_PERCENT - 10) / 100;
+        if (excess <= 0) {
+            return;
+        }
+        lastShed = now;
+
+        long freed = 0;
+        StringBuilder summary = new StringBuilder();
+        for (Shedder shedder : shedders) {
+            long released = shedder.action.getAsLong();
+            if (released > 0) {
+                freed += released;
+                summary.append(summary.length() > 0 ? ", " : "").append(shedder.name)
+                    .append(" (").append(released / MB).append(" MB)");
+            }
+            if (freed >= excess) {
+                break;
+            }
+        }
+        lastShedSummary = summary.length() > 0 ? summary.toString() : "nothing left to release";
+        System.err.println("Warning: Memory is low, released " + lastShedSummary);
+        refresh();
+    }
+
+    private void refresh() {
+        // Notifications fire once per crossing, so keep shedding while still above after a GC
+        for (MemoryPoolMXBean pool : oldPools) {
+            if (pool.isCollectionUsageThresholdSupported() && pool.isCollectionUsageThresholdExceeded()
+                    && pool.getCollectionUsage().getUsed() >= pool.getCollectionUsageThreshold()) {
+                shed();
+                break;
+            }
+        }
+
+        MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        int percent = (int) (heap.getUsed() * 100 / max);
+        indicator.setText(String.format("Memory: %d / %d MB", heap.getUsed() / MB, max / MB));
+        indicator.setForeground(percent >= THRESHOLD_PERCENT ? Color.RED : null);
+
+        // Breakdown per tab in the tooltip
+        StringBuilder tip = new StringBuilder("<html>");
+        for (Map.Entry<String, Long> entry : footprints.get().entrySet()) {
+            tip.append(escape(entry.getKey())).append(": ")
+                .append(String.format("%.1f MB", entry.getValue() / (double) MB)).append("<br>");
+        }
+        tip.append("Undo history: ").append(String.format("%.1f MB",
+            BoundedUndoManager.getGlobalBytes() / (double) MB));
+        if (lastShedSummary != null) {
+            tip.append("<br><br>Last released: ").append(escape(lastShedSummary));
+        }
+        indicator.setToolTipText(tip.append("</html>").toString());
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
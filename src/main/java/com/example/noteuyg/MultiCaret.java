@@ -0,0 +1,733 @@
+package com.example.noteuyg;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Toolkit;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.StringSelection;
+import java.awt.geom.Rectangle2D;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+
+/**
+ * MultiCaret - Extra carets and rectangular selections of one editor view
+ *
+ * Carets are kept as sorted offset arrays instead of document Positions, so tens of thousands
+ * of them cost a few int arrays. Every edit is turned into one list of non-overlapping
+ * replacements that the undo manager applies as one change of their span and a single undo
+ * step; the carets are then set from the returned offsets. Only the carets in the visible
+ * part of the view are painted. Any change to the document made some other way drops the
+ * extra carets.
+ */
+public class MultiCaret {
+
+    private final EditorTextArea textArea;
+    private int[] dots = new int[0];
+    private int[] marks = new int[0];
+    private int count = 0;
+    private int primary = 0;
+    private boolean applying = false;
+    private Object highlight;
+    private Document document;
+
+    // Alt+drag rectangle, anchor in line and visual column
+    private int rectangleLine = -1;
+    private int rectangleColumn;
+
+    private final DocumentListener documentListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            documentChanged();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            documentChanged();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+        }
+    };
+
+    public MultiCaret(EditorTextArea textArea) {
+        this.textArea = textArea;
+        attach(textArea.getDocument());
+        textArea.addPropertyChangeListener("document", e -> attach(textArea.getDocument()));
+        textArea.addCaretListener(e -> {
+            // The main caret was moved by something else (a click, Find, Go to line)
+            if (!applying && isActive() && (e.getDot() != dots[primary] || e.getMark() != marks[primary])) {
+                clear();
+            }
+        });
+    }
+
+    private void attach(Document doc) {
+        if (document != null) {
+            document.removeDocumentListener(documentListener);
+        }
+        document = doc;
+        if (document != null) {
+            document.addDocumentListener(documentListener);
+        }
+        clear();
+    }
+
+    private void documentChanged() {
+        if (!applying && isActive()) {
+            clear();
+        }
+    }
+
+    /**
+     * Check if more than the main caret is placed
+     */
+    public boolean isActive() {
+        return count > 1;
+    }
+
+    public int getCaretCount() {
+        return Math.max(count, 1);
+    }
+
+    /**
+     * Drop every caret except the main one
+     */
+    public void clear() {
+        if (count == 0) {
+            return;
+        }
+        count = 0;
+        primary = 0;
+        if (highlight != null) {
+            textArea.getHighlighter().removeHighlight(highlight);
+            highlight = null;
+        }
+        textArea.repaint();
+    }
+
+    // ---- Placing carets ----
+
+    /**
+     * Start from the main caret if no extra carets exist yet
+     */
+    private void seed() {
+        if (count == 0) {
+            ensureCapacity(8);
+            dots[0] = textArea.getCaret().getDot();
+            marks[0] = textArea.getCaret().getMark();
+            count = 1;
+            primary = 0;
+        }
+    }
+
+    /**
+     * Add a caret at an offset, or remove the one that is already there
+     */
+    public void toggleCaret(int offset) {
+        seed();
+        int index = find(offset);
+        if (index >= 0 && count > 1) {
+            remove(index);
+        } else if (index < 0) {
+            insert(-index - 1, offset, offset);
+            primary = -index - 1;
+        }
+        updated();
+    }
+
+    /**
+     * Add a caret on the line above the first caret or below the last one, in the same column
+     */
+    public void addCaretVertically(boolean below) {
+        seed();
+        int from = below ? dots[count - 1] : dots[0];
+        Element root = textArea.getDocument().getDefaultRootElement();
+        int line = root.getElementIndex(from) + (below ? 1 : -1);
+        if (line < 0 || line >= root.getElementCount()) {
+            return;
+        }
+        int offset = offsetAtColumn(root.getElement(line), columnOf(from));
+        if (below) {
+            insert(count, offset, offset);
+            primary = count - 1;
+        } else {
+            insert(0, offset, offset);
+            primary = 0;
+        }
+        updated();
+        scrollTo(offset);
+    }
+
+    /**
+     * Put a caret at the end of every line touched by the selection
+     */
+    public void splitSelectionIntoLines() {
+        int start = textArea.getSelectionStart();
+        int end = textArea.getSelectionEnd();
+        Element root = textArea.getDocument().getDefaultRootElement();
+        int first = root.getElementIndex(start);
+        int last = root.getElementIndex(end);
+        if (last > first && end == root.getElement(last).getStartOffset()) {
+            last--; // The selection ends at the start of a line, that line is not part of it
+        }
+        if (last <= first) {
+            return;
+        }
+        count = 0;
+        ensureCapacity(last - first + 1);
+        for (int line = first; line <= last; line++) {
+            int offset = Math.min(root.getElement(line).getEndOffset() - 1, end);
+            dots[count] = offset;
+            marks[count] = offset;
+            count++;
+        }
+        primary = count - 1;
+        updated();
+    }
+
+    /**
+     * Anchor an Alt+drag rectangle at a point of the view
+     */
+    private void anchorRectangle(Point point) {
+        Element root = textArea.getDocument().getDefaultRootElement();
+        rectangleLine = root.getElementIndex(textArea.viewToModel2D(point));
+        rectangleColumn = columnAt(point);
+    }
+
+    /**
+     * Place one caret per line between the anchor and the point, each selecting the columns in between
+     */
+    private void extendRectangle(Point point) {
+        if (rectangleLine < 0) {
+            return;
+        }
+        Element root = textArea.getDocument().getDefaultRootElement();
+        int line = root.getElementIndex(textArea.viewToModel2D(point));
+        int column = columnAt(point);
+        int first = Math.min(line, rectangleLine);
+        int last = Math.max(line, rectangleLine);
+
+        count = 0;
+        ensureCapacity(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            Element element = root.getElement(i);
+            dots[count] = offsetAtColumn(element, column);
+            marks[count] = offsetAtColumn(element, rectangleColumn);
+            count++;
+        }
+        primary = line - first;
+        updated();
+    }
+
+    // ---- Editing ----
+
+    /**
+     * Type text at every caret, replacing the selections
+     */
+    public void insert(String text) {
+        String[] texts = new String[count];
+        Arrays.fill(texts, text);
+        replaceSelections(texts);
+    }
+
+    /**
+     * Delete the selections, or the character before (backward) or after every caret
+     */
+    public void delete(boolean backward) {
+        int length = textArea.getDocument().getLength();
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            int start = Math.min(dots[i], marks[i]);
+            int end = Math.max(dots[i], marks[i]);
+            if (start == end) {
+                if (backward) {
+                    start = Math.max(0, start - 1);
+                } else {
+                    end = Math.min(length, end + 1);
+                }
+            }
+            starts[i] = start;
+            ends[i] = end;
+        }
+        String[] texts = new String[count];
+        Arrays.fill(texts, "");
+        apply(starts, ends, texts);
+    }
+
+    /**
+     * Paste at every caret; when the clipboard has one line per caret, each caret gets its own line
+     */
+    public void paste() {
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (Exception e) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        text = text.replace("\r\n", "\n").replace('\r', '\n');
+        String[] lines = text.split("\n", -1);
+        if (lines.length == count + 1 && lines[count].isEmpty()) {
+            lines = Arrays.copyOf(lines, count); // Trailing newline of a copied block
+        }
+        if (lines.length == count) {
+            replaceSelections(lines);
+        } else {
+            insert(text);
+        }
+    }
+
+    /**
+     * Copy the selected text of every caret, one per line
+     */
+    public void copy() {
+        if (!hasSelection()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        Segment segment = new Segment();
+        try {
+            for (int i = 0; i < count; i++) {
+                int start = Math.min(dots[i], marks[i]);
+                textArea.getDocument().getText(start, Math.max(dots[i], marks[i]) - start, segment);
+                if (i > 0) {
+                    text.append('\n');
+                }
+                text.append(segment);
+            }
+        } catch (BadLocationException e) {
+            return;
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(text.toString()), null);
+    }
+
+    /**
+     * Copy and then delete the selections
+     */
+    public void cut() {
+        if (hasSelection()) {
+            copy();
+            insert("");
+        }
+    }
+
+    private boolean hasSelection() {
+        for (int i = 0; i < count; i++) {
+            if (dots[i] != marks[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void replaceSelections(String[] texts) {
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = Math.min(dots[i], marks[i]);
+            ends[i] = Math.max(dots[i], marks[i]);
+        }
+        apply(starts, ends, texts);
+    }
+
+    /**
+     * Apply one replacement per caret as a single batch, the carets end up after their text
+     */
+    private void apply(int[] starts, int[] ends, String[] texts) {
+        if (!textArea.isEditable() || !textArea.isEnabled()) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+
+        // Carets that reach into each other share the text between them only once
+        for (int i = 1; i < count; i++) {
+            if (starts[i] < ends[i - 1]) {
+                starts[i] = ends[i - 1];
+                ends[i] = Math.max(ends[i], starts[i]);
+            }
+        }
+
+        applying = true;
+        try {
+            int[] after = textArea.replaceAll(starts, ends, texts);
+            for (int i = 0; i < count; i++) {
+                dots[i] = after[i];
+                marks[i] = after[i];
+            }
+            merge();
+            syncMainCaret();
+        } catch (BadLocationException e) {
+            clear();
+            Toolkit.getDefaultToolkit().beep();
+        } finally {
+            applying = false;
+        }
+        textArea.repaint();
+    }
+
+    // ---- Moving ----
+
+    /**
+     * Handle a key while several carets are placed, returns false for keys left to the editor
+     */
+    public boolean handleKey(KeyEvent e) {
+        if (!isActive()) {
+            return false;
+        }
+        int modifiers = e.getModifiersEx();
+        boolean shift = (modifiers & InputEvent.SHIFT_DOWN_MASK) != 0;
+        boolean command = (modifiers & (InputEvent.CTRL_DOWN_MASK | InputEvent.ALT_DOWN_MASK
+            | InputEvent.META_DOWN_MASK)) != 0;
+
+        if (e.getID() == KeyEvent.KEY_TYPED) {
+            char c = e.getKeyChar();
+            if (command || c == KeyEvent.CHAR_UNDEFINED) {
+                return false;
+            }
+            if (c >= ' ' && c != 127) {
+                insert(String.valueOf(c));
+            }
+            return true; // Control characters were handled as KEY_PRESSED
+        }
+        if (e.getID() != KeyEvent.KEY_PRESSED || command) {
+            return false;
+        }
+
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_ESCAPE:
+                clear();
+                return true;
+            case KeyEvent.VK_ENTER:
+                insert("\n");
+                return true;
+            case KeyEvent.VK_TAB:
+                insert(textArea.getTabsEmulated() ? " ".repeat(textArea.getTabSize()) : "\t");
+                return true;
+            case KeyEvent.VK_BACK_SPACE:
+                delete(true);
+                return true;
+            case KeyEvent.VK_DELETE:
+                delete(false);
+                return true;
+            case KeyEvent.VK_LEFT:
+            case KeyEvent.VK_RIGHT:
+            case KeyEvent.VK_HOME:
+            case KeyEvent.VK_END:
+            case KeyEvent.VK_UP:
+            case KeyEvent.VK_DOWN:
+                move(e.getKeyCode(), shift);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void move(int keyCode, boolean select) {
+        Element root = textArea.getDocument().getDefaultRootElement();
+        int length = textArea.getDocument().getLength();
+        for (int i = 0; i < count; i++) {
+            int dot = dots[i];
+            int start = Math.min(dots[i], marks[i]);
+            int end = Math.max(dots[i], marks[i]);
+            Element line = root.getElement(root.getElementIndex(dot));
+            switch (keyCode) {
+                case KeyEvent.VK_LEFT:
+                    dot = !select && start != end ? start : Math.max(0, dot - 1);
+                    break;
+                case KeyEvent.VK_RIGHT:
+                    dot = !select && start != end ? end : Math.min(length, dot + 1);
+                    break;
+                case KeyEvent.VK_HOME:
+                    dot = line.getStartOffset();
+                    break;
+                case KeyEvent.VK_END:
+                    dot = line.getEndOffset() - 1;
+                    break;
+                default:
+                    int target = root.getElementIndex(dot) + (keyCode == KeyEvent.VK_UP ? -1 : 1);
+                    if (target >= 0 && target < root.getElementCount()) {
+                        dot = offsetAtColumn(root.getElement(target), columnOf(dot));
+                    }
+                    break;
+            }
+            dots[i] = dot;
+            if (!select) {
+                marks[i] = dot;
+            }
+        }
+        merge();
+        updated();
+        scrollTo(dots[primary]);
+    }
+
+    // ---- Mouse ----
+
+    /**
+     * Alt+click adds or removes a caret, Alt+drag selects a rectangle; returns false for other events
+     */
+    public boolean handleMouse(MouseEvent e) {
+        boolean alt = (e.getModifiersEx() & InputEvent.ALT_DOWN_MASK) != 0;
+        switch (e.getID()) {
+            case MouseEvent.MOUSE_PRESSED:
+                rectangleLine = -1;
+                if (!alt || e.getButton() != MouseEvent.BUTTON1) {
+                    return false;
+                }
+                textArea.requestFocusInWindow();
+                toggleCaret(textArea.viewToModel2D(e.getPoint()));
+                anchorRectangle(e.getPoint());
+                return true;
+            case MouseEvent.MOUSE_DRAGGED:
+                if (rectangleLine < 0) {
+                    return false;
+                }
+                extendRectangle(e.getPoint());
+                textArea.scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+                return true;
+            case MouseEvent.MOUSE_RELEASED:
+                boolean dragging = rectangleLine >= 0;
+                rectangleLine = -1;
+                return dragging;
+            case MouseEvent.MOUSE_CLICKED:
+                return alt && e.getButton() == MouseEvent.BUTTON1;
+            default:
+                return false;
+        }
+    }
+
+    // ---- Bookkeeping ----
+
+    private void ensureCapacity(int capacity) {
+        if (dots.length < capacity) {
+            int size = Math.max(capacity, dots.length * 2);
+            dots = Arrays.copyOf(dots, size);
+            marks = Arrays.copyOf(marks, size);
+        }
+    }
+
+    /**
+     * Index of the caret at an offset, or -(insertion point) - 1
+     */
+    private int find(int offset) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (dots[middle] < offset) {
+                low = middle + 1;
+            } else if (dots[middle] > offset) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void insert(int index, int dot, int mark) {
+        ensureCapacity(count + 1);
+        System.arraycopy(dots, index, dots, index + 1, count - index);
+        System.arraycopy(marks, index, marks, index + 1, count - index);
+        dots[index] = dot;
+        marks[index] = mark;
+        count++;
+        if (primary >= index && count > 1) {
+            primary++;
+        }
+    }
+
+    private void remove(int index) {
+        System.arraycopy(dots, index + 1, dots, index, count - index - 1);
+        System.arraycopy(marks, index + 1, marks, index, count - index - 1);
+        count--;
+        if (primary > index || primary == count) {
+            primary = Math.max(0, primary - 1);
+        }
+    }
+
+    /**
+     * Fold carets that ended up on the same offset or inside each other's selection
+     */
+    private void merge() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (kept > 0) {
+                int previousEnd = Math.max(dots[kept - 1], marks[kept - 1]);
+                int start = Math.min(dots[i], marks[i]);
+                if (start < previousEnd || start == previousEnd && dots[i] == marks[i]
+                        && dots[kept - 1] == marks[kept - 1]) {
+                    if (i == primary) {
+                        primary = kept - 1;
+                    }
+                    continue;
+                }
+            }
+            if (i == primary) {
+                primary = kept;
+            }
+            dots[kept] = dots[i];
+            marks[kept] = marks[i];
+            kept++;
+        }
+        count = kept;
+    }
+
+    private void updated() {
+        if (count <= 1) {
+            syncMainCaret();
+            clear();
+            return;
+        }
+        if (highlight == null) {
+            try {
+                highlight = textArea.getHighlighter().addHighlight(0, 0, new CaretPainter());
+            } catch (BadLocationException e) {
+                // Offset 0 always exists
+            }
+        }
+        syncMainCaret();
+        textArea.repaint();
+    }
+
+    private void syncMainCaret() {
+        if (count == 0) {
+            return;
+        }
+        boolean wasApplying = applying;
+        applying = true;
+        try {
+            textArea.getCaret().setDot(marks[primary]);
+            textArea.getCaret().moveDot(dots[primary]);
+        } finally {
+            applying = wasApplying;
+        }
+    }
+
+    private void scrollTo(int offset) {
+        try {
+            Rectangle2D bounds = textArea.modelToView2D(offset);
+            if (bounds != null) {
+                textArea.scrollRectToVisible(bounds.getBounds());
+            }
+        } catch (BadLocationException e) {
+            // Caret offsets are kept inside the document
+        }
+    }
+
+    // ---- Columns ----
+
+    private int columnAt(Point point) {
+        int width = Math.max(1, textArea.getFontMetrics(textArea.getFont()).charWidth('m'));
+        int column = Math.round((float) (point.x - textArea.getInsets().left) / width);
+        return Math.max(0, column);
+    }
+
+    /**
+     * Visual column of an offset, tabs expanded
+     */
+    private int columnOf(int offset) {
+        Element root = textArea.getDocument().getDefaultRootElement();
+        Element line = root.getElement(root.getElementIndex(offset));
+        Segment segment = new Segment();
+        try {
+            textArea.getDocument().getText(line.getStartOffset(), offset - line.getStartOffset(), segment);
+        } catch (BadLocationException e) {
+            return 0;
+        }
+        int tabSize = textArea.getTabSize();
+        int column = 0;
+        for (char c = segment.first(); c != Segment.DONE; c = segment.next()) {
+            column = c == '\t' ? column + tabSize - column % tabSize : column + 1;
+        }
+        return column;
+    }
+
+    /**
+     * Offset of a visual column on a line, or the line end if the line is shorter
+     */
+    private int offsetAtColumn(Element line, int column) {
+        int start = line.getStartOffset();
+        int end = line.getEndOffset() - 1;
+        Segment segment = new Segment();
+        try {
+            textArea.getDocument().getText(start, end - start, segment);
+        } catch (BadLocationException e) {
+            return start;
+        }
+        int tabSize = textArea.getTabSize();
+        int current = 0;
+        int offset = start;
+        for (char c = segment.first(); c != Segment.DONE && current < column; c = segment.next()) {
+            current = c == '\t' ? current + tabSize - current % tabSize : current + 1;
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Paints the extra carets and their selections, only those in the visible rows
+     */
+    private class CaretPainter implements Highlighter.HighlightPainter {
+
+        @Override
+        public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+            if (count <= 1) {
+                return;
+            }
+            Rectangle visible = c.getVisibleRect();
+            int first = c.viewToModel2D(new Point(0, visible.y));
+            int last = c.viewToModel2D(new Point(visible.width + visible.x, visible.y + visible.height));
+
+            Color selection = textArea.getSelectionColor();
+            Color caret = textArea.getCaretColor();
+            int from = find(first);
+            for (int i = Math.max(0, from < 0 ? -from - 2 : from - 1); i < count; i++) {
+                int start = Math.min(dots[i], marks[i]);
+                int end = Math.max(dots[i], marks[i]);
+                if (start > last) {
+                    break;
+                }
+                if (i == primary || end < first) {
+                    continue; // The main caret paints itself
+                }
+                try {
+                    Rectangle2D dot = c.modelToView2D(dots[i]);
+                    if (dot == null) {
+                        return; // Not laid out yet
+                    }
+                    if (start != end) {
+                        Rectangle a = c.modelToView2D(start).getBounds();
+                        Rectangle b = c.modelToView2D(end).getBounds();
+                        g.setColor(selection);
+                        if (a.y == b.y) {
+                            g.fillRect(a.x, a.y, b.x - a.x, a.height);
+                        } else {
+                            g.fillRect(a.x, a.y, visible.x + visible.width - a.x, a.height);
+                            g.fillRect(visible.x, a.y + a.height, visible.width, b.y - a.y - a.height);
+                            g.fillRect(visible.x, b.y, b.x - visible.x, b.height);
+                        }
+                    }
+                    g.setColor(caret);
+                    g.fillRect((int) dot.getX(), (int) dot.getY(), 2, (int) dot.getHeight());
+                } catch (BadLocationException e) {
+                    // Stale offset while the document changes, skipped until the next paint
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rsyntaxtextarea.Style;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PageLayout - Splits a document into printed pages of colored, wrapped rows
+ *
+ * Pages are laid out one at a time, each under a read lock on the document, so printing or
+ * exporting a long file never holds more than a page of rows. Colors come from a TokenMaker
+ * of our own, fed line by line with the token type the previous line ended in, so the
+ * editor's token maker is not shared with a background thread.
+ */
+public class PageLayout {
+
+    /** Text of one color */
+    public record Run(String text, Color color) {}
+
+    /** A printed row, line is -1 for the continuation of a wrapped line */
+    public record Row(int line, List<Run> runs) {}
+
+    // Longer lines are printed without colors, a minified file would take long to lex
+    private static final int MAX_LEXED_CHARS = 100_000;
+
+    private final Document document;
+    private final TokenMaker tokenMaker;
+    private final SyntaxScheme scheme;
+    private final int columns;
+    private final int rowsPerPage;
+    private final int tabSize;
+    private final ArrayDeque<Row> pending = new ArrayDeque<>();
+    private final Segment segment = new Segment();
+    private int nextLine = 0;
+    private int lastTokenType = Token.NULL;
+    private volatile int linesDone = 0;
+
+    // Row being filled
+    private final List<Run> runs = new ArrayList<>();
+    private final StringBuilder runText = new StringBuilder();
+    private Color runColor;
+    private int rowLine;
+    private int rowColumn;
+
+    /**
+     * Lay out a document, scheme is copied so the editor can keep changing its own
+     */
+    public PageLayout(Document document, String syntaxStyle, SyntaxScheme scheme, int columns, int rowsPerPage, int tabSize) {
+        this.document = document;
+        this.tokenMaker = syntaxStyle == null || SyntaxConstants.SYNTAX_STYLE_NONE.equals(syntaxStyle)
+            ? null : TokenMakerFactory.getDefaultInstance().getTokenMaker(syntaxStyle);
+        this.scheme = (SyntaxScheme) scheme.clone();
+        this.columns = Math.max(1, columns);
+        this.rowsPerPage = Math.max(1, rowsPerPage);
+        this.tabSize = Math.max(1, tabSize);
+    }
+
+    /**
+     * Rows of the next page, null after the last one
+     */
+    public List<Row> nextPage() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+        document.render(() -> {
+            Element root = document.getDefaultRootElement();
+            int lines = root.getElementCount();
+            while (pending.size() < rowsPerPage && nextLine < lines) {
+                layoutLine(root.getElement(nextLine), nextLine);
+                nextLine++;
+            }
+            linesDone = nextLine;
+        });
+        if (pending.isEmpty()) {
+            return null;
+        }
+        List<Row> page = new ArrayList<>(rowsPerPage);
+        while (page.size() < rowsPerPage && !pending.isEmpty()) {
+            page.add(pending.poll());
+        }
+        return page;
+    }
+
+    /**
+     * Lines laid out so far, readable from any thread for progress
+     */
+    public int getLinesDone() {
+        return linesDone;
+    }
+
+    private void layoutLine(Element element, int line) {
+        int start = element.getStartOffset();
+        int length = element.getEndOffset() - 1 - start;  // Without the newline
+        try {
+            document.getText(start, length, segment);
+        } catch (BadLocationException e) {
+            return;  // Offsets come from the element while the read lock is held
+        }
+
+        rowLine = line;
+        rowColumn = 0;
+        int column = 0;
+        if (tokenMaker != null && length <= MAX_LEXED_CHARS) {
+            Token token = tokenMaker.getTokenList(segment, lastTokenType, start);
+            Token last = token;
+            for (Token t = token; t != null; t = t.getNextToken()) {
+                if (t.isPaintable()) {
+                    column = append(t.getTextArray(), t.getTextOffset(), t.length(), colorOf(t.getType()), column);
+                }
+                last = t;
+            }
+            lastTokenType = last != null ? last.getType() : Token.NULL;
+        } else {
+            append(segment.array, segment.offset, segment.count, null, column);
+            lastTokenType = Token.NULL;
+        }
+        endRow();
+    }
+
+    private Color colorOf(int tokenType) {
+        if (tokenType < 0 || tokenType >= scheme.getStyleCount()) {
+            return null;
+        }
+        Style style = scheme.getStyle(tokenType);
+        return style != null ? style.foreground : null;
+    }
+
+    /**
+     * Add text to the row, expanding tabs and wrapping at the page width, returns the new column
+     */
+    private int append(char[] text, int offset, int count, Color color, int column) {
+        if (color == null ? runColor != null : !color.equals(runColor)) {
+            flushRun();
+            runColor = color;
+        }
+        for (int i = offset; i < offset + count; i++) {
+            char c = text[i];
+            int width = c == '\t' ? tabSize - column % tabSize : 1;
+            for (int w = 0; w < width; w++) {
+                if (rowColumn == columns) {
+                    endRow();
+                    rowLine = -1;
+                }
+                runText.append(c == '\t' ? ' ' : c);
+                rowColumn++;
+            }
+            column += width;
+        }
+        return column;
+    }
+
+    private void flushRun() {
+        if (runText.length() > 0) {
+            runs.add(new Run(runText.toString(), runColor));
+            runText.setLength(0);
+        }
+    }
+
+    private void endRow() {
+        flushRun();
+        pending.add(new Row(rowLine, List.copyOf(runs)));
+        runs.clear();
+        rowColumn = 0;
+    }
+}
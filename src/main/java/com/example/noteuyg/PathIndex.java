@@ -0,0 +1,614 @@
+package com.example.noteuyg;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * PathIndex - In-memory index of every file below a root directory, for fuzzy quick-open
+ *
+ * Relative paths are packed into one growable char array with an offset table, plus a 64-bit
+ * "which characters occur" mask per path that rejects most candidates before any scoring.
+ * When a query only extends the previous one, just the previous matches are re-scored.
+ * A WatchService keeps the index current after the initial background walk.
+ */
+public class PathIndex {
+
+    /** Directories beyond this are not watched (inotify limits), they refresh on rebuild */
+    private static final int MAX_WATCHED_DIRECTORIES = 4096;
+    private static final int MAX_RECENT = 50;
+
+    /**
+     * One ranked search hit
+     */
+    public static final class Result {
+        public final Path path;
+        public final String relativePath;
+        public final int score;
+
+        Result(Path path, String relativePath, int score) {
+            this.path = path;
+            this.relativePath = relativePath;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return relativePath;
+        }
+    }
+
+    private Path root;
+    private char[] chars = new char[1 << 16];
+    private int charCount = 0;
+    private int[] starts = new int[1024];
+    private int[] nameStarts = new int[1024];
+    private long[] masks = new long[1024];
+    private int count = 0;
+    private BitSet deleted = new BitSet();
+    private int deletedCount = 0;
+    private int[] slots = new int[2048]; // Open-addressed path hash table, entry index + 1 or 0
+    private int generation = 0;
+    private volatile boolean building = false;
+
+    private String lastQuery;
+    private int lastGeneration = -1;
+    private int[] lastCandidates;
+
+    private final Map<String, Boolean> recent = new LinkedHashMap<>();
+    private int[] recentIds = new int[0];
+    private int recentGeneration = -1;
+
+    private WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new LinkedHashMap<>();
+
+    /**
+     * Index a new root directory on an I/O thread
+     */
+    public void rebuild(Path newRoot) {
+        IoExecutor.get().run("Index " + newRoot, () -> build(newRoot));
+    }
+
+    public boolean isBuilding() {
+        return building;
+    }
+
+    public synchronized Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Number of indexed files
+     */
+    public synchronized int size() {
+        return count - deletedCount;
+    }
+
+    /**
+     * Paths of every indexed file relative to the root ('/' separated), null while building
+     */
+    public synchronized List<String> relativePaths() {
+        if (building || root == null) {
+            return null;
+        }
+        List<String> paths = new ArrayList<>(count - deletedCount);
+        for (int i = 0; i < count; i++) {
+            if (!deleted.get(i)) {
+                paths.add(new String(chars, starts[i], starts[i + 1] - starts[i]));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Remember that a file was opened, recent files rank higher
+     */
+    public synchronized void markOpened(Path file) {
+        if (root == null || !file.startsWith(root)) {
+            return;
+        }
+        String relative = toRelative(file);
+        recent.remove(relative);
+        recent.put(relative, Boolean.TRUE);
+        if (recent.size() > MAX_RECENT) {
+            recent.remove(recent.keySet().iterator().next());
+        }
+        recentGeneration = -1;
+    }
+
+    private void build(Path newRoot) {
+        building = true;
+        try {
+            synchronized (this) {
+                closeWatcher();
+                root = newRoot;
+                charCount = 0;
+                count = 0;
+                deleted = new BitSet();
+                deletedCount = 0;
+                slots = new int[2048];
+                generation++;
+                try {
+                    watchService = FileSystems.getDefault().newWatchService();
+                } catch (IOException e) {
+                    watchService = null;
+                }
+            }
+
+            walk(newRoot);
+
+            WatchService service;
+            synchronized (this) {
+                service = watchService;
+            }
+            if (service != null) {
+                Thread watcher = new Thread(() -> processEvents(service), "path-index-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+        } finally {
+            building = false;
+        }
+    }
+
+    /**
+     * Add every non-hidden file below a directory and watch its directories
+     */
+    private void walk(Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(start) && isHidden(dir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    watchDirectory(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !isHidden(file)) {
+                        add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE; // Unreadable entries are skipped
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Warning: Could not index " + start + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isHidden(Path path) {
+        Path name = path.getFileName();
+        return name != null && name.toString().startsWith(".");
+    }
+
+    private synchronized void watchDirectory(Path dir) {
+        if (watchService == null || watchedDirectories.size() >= MAX_WATCHED_DIRECTORIES) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, dir);
+        } catch (IOException e) {
+            // Not watchable, it is still indexed
+        }
+    }
+
+    private void closeWatcher() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignore close errors
+            }
+            watchService = null;
+        }
+        watchedDirectories.clear();
+    }
+
+    private void processEvents(WatchService service) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir;
+            synchronized (this) {
+                dir = watchedDirectories.get(key);
+            }
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (isHidden(child)) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        if (Files.isDirectory(child)) {
+                            walk(child);
+                        } else {
+                            add(child);
+                        }
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        remove(child);
+                    }
+                }
+            }
+            if (!key.reset()) {
+                synchronized (this) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        }
+    }
+
+    private String toRelative(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private synchronized void add(Path file) {
+        if (root == null || !file.startsWith(root)) {
+            return;
+        }
+        String relative = toRelative(file);
+
+        // A file can be reported again (a rename over it, a directory walked twice)
+        int existing = indexOf(relative);
+        if (existing >= 0) {
+            if (deleted.get(existing)) {
+                deleted.clear(existing);
+                deletedCount--;
+                generation++;
+            }
+            return;
+        }
+
+        if (charCount + relative.length() > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + relative.length()));
+        }
+        if (count + 1 >= starts.length) {
+            int size = starts.length * 2;
+            starts = Arrays.copyOf(starts, size);
+            nameStarts = Arrays.copyOf(nameStarts, size);
+            masks = Arrays.copyOf(masks, size);
+        }
+
+        relative.getChars(0, relative.length(), chars, charCount);
+        starts[count] = charCount;
+        nameStarts[count] = charCount + relative.lastIndexOf('/') + 1;
+        masks[count] = charMask(relative);
+        charCount += relative.length();
+        count++;
+        starts[count] = charCount;
+        addSlot(count - 1);
+        generation++;
+    }
+
+    /**
+     * Entry index of a relative path, deleted or not, -1 if it was never added
+     */
+    private int indexOf(String relative) {
+        int mask = slots.length - 1;
+        for (int slot = relative.hashCode() & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (isPath(index, relative)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isPath(int index, String relative) {
+        int start = starts[index];
+        if (starts[index + 1] - start != relative.length()) {
+            return false;
+        }
+        for (int i = 0; i < relative.length(); i++) {
+            if (chars[start + i] != relative.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addSlot(int index) {
+        if (count * 2 > slots.length) {
+            rehash();
+            return;
+        }
+        int mask = slots.length - 1;
+        int slot = hash(index) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private void rehash() {
+        int size = slots.length;
+        while (count * 2 > size) {
+            size *= 2;
+        }
+        slots = new int[size];
+        int mask = size - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = hash(i) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Same hash as String.hashCode() of the entry's relative path
+     */
+    private int hash(int index) {
+        int h = 0;
+        for (int i = starts[index]; i < starts[index + 1]; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    private synchronized void remove(Path path) {
+        if (root == null || !path.startsWith(root)) {
+            return;
+        }
+        // A path and, if it was a directory, everything below it
+        char[] target = toRelative(path).toCharArray();
+        for (int i = 0; i < count; i++) {
+            if (!deleted.get(i) && isSameOrChild(i, target)) {
+                deleted.set(i);
+                deletedCount++;
+            }
+        }
+        generation++;
+        if (deletedCount > count / 4 && deletedCount > 1024) {
+            compact();
+        }
+    }
+
+    private boolean isSameOrChild(int index, char[] target) {
+        int start = starts[index];
+        int length = starts[index + 1] - start;
+        if (length < target.length || (length > target.length && chars[start + target.length] != '/')) {
+            return false;
+        }
+        for (int i = 0; i < target.length; i++) {
+            if (chars[start + i] != target[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop deleted entries from the packed arrays
+     */
+    private void compact() {
+        int out = 0;
+        int outChars = 0;
+        for (int i = 0; i < count; i++) {
+            if (deleted.get(i)) {
+                continue;
+            }
+            int start = starts[i];
+            int length = starts[i + 1] - start;
+            System.arraycopy(chars, start, chars, outChars, length);
+            nameStarts[out] = outChars + (nameStarts[i] - start);
+            masks[out] = masks[i];
+            starts[out] = outChars;
+            outChars += length;
+            out++;
+        }
+        count = out;
+        charCount = outChars;
+        starts[count] = charCount;
+        deleted = new BitSet();
+        deletedCount = 0;
+        rehash();
+        generation++;
+    }
+
+    /**
+     * Find the best matches for a fuzzy query, best first
+     */
+    public synchronized List<Result> search(String query, int limit) {
+        // Folded char by char like the paths, String.toLowerCase() depends on the locale
+        StringBuilder folded = new StringBuilder(query.length());
+        for (int i = 0; i < query.length(); i++) {
+            if (query.charAt(i) != ' ') {
+                folded.append(toLower(query.charAt(i)));
+            }
+        }
+        String q = folded.toString();
+        List<Result> results = new ArrayList<>();
+        if (root == null) {
+            return results;
+        }
+
+        int[] boosted = recentIds();
+        if (q.isEmpty()) {
+            // Nothing typed yet, show recently opened files (newest first)
+            for (int i = boosted.length - 1; i >= 0 && results.size() < limit; i--) {
+                results.add(toResult(boosted[i], 0));
+            }
+            return results;
+        }
+
+        char[] needle = q.toCharArray();
+        long needleMask = charMask(q);
+
+        // Narrowing the previous query can only remove matches, so start from them
+        boolean narrowing = lastQuery != null && q.startsWith(lastQuery) && lastGeneration == generation;
+        int[] candidates = narrowing ? lastCandidates : null;
+        int candidateCount = narrowing ? candidates.length : count;
+
+        int[] matches = new int[Math.min(candidateCount, 1024)];
+        int matchCount = 0;
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, (x, y) -> Long.compare(x[0], y[0]));
+
+        for (int c = 0; c < candidateCount; c++) {
+            int i = narrowing ? candidates[c] : c;
+            if ((masks[i] & needleMask) != needleMask || deleted.get(i)) {
+                continue;
+            }
+            int score = score(i, needle);
+            if (score == Integer.MIN_VALUE) {
+                continue;
+            }
+
+            if (matchCount == matches.length) {
+                matches = Arrays.copyOf(matches, matches.length * 2);
+            }
+            matches[matchCount++] = i;
+
+            if (Arrays.binarySearch(boosted, i) >= 0) {
+                score += 40;
+            }
+            if (top.size() < limit) {
+                top.add(new long[] {score, i});
+            } else if (score > top.peek()[0]) {
+                top.poll();
+                top.add(new long[] {score, i});
+            }
+        }
+
+        lastQuery = q;
+        lastGeneration = generation;
+        lastCandidates = Arrays.copyOf(matches, matchCount);
+
+        while (!top.isEmpty()) {
+            long[] entry = top.poll();
+            results.add(0, toResult((int) entry[1], (int) entry[0]));
+        }
+        return results;
+    }
+
+    private Result toResult(int index, int score) {
+        String relative = new String(chars, starts[index], starts[index + 1] - starts[index]);
+        return new Result(root.resolve(relative), relative, score);
+    }
+
+    /**
+     * Sorted ids of recently opened files that are in the index
+     */
+    private int[] recentIds() {
+        if (recentGeneration == generation) {
+            return recentIds;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (String relative : recent.keySet()) {
+            int index = indexOf(relative);
+            if (index >= 0 && !deleted.get(index)) {
+                ids.add(index);
+            }
+        }
+        recentIds = ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+        recentGeneration = generation;
+        return recentIds;
+    }
+
+    /**
+     * Fuzzy subsequence score, or Integer.MIN_VALUE if the query is not a subsequence
+     */
+    private int score(int index, char[] needle) {
+        int start = starts[index];
+        int end = starts[index + 1];
+        int nameStart = nameStarts[index];
+
+        // Prefer a match entirely inside the file name
+        int score = scoreFrom(nameStart, end, needle);
+        if (score != Integer.MIN_VALUE) {
+            score += 25;
+        } else {
+            score = scoreFrom(start, end, needle);
+            if (score == Integer.MIN_VALUE) {
+                return score;
+            }
+        }
+        return score - (end - start) / 8;
+    }
+
+    private int scoreFrom(int from, int end, char[] needle) {
+        int score = 0;
+        int n = 0;
+        int previous = -2;
+        for (int i = from; i < end && n < needle.length; i++) {
+            char original = chars[i];
+            if (toLower(original) != needle[n]) {
+                continue;
+            }
+            score += 1;
+            char before = i > from ? chars[i - 1] : '/';
+            if (before == '/' || before == '_' || before == '-' || before == '.' || before == ' ') {
+                score += 8; // Start of a word or path segment
+            } else if (Character.isUpperCase(original) && Character.isLowerCase(before)) {
+                score += 6; // camelCase hump
+            }
+            if (previous == i - 1) {
+                score += 5; // Consecutive characters
+            }
+            previous = i;
+            n++;
+        }
+        return n == needle.length ? score : Integer.MIN_VALUE;
+    }
+
+    private static char toLower(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * Bit per letter/digit/other present, used to reject paths missing a query character
+     */
+    private static long charMask(CharSequence text) {
+        long mask = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = toLower(text.charAt(i));
+            int bit;
+            if (c >= 'a' && c <= 'z') {
+                bit = c - 'a';
+            } else if (c >= '0' && c <= '9') {
+                bit = 26 + (c - '0');
+            } else {
+                bit = 36 + (c % 28);
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+}
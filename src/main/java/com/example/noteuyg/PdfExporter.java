@@ -0,0 +1,178 @@
+package com.example.noteuyg;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.util.Matrix;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+
+import javax.swing.text.Document;
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * PdfExporter - Writes a document as a PDF with line numbers and syntax colors
+ *
+ * Pages come from a PageLayout one at a time and their content streams go to a PDFBox
+ * scratch file instead of the heap, so memory stays flat however long the document is.
+ * A monospaced TrueType font from the system is embedded (as a subset) when one is found,
+ * otherwise the standard Courier is used and characters it cannot show print as '?'.
+ */
+public class PdfExporter {
+
+    private static final float FONT_SIZE = 9f;
+    private static final float LEADING = 11f;
+    private static final float MARGIN = 40f;
+    private static final int NUMBER_COLUMNS = 7;
+    private static final Color NUMBER_COLOR = new Color(150, 150, 150);
+    private static final String[] FONT_FILES = {
+        "/usr/share/fonts/truetype/dejavu/DejaVuSansMono.ttf",
+        "/usr/share/fonts/dejavu/DejaVuSansMono.ttf",
+        "/usr/share/fonts/TTF/DejaVuSansMono.ttf",
+        "C:/Windows/Fonts/consola.ttf",
+        "C:/Windows/Fonts/cour.ttf",
+        "/Library/Fonts/Courier New.ttf",
+        "/System/Library/Fonts/Supplemental/Courier New.ttf"
+    };
+
+    private final Document document;
+    private final String syntaxStyle;
+    private final SyntaxScheme scheme;
+    private final int tabSize;
+    private final String title;
+    private volatile PageLayout layout;
+
+    public PdfExporter(Document document, String syntaxStyle, SyntaxScheme scheme, int tabSize, String title) {
+        this.document = document;
+        this.syntaxStyle = syntaxStyle;
+        this.scheme = scheme;
+        this.tabSize = tabSize;
+        this.title = title;
+    }
+
+    /**
+     * Lines written so far, for progress
+     */
+    public int getLinesDone() {
+        PageLayout current = layout;
+        return current != null ? current.getLinesDone() : 0;
+    }
+
+    /**
+     * Write the whole document, returns the number of pages
+     */
+    public int export(OutputStream out) throws IOException, InterruptedException {
+        try (PDDocument pdf = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PDFont font = loadFont(pdf);
+            boolean[] known = new boolean[Character.MAX_VALUE + 1];
+            boolean[] encodable = new boolean[Character.MAX_VALUE + 1];
+
+            PDRectangle size = PDRectangle.A4;
+            float charWidth = font.getStringWidth("M") / 1000f * FONT_SIZE;
+            int columns = (int) ((size.getWidth() - 2 * MARGIN) / charWidth) - NUMBER_COLUMNS;
+            int rows = (int) ((size.getHeight() - 2 * MARGIN) / LEADING) - 2;  // Header and a gap
+            layout = new PageLayout(document, syntaxStyle, scheme, columns, rows, tabSize);
+
+            int pageNumber = 0;
+            List<PageLayout.Row> rowsOfPage;
+            while ((rowsOfPage = layout.nextPage()) != null) {
+                pageNumber++;
+                PDPage page = new PDPage(size);
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.beginText();
+                    content.setFont(font, FONT_SIZE);
+                    float top = size.getHeight() - MARGIN;
+
+                    content.setNonStrokingColor(NUMBER_COLOR);
+                    String header = title + "  -  page " + pageNumber;
+                    content.setTextMatrix(Matrix.getTranslateInstance(MARGIN, top));
+                    content.showText(printable(header, font, known, encodable));
+
+                    Color current = NUMBER_COLOR;
+                    float y = top - 2 * LEADING;
+                    for (PageLayout.Row row : rowsOfPage) {
+                        if (row.line() >= 0) {
+                            if (!NUMBER_COLOR.equals(current)) {
+                                content.setNonStrokingColor(NUMBER_COLOR);
+                                current = NUMBER_COLOR;
+                            }
+                            content.setTextMatrix(Matrix.getTranslateInstance(MARGIN, y));
+                            content.showText(String.format("%6d", row.line() + 1));
+                        }
+                        float x = MARGIN + NUMBER_COLUMNS * charWidth;
+                        for (PageLayout.Run run : row.runs()) {
+                            Color color = run.color() != null ? run.color() : Color.BLACK;
+                            if (!color.equals(current)) {
+                                content.setNonStrokingColor(color);
+                                current = color;
+                            }
+                            if (!run.text().isBlank()) {
+                                content.setTextMatrix(Matrix.getTranslateInstance(x, y));
+                                content.showText(printable(run.text(), font, known, encodable));
+                            }
+                            x += run.text().length() * charWidth;
+                        }
+                        y -= LEADING;
+                    }
+                    content.endText();
+                }
+            }
+            if (pageNumber == 0) {
+                pdf.addPage(new PDPage(size));  // An empty document is one blank page
+            }
+            pdf.save(out);
+            return Math.max(pageNumber, 1);
+        }
+    }
+
+    private static PDFont loadFont(PDDocument pdf) {
+        for (String path : FONT_FILES) {
+            File file = new File(path);
+            if (file.isFile()) {
+                try {
+                    return PDType0Font.load(pdf, file);
+                } catch (IOException e) {
+                    // Try the next one
+                }
+            }
+        }
+        return PDType1Font.COURIER;
+    }
+
+    /**
+     * Replace characters the font has no glyph for, each character is tried once
+     */
+    private static String printable(String text, PDFont font, boolean[] known, boolean[] encodable) {
+        StringBuilder result = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!known[c]) {
+                known[c] = true;
+                try {
+                    encodable[c] = !Character.isSurrogate(c) && !Character.isISOControl(c)
+                        && font.encode(String.valueOf(c)).length > 0;
+                } catch (IOException | IllegalArgumentException e) {
+                    encodable[c] = false;
+                }
+            }
+            if (!encodable[c]) {
+                if (result == null) {
+                    result = new StringBuilder(text.substring(0, i));
+                }
+                result.append('?');
+            } else if (result != null) {
+                result.append(c);
+            }
+        }
+        return result != null ? result.toString() : text;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.noteuyg;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * PdfTextLayer - Text of a PDF, extracted page by page in the background
+ *
+ * Each page is run through PDFTextStripper once and cached together with the box of every
+ * character (in PDF points), so matches can be highlighted on the rendered page. Listeners
+ * hear about each page as soon as it is done, which lets search show early results while
+ * later pages are still being extracted.
+ */
+public class PdfTextLayer {
+
+    /**
+     * Notified on the EDT whenever a page has been extracted
+     */
+    public interface Listener {
+        void pageExtracted(int pageIndex);
+    }
+
+    /**
+     * One occurrence of a search string
+     */
+    public static final class Match {
+        public final int page;
+        public final int start;
+        public final int end;
+
+        Match(int page, int start, int end) {
+            this.page = page;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final File file;
+    private final int pageCount;
+    private final String[] pageTexts;
+    private final float[][] pageBoxes; // x, y, width, height per character, NaN for separators
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile int extractedPages = 0;
+    private volatile boolean cancelled = false;
+    private IoTask<Void> worker;
+
+    public PdfTextLayer(File file, int pageCount) {
+        this.file = file;
+        this.pageCount = pageCount;
+        this.pageTexts = new String[pageCount];
+        this.pageBoxes = new float[pageCount][];
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Start extracting on an I/O thread
+     */
+    public void start() {
+        worker = IoExecutor.get().run("Extract text of " + file.getName(), this::extractAll);
+    }
+
+    /**
+     * Stop extracting, pages done so far stay available
+     */
+    public void cancel() {
+        cancelled = true;
+        if (worker != null) {
+            worker.cancel();
+        }
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Number of leading pages whose text is available
+     */
+    public int getExtractedPageCount() {
+        return extractedPages;
+    }
+
+    public boolean isComplete() {
+        return extractedPages == pageCount;
+    }
+
+    /**
+     * Text of a page, or null if it has not been extracted yet
+     */
+    public String getPageText(int page) {
+        return page < extractedPages ? pageTexts[page] : null;
+    }
+
+    private void extractAll() {
+        try (PDDocument document = PDDocument.load(file)) {
+            PositionStripper stripper = new PositionStripper();
+            for (int page = 0; page < pageCount && !cancelled; page++) {
+                stripper.begin();
+                stripper.setStartPage(page + 1);
+                stripper.setEndPage(page + 1);
+                stripper.writeText(document, Writer.nullWriter());
+
+                pageTexts[page] = stripper.text.toString();
+                pageBoxes[page] = Arrays.copyOf(stripper.boxes, stripper.text.length() * 4);
+                extractedPages = page + 1;
+
+                int done = page;
+                EdtDispatcher.get().dispatch(() -> {
+                    for (Listener listener : listeners) {
+                        listener.pageExtracted(done);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            if (!cancelled) {
+                System.err.println("Warning: Could not extract text from " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Find all occurrences of a string on one extracted page
+     */
+    public List<Match> find(int page, String query, boolean matchCase) {
+        List<Match> matches = new ArrayList<>();
+        String text = getPageText(page);
+        if (text == null || query.isEmpty()) {
+            return matches;
+        }
+        String haystack = matchCase ? text : fold(text);
+        String needle = matchCase ? query : fold(query);
+        int index = haystack.indexOf(needle);
+        while (index >= 0) {
+            matches.add(new Match(page, index, index + needle.length()));
+            index = haystack.indexOf(needle, index + needle.length());
+        }
+        return matches;
+    }
+
+    /**
+     * Lower-case char by char, unlike String.toLowerCase() this keeps the length (so offsets
+     * stay those of the page text) and does not depend on the default locale
+     */
+    private static String fold(String text) {
+        char[] folded = text.toCharArray();
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(folded[i]);
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Boxes covering a match in PDF points, one per run of characters on the same line
+     */
+    public List<Rectangle2D> getBounds(Match match) {
+        List<Rectangle2D> rects = new ArrayList<>();
+        float[] boxes = match.page < extractedPages ? pageBoxes[match.page] : null;
+        if (boxes == null) {
+            return rects;
+        }
+        Rectangle2D current = null;
+        for (int i = match.start; i < match.end; i++) {
+            float x = boxes[i * 4];
+            if (Float.isNaN(x)) {
+                continue;
+            }
+            Rectangle2D box = new Rectangle2D.Float(x, boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3]);
+            if (current != null && Math.abs(current.getY() - box.getY()) < box.getHeight() / 2) {
+                current.add(box);
+            } else {
+                current = box;
+                rects.add(current);
+            }
+        }
+        return rects;
+    }
+
+    /**
+     * Collects the characters of a page together with their positions
+     */
+    private static class PositionStripper extends PDFTextStripper {
+        StringBuilder text = new StringBuilder();
+        float[] boxes = new float[4096];
+
+        PositionStripper() throws IOException {
+            setSortByPosition(true);
+        }
+
+        void begin() {
+            text.setLength(0);
+        }
+
+        @Override
+        protected void writeString(String string, List<TextPosition> textPositions) {
+            for (TextPosition position : textPositions) {
+                // A position can carry several characters (ligatures), they share its box
+                String unicode = position.getUnicode();
+                for (int i = 0; i < unicode.length(); i++) {
+                    append(unicode.charAt(i), position.getXDirAdj(),
+                        position.getYDirAdj() - position.getHeightDir(),
+                        position.getWidthDirAdj(), position.getHeightDir());
+                }
+            }
+        }
+
+        @Override
+        protected void writeWordSeparator() {
+            append(' ', Float.NaN, 0, 0, 0);
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            append('\n', Float.NaN, 0, 0, 0);
+        }
+
+        private void append(char c, float x, float y, float width, float height) {
+            int offset = text.length() * 4;
+            if (offset + 4 > boxes.length) {
+                boxes = Arrays.copyOf(boxes, boxes.length * 2);
+            }
+            boxes[offset] = x;
+            boxes[offset + 1] = y;
+            boxes[offset + 2] = width;
+            boxes[offset + 3] = height;
+            text.append(c);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.noteuyg;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PdfViewer - Rendered PDF pages with a searchable text layer
+ *
+ * Pages are shown as images; matches from the PdfTextLayer are painted on top of them. The
+ * find bar searches pages as soon as their text is extracted, so results appear while the
+ * rest of the document is still being processed. Page images can be released under memory
+ * pressure; they come back from the RenderCache (or are re-rendered) when next painted.
+ *
+ * Zooming resizes the pages at once and shows the old images scaled; each page is then
+ * rendered again at the new DPI only when it is painted, so just the visible pages are
+ * re-rendered. Above MAX_RENDER_DPI the page images are scaled up instead.
+ */
+public class PdfViewer extends JPanel {
+
+    private static final Color MATCH_COLOR = new Color(255, 230, 0, 90);
+    private static final Color CURRENT_COLOR = new Color(255, 140, 0, 140);
+    private static final float MAX_RENDER_DPI = 300f;
+
+    private final File file;
+    private final float dpi;
+    private final PdfTextLayer textLayer;
+    private final IoScope ioScope = new IoScope();
+    private final List<PageView> pageViews = new ArrayList<>();
+    private final java.util.Set<PageView> renderQueue = new java.util.LinkedHashSet<>();
+    private final JPanel pagesPanel;
+    private final JScrollPane scrollPane;
+    private final JPanel findBar;
+    private final JTextField findField = new JTextField(24);
+    private final JCheckBox matchCaseBox = new JCheckBox("Match case");
+    private final JLabel findStatus = new JLabel();
+    private final List<PdfTextLayer.Match> matches = new ArrayList<>();
+    private final PdfTextLayer.Listener searchListener = this::searchPage;
+    private int currentMatch = -1;
+    private int searchedPages = 0;
+    private boolean rendering = false;
+    private double zoom = 1;
+
+    public PdfViewer(File file, List<BufferedImage> pageImages, float dpi) {
+        super(new BorderLayout());
+        this.file = file;
+        this.dpi = dpi;
+
+        // Same layout as before: pages stacked on a gray background
+        pagesPanel = new JPanel();
+        pagesPanel.setLayout(new BoxLayout(pagesPanel, BoxLayout.Y_AXIS));
+        pagesPanel.setBackground(Color.GRAY);
+        for (int i = 0; i < pageImages.size(); i++) {
+            if (i > 0) {
+                pagesPanel.add(Box.createVerticalStrut(10));
+            }
+            PageView pageView = new PageView(pageImages.get(i), i);
+            pageViews.add(pageView);
+            pagesPanel.add(pageView);
+        }
+
+        scrollPane = new JScrollPane(pagesPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        add(scrollPane, BorderLayout.CENTER);
+
+        findBar = createFindBar();
+        findBar.setVisible(false);
+        add(findBar, BorderLayout.NORTH);
+
+        textLayer = new PdfTextLayer(file, pageImages.size());
+        textLayer.addListener(searchListener);
+        textLayer.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public PdfTextLayer getTextLayer() {
+        return textLayer;
+    }
+
+    /**
+     * RenderCache variant name of a page rendered at the given DPI
+     */
+    public static String cacheVariant(int page, float dpi) {
+        return "pdf-page-" + page + "@" + Math.round(dpi) + "dpi";
+    }
+
+    /**
+     * Estimated bytes held by the page images currently in memory
+     */
+    public long getImageBytes() {
+        long bytes = 0;
+        for (PageView pageView : pageViews) {
+            if (pageView.image != null) {
+                bytes += 4L * pageView.image.getWidth() * pageView.image.getHeight();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Drop all page images, returns the estimated bytes released
+     */
+    public long releasePageImages() {
+        long bytes = getImageBytes();
+        for (PageView pageView : pageViews) {
+            pageView.image = null;
+        }
+        renderQueue.clear();
+        return bytes;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Resize the pages to a zoom factor, keeping the same part of the document in view
+     */
+    public void setZoom(double zoom) {
+        if (zoom == this.zoom) {
+            return;
+        }
+        JScrollBar vertical = scrollPane.getVerticalScrollBar();
+        double position = vertical.getMaximum() > 0 ? (double) vertical.getValue() / vertical.getMaximum() : 0;
+        this.zoom = zoom;
+        for (PageView pageView : pageViews) {
+            pageView.updateSize();
+        }
+        pagesPanel.revalidate();
+        SwingUtilities.invokeLater(() -> vertical.setValue((int) Math.round(position * vertical.getMaximum())));
+        repaint();
+    }
+
+    /**
+     * DPI the pages are rendered at for the current zoom
+     */
+    private float renderDpi() {
+        return (float) Math.min(dpi * zoom, MAX_RENDER_DPI);
+    }
+
+    /**
+     * Render a page that was painted at the wrong DPI or released, in the background
+     */
+    private void requestRender(PageView requested) {
+        renderQueue.add(requested);
+        if (rendering) {
+            return;  // Picked up when the current batch is done
+        }
+        rendering = true;
+        List<PageView> batch = new ArrayList<>(renderQueue);
+        renderQueue.clear();
+        float target = renderDpi();
+
+        IoExecutor.get().task("Render pages of " + file.getName(), () -> {
+            RenderCache renderCache = RenderCache.getDefault();
+            PDDocument document = null;
+            try {
+                for (PageView pageView : batch) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    if (pageView.image != null && pageView.imageDpi == target) {
+                        continue;
+                    }
+                    BufferedImage image = renderCache.getImage(file, cacheVariant(pageView.page, target));
+                    if (image == null) {
+                        // Not cached (any more), render it again
+                        if (document == null) {
+                            document = PDDocument.load(file);
+                        }
+                        image = new PDFRenderer(document).renderImageWithDPI(pageView.page, target);
+                        renderCache.putImage(file, cacheVariant(pageView.page, target), image);
+                    }
+                    BufferedImage loaded = image;
+                    EdtDispatcher.get().dispatch(() -> {
+                        pageView.image = loaded;
+                        pageView.imageDpi = target;
+                        pageView.repaint();
+                    });
+                }
+            } finally {
+                if (document != null) {
+                    document.close();
+                }
+            }
+            return (Void) null;
+        }).heavy().in(ioScope).onSuccess(done -> renderNext()).onFailure(e -> {
+            System.err.println("Warning: Could not render pages of " + file + ": " + e.getMessage());
+            renderQueue.clear();
+            rendering = false;
+        }).start();
+    }
+
+    private void renderNext() {
+        rendering = false;
+        if (!renderQueue.isEmpty()) {
+            requestRender(renderQueue.iterator().next());
+        }
+    }
+
+    /**
+     * Show the find bar and focus it (Ctrl+F)
+     */
+    public void showFindBar() {
+        findBar.setVisible(true);
+        revalidate();
+        findField.requestFocusInWindow();
+        findField.selectAll();
+    }
+
+    /**
+     * Stop background extraction when the tab is closed
+     */
+    public void dispose() {
+        textLayer.removeListener(searchListener);
+        textLayer.cancel();
+        ioScope.close();
+    }
+
+    private JPanel createFindBar() {
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton previousButton = new JButton("Previous");
+        JButton nextButton = new JButton("Next");
+        JButton closeButton = new JButton("Close");
+
+        findField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { restartSearch(); }
+            public void removeUpdate(DocumentEvent e) { restartSearch(); }
+            public void changedUpdate(DocumentEvent e) { restartSearch(); }
+        });
+        findField.addActionListener(e -> moveToMatch(1));
+        matchCaseBox.addActionListener(e -> restartSearch());
+        previousButton.addActionListener(e -> moveToMatch(-1));
+        nextButton.addActionListener(e -> moveToMatch(1));
+        closeButton.addActionListener(e -> hideFindBar());
+        bar.registerKeyboardAction(e -> hideFindBar(),
+            KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+        bar.registerKeyboardAction(e -> moveToMatch(-1),
+            KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, KeyEvent.SHIFT_DOWN_MASK),
+            JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+
+        bar.add(new JLabel("Find:"));
+        bar.add(findField);
+        bar.add(matchCaseBox);
+        bar.add(previousButton);
+        bar.add(nextButton);
+        bar.add(closeButton);
+        bar.add(findStatus);
+        return bar;
+    }
+
+    private void hideFindBar() {
+        findBar.setVisible(false);
+        findField.setText("");
+        revalidate();
+    }
+
+    /**
+     * Search everything extracted so far, later pages are searched as they arrive
+     */
+    private void restartSearch() {
+        matches.clear();
+        currentMatch = -1;
+        searchedPages = 0;
+        for (PageView pageView : pageViews) {
+            pageView.setHighlights(new ArrayList<>(), null);
+        }
+        searchPage(textLayer.getExtractedPageCount() - 1);
+    }
+
+    private void searchPage(int lastPage) {
+        // Pages up to lastPage may already have been searched by restartSearch
+        while (searchedPages <= lastPage) {
+            searchNextPage();
+        }
+        updateFindStatus();
+    }
+
+    private void searchNextPage() {
+        int page = searchedPages++;
+        String query = findField.getText();
+        if (!query.isEmpty()) {
+            List<PdfTextLayer.Match> pageMatches = textLayer.find(page, query, matchCaseBox.isSelected());
+            List<Rectangle2D> rects = new ArrayList<>();
+            for (PdfTextLayer.Match match : pageMatches) {
+                rects.addAll(textLayer.getBounds(match));
+            }
+            matches.addAll(pageMatches);
+            pageViews.get(page).setHighlights(rects, null);
+
+            // Jump to the first hit as soon as there is one
+            if (currentMatch < 0 && !matches.isEmpty()) {
+                selectMatch(0);
+            }
+        }
+    }
+
+    private void moveToMatch(int direction) {
+        if (matches.isEmpty()) {
+            return;
+        }
+        selectMatch(Math.floorMod(currentMatch + direction, matches.size()));
+        updateFindStatus();
+    }
+
+    private void selectMatch(int index) {
+        if (currentMatch >= 0) {
+            pageViews.get(matches.get(currentMatch).page).setCurrent(null);
+        }
+        currentMatch = index;
+        PdfTextLayer.Match match = matches.get(index);
+        PageView pageView = pageViews.get(match.page);
+        List<Rectangle2D> rects = textLayer.getBounds(match);
+        if (rects.isEmpty()) {
+            return;
+        }
+        pageView.setCurrent(rects.get(0));
+
+        // Scroll so the match is visible with some context around it
+        Rectangle visible = pageView.toView(rects.get(0));
+        visible.grow(40, 80);
+        pageView.scrollRectToVisible(visible);
+    }
+
+    private void updateFindStatus() {
+        String progress = textLayer.isComplete() ? ""
+            : " (searched " + textLayer.getExtractedPageCount() + " of " + textLayer.getPageCount() + " pages)";
+        if (findField.getText().isEmpty()) {
+            findStatus.setText(progress.trim());
+        } else if (matches.isEmpty()) {
+            findStatus.setText("No matches" + progress);
+        } else {
+            findStatus.setText((currentMatch + 1) + " of " + matches.size() + progress);
+        }
+    }
+
+    /**
+     * One rendered page with match highlights painted over it
+     */
+    private class PageView extends JComponent {
+        private final int page;
+        private final float widthPoints;
+        private final float heightPoints;
+        private volatile BufferedImage image;
+        private volatile float imageDpi;
+        private float scale;
+        private List<Rectangle2D> highlights = new ArrayList<>();
+        private Rectangle2D current;
+
+        PageView(BufferedImage image, int page) {
+            this.image = image;
+            this.page = page;
+            this.imageDpi = dpi;
+            this.widthPoints = image.getWidth() * 72f / dpi;
+            this.heightPoints = image.getHeight() * 72f / dpi;
+            setAlignmentX(Component.CENTER_ALIGNMENT);
+            setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
+            updateSize();
+        }
+
+        /**
+         * Size of the page at the viewer's zoom, whatever DPI the current image has
+         */
+        void updateSize() {
+            scale = (float) (dpi * zoom / 72f);
+            Dimension size = new Dimension(Math.round(widthPoints * scale) + 2, Math.round(heightPoints * scale) + 2);
+            setPreferredSize(size);
+            setMaximumSize(size);
+        }
+
+        void setHighlights(List<Rectangle2D> highlights, Rectangle2D current) {
+            this.highlights = highlights;
+            this.current = current;
+            repaint();
+        }
+
+        void setCurrent(Rectangle2D current) {
+            this.current = current;
+            repaint();
+        }
+
+        /**
+         * Convert a box in PDF points to component pixels
+         */
+        Rectangle toView(Rectangle2D box) {
+            return new Rectangle(1 + (int) Math.floor(box.getX() * scale), 1 + (int) Math.floor(box.getY() * scale),
+                (int) Math.ceil(box.getWidth() * scale) + 1, (int) Math.ceil(box.getHeight() * scale) + 1);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            BufferedImage shown = image;
+            int width = getWidth() - 2;
+            int height = getHeight() - 2;
+            if (shown == null) {
+                // Released to save memory, show a blank page until it is back
+                g.setColor(Color.WHITE);
+                g.fillRect(1, 1, width, height);
+            } else if (shown.getWidth() == width && shown.getHeight() == height) {
+                g.drawImage(shown, 1, 1, null);
+            } else {
+                // Zoomed since it was rendered, scaled until the new rendering arrives
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(shown, 1, 1, width, height, null);
+                g2.dispose();
+            }
+            if (shown == null || imageDpi != renderDpi()) {
+                requestRender(this);
+            }
+            g.setColor(MATCH_COLOR);
+            for (Rectangle2D box : highlights) {
+                Rectangle r = toView(box);
+                g.fillRect(r.x, r.y, r.width, r.height);
+            }
+            if (current != null) {
+                g.setColor(CURRENT_COLOR);
+                Rectangle r = toView(current);
+                g.fillRect(r.x, r.y, r.width, r.height);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * QuickOpenDialog - Ctrl+P palette that fuzzy-matches file names under the explorer root
+ *
+ * Every keystroke queries the PathIndex directly on the EDT; the index is built for that.
+ * While the index is still being built the results are refreshed periodically.
+ */
+public class QuickOpenDialog extends JDialog {
+
+    private static final int MAX_RESULTS = 100;
+
+    private final PathIndex index;
+    private final Consumer<File> opener;
+    private final JTextField queryField;
+    private final DefaultListModel<PathIndex.Result> resultModel = new DefaultListModel<>();
+    private final JList<PathIndex.Result> resultList = new JList<>(resultModel);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final Timer refreshTimer;
+
+    public QuickOpenDialog(Frame owner, PathIndex index, Consumer<File> opener) {
+        super(owner, "Quick Open", true);
+        this.index = index;
+        this.opener = opener;
+
+        queryField = new JTextField();
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { updateResults(); }
+            public void removeUpdate(DocumentEvent e) { updateResults(); }
+            public void changedUpdate(DocumentEvent e) { updateResults(); }
+        });
+
+        // Arrow keys move through the results while typing, Enter opens, Escape closes
+        queryField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int size = resultModel.getSize();
+                int selected = resultList.getSelectedIndex();
+                if (e.getKeyCode() == KeyEvent.VK_DOWN && size > 0) {
+                    resultList.setSelectedIndex(Math.min(size - 1, selected + 1));
+                    resultList.ensureIndexIsVisible(resultList.getSelectedIndex());
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_UP && size > 0) {
+                    resultList.setSelectedIndex(Math.max(0, selected - 1));
+                    resultList.ensureIndexIsVisible(resultList.getSelectedIndex());
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    openSelected();
+                    e.consume();
+                }
+            }
+        });
+        getRootPane().registerKeyboardAction(e -> dispose(),
+            KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setCellRenderer(new ResultRenderer());
+        resultList.setFocusable(false);
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelected();
+                }
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(0, 4));
+        panel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        panel.add(queryField, BorderLayout.NORTH);
+        panel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(panel);
+        setSize(640, 420);
+
+        // Place it near the top of the editor, like a command palette
+        setLocationRelativeTo(owner);
+        if (owner != null) {
+            setLocation(getX(), owner.getY() + 80);
+        }
+
+        // Pick up files as they are indexed
+        refreshTimer = new Timer(300, e -> {
+            updateResults();
+            if (!index.isBuilding()) {
+                ((Timer) e.getSource()).stop();
+            }
+        });
+        if (index.isBuilding()) {
+            refreshTimer.start();
+        }
+
+        updateResults();
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        super.dispose();
+    }
+
+    private void updateResults() {
+        List<PathIndex.Result> results = index.search(queryField.getText(), MAX_RESULTS);
+        resultModel.clear();
+        for (PathIndex.Result result : results) {
+            resultModel.addElement(result);
+        }
+        if (!results.isEmpty()) {
+            resultList.setSelectedIndex(0);
+        }
+
+        if (index.getRoot() == null) {
+            statusLabel.setText("Select a directory in the File Explorer to index it");
+        } else if (index.isBuilding()) {
+            statusLabel.setText("Indexing... " + index.size() + " files");
+        } else {
+            statusLabel.setText(index.size() + " files in " + index.getRoot());
+        }
+    }
+
+    private void openSelected() {
+        PathIndex.Result result = resultList.getSelectedValue();
+        if (result == null) {
+            return;
+        }
+        dispose();
+        opener.accept(result.path.toFile());
+    }
+
+    /**
+     * Shows the file name first and its folder dimmed after it
+     */
+    private static class ResultRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            PathIndex.Result result = (PathIndex.Result) value;
+            String relative = result.relativePath;
+            int slash = relative.lastIndexOf('/');
+            String name = escape(relative.substring(slash + 1));
+            String folder = slash > 0 ? escape(relative.substring(0, slash)) : "";
+            setText("<html><b>" + name + "</b>&nbsp;&nbsp;<font color=gray>" + folder + "</font></html>");
+            return this;
+        }
+
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        }
+    }
+}
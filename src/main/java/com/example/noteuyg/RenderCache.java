@@ -0,0 +1,204 @@
+package com.example.noteuyg;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RenderCache - Persistent disk cache for rendered PDF pages and image previews
+ *
+ * Entries are PNG files named by a SHA-256 of the source path, size, modification time and a
+ * variant string (page number, DPI, ...), so an edited source simply stops hitting its old
+ * entries. The last-modified time of an entry is its LRU stamp; a background thread deletes
+ * the least recently used entries whenever the cache grows past its size cap.
+ */
+public class RenderCache {
+
+    private static final long DEFAULT_MAX_BYTES =
+        Long.getLong("notepad.renderCache.maxMB", 512) * 1024 * 1024;
+
+    private static RenderCache defaultCache;
+
+    private final File directory;
+    private final long maxBytes;
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicBoolean evictionQueued = new AtomicBoolean();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "render-cache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Shared cache in the app directory (~/.notepad/render-cache)
+     */
+    public static synchronized RenderCache getDefault() {
+        if (defaultCache == null) {
+            File dir = AppDirectory.resolve("render-cache").toFile();
+            defaultCache = new RenderCache(dir, DEFAULT_MAX_BYTES);
+        }
+        return defaultCache;
+    }
+
+    public RenderCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Warning: Could not create render cache directory: " + directory);
+        }
+
+        // Size up what earlier sessions left behind, off the EDT
+        worker.execute(() -> {
+            long total = 0;
+            for (File entry : listEntries()) {
+                total += entry.length();
+            }
+            totalBytes.addAndGet(total);
+            scheduleEviction();
+        });
+    }
+
+    /**
+     * Cached image for a source file, or null on a miss
+     */
+    public BufferedImage getImage(File source, String variant) {
+        File entry = entryFile(source, variant, ".png");
+        if (!entry.isFile()) {
+            return null;
+        }
+        try {
+            BufferedImage image = ImageIO.read(entry);
+            if (image != null) {
+                entry.setLastModified(System.currentTimeMillis()); // LRU stamp
+            }
+            return image;
+        } catch (IOException e) {
+            System.err.println("Warning: Dropping unreadable cache entry " + entry + ": " + e.getMessage());
+            remove(entry);
+            return null;
+        }
+    }
+
+    /**
+     * Store an image in the background (PNG compression happens off the caller's thread)
+     */
+    public void putImage(File source, String variant, BufferedImage image) {
+        File entry = entryFile(source, variant, ".png");
+        worker.execute(() -> {
+            try {
+                File temp = new File(directory, entry.getName() + ".tmp");
+                if (ImageIO.write(image, "png", temp)) {
+                    store(temp, entry);
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: Could not write render cache entry: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Small cached value for a source file (such as a page count), or null on a miss
+     */
+    public String getValue(File source, String name) {
+        File entry = entryFile(source, name, ".txt");
+        try {
+            return entry.isFile() ? new String(Files.readAllBytes(entry.toPath()), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void putValue(File source, String name, String value) {
+        File entry = entryFile(source, name, ".txt");
+        worker.execute(() -> {
+            try {
+                File temp = new File(directory, entry.getName() + ".tmp");
+                Files.write(temp.toPath(), value.getBytes(StandardCharsets.UTF_8));
+                store(temp, entry);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not write render cache entry: " + e.getMessage());
+            }
+        });
+    }
+
+    private void store(File temp, File entry) {
+        long previous = entry.length();
+        if (temp.renameTo(entry) || (entry.delete() && temp.renameTo(entry))) {
+            totalBytes.addAndGet(entry.length() - previous);
+            scheduleEviction();
+        } else {
+            temp.delete();
+        }
+    }
+
+    private void remove(File entry) {
+        long length = entry.length();
+        if (entry.delete()) {
+            totalBytes.addAndGet(-length);
+        }
+    }
+
+    private void scheduleEviction() {
+        if (totalBytes.get() > maxBytes && evictionQueued.compareAndSet(false, true)) {
+            worker.execute(this::evict);
+        }
+    }
+
+    /**
+     * Delete least recently used entries until the cache is back under 80% of its cap
+     */
+    private void evict() {
+        evictionQueued.set(false);
+        // Read every stamp once, a hit touching an entry mid-sort would break the sort's contract
+        File[] files = listEntries();
+        Stamped[] entries = new Stamped[files.length];
+        for (int i = 0; i < files.length; i++) {
+            entries[i] = new Stamped(files[i], files[i].lastModified());
+        }
+        Arrays.sort(entries, Comparator.comparingLong(Stamped::lastModified));
+        long target = maxBytes * 8 / 10;
+        for (Stamped entry : entries) {
+            if (totalBytes.get() <= target) {
+                break;
+            }
+            remove(entry.file());
+        }
+    }
+
+    private record Stamped(File file, long lastModified) {}
+
+    private File[] listEntries() {
+        File[] entries = directory.listFiles((dir, name) -> !name.endsWith(".tmp"));
+        return entries != null ? entries : new File[0];
+    }
+
+    private File entryFile(File source, String variant, String extension) {
+        String key = source.getAbsolutePath() + '\0' + source.length() + '\0' + source.lastModified() + '\0' + variant;
+        return new File(directory, sha256(key) + extension);
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 is always available
+        }
+    }
+}
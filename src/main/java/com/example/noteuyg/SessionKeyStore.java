@@ -0,0 +1,190 @@
+package com.example.noteuyg;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.swing.Timer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * SessionKeyStore - Derived AES keys of the encrypted files opened in this session
+ *
+ * PBKDF2 runs once per file; after that the tab can be saved again without asking for the
+ * password. Key material lives in direct (off-heap) buffers that are zeroed when the last tab
+ * of a file is closed or the key has not been used for a while. The file format is the one
+ * the editor always wrote: Base64 of AES/CBC with a fixed salt and an IV taken from the
+ * password hash.
+ */
+public final class SessionKeyStore {
+
+    /** Keys unused for this long are wiped (-Dnotepad.keys.idleMinutes) */
+    private static final long IDLE_MILLIS = Long.getLong("notepad.keys.idleMinutes", 15) * 60_000;
+
+    private static final byte[] SALT = "AdvancedEditor2026".getBytes(StandardCharsets.US_ASCII);
+    private static final int ITERATIONS = 65536;
+    private static final int KEY_BYTES = 32;
+    private static final int IV_BYTES = 16;
+
+    private static final SessionKeyStore INSTANCE = new SessionKeyStore();
+
+    /**
+     * Key and IV of one file, zeroed by wipe()
+     */
+    private static final class Entry {
+        final ByteBuffer material = ByteBuffer.allocateDirect(KEY_BYTES + IV_BYTES);
+        long lastUsed = System.currentTimeMillis();
+
+        void wipe() {
+            for (int i = 0; i < material.capacity(); i++) {
+                material.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private final Map<String, Entry> keys = new HashMap<>();
+    private Timer idleTimer;
+
+    public static SessionKeyStore get() {
+        return INSTANCE;
+    }
+
+    private SessionKeyStore() {
+    }
+
+    /**
+     * Derive the key for a file from its password and keep it for the session. The password
+     * array is cleared. Slow (PBKDF2), call it off the EDT.
+     */
+    public void derive(String path, char[] password) throws GeneralSecurityException {
+        Entry entry = new Entry();
+        byte[] key = null;
+        byte[] passwordBytes = null;
+        PBEKeySpec spec = new PBEKeySpec(password, SALT, ITERATIONS, KEY_BYTES * 8);
+        try {
+            SecretKey derived = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec);
+            key = derived.getEncoded();
+            entry.material.put(0, key);
+
+            // Same bytes String.getBytes() gave for the password when the file was written
+            ByteBuffer encoded = Charset.defaultCharset().encode(CharBuffer.wrap(password));
+            passwordBytes = new byte[encoded.remaining()];
+            encoded.get(passwordBytes);
+            wipe(encoded);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(passwordBytes);
+            entry.material.put(KEY_BYTES, hash, 0, IV_BYTES);
+            Arrays.fill(hash, (byte) 0);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(password, '\0');
+            if (key != null) {
+                Arrays.fill(key, (byte) 0);
+            }
+            if (passwordBytes != null) {
+                Arrays.fill(passwordBytes, (byte) 0);
+            }
+        }
+
+        synchronized (this) {
+            Entry previous = keys.put(path, entry);
+            if (previous != null) {
+                previous.wipe();
+            }
+        }
+        startIdleTimer();
+    }
+
+    /**
+     * Whether a key for the file is still held
+     */
+    public synchronized boolean hasKey(String path) {
+        return keys.containsKey(path);
+    }
+
+    /**
+     * Encrypt with the session key of a file, fails if the key has been wiped
+     */
+    public byte[] encrypt(String path, String plainText) throws GeneralSecurityException {
+        byte[] encrypted = apply(path, Cipher.ENCRYPT_MODE, plainText.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encode(encrypted);
+    }
+
+    /**
+     * Decrypt with the session key of a file, fails if the key has been wiped or does not fit
+     */
+    public String decrypt(String path, byte[] encryptedData) throws GeneralSecurityException {
+        byte[] decrypted = apply(path, Cipher.DECRYPT_MODE, Base64.getDecoder().decode(encryptedData));
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
+    private byte[] apply(String path, int mode, byte[] input) throws GeneralSecurityException {
+        byte[] key = new byte[KEY_BYTES];
+        byte[] iv = new byte[IV_BYTES];
+        synchronized (this) {
+            Entry entry = keys.get(path);
+            if (entry == null) {
+                throw new GeneralSecurityException("The key for " + path + " is no longer available");
+            }
+            entry.material.get(0, key);
+            entry.material.get(KEY_BYTES, iv);
+            entry.lastUsed = System.currentTimeMillis();
+        }
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(mode, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+            return cipher.doFinal(input);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+            Arrays.fill(iv, (byte) 0);
+        }
+    }
+
+    /**
+     * Zero and forget the key of a file
+     */
+    public synchronized void remove(String path) {
+        Entry entry = keys.remove(path);
+        if (entry != null) {
+            entry.wipe();
+        }
+    }
+
+    /**
+     * Zero every key that has not been used within the idle timeout
+     */
+    public synchronized void wipeIdle() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> it = keys.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (now - entry.lastUsed >= IDLE_MILLIS) {
+                entry.wipe();
+                it.remove();
+            }
+        }
+    }
+
+    private synchronized void startIdleTimer() {
+        if (idleTimer == null) {
+            idleTimer = new Timer((int) Math.min(IDLE_MILLIS / 4 + 1, 60_000), e -> wipeIdle());
+            idleTimer.start();
+        }
+    }
+
+    private static void wipe(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            Arrays.fill(buffer.array(), (byte) 0);
+        }
+    }
+}
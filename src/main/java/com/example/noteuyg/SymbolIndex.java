@@ -0,0 +1,379 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SymbolIndex - Classes, methods and functions declared in a Java, Python or JavaScript document
+ *
+ * Declarations are found line by line with a few regexes, first in a background pass over the
+ * document's lines and then, after each edit, only on the lines the DocumentEvent touched.
+ * Symbols hold a Position, so edits elsewhere move them without a rescan. Nesting is taken from
+ * indentation, which is how these files are laid out in practice.
+ *
+ * Symbols of an unmodified file are cached by path, size and CRC, so reopening it skips the scan.
+ */
+public class SymbolIndex {
+
+    /** A declaration, at the start of its line */
+    public static final class Symbol {
+        private final Position position;
+        private final String name;
+        private final String kind;
+        private final int indent;
+
+        Symbol(Position position, String name, String kind, int indent) {
+            this.position = position;
+            this.name = name;
+            this.kind = kind;
+            this.indent = indent;
+        }
+
+        public int getOffset() {
+            return position.getOffset();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** class, interface, enum, record, method, function or def */
+        public String getKind() {
+            return kind;
+        }
+
+        public int getIndent() {
+            return indent;
+        }
+    }
+
+    /** Symbol of a cached file, by line since its Positions belonged to a closed document */
+    private record CachedSymbol(int line, String name, String kind, int indent) {}
+
+    private static final int CACHE_FILES = 32;
+    private static final Map<String, List<CachedSymbol>> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<CachedSymbol>> eldest) {
+            return size() > CACHE_FILES;
+        }
+    };
+
+    private static final int CHUNK_LINES = 16 * 1024;
+    private static final int INLINE_LINES = 1024;
+    private static final int SCAN_CHARS = 400;
+
+    private static final String JAVA_MODIFIERS =
+        "(?:(?:public|protected|private|abstract|static|final|sealed|non-sealed|strictfp|synchronized|native|default)\\s+)*";
+    private static final Pattern JAVA_TYPE = Pattern.compile(
+        "^\\s*(?:@\\w+(?:\\([^)]*\\))?\\s+)*" + JAVA_MODIFIERS + "(class|interface|enum|record|@interface)\\s+(\\w+)");
+    private static final Pattern JAVA_METHOD = Pattern.compile(
+        "^\\s*(?:@\\w+(?:\\([^)]*\\))?\\s+)*" + JAVA_MODIFIERS
+            + "(?:<[^>]*>\\s+)?([\\w.$]+(?:<[^()]*>)?(?:\\[\\])*)\\s+(\\w+)\\s*\\([^;]*$");
+    private static final Pattern PYTHON_DEF = Pattern.compile("^\\s*(?:async\\s+)?(def|class)\\s+(\\w+)");
+    private static final Pattern JS_FUNCTION = Pattern.compile(
+        "^\\s*(?:export\\s+)?(?:default\\s+)?(?:async\\s+)?function\\s*\\*?\\s*(\\w+)");
+    private static final Pattern JS_CLASS = Pattern.compile("^\\s*(?:export\\s+)?(?:default\\s+)?class\\s+(\\w+)");
+    private static final Pattern JS_ARROW = Pattern.compile(
+        "^\\s*(?:export\\s+)?(?:const|let|var)\\s+(\\w+)\\s*=\\s*(?:async\\s+)?(?:function\\b|\\([^)]*\\)\\s*=>|\\w+\\s*=>)");
+    private static final Pattern JS_METHOD = Pattern.compile(
+        "^\\s+(?:static\\s+)?(?:async\\s+)?(?:get\\s+|set\\s+)?(\\w+)\\s*\\([^)]*\\)\\s*\\{\\s*$");
+    private static final java.util.Set<String> NOT_NAMES = java.util.Set.of(
+        "if", "for", "while", "switch", "catch", "return", "new", "throw", "else", "case", "do", "try",
+        "synchronized", "function", "super", "this");
+
+    private final Document document;
+    private final String syntaxStyle;
+    private final IoScope ioScope = new IoScope();
+    private final List<Symbol> symbols = new ArrayList<>();  // Sorted by offset, guarded by itself
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final Segment inlineSegment = new Segment();
+    private final DocumentListener documentListener;
+    private final String cacheKey;
+    private volatile int validLines = 0;
+    private boolean edited = false;
+    private boolean running = false;
+    private boolean disposed = false;
+
+    /**
+     * Whether declarations of this syntax style can be listed
+     */
+    public static boolean supports(String syntaxStyle) {
+        return SyntaxConstants.SYNTAX_STYLE_JAVA.equals(syntaxStyle)
+            || SyntaxConstants.SYNTAX_STYLE_PYTHON.equals(syntaxStyle)
+            || SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT.equals(syntaxStyle);
+    }
+
+    /**
+     * Index a document, cacheKey identifies its file content (null if it does not match a file)
+     */
+    public SymbolIndex(Document document, String syntaxStyle, String cacheKey) {
+        this.document = document;
+        this.syntaxStyle = syntaxStyle;
+        this.cacheKey = cacheKey;
+        documentListener = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { linesChanged(e); }
+            public void removeUpdate(DocumentEvent e) { linesChanged(e); }
+            public void changedUpdate(DocumentEvent e) { }
+        };
+        document.addDocumentListener(documentListener);
+
+        List<CachedSymbol> cached = cacheKey != null ? cached(cacheKey) : null;
+        if (cached != null) {
+            Element root = document.getDefaultRootElement();
+            for (CachedSymbol symbol : cached) {
+                if (symbol.line() < root.getElementCount()) {
+                    addSymbol(root.getElement(symbol.line()).getStartOffset(), symbol.name(), symbol.kind(), symbol.indent());
+                }
+            }
+            validLines = root.getElementCount();
+        } else {
+            schedule();
+        }
+    }
+
+    public String getSyntaxStyle() {
+        return syntaxStyle;
+    }
+
+    public boolean isComplete() {
+        return validLines >= document.getDefaultRootElement().getElementCount();
+    }
+
+    /**
+     * The symbols found so far, in document order
+     */
+    public List<Symbol> getSymbols() {
+        synchronized (symbols) {
+            return new ArrayList<>(symbols);
+        }
+    }
+
+    /** Run on the EDT whenever symbols were added, removed or rescanned */
+    public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Keep the symbols for the next time the same file content is opened
+     */
+    public void storeInCache(String key) {
+        if (key == null || !isComplete()) {
+            return;
+        }
+        Element root = document.getDefaultRootElement();
+        List<CachedSymbol> cached = new ArrayList<>();
+        for (Symbol symbol : getSymbols()) {
+            cached.add(new CachedSymbol(root.getElementIndex(symbol.getOffset()), symbol.name, symbol.kind, symbol.indent));
+        }
+        synchronized (CACHE) {
+            CACHE.put(key, Collections.unmodifiableList(cached));
+        }
+    }
+
+    public void dispose() {
+        disposed = true;
+        ioScope.close();
+        document.removeDocumentListener(documentListener);
+    }
+
+    private static List<CachedSymbol> cached(String key) {
+        synchronized (CACHE) {
+            return CACHE.get(key);
+        }
+    }
+
+    private void fireChanged() {
+        if (disposed) {
+            return;
+        }
+        for (Runnable listener : new ArrayList<>(listeners)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Scan the lines past validLines in the background, one read lock per chunk
+     */
+    private void schedule() {
+        if (running || disposed) {
+            return;
+        }
+        running = true;
+        IoExecutor.get().task("Index symbols", () -> {
+            Segment segment = new Segment();
+            boolean[] more = {true};
+            while (more[0]) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                document.render(() -> {
+                    Element root = document.getDefaultRootElement();
+                    int lines = root.getElementCount();
+                    int end = Math.min(lines, validLines + CHUNK_LINES);
+                    for (int i = validLines; i < end; i++) {
+                        scanLine(root, i, segment);
+                    }
+                    validLines = end;
+                    more[0] = end < lines;
+                });
+                EdtDispatcher.get().dispatchLatest(this, this::fireChanged);
+            }
+            return null;
+        }).heavy().in(ioScope).onSuccess(ignored -> {
+            running = false;
+            if (!isComplete()) {
+                schedule();
+            } else if (!edited) {
+                storeInCache(cacheKey);
+            }
+        }).onFailure(e -> running = false).start();
+    }
+
+    /**
+     * Drop the symbols of the touched lines and scan them again.
+     * Called under the document's write lock, so the worker cannot be reading at the same time.
+     */
+    private void linesChanged(DocumentEvent e) {
+        edited = true;
+        Element root = document.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int first;
+        int count;
+        if (change == null) {
+            first = root.getElementIndex(e.getOffset());
+            count = 1;
+        } else {
+            first = change.getIndex();
+            count = change.getChildrenAdded().length;
+            int removed = change.getChildrenRemoved().length;
+            if (validLines > first + removed) {
+                validLines += count - removed;
+            } else {
+                validLines = Math.min(validLines, first);
+            }
+        }
+
+        if (first < validLines && count > INLINE_LINES) {
+            validLines = first;  // Large paste, the worker rescans from here
+        }
+        if (first >= validLines) {
+            removeSymbols(root.getElement(Math.min(validLines, root.getElementCount() - 1)).getStartOffset(),
+                Integer.MAX_VALUE);
+            schedule();
+        } else {
+            int last = Math.min(first + count, validLines) - 1;
+            removeSymbols(root.getElement(first).getStartOffset(), root.getElement(last).getEndOffset());
+            for (int i = first; i <= last; i++) {
+                scanLine(root, i, inlineSegment);
+            }
+        }
+        EdtDispatcher.get().dispatchLatest(this, this::fireChanged);
+    }
+
+    private void removeSymbols(int start, int end) {
+        synchronized (symbols) {
+            int from = firstAtOrAfter(start);
+            int to = from;
+            while (to < symbols.size() && symbols.get(to).getOffset() < end) {
+                to++;
+            }
+            symbols.subList(from, to).clear();
+        }
+    }
+
+    private int firstAtOrAfter(int offset) {
+        int low = 0;
+        int high = symbols.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (symbols.get(mid).getOffset() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addSymbol(int offset, String name, String kind, int indent) {
+        try {
+            Symbol symbol = new Symbol(document.createPosition(offset), name, kind, indent);
+            synchronized (symbols) {
+                symbols.add(firstAtOrAfter(offset), symbol);
+            }
+        } catch (BadLocationException e) {
+            // Offsets come from the line elements
+        }
+    }
+
+    private void scanLine(Element root, int line, Segment segment) {
+        Element element = root.getElement(line);
+        int start = element.getStartOffset();
+        int length = Math.min(Math.min(element.getEndOffset(), document.getLength()) - start, SCAN_CHARS);
+        if (length <= 0) {
+            return;
+        }
+        try {
+            document.getText(start, length, segment);
+        } catch (BadLocationException e) {
+            return;
+        }
+
+        // Most lines are statements, skip those that cannot start a declaration
+        int indent = 0;
+        int i = segment.offset;
+        int end = segment.offset + segment.count;
+        while (i < end && (segment.array[i] == ' ' || segment.array[i] == '\t')) {
+            indent += segment.array[i] == '\t' ? 4 : 1;
+            i++;
+        }
+        if (i == end || !(Character.isLetter(segment.array[i]) || segment.array[i] == '@')) {
+            return;
+        }
+
+        String text = segment.toString().stripTrailing();
+        if (SyntaxConstants.SYNTAX_STYLE_JAVA.equals(syntaxStyle)) {
+            Matcher type = JAVA_TYPE.matcher(text);
+            if (type.find()) {
+                addSymbol(start, type.group(2), type.group(1).replace("@", ""), indent);
+                return;
+            }
+            Matcher method = JAVA_METHOD.matcher(text);
+            if (method.find() && !NOT_NAMES.contains(method.group(1)) && !NOT_NAMES.contains(method.group(2))) {
+                addSymbol(start, method.group(2), "method", indent);
+            }
+        } else if (SyntaxConstants.SYNTAX_STYLE_PYTHON.equals(syntaxStyle)) {
+            Matcher def = PYTHON_DEF.matcher(text);
+            if (def.find()) {
+                addSymbol(start, def.group(2), def.group(1), indent);
+            }
+        } else {
+            Matcher matcher;
+            if ((matcher = JS_CLASS.matcher(text)).find()) {
+                addSymbol(start, matcher.group(1), "class", indent);
+            } else if ((matcher = JS_FUNCTION.matcher(text)).find() || (matcher = JS_ARROW.matcher(text)).find()) {
+                addSymbol(start, matcher.group(1), "function", indent);
+            } else if ((matcher = JS_METHOD.matcher(text)).find() && !NOT_NAMES.contains(matcher.group(1))) {
+                addSymbol(start, matcher.group(1), "method", indent);
+            }
+        }
+    }
+}
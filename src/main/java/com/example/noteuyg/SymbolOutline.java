@@ -0,0 +1,130 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * SymbolOutline - Side panel listing the symbols of the current tab as a tree
+ *
+ * The tree is rebuilt from a SymbolIndex snapshot, at most a few times per second while the
+ * index is changing. Selecting a symbol jumps to its line.
+ */
+public class SymbolOutline extends JPanel {
+
+    // Beyond this many symbols the tree starts collapsed
+    private static final int EXPAND_LIMIT = 2000;
+
+    private final DefaultTreeModel model = new DefaultTreeModel(new DefaultMutableTreeNode());
+    private final JTree tree = new JTree(model);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final Timer rebuildTimer = new Timer(300, e -> rebuild());
+    private final Runnable changeListener = rebuildTimer::restart;
+    private SymbolIndex index;
+    private boolean rebuilding = false;
+
+    public SymbolOutline(IntConsumer jumpToOffset) {
+        super(new BorderLayout());
+        rebuildTimer.setRepeats(false);
+
+        tree.setRootVisible(false);
+        tree.setShowsRootHandles(true);
+        tree.setCellRenderer(new SymbolRenderer());
+        tree.getSelectionModel().setSelectionMode(javax.swing.tree.TreeSelectionModel.SINGLE_TREE_SELECTION);
+        tree.addTreeSelectionListener(e -> {
+            if (rebuilding) {
+                return;
+            }
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
+            if (node != null && node.getUserObject() instanceof SymbolIndex.Symbol) {
+                jumpToOffset.accept(((SymbolIndex.Symbol) node.getUserObject()).getOffset());
+            }
+        });
+
+        add(new JLabel(" Outline"), BorderLayout.NORTH);
+        add(new JScrollPane(tree), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(260, 0));
+    }
+
+    /**
+     * Show the symbols of another index, null for a tab without an outline
+     */
+    public void setIndex(SymbolIndex index) {
+        if (index == this.index) {
+            return;
+        }
+        if (this.index != null) {
+            this.index.removeChangeListener(changeListener);
+        }
+        this.index = index;
+        if (index != null) {
+            index.addChangeListener(changeListener);
+        }
+        rebuildTimer.stop();
+        rebuild();
+    }
+
+    public SymbolIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Nest each symbol under the closest symbol above it with a smaller indent
+     */
+    private void rebuild() {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+        List<SymbolIndex.Symbol> symbols = index != null ? index.getSymbols() : List.of();
+        Deque<DefaultMutableTreeNode> open = new ArrayDeque<>();
+        for (SymbolIndex.Symbol symbol : symbols) {
+            while (!open.isEmpty()
+                    && ((SymbolIndex.Symbol) open.peek().getUserObject()).getIndent() >= symbol.getIndent()) {
+                open.pop();
+            }
+            DefaultMutableTreeNode node = new DefaultMutableTreeNode(symbol);
+            (open.isEmpty() ? root : open.peek()).add(node);
+            open.push(node);
+        }
+
+        rebuilding = true;
+        try {
+            model.setRoot(root);
+            if (symbols.size() <= EXPAND_LIMIT) {
+                for (int row = 0; row < tree.getRowCount(); row++) {
+                    tree.expandRow(row);
+                }
+            } else {
+                for (int i = 0; i < root.getChildCount(); i++) {
+                    tree.expandPath(new TreePath(((DefaultMutableTreeNode) root.getChildAt(i)).getPath()));
+                }
+            }
+        } finally {
+            rebuilding = false;
+        }
+
+        if (index == null) {
+            statusLabel.setText(" No outline for this file");
+        } else {
+            statusLabel.setText(String.format(" %,d symbols%s", symbols.size(), index.isComplete() ? "" : ", scanning..."));
+        }
+    }
+
+    private static class SymbolRenderer extends DefaultTreeCellRenderer {
+        @Override
+        public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+                                                      boolean leaf, int row, boolean hasFocus) {
+            Object object = ((DefaultMutableTreeNode) value).getUserObject();
+            String text = object instanceof SymbolIndex.Symbol
+                ? ((SymbolIndex.Symbol) object).getName() + "  (" + ((SymbolIndex.Symbol) object).getKind() + ")"
+                : "";
+            return super.getTreeCellRendererComponent(tree, text, selected, expanded, leaf, row, hasFocus);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.noteuyg;
+
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+
+import javax.swing.text.Document;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterAbortException;
+import java.awt.print.PrinterException;
+import java.util.List;
+
+/**
+ * TextPrintable - Prints a document with line numbers and syntax colors
+ *
+ * The printer system asks for pages by index, usually in order and often twice each, so the
+ * last page is kept and the next one is laid out on demand. Going back restarts the layout.
+ */
+public class TextPrintable implements Printable {
+
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 9);
+    private static final int NUMBER_COLUMNS = 7;
+    private static final Color NUMBER_COLOR = new Color(150, 150, 150);
+
+    private final Document document;
+    private final String syntaxStyle;
+    private final SyntaxScheme scheme;
+    private final int tabSize;
+    private final String title;
+    private volatile PageLayout layout;
+    private List<PageLayout.Row> page;
+    private int pageIndex = -1;
+    private float charWidth;
+    private float leading;
+
+    public TextPrintable(Document document, String syntaxStyle, SyntaxScheme scheme, int tabSize, String title) {
+        this.document = document;
+        this.syntaxStyle = syntaxStyle;
+        this.scheme = scheme;
+        this.tabSize = tabSize;
+        this.title = title;
+    }
+
+    /**
+     * Lines printed so far, for progress
+     */
+    public int getLinesDone() {
+        PageLayout current = layout;
+        return current != null ? current.getLinesDone() : 0;
+    }
+
+    @Override
+    public int print(Graphics graphics, PageFormat format, int index) throws PrinterException {
+        try {
+            if (layout == null || index < pageIndex) {
+                FontRenderContext context = new FontRenderContext(null, true, true);
+                charWidth = (float) FONT.getStringBounds("M", context).getWidth();
+                leading = FONT.getSize2D() * 1.25f;
+                int columns = (int) (format.getImageableWidth() / charWidth) - NUMBER_COLUMNS;
+                int rows = (int) (format.getImageableHeight() / leading) - 2;  // Header and a gap
+                layout = new PageLayout(document, syntaxStyle, scheme, columns, rows, tabSize);
+                pageIndex = -1;
+                page = null;
+            }
+            while (pageIndex < index) {
+                page = layout.nextPage();
+                pageIndex++;
+                if (page == null) {
+                    return NO_SUCH_PAGE;
+                }
+            }
+            if (page == null) {
+                return NO_SUCH_PAGE;  // Asked again for the page after the last
+            }
+            return drawPage(graphics, format, page, index);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrinterAbortException();
+        }
+    }
+
+    private int drawPage(Graphics graphics, PageFormat format, List<PageLayout.Row> rows, int index) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.translate(format.getImageableX(), format.getImageableY());
+            g.setFont(FONT);
+            float ascent = g.getFontMetrics().getAscent();
+
+            g.setColor(NUMBER_COLOR);
+            g.drawString(title + "  -  page " + (index + 1), 0, ascent);
+            float y = ascent + 2 * leading;
+            for (PageLayout.Row row : rows) {
+                if (row.line() >= 0) {
+                    g.setColor(NUMBER_COLOR);
+                    g.drawString(String.format("%6d", row.line() + 1), 0, y);
+                }
+                float x = NUMBER_COLUMNS * charWidth;
+                for (PageLayout.Run run : row.runs()) {
+                    if (!run.text().isBlank()) {
+                        g.setColor(run.color() != null ? run.color() : Color.BLACK);
+                        g.drawString(run.text(), x, y);
+                    }
+                    x += run.text().length() * charWidth;
+                }
+                y += leading;
+            }
+        } finally {
+            g.dispose();
+        }
+        return PAGE_EXISTS;
+    }
+}
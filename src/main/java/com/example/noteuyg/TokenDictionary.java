@@ -0,0 +1,103 @@
+package com.example.noteuyg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * TokenDictionary - Words of all open documents, for completion
+ *
+ * Every distinct word gets an id and a count of the lines holding it across all documents.
+ * DocumentTokens adds and removes the words of the lines an edit touched, so the dictionary
+ * is never rebuilt. Words with a count are kept in a sorted set, and completing a prefix is
+ * a seek into that set followed by reading at most the requested number of words, which
+ * does not depend on how many documents are open.
+ */
+public final class TokenDictionary {
+
+    private static final TokenDictionary INSTANCE = new TokenDictionary();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final TreeSet<String> words = new TreeSet<>();
+    private final List<Integer> freeIds = new ArrayList<>();
+    private String[] names = new String[1024];
+    private int[] counts = new int[1024];
+    private int nextId = 0;
+
+    public static TokenDictionary get() {
+        return INSTANCE;
+    }
+
+    private TokenDictionary() {
+    }
+
+    /**
+     * Count one more occurrence of each word, returns their ids for release
+     */
+    public synchronized int[] acquire(List<String> tokens) {
+        int[] result = new int[tokens.size()];
+        for (int i = 0; i < result.length; i++) {
+            String token = tokens.get(i);
+            Integer id = ids.get(token);
+            if (id == null) {
+                id = newId(token);
+            }
+            if (counts[id]++ == 0) {
+                words.add(token);
+            }
+            result[i] = id;
+        }
+        return result;
+    }
+
+    /**
+     * Forget one occurrence of each word, words nobody holds any more are dropped
+     */
+    public synchronized void release(int[] tokenIds) {
+        for (int id : tokenIds) {
+            if (--counts[id] == 0) {
+                words.remove(names[id]);
+                ids.remove(names[id]);
+                names[id] = null;
+                freeIds.add(id);
+            }
+        }
+    }
+
+    /**
+     * Words starting with the prefix in sorted order, without the prefix itself
+     */
+    public synchronized List<String> complete(String prefix, int max) {
+        List<String> result = new ArrayList<>();
+        for (String word : words.tailSet(prefix, false)) {
+            if (!word.startsWith(prefix) || result.size() == max) {
+                break;
+            }
+            result.add(word);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return words.size();
+    }
+
+    private int newId(String token) {
+        int id;
+        if (!freeIds.isEmpty()) {
+            id = freeIds.remove(freeIds.size() - 1);
+        } else {
+            if (nextId == names.length) {
+                names = Arrays.copyOf(names, nextId * 2);
+                counts = Arrays.copyOf(counts, nextId * 2);
+            }
+            id = nextId++;
+        }
+        names[id] = token;
+        ids.put(token, id);
+        return id;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.noteuyg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * UndoSpillStore - Compressed on-disk stack of old undo records
+ *
+ * Batches of records are deflated and appended to a temp file by a background thread. Batches
+ * are only ever taken back from the end (undo walks history newest first), so the file is
+ * simply truncated when a batch is loaded again.
+ */
+class UndoSpillStore {
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "undo-spill-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<long[]> segments = new ArrayList<>(); // {offset, length}
+    private File file;
+    private RandomAccessFile raf;
+    private Future<?> lastWrite;
+    private int pendingBatches = 0;
+
+    /**
+     * Check if no records are stored (including batches still being written)
+     */
+    synchronized boolean isEmpty() {
+        return segments.isEmpty() && pendingBatches == 0;
+    }
+
+    /**
+     * Queue a batch of records (oldest first) to be compressed and appended to the file
+     */
+    synchronized void push(List<BoundedUndoManager.UndoRecord> batch) {
+        pendingBatches++;
+        lastWrite = WRITER.submit(() -> {
+            try {
+                byte[] data = compress(batch);
+                synchronized (this) {
+                    ensureOpen();
+                    long offset = raf.length();
+                    raf.seek(offset);
+                    raf.write(data);
+                    segments.add(new long[] {offset, data.length});
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: Could not spill undo history: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    pendingBatches--;
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove and return the newest batch (oldest record first)
+     */
+    List<BoundedUndoManager.UndoRecord> popNewest() {
+        awaitWrites();
+        synchronized (this) {
+            if (segments.isEmpty()) {
+                return new ArrayList<>();
+            }
+            long[] segment = segments.remove(segments.size() - 1);
+            try {
+                byte[] data = new byte[(int) segment[1]];
+                raf.seek(segment[0]);
+                raf.readFully(data);
+                raf.setLength(segment[0]);
+                return decompress(data);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not read spilled undo history: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Drop everything stored so far
+     */
+    void clear() {
+        awaitWrites();
+        synchronized (this) {
+            segments.clear();
+            try {
+                if (raf != null) {
+                    raf.setLength(0);
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: Could not clear undo spill file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delete the spill file
+     */
+    void close() {
+        clear();
+        synchronized (this) {
+            try {
+                if (raf != null) {
+                    raf.close();
+                }
+            } catch (IOException e) {
+                // Ignore close errors
+            }
+            if (file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+            raf = null;
+            file = null;
+        }
+    }
+
+    private void awaitWrites() {
+        Future<?> write;
+        synchronized (this) {
+            write = lastWrite;
+        }
+        if (write != null) {
+            try {
+                write.get();
+            } catch (Exception e) {
+                // Reported by the writer itself
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (raf == null) {
+            file = File.createTempFile("notepad-undo", ".bin");
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+        }
+    }
+
+    private static byte[] compress(List<BoundedUndoManager.UndoRecord> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 64 * 1024))) {
+            out.writeInt(batch.size());
+            for (BoundedUndoManager.UndoRecord record : batch) {
+                out.writeLong(record.lastChange);
+                out.writeInt(record.ops.size());
+                for (BoundedUndoManager.TextOp op : record.ops) {
+                    out.writeInt(op.offset);
+                    out.writeInt(op.insertedLength);
+                    byte[] removed = op.removed.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(removed.length);
+                    out.write(removed);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<BoundedUndoManager.UndoRecord> decompress(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int count = in.readInt();
+            List<BoundedUndoManager.UndoRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BoundedUndoManager.UndoRecord record = new BoundedUndoManager.UndoRecord();
+                record.lastChange = in.readLong();
+                int ops = in.readInt();
+                for (int j = 0; j < ops; j++) {
+                    int offset = in.readInt();
+                    int insertedLength = in.readInt();
+                    byte[] removed = new byte[in.readInt()];
+                    in.readFully(removed);
+                    record.add(new BoundedUndoManager.TextOp(offset, new String(removed, StandardCharsets.UTF_8),
+                        insertedLength, null));
+                }
+                records.add(record);
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,789 @@
+package com.example.noteuyg;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * WorkspaceReplace - Find and replace across every file below the explorer root
+ *
+ * A few workers scan the files in parallel. Small files are read into a buffer each worker
+ * reuses, large ones are memory-mapped, and a plain-text query is first looked for in the raw
+ * bytes so the many files without a hit are never decoded. Files open in a tab are searched
+ * and changed through their Document, to be saved by the user as usual. Every other file is
+ * rewritten by streaming its unchanged parts and the replacements into a temporary file next
+ * to it, which is then moved over the original. The original is kept in a backup directory,
+ * so the whole batch can be undone.
+ */
+public class WorkspaceReplace {
+
+    /** Larger files are skipped */
+    private static final long MAX_FILE_BYTES = 64L * 1024 * 1024;
+
+    /** Files from this size on are memory-mapped instead of read */
+    private static final int MAP_MIN_BYTES = 1024 * 1024;
+
+    /** A NUL byte among the first this many bytes marks a binary file */
+    private static final int BINARY_PROBE_BYTES = 8000;
+
+    private static final int WORKERS = 4;
+    private static final int MAX_PREVIEW_MATCHES = 1000;
+    private static final int MAX_PREVIEW_CHARS = 160;
+
+    /**
+     * What to look for and what to put instead, files is a comma separated list of name globs
+     */
+    public record Query(String find, String replace, boolean regex, boolean matchCase, boolean wholeWord,
+                        String files) {
+
+        /**
+         * Compile the query, throws PatternSyntaxException for an invalid regular expression
+         */
+        Pattern compile() {
+            String expression = regex ? find : Pattern.quote(find);
+            if (wholeWord) {
+                expression = "\\b(?:" + expression + ")\\b";
+            }
+            int flags = Pattern.MULTILINE;
+            if (!matchCase) {
+                // ASCII-only queries fold ASCII case only, which the byte prefilter relies on
+                flags |= Pattern.CASE_INSENSITIVE | (isAscii(find) ? 0 : Pattern.UNICODE_CASE);
+            }
+            return Pattern.compile(expression, flags);
+        }
+    }
+
+    /**
+     * One match for the preview, column and length are within lineText
+     */
+    public record Match(int line, String lineText, int column, int length, String replacement) {}
+
+    /**
+     * A file with matches
+     */
+    public static final class FileResult {
+        private final Path path;
+        private final String relativePath;
+        private final EditorTextArea editor;
+        private final long size;
+        private final long lastModified;
+        private final int[] starts;
+        private final List<Match> preview;
+        private boolean selected = true;
+
+        FileResult(Path path, String relativePath, EditorTextArea editor, long size, long lastModified,
+                   int[] starts, List<Match> preview) {
+            this.path = path;
+            this.relativePath = relativePath;
+            this.editor = editor;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.starts = starts;
+            this.preview = preview;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        /**
+         * The editor the file is open in, null if it is changed on disk
+         */
+        public EditorTextArea getEditor() {
+            return editor;
+        }
+
+        public int getMatchCount() {
+            return starts.length;
+        }
+
+        /**
+         * The first matches, with their lines
+         */
+        public List<Match> getPreview() {
+            return preview;
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        public void setSelected(boolean selected) {
+            this.selected = selected;
+        }
+    }
+
+    /**
+     * Receives results while scanning, called from the worker threads
+     */
+    public interface Listener {
+        void fileMatched(FileResult result);
+
+        void progress(int scanned, int total);
+    }
+
+    /**
+     * The changes of one replace, enough to undo them
+     */
+    public static final class Batch {
+        private final boolean dryRun;
+        private final List<FileChange> files = Collections.synchronizedList(new ArrayList<>());
+        private final List<EditorChange> editors = new ArrayList<>();
+        private final List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger replacements = new AtomicInteger();
+        private final AtomicInteger changedFiles = new AtomicInteger();
+        private int changedEditors = 0;
+        private Path backupDirectory;
+        private int backupCount = 0;
+
+        Batch(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        public int getReplacementCount() {
+            return replacements.get();
+        }
+
+        /**
+         * Files changed (or that would be changed) on disk
+         */
+        public int getFileCount() {
+            return changedFiles.get();
+        }
+
+        /**
+         * Open tabs changed (or that would be changed)
+         */
+        public int getEditorCount() {
+            return changedEditors;
+        }
+
+        /**
+         * Files left alone, each with the reason
+         */
+        public List<String> getSkipped() {
+            synchronized (skipped) {
+                return new ArrayList<>(skipped);
+            }
+        }
+
+        private synchronized Path newBackup() throws IOException {
+            if (backupDirectory == null) {
+                backupDirectory = Files.createTempDirectory("notepad-replace");
+                backupDirectory.toFile().deleteOnExit();
+            }
+            Path backup = backupDirectory.resolve(backupCount++ + ".bak");
+            backup.toFile().deleteOnExit();
+            return backup;
+        }
+
+        /**
+         * Put back the files written by this batch, except those changed since; off the EDT
+         */
+        public void undoFiles() {
+            List<FileChange> changes;
+            synchronized (files) {
+                changes = new ArrayList<>(files);
+            }
+            for (FileChange change : changes) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(change.path, BasicFileAttributes.class);
+                    if (attributes.size() != change.size
+                            || attributes.lastModifiedTime().toMillis() != change.lastModified) {
+                        skipped.add(change.path + ": changed since the replace");
+                        continue;
+                    }
+                    Path temp = Files.createTempFile(change.path.toAbsolutePath().getParent(),
+                        change.path.getFileName().toString(), ".tmp");
+                    try {
+                        Files.copy(change.backup, temp, StandardCopyOption.REPLACE_EXISTING);
+                        AtomicFiles.copyPermissions(change.path, temp);
+                        AtomicFiles.moveOver(temp, change.path);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                } catch (IOException e) {
+                    skipped.add(change.path + ": " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Put back the text of the tabs changed by this batch, except those edited since; on the EDT
+         */
+        public void undoEditors() {
+            for (EditorChange change : editors) {
+                try {
+                    if (!change.isUnchanged()) {
+                        skipped.add(change.path + ": edited since the replace");
+                        continue;
+                    }
+                    change.editor.replaceAll(change.starts, change.ends, change.originals);
+                } catch (BadLocationException e) {
+                    skipped.add(change.path + ": " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Delete the backups, the batch cannot be undone afterwards
+         */
+        public void discard() {
+            synchronized (files) {
+                for (FileChange change : files) {
+                    try {
+                        Files.deleteIfExists(change.backup);
+                    } catch (IOException e) {
+                        // Deleted on exit
+                    }
+                }
+                files.clear();
+            }
+            editors.clear();
+            if (backupDirectory != null) {
+                try {
+                    Files.deleteIfExists(backupDirectory);
+                } catch (IOException e) {
+                    // Deleted on exit
+                }
+            }
+        }
+    }
+
+    /** A rewritten file, size and lastModified as written */
+    private record FileChange(Path path, Path backup, long size, long lastModified) {}
+
+    /** A changed tab, ranges are where the replacements are now */
+    private record EditorChange(Path path, EditorTextArea editor, int[] starts, int[] ends, String[] texts,
+                                String[] originals, int length) {
+
+        boolean isUnchanged() throws BadLocationException {
+            Document document = editor.getDocument();
+            if (!editor.isDisplayable() || document.getLength() != length) {
+                return false;
+            }
+            for (int i = 0; i < starts.length; i++) {
+                if (!texts[i].equals(document.getText(starts[i], ends[i] - starts[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** All matches of a text, with their replacements */
+    private static final class Matches {
+        int count = 0;
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        String[] replacements = new String[16];
+
+        void add(int start, int end, String replacement) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                replacements = Arrays.copyOf(replacements, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            replacements[count] = replacement;
+            count++;
+        }
+    }
+
+    /** Read and decode buffers of one worker */
+    private static final class Buffers {
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+        CharBuffer chars = CharBuffer.allocate(64 * 1024);
+    }
+
+    /** Work on one file of a parallel pass */
+    private interface FileWork {
+        void run(int index, Buffers buffers);
+    }
+
+    private final Path root;
+    private final Pattern pattern;
+    private final String constantReplacement;
+    private final String replacement;
+    private final byte[] needle;
+    private final boolean needleIgnoresCase;
+    private final PathMatcher fileFilter;
+    private final Map<Path, EditorTextArea> openFiles;
+    private final AtomicInteger scanned = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Prepare a search; openFiles maps the files open in a tab to their editor, or to null for
+     * tabs that cannot be changed (read-only, partly loaded), which are then left out
+     */
+    public WorkspaceReplace(Path root, Query query, Map<Path, EditorTextArea> openFiles) {
+        this.root = root;
+        this.pattern = query.compile();
+        this.openFiles = openFiles;
+        this.replacement = query.regex() ? query.replace() : Matcher.quoteReplacement(query.replace());
+        this.constantReplacement = !query.regex() || (query.replace().indexOf('$') < 0 && query.replace().indexOf('\\') < 0)
+            ? query.replace() : null;
+
+        // Bytes every match must contain, UTF-8 matches byte for byte
+        if (!query.regex() && !query.find().isEmpty() && (query.matchCase() || isAscii(query.find()))) {
+            String literal = query.matchCase() ? query.find() : query.find().toLowerCase(Locale.ROOT);
+            this.needle = literal.getBytes(StandardCharsets.UTF_8);
+            this.needleIgnoresCase = !query.matchCase();
+        } else {
+            this.needle = null;
+            this.needleIgnoresCase = false;
+        }
+
+        String files = query.files() == null ? "" : query.files().trim();
+        this.fileFilter = files.isEmpty() ? null
+            : FileSystems.getDefault().getPathMatcher("glob:{" + files.replaceAll("\\s*[,;]\\s*", ",") + "}");
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Stop a running scan or apply, results found so far are kept
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public int getScannedCount() {
+        return scanned.get();
+    }
+
+    /**
+     * Files left out of the scan: binary, not UTF-8, too large, unreadable or in a read-only tab
+     */
+    public int getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * Search every file below the root, relativePaths is the file list of a PathIndex of the
+     * same root or null to walk the tree; blocks until done
+     */
+    public void scan(List<String> relativePaths, Listener listener) throws IOException, InterruptedException {
+        List<Path> files = new ArrayList<>();
+        if (relativePaths != null) {
+            // A file listed twice would be searched, and replaced, twice
+            for (String relative : new LinkedHashSet<>(relativePaths)) {
+                Path file = root.resolve(relative);
+                if (accepts(file)) {
+                    files.add(file);
+                }
+            }
+        } else {
+            walk(files);
+        }
+
+        runParallel("Search", files.size(), (index, buffers) -> {
+            try {
+                FileResult result = scanFile(files.get(index), buffers);
+                if (result != null) {
+                    listener.fileMatched(result);
+                }
+            } catch (IOException e) {
+                skipped.incrementAndGet();
+            }
+            listener.progress(scanned.incrementAndGet(), files.size());
+        });
+    }
+
+    /**
+     * Start a batch of replacements
+     */
+    public Batch newBatch(boolean dryRun) {
+        return new Batch(dryRun);
+    }
+
+    /**
+     * Rewrite the selected files that are not open in a tab; blocks until done
+     */
+    public void applyToFiles(List<FileResult> results, Batch batch, java.util.function.IntConsumer progress)
+            throws InterruptedException {
+        AtomicInteger done = new AtomicInteger();
+        runParallel("Replace", results.size(), (index, buffers) -> {
+            FileResult result = results.get(index);
+            try {
+                applyToFile(result, batch, buffers);
+            } catch (IOException e) {
+                batch.skipped.add(result.relativePath + ": " + e.getMessage());
+            }
+            progress.accept(done.incrementAndGet());
+        });
+    }
+
+    /**
+     * Replace in a tab through its document, as one undo step of that tab; on the EDT
+     */
+    public void applyToEditor(FileResult result, Batch batch) {
+        EditorTextArea editor = result.editor;
+        Document document = editor.getDocument();
+        if (!editor.isDisplayable() || !editor.isEditable() || ClipboardTransfer.isPasting(document)) {
+            batch.skipped.add(result.relativePath + ": tab closed or read-only");
+            return;
+        }
+        try {
+            applyToEditor(result, batch, editor, document, document.getText(0, document.getLength()));
+        } catch (BadLocationException e) {
+            batch.skipped.add(result.relativePath + ": " + e.getMessage());
+        }
+    }
+
+    private void applyToEditor(FileResult result, Batch batch, EditorTextArea editor, Document document, String text)
+            throws BadLocationException {
+        Matches matches = findAll(text);
+        if (!Arrays.equals(Arrays.copyOf(matches.starts, matches.count), result.starts)) {
+            batch.skipped.add(result.relativePath + ": edited since the preview");
+            return;
+        }
+        batch.replacements.addAndGet(matches.count);
+        batch.changedEditors++;
+        if (batch.dryRun) {
+            return;
+        }
+
+        int count = matches.count;
+        String[] texts = Arrays.copyOf(matches.replacements, count);
+        int[] after = editor.getOwner().replaceAll(Arrays.copyOf(matches.starts, count),
+            Arrays.copyOf(matches.ends, count), texts);
+        int[] starts = new int[count];
+        String[] originals = new String[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = after[i] - texts[i].length();
+            originals[i] = text.substring(matches.starts[i], matches.ends[i]);
+        }
+        batch.editors.add(new EditorChange(result.path, editor.getOwner(), starts, after, texts, originals,
+            document.getLength()));
+    }
+
+    private void applyToFile(FileResult result, Batch batch, Buffers buffers) throws IOException {
+        Path file = result.path;
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.size() != result.size || attributes.lastModifiedTime().toMillis() != result.lastModified) {
+            batch.skipped.add(result.relativePath + ": changed since the preview");
+            return;
+        }
+        CharBuffer text = read(file, buffers, false);
+        Matches matches = text != null ? findAll(text) : null;
+        if (matches == null || !Arrays.equals(Arrays.copyOf(matches.starts, matches.count), result.starts)) {
+            batch.skipped.add(result.relativePath + ": changed since the preview");
+            return;
+        }
+        batch.replacements.addAndGet(matches.count);
+        batch.changedFiles.incrementAndGet();
+        if (batch.dryRun) {
+            return;
+        }
+
+        // Unchanged parts go straight from the decoded buffer to the temporary file
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            char[] chars = text.array();
+            int base = text.arrayOffset() + text.position();
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temp),
+                    StandardCharsets.UTF_8.newEncoder()), 64 * 1024)) {
+                int copied = 0;
+                for (int i = 0; i < matches.count; i++) {
+                    out.write(chars, base + copied, matches.starts[i] - copied);
+                    out.write(matches.replacements[i]);
+                    copied = matches.ends[i];
+                }
+                out.write(chars, base + copied, text.remaining() - copied);
+            }
+            AtomicFiles.copyPermissions(file, temp);
+            Path backup = batch.newBackup();
+            Files.copy(file, backup, StandardCopyOption.REPLACE_EXISTING);
+            AtomicFiles.moveOver(temp, file);
+            BasicFileAttributes written = Files.readAttributes(file, BasicFileAttributes.class);
+            batch.files.add(new FileChange(file, backup, written.size(), written.lastModifiedTime().toMillis()));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private FileResult scanFile(Path file, Buffers buffers) throws IOException {
+        String relative = root.relativize(file).toString().replace('\\', '/');
+        if (openFiles.containsKey(file)) {
+            EditorTextArea editor = openFiles.get(file);
+            if (editor == null) {
+                skipped.incrementAndGet();
+                return null;
+            }
+            Document document = editor.getDocument();
+            String[] text = new String[1];
+            document.render(() -> {
+                try {
+                    text[0] = document.getText(0, document.getLength());
+                } catch (BadLocationException e) {
+                    text[0] = "";  // Offsets come from the document while the read lock is held
+                }
+            });
+            return collect(file, relative, editor, text[0], 0, 0);
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        CharBuffer text = read(file, buffers, true);
+        return text != null
+            ? collect(file, relative, null, text, attributes.size(), attributes.lastModifiedTime().toMillis())
+            : null;
+    }
+
+    private FileResult collect(Path file, String relative, EditorTextArea editor, CharSequence text,
+                               long size, long lastModified) {
+        Matches matches = findAll(text);
+        if (matches.count == 0) {
+            return null;
+        }
+
+        // Lines of the first matches, counted as we go
+        List<Match> preview = new ArrayList<>(Math.min(matches.count, MAX_PREVIEW_MATCHES));
+        int line = 0;
+        int counted = 0;
+        int lineStart = 0;
+        for (int i = 0; i < matches.count && i < MAX_PREVIEW_MATCHES; i++) {
+            int start = matches.starts[i];
+            for (; counted < start; counted++) {
+                if (text.charAt(counted) == '\n') {
+                    line++;
+                    lineStart = counted + 1;
+                }
+            }
+            int lineEnd = start;
+            while (lineEnd < text.length() && text.charAt(lineEnd) != '\n' && lineEnd - start < MAX_PREVIEW_CHARS) {
+                lineEnd++;
+            }
+            int from = lineEnd - lineStart > MAX_PREVIEW_CHARS ? Math.max(lineStart, start - MAX_PREVIEW_CHARS / 4) : lineStart;
+            int to = Math.min(lineEnd, from + MAX_PREVIEW_CHARS);
+            int length = Math.max(0, Math.min(matches.ends[i], to) - start);
+            preview.add(new Match(line, text.subSequence(from, to).toString(), start - from, length,
+                matches.replacements[i]));
+        }
+        return new FileResult(file, relative, editor, size, lastModified,
+            Arrays.copyOf(matches.starts, matches.count), preview);
+    }
+
+    private Matches findAll(CharSequence text) {
+        Matches matches = new Matches();
+        Matcher matcher = pattern.matcher(text);
+        StringBuilder expanded = constantReplacement == null ? new StringBuilder() : null;
+        int appended = 0;
+        while (matcher.find()) {
+            String replaced;
+            if (expanded != null) {
+                // appendReplacement also copies the text since the previous match, cut that off
+                matcher.appendReplacement(expanded, replacement);
+                replaced = expanded.substring(matcher.start() - appended);
+                expanded.setLength(0);
+                appended = matcher.end();
+            } else {
+                replaced = constantReplacement;
+            }
+            matches.add(matcher.start(), matcher.end(), replaced);
+        }
+        return matches;
+    }
+
+    /**
+     * Read and decode a file, null if it is binary, not UTF-8, too large or has no byte match
+     */
+    private CharBuffer read(Path file, Buffers buffers, boolean prefilter) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_FILE_BYTES) {
+                skipped.incrementAndGet();
+                return null;
+            }
+            if (size >= MAP_MIN_BYTES) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                if (buffers.bytes.capacity() < size) {
+                    buffers.bytes = ByteBuffer.allocate((int) size);
+                }
+                bytes = buffers.bytes;
+                bytes.clear().limit((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                    // Read until full or the file turns out shorter
+                }
+                bytes.flip();
+            }
+        }
+
+        if (isBinary(bytes)) {
+            skipped.incrementAndGet();
+            return null;
+        }
+        if (prefilter && needle != null && !contains(bytes, needle, needleIgnoresCase)) {
+            return null;
+        }
+
+        if (buffers.chars.capacity() < bytes.remaining()) {
+            buffers.chars = CharBuffer.allocate(bytes.remaining());
+        }
+        CharBuffer chars = buffers.chars;
+        chars.clear();
+        CharsetDecoder decoder = buffers.decoder.reset();
+        CoderResult result = decoder.decode(bytes, chars, true);
+        if (!result.isError()) {
+            result = decoder.flush(chars);
+        }
+        if (result.isError()) {
+            skipped.incrementAndGet();
+            return null;
+        }
+        chars.flip();
+        return chars;
+    }
+
+    private static boolean isBinary(ByteBuffer bytes) {
+        int end = Math.min(bytes.limit(), bytes.position() + BINARY_PROBE_BYTES);
+        for (int i = bytes.position(); i < end; i++) {
+            if (bytes.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(ByteBuffer bytes, byte[] needle, boolean ignoreAsciiCase) {
+        int last = bytes.limit() - needle.length;
+        byte first = needle[0];
+        for (int i = bytes.position(); i <= last; i++) {
+            if (fold(bytes.get(i), ignoreAsciiCase) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && fold(bytes.get(i + j), ignoreAsciiCase) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte fold(byte b, boolean ignoreAsciiCase) {
+        return ignoreAsciiCase && b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean accepts(Path file) {
+        return fileFilter == null || fileFilter.matches(file.getFileName());
+    }
+
+    /**
+     * Collect the non-hidden files below the root, as the PathIndex does
+     */
+    private void walk(List<Path> files) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (cancelled) {
+                    return FileVisitResult.TERMINATE;
+                }
+                return !dir.equals(root) && isHidden(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && !isHidden(file) && accepts(file)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE; // Unreadable entries are skipped
+            }
+        });
+    }
+
+    private static boolean isHidden(Path path) {
+        Path name = path.getFileName();
+        return name != null && name.toString().startsWith(".");
+    }
+
+    /**
+     * Run work for every index on WORKERS I/O tasks and wait for them. The fixed number of
+     * workers is what bounds the disk load; they don't take the executor's heavy permits,
+     * which they would hold for the whole scan and starve every open and save.
+     */
+    private void runParallel(String name, int count, FileWork work) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(WORKERS);
+        for (int w = 0; w < WORKERS; w++) {
+            IoExecutor.get().task(name + " in " + root.getFileName(), () -> {
+                try {
+                    Buffers buffers = new Buffers();
+                    int index;
+                    while (!cancelled && (index = next.getAndIncrement()) < count) {
+                        work.run(index, buffers);
+                    }
+                } finally {
+                    finished.countDown();
+                }
+                return null;
+            }).start();
+        }
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            cancelled = true;  // The workers stop after their current file
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.noteuyg;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * WorkspaceReplaceDialog - Find and replace in every file below the File Explorer root
+ *
+ * Preview scans the files and lists those with matches as they are found; each can be left
+ * out before replacing. Dry run goes through the whole replace, including checking that the
+ * files did not change since the preview, but writes nothing. The last replace can be undone
+ * as a batch, also after closing the dialog.
+ */
+public class WorkspaceReplaceDialog extends JDialog {
+
+    private final PathIndex index;
+    private final Supplier<Path> root;
+    private final Supplier<Map<Path, EditorTextArea>> openFiles;
+    private final Consumer<File> opener;
+
+    private final JTextField findField = new JTextField(30);
+    private final JTextField replaceField = new JTextField(30);
+    private final JTextField filesField = new JTextField(30);
+    private final JCheckBox matchCaseBox = new JCheckBox("Match case");
+    private final JCheckBox wholeWordBox = new JCheckBox("Whole word");
+    private final JCheckBox regexBox = new JCheckBox("Regular expression");
+    private final JCheckBox dryRunBox = new JCheckBox("Dry run");
+    private final JButton previewButton = new JButton("Preview");
+    private final JButton replaceButton = new JButton("Replace");
+    private final JButton undoButton = new JButton("Undo Last Replace");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final ResultModel resultModel = new ResultModel();
+    private final JTable resultTable = new JTable(resultModel);
+    private final DefaultListModel<WorkspaceReplace.Match> matchModel = new DefaultListModel<>();
+    private final JList<WorkspaceReplace.Match> matchList = new JList<>(matchModel);
+
+    private WorkspaceReplace search;
+    private IoTask<Void> scanTask;
+    private boolean applying = false;
+    private WorkspaceReplace.Batch lastBatch;
+
+    public WorkspaceReplaceDialog(Frame owner, PathIndex index, Supplier<Path> root,
+                                  Supplier<Map<Path, EditorTextArea>> openFiles, Consumer<File> opener) {
+        super(owner, "Replace in Workspace", false);
+        this.index = index;
+        this.root = root;
+        this.openFiles = openFiles;
+        this.opener = opener;
+
+        filesField.setToolTipText("File name patterns, e.g. *.java, *.xml (empty for all files)");
+        dryRunBox.setToolTipText("Check and count the replacements without changing any file or tab");
+        previewButton.addActionListener(e -> {
+            if (scanTask != null) {
+                stopScan();
+            } else {
+                startScan();
+            }
+        });
+        findField.addActionListener(e -> startScan());
+        replaceButton.addActionListener(e -> replace());
+        undoButton.addActionListener(e -> undoLastReplace());
+        replaceButton.setEnabled(false);
+        undoButton.setEnabled(false);
+
+        JPanel fields = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(2, 2, 2, 2);
+        c.anchor = GridBagConstraints.WEST;
+        addRow(fields, c, 0, "Find:", findField);
+        addRow(fields, c, 1, "Replace with:", replaceField);
+        addRow(fields, c, 2, "Files:", filesField);
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        options.add(matchCaseBox);
+        options.add(wholeWordBox);
+        options.add(regexBox);
+        options.add(dryRunBox);
+        c.gridx = 1;
+        c.gridy = 3;
+        fields.add(options, c);
+
+        JPanel buttons = new JPanel(new GridLayout(0, 1, 0, 4));
+        buttons.add(previewButton);
+        buttons.add(replaceButton);
+        buttons.add(undoButton);
+        JPanel buttonColumn = new JPanel(new BorderLayout());
+        buttonColumn.add(buttons, BorderLayout.NORTH);
+
+        JPanel top = new JPanel(new BorderLayout(8, 0));
+        top.add(fields, BorderLayout.CENTER);
+        top.add(buttonColumn, BorderLayout.EAST);
+
+        resultTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultTable.getColumnModel().getColumn(0).setMaxWidth(30);
+        resultTable.getColumnModel().getColumn(2).setMaxWidth(80);
+        resultTable.getSelectionModel().addListSelectionListener(e -> showMatches());
+        resultTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelected();
+                }
+            }
+        });
+        matchList.setCellRenderer(new MatchRenderer());
+        matchList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelected();
+                }
+            }
+        });
+        JSplitPane results = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(resultTable), new JScrollPane(matchList));
+        results.setResizeWeight(0.5);
+
+        JPanel panel = new JPanel(new BorderLayout(0, 6));
+        panel.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(results, BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(panel);
+        getRootPane().registerKeyboardAction(e -> setVisible(false),
+            KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        setSize(760, 560);
+        setLocationRelativeTo(owner);
+    }
+
+    private static void addRow(JPanel panel, GridBagConstraints c, int row, String label, JComponent field) {
+        c.gridx = 0;
+        c.gridy = row;
+        c.fill = GridBagConstraints.NONE;
+        c.weightx = 0;
+        panel.add(new JLabel(label), c);
+        c.gridx = 1;
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.weightx = 1;
+        panel.add(field, c);
+    }
+
+    /**
+     * Show the dialog, with the selected text as the query if there is one
+     */
+    public void showFor(String selectedText) {
+        if (selectedText != null && !selectedText.isEmpty() && selectedText.indexOf('\n') < 0) {
+            findField.setText(selectedText);
+        }
+        setVisible(true);
+        findField.requestFocusInWindow();
+        findField.selectAll();
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (!visible) {
+            stopScan();
+        }
+        super.setVisible(visible);
+    }
+
+    private WorkspaceReplace.Query query() {
+        return new WorkspaceReplace.Query(findField.getText(), replaceField.getText(), regexBox.isSelected(),
+            matchCaseBox.isSelected(), wholeWordBox.isSelected(), filesField.getText());
+    }
+
+    private void startScan() {
+        if (applying) {
+            return;
+        }
+        stopScan();
+        resultModel.clear();
+        matchModel.clear();
+        replaceButton.setEnabled(false);
+
+        Path directory = root.get();
+        if (directory == null) {
+            statusLabel.setText("Select a directory in the File Explorer first");
+            return;
+        }
+        if (findField.getText().isEmpty()) {
+            statusLabel.setText("Enter the text to find");
+            return;
+        }
+        WorkspaceReplace scan;
+        try {
+            scan = new WorkspaceReplace(directory, query(), openFiles.get());
+        } catch (PatternSyntaxException e) {
+            statusLabel.setText("Invalid pattern: " + e.getDescription());
+            return;
+        }
+
+        // The index already knows every file of a tree it has finished walking
+        List<String> indexed = directory.equals(index.getRoot()) ? index.relativePaths() : null;
+        search = scan;
+        statusLabel.setText("Searching " + directory + "...");
+        previewButton.setText("Stop");
+        scanTask = IoExecutor.get().task("Search " + directory.getFileName(), () -> {
+            scan.scan(indexed, new WorkspaceReplace.Listener() {
+                @Override
+                public void fileMatched(WorkspaceReplace.FileResult result) {
+                    EdtDispatcher.get().dispatch(() -> {
+                        if (search == scan) {
+                            resultModel.add(result);
+                        }
+                    });
+                }
+
+                @Override
+                public void progress(int scanned, int total) {
+                    EdtDispatcher.get().dispatchLatest(WorkspaceReplaceDialog.this, () -> {
+                        if (search == scan && scanTask != null) {
+                            statusLabel.setText("Searching... " + scanned + " of " + total + " files, "
+                                + resultModel.getMatchCount() + " matches in " + resultModel.getRowCount() + " files");
+                        }
+                    });
+                }
+            });
+            return (Void) null;
+        }).onSuccess(ignored -> {
+            scanTask = null;
+            previewButton.setText("Preview");
+            replaceButton.setEnabled(resultModel.getRowCount() > 0);
+            statusLabel.setText(resultModel.getMatchCount() + " matches in " + resultModel.getRowCount()
+                + " files (" + scan.getScannedCount() + " files searched, " + scan.getSkippedCount() + " skipped)");
+            if (resultModel.getRowCount() > 0 && resultTable.getSelectedRow() < 0) {
+                resultTable.setRowSelectionInterval(0, 0);
+            }
+        }).onFailure(e -> {
+            scanTask = null;
+            previewButton.setText("Preview");
+            statusLabel.setText("Search failed: " + e.getMessage());
+        }).start();
+    }
+
+    private void stopScan() {
+        if (scanTask != null) {
+            scanTask.cancel();
+            scanTask = null;
+            search.cancel();
+            previewButton.setText("Preview");
+            replaceButton.setEnabled(resultModel.getRowCount() > 0);
+            statusLabel.setText("Stopped, " + resultModel.getMatchCount() + " matches in "
+                + resultModel.getRowCount() + " files so far");
+        }
+    }
+
+    private void replace() {
+        if (scanTask != null || applying || search == null) {
+            return;
+        }
+        List<WorkspaceReplace.FileResult> onDisk = new ArrayList<>();
+        List<WorkspaceReplace.FileResult> inTabs = new ArrayList<>();
+        int matches = 0;
+        for (WorkspaceReplace.FileResult result : resultModel.results) {
+            if (result.isSelected()) {
+                (result.getEditor() != null ? inTabs : onDisk).add(result);
+                matches += result.getMatchCount();
+            }
+        }
+        if (onDisk.isEmpty() && inTabs.isEmpty()) {
+            return;
+        }
+        boolean dryRun = dryRunBox.isSelected();
+        if (!dryRun && JOptionPane.showConfirmDialog(this,
+                "Replace " + matches + " matches in " + (onDisk.size() + inTabs.size()) + " files?\n"
+                    + (inTabs.isEmpty() ? "" : inTabs.size() + " of them are open and are changed in their tab, unsaved.\n")
+                    + "Undo Last Replace puts everything back.",
+                "Replace in Workspace", JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE)
+                != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        // Only the last replace can be undone
+        if (!dryRun && lastBatch != null) {
+            lastBatch.discard();
+            lastBatch = null;
+            undoButton.setEnabled(false);
+        }
+
+        WorkspaceReplace replacing = search;
+        WorkspaceReplace.Batch batch = replacing.newBatch(dryRun);
+        setApplying(true);
+        IoExecutor.get().task("Replace in " + replacing.getRoot().getFileName(), () -> {
+            replacing.applyToFiles(onDisk, batch, done -> EdtDispatcher.get().dispatchLatest(this,
+                () -> statusLabel.setText((dryRun ? "Checking... " : "Writing... ") + done + " of " + onDisk.size() + " files")));
+            return batch;
+        }).onSuccess(applied -> {
+            for (WorkspaceReplace.FileResult result : inTabs) {
+                replacing.applyToEditor(result, applied);
+            }
+            setApplying(false);
+            if (!dryRun) {
+                lastBatch = applied;
+                undoButton.setEnabled(true);
+                resultModel.clear();
+                matchModel.clear();
+                replaceButton.setEnabled(false);
+            }
+            statusLabel.setText((dryRun ? "Dry run: would replace " : "Replaced ") + applied.getReplacementCount()
+                + " matches in " + applied.getFileCount() + " files and " + applied.getEditorCount() + " open tabs"
+                + (applied.getSkipped().isEmpty() ? "" : ", " + applied.getSkipped().size() + " skipped"));
+            showSkipped(applied.getSkipped(), "Replace in Workspace");
+        }).onFailure(e -> {
+            setApplying(false);
+            statusLabel.setText("Replace failed: " + e.getMessage());
+        }).start();
+    }
+
+    private void undoLastReplace() {
+        WorkspaceReplace.Batch batch = lastBatch;
+        if (batch == null || applying) {
+            return;
+        }
+        if (JOptionPane.showConfirmDialog(this,
+                "Put back the " + batch.getFileCount() + " files and " + batch.getEditorCount()
+                    + " tabs changed by the last replace?\nFiles and tabs edited since then are left alone.",
+                "Undo Last Replace", JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE)
+                != JOptionPane.OK_OPTION) {
+            return;
+        }
+        lastBatch = null;
+        undoButton.setEnabled(false);
+        setApplying(true);
+        int skippedBefore = batch.getSkipped().size();
+        IoExecutor.get().task("Undo replace", () -> {
+            batch.undoFiles();
+            return batch;
+        }).onSuccess(undone -> {
+            undone.undoEditors();
+            undone.discard();
+            setApplying(false);
+            List<String> skipped = undone.getSkipped();
+            skipped = skipped.subList(skippedBefore, skipped.size());
+            statusLabel.setText("Undid the last replace" + (skipped.isEmpty() ? "" : ", " + skipped.size() + " not restored"));
+            showSkipped(skipped, "Undo Last Replace");
+        }).onFailure(e -> {
+            setApplying(false);
+            statusLabel.setText("Undo failed: " + e.getMessage());
+        }).start();
+    }
+
+    private void setApplying(boolean applying) {
+        this.applying = applying;
+        previewButton.setEnabled(!applying);
+        replaceButton.setEnabled(!applying && resultModel.getRowCount() > 0);
+        undoButton.setEnabled(!applying && lastBatch != null);
+    }
+
+    private void showSkipped(List<String> skipped, String title) {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        JOptionPane.showMessageDialog(this,
+            "Left alone:\n" + String.join("\n", skipped.subList(0, Math.min(skipped.size(), 10)))
+                + (skipped.size() > 10 ? "\n..." : ""),
+            title, JOptionPane.WARNING_MESSAGE);
+    }
+
+    private void showMatches() {
+        matchModel.clear();
+        int row = resultTable.getSelectedRow();
+        if (row >= 0) {
+            for (WorkspaceReplace.Match match : resultModel.results.get(row).getPreview()) {
+                matchModel.addElement(match);
+            }
+        }
+    }
+
+    private void openSelected() {
+        int row = resultTable.getSelectedRow();
+        if (row >= 0) {
+            opener.accept(resultModel.results.get(row).getPath().toFile());
+        }
+    }
+
+    /**
+     * Files with matches, the first column says whether the file is part of the replace
+     */
+    private static class ResultModel extends AbstractTableModel {
+
+        private static final String[] COLUMNS = {"", "File", "Matches"};
+
+        private final List<WorkspaceReplace.FileResult> results = new ArrayList<>();
+        private int matchCount = 0;
+
+        void add(WorkspaceReplace.FileResult result) {
+            results.add(result);
+            matchCount += result.getMatchCount();
+            fireTableRowsInserted(results.size() - 1, results.size() - 1);
+        }
+
+        void clear() {
+            results.clear();
+            matchCount = 0;
+            fireTableDataChanged();
+        }
+
+        int getMatchCount() {
+            return matchCount;
+        }
+
+        @Override
+        public int getRowCount() {
+            return results.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? Boolean.class : column == 2 ? Integer.class : String.class;
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 0;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            WorkspaceReplace.FileResult result = results.get(row);
+            switch (column) {
+                case 0:
+                    return result.isSelected();
+                case 1:
+                    return result.getRelativePath() + (result.getEditor() != null ? "  (open tab)" : "");
+                default:
+                    return result.getMatchCount();
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            if (column == 0) {
+                results.get(row).setSelected(Boolean.TRUE.equals(value));
+                fireTableCellUpdated(row, column);
+            }
+        }
+    }
+
+    /**
+     * Shows the line of a match with the matched text struck out and the replacement after it
+     */
+    private static class MatchRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            WorkspaceReplace.Match match = (WorkspaceReplace.Match) value;
+            String line = match.lineText();
+            int end = match.column() + match.length();
+            setText("<html><font color=gray>" + (match.line() + 1) + ":</font>&nbsp;"
+                + escape(line.substring(0, match.column()).stripLeading())
+                + "<strike>" + escape(line.substring(match.column(), end)) + "</strike>"
+                + "<b>" + escape(match.replacement()) + "</b>"
+                + escape(line.substring(end)) + "</html>");
+            return this;
+        }
+
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\t", "    ");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.noteuyg;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Iterator;
+
+/**
+ * ZoomedIcon - An image tab's icon drawn at a zoom factor
+ *
+ * Zooming in draws the decoded image scaled, clipped to what is visible. Zooming a large
+ * image out would scale the full bitmap down on every paint, so the file is decoded once
+ * more with ImageIO source subsampling (every n-th pixel of every n-th row) into a small
+ * image close to the zoomed size, which is then drawn instead.
+ */
+public class ZoomedIcon implements Icon {
+
+    // Below this many pixels scaling the decoded image is fast enough
+    private static final long SUBSAMPLE_MIN_PIXELS = 4_000_000;
+
+    private final Icon source;
+    private final double zoom;
+    private final File file;
+    private volatile BufferedImage subsampled;
+    private boolean decoding = false;
+
+    public ZoomedIcon(Icon source, double zoom, File file) {
+        this.source = source;
+        this.zoom = zoom;
+        this.file = file;
+    }
+
+    public Icon getSource() {
+        return source;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Estimated bytes of the subsampled copy, if one was made
+     */
+    public long getExtraBytes() {
+        BufferedImage image = subsampled;
+        return image != null ? 4L * image.getWidth() * image.getHeight() : 0;
+    }
+
+    @Override
+    public int getIconWidth() {
+        return (int) Math.round(source.getIconWidth() * zoom);
+    }
+
+    @Override
+    public int getIconHeight() {
+        return (int) Math.round(source.getIconHeight() * zoom);
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            BufferedImage small = subsampled;
+            if (small != null) {
+                g2.drawImage(small, x, y, getIconWidth(), getIconHeight(), null);
+                return;
+            }
+            if (zoom <= 0.5 && source instanceof ImageIcon
+                    && (long) source.getIconWidth() * source.getIconHeight() >= SUBSAMPLE_MIN_PIXELS) {
+                decodeSubsampled(c);
+            }
+            g2.translate(x, y);
+            g2.scale(zoom, zoom);
+            source.paintIcon(c, g2, 0, 0);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Decode the file again at 1/n of its size in the background, n a power of two
+     */
+    private void decodeSubsampled(Component c) {
+        if (decoding) {
+            return;
+        }
+        decoding = true;
+        int step = Integer.highestOneBit((int) Math.floor(1 / zoom));
+        IoExecutor.get().task("Subsample " + file.getName(), () -> {
+            try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) {
+                    return null;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(step, step, 0, 0);
+                    return reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }).heavy().onSuccess(image -> {
+            if (image != null) {
+                subsampled = image;
+                c.repaint();
+            }
+        }).start();
+    }
+}